@@ -38,6 +38,13 @@ public class ClientWiredChronicleQueueStateless extends AbstractStatelessClient
 
     private ClientWiredStatelessTcpConnectionHub hub;
     private String name;
+    // documents sent in one submitBatch
+    private int appendBatchSize = 64;
+    // submitBatch requests sent before waiting for the oldest reply
+    private int maxAppendsInFlight = 8;
+    // credit granted to the server per readBatch, in excerpts and bytes
+    private int readBatchCount = 256;
+    private int readBatchBytes = 256 << 10;
 
     public ClientWiredChronicleQueueStateless(ClientWiredStatelessTcpConnectionHub hub, String name) {
         super(name, hub, "QUEUE", 0);
@@ -87,6 +94,42 @@ public class ClientWiredChronicleQueueStateless extends AbstractStatelessClient
         return proxyReturnLong(EventId.lastWrittenIndex);
     }
 
+    public int appendBatchSize() {
+        return appendBatchSize;
+    }
+
+    public ClientWiredChronicleQueueStateless appendBatchSize(int appendBatchSize) {
+        this.appendBatchSize = appendBatchSize;
+        return this;
+    }
+
+    public int maxAppendsInFlight() {
+        return maxAppendsInFlight;
+    }
+
+    public ClientWiredChronicleQueueStateless maxAppendsInFlight(int maxAppendsInFlight) {
+        this.maxAppendsInFlight = maxAppendsInFlight;
+        return this;
+    }
+
+    public int readBatchCount() {
+        return readBatchCount;
+    }
+
+    public ClientWiredChronicleQueueStateless readBatchCount(int readBatchCount) {
+        this.readBatchCount = readBatchCount;
+        return this;
+    }
+
+    public int readBatchBytes() {
+        return readBatchBytes;
+    }
+
+    public ClientWiredChronicleQueueStateless readBatchBytes(int readBatchBytes) {
+        this.readBatchBytes = readBatchBytes;
+        return this;
+    }
+
     @Override
     public void close() throws IOException {
         // todo add ref count
@@ -97,8 +140,13 @@ public class ClientWiredChronicleQueueStateless extends AbstractStatelessClient
         createAppender,
         createTailer,
         submit,
+        submitBatch,
         hasNext,
-        index;
+        readBatch,
+        index,
+        credit,
+        maxBytes,
+        excerpts;
 
         private final WireKey[] params;
 
@@ -5,22 +5,38 @@ import net.openhft.chronicle.engine.client.ClientWiredStatelessTcpConnectionHub;
 import net.openhft.chronicle.map.AbstractStatelessClient;
 import net.openhft.chronicle.queue.ChronicleQueue;
 import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.wire.ValueIn;
 import net.openhft.chronicle.wire.Wire;
 import net.openhft.chronicle.wire.WireOut;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Function;
 
 import static net.openhft.chronicle.engine.client.internal.ClientWiredChronicleQueueStateless.EventId;
 
-/*
+/**
  * Created by daniel on 14/04/15.
+ * <p>
+ * Appends to a remote queue without waiting for each document to be acknowledged.
+ * <p>
+ * Documents are sent in batches of {@code appendBatchSize} with one submitBatch request, and up to
+ * {@code maxAppendsInFlight} requests are sent before waiting for the reply to the oldest one.
+ * {@link #flush()} and {@link #lastWrittenIndex()} send any partial batch and wait for every reply.
  */
 public class ClientWiredExcerptAppenderStateless extends AbstractStatelessClient implements ExcerptAppender {
 
-    private final Bytes source = Bytes.elasticByteBuffer();
-    private final Wire wire;
+    private final List<Bytes> batch = new ArrayList<>();
+    private final List<Wire> wires = new ArrayList<>();
+    private final ArrayDeque<Long> tidsInFlight = new ArrayDeque<>();
+    private final int appendBatchSize;
+    private final int maxAppendsInFlight;
     private ChronicleQueue queue;
+    private Bytes source;
+    private Wire wire;
+    private int batchCount = 0;
     private long cid;
     private long lastWrittenIndex = -1;
 
@@ -30,9 +46,16 @@ public class ClientWiredExcerptAppenderStateless extends AbstractStatelessClient
         super(queue.name(), hub, "QUEUE", 0);
         this.queue = queue;
         this.csp = "//" + queue.name() + "?view=QUEUE";
+        this.appendBatchSize = queue.appendBatchSize();
+        this.maxAppendsInFlight = queue.maxAppendsInFlight();
         QueueAppenderResponse qar = (QueueAppenderResponse) proxyReturnMarshallable(EventId.createAppender);
         this.cid = qar.getCid();
-        this.wire = wireWrapper.apply(source);
+        for (int i = 0; i < appendBatchSize; i++) {
+            Bytes bytes = Bytes.elasticByteBuffer();
+            batch.add(bytes);
+            wires.add(wireWrapper.apply(bytes));
+        }
+        nextSource();
     }
 
     @Nullable
@@ -46,11 +69,50 @@ public class ClientWiredExcerptAppenderStateless extends AbstractStatelessClient
         source.clear();
         writer.accept(wire);
         source.flip();
-        lastWrittenIndex = proxyBytesReturnLong(EventId.submit, source, EventId.index);
+        if (++batchCount == appendBatchSize)
+            sendBatch();
+        nextSource();
+    }
+
+    /**
+     * Sends any partial batch and waits until every document sent has been written.
+     */
+    public void flush() {
+        if (batchCount > 0) {
+            sendBatch();
+            nextSource();
+        }
+        while (!tidsInFlight.isEmpty())
+            readOldestReply();
+    }
+
+    private void sendBatch() {
+        if (tidsInFlight.size() >= maxAppendsInFlight)
+            readOldestReply();
+
+        final int count = batchCount;
+        long tid = sendEvent(System.currentTimeMillis(), EventId.submitBatch, valueOut ->
+                valueOut.sequence(out -> {
+                    for (int i = 0; i < count; i++)
+                        out.bytes(batch.get(i));
+                }));
+        tidsInFlight.add(tid);
+        batchCount = 0;
+    }
+
+    private void readOldestReply() {
+        long tid = tidsInFlight.poll();
+        lastWrittenIndex = readWire(tid, System.currentTimeMillis(), EventId.index, ValueIn::int64);
+    }
+
+    private void nextSource() {
+        source = batch.get(batchCount);
+        wire = wires.get(batchCount);
     }
 
     @Override
     public long lastWrittenIndex() {
+        flush();
         return lastWrittenIndex;
     }
 
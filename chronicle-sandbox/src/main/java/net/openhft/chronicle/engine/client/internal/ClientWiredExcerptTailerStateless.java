@@ -2,9 +2,11 @@ package net.openhft.chronicle.engine.client.internal;
 
 import net.openhft.chronicle.bytes.Bytes;
 import net.openhft.chronicle.engine.client.ClientWiredStatelessTcpConnectionHub;
-import net.openhft.chronicle.map.AbstactStatelessClient;
+import net.openhft.chronicle.map.AbstractStatelessClient;
 import net.openhft.chronicle.queue.ChronicleQueue;
 import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.Wire;
+import net.openhft.chronicle.wire.WireIn;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -13,17 +15,32 @@ import java.util.function.Function;
 
 import static net.openhft.chronicle.engine.client.internal.ClientWiredChronicleQueueStateless.EventId;
 
-/*
+/**
  * Created by daniel on 14/04/15.
+ * <p>
+ * Reads a remote queue a batch at a time.
+ * <p>
+ * Each readBatch request grants the server credit for up to {@code readBatchCount} excerpts or
+ * {@code readBatchBytes} bytes, and the server never sends more than it has been granted. When a full batch
+ * arrives, the request for the next one is sent before the batch is consumed, so the next batch is on its way
+ * while this one is read.
  */
-public class ClientWiredExcerptTailerStateless extends AbstactStatelessClient implements ExcerptTailer {
+public class ClientWiredExcerptTailerStateless extends AbstractStatelessClient implements ExcerptTailer {
 
     private final Bytes source = Bytes.elasticByteBuffer();
+    private final Bytes received = Bytes.elasticByteBuffer();
     private final Wire wire;
+    private final int readBatchCount;
+    private final int readBatchBytes;
     long index = -1;
     private ChronicleQueue queue;
     private long cid;
     private long lastWrittenIndex;
+    // the number of excerpts in received not read yet
+    private int receivedCount = 0;
+    // the tid of the readBatch request in flight, or -1
+    private long pendingTid = -1;
+    private long pendingStartTime;
 
     public ClientWiredExcerptTailerStateless(ClientWiredChronicleQueueStateless queue,
                                              ClientWiredStatelessTcpConnectionHub hub,
@@ -31,6 +48,8 @@ public class ClientWiredExcerptTailerStateless extends AbstactStatelessClient im
         super(queue.name(), hub, "QUEUE", 0);
         this.queue = queue;
         this.csp = "//" + queue.name() + "?view=QUEUE";
+        this.readBatchCount = queue.readBatchCount();
+        this.readBatchBytes = queue.readBatchBytes();
         QueueTailerResponse qar = (QueueTailerResponse) proxyReturnMarshallable(EventId.createTailer);
         this.cid = qar.getCid();
         this.wire = wireWrapper.apply(source);
@@ -44,19 +63,62 @@ public class ClientWiredExcerptTailerStateless extends AbstactStatelessClient im
 
     @Override
     public boolean readDocument(Consumer<WireIn> reader) {
-        proxyReturnWireConsumerInOut(EventId.hasNext,
-                CoreFields.reply, (WriteValue) valueOut -> {
-                    WriteMarshallable writeMarshallable = w -> w.write(EventId.index).int64(index + 1);
-                    valueOut.marshallable(writeMarshallable);
-                },
-                (Function<WireIn, Void>) w -> {
-                    w.read(EventId.index).int64(x -> index = x)
-                            .read(CoreFields.reply).bytes(reader);
-                    return null;
-                });
+        if (receivedCount == 0) {
+            if (pendingTid == -1)
+                requestBatch(index + 1);
+            int count = readBatch();
+            // a full batch means there is likely more, so ask for it while this one is read
+            if (count == readBatchCount)
+                requestBatch(index + count + 1);
+            if (count == 0)
+                return false;
+        }
+
+        int length = received.readInt();
+        source.clear();
+        source.write(received, received.readPosition(), length);
+        received.readSkip(length);
+        source.flip();
+        receivedCount--;
+        index++;
+        reader.accept(wire);
         return true;
     }
 
+    private void requestBatch(long fromIndex) {
+        pendingStartTime = System.currentTimeMillis();
+        pendingTid = sendEvent(pendingStartTime, EventId.readBatch, valueOut ->
+                valueOut.marshallable(w -> w.write(EventId.index).int64(fromIndex)
+                        .write(EventId.credit).int32(readBatchCount)
+                        .write(EventId.maxBytes).int32(readBatchBytes)));
+    }
+
+    /**
+     * Reads the reply to the readBatch in flight into received, each excerpt prefixed with its length.
+     *
+     * @return the number of excerpts received
+     */
+    private int readBatch() {
+        long tid = pendingTid;
+        pendingTid = -1;
+        received.clear();
+        receivedCount = 0;
+        readWire(tid, pendingStartTime, CoreFields.reply, valueIn -> {
+            // the excerpts are consecutive from this index
+            valueIn.marshallable(w -> w.read(EventId.index).int64(x -> index = x - 1).read(EventId.excerpts).sequence(excerpts -> {
+                while (excerpts.hasNextSequenceItem()) {
+                    Bytes bytes = excerpts.bytes();
+                    received.writeInt((int) bytes.remaining());
+                    received.write(bytes);
+                    receivedCount++;
+                }
+            }));
+            return null;
+        });
+        received.flip();
+        return receivedCount;
+    }
+
     @Override
     public boolean index(long l) {
         return false;
@@ -58,6 +58,8 @@ public class QueueWireHandler implements WireHandler, Consumer<WireHandlers> {
     private AtomicInteger cidCounter = new AtomicInteger();
     private Map<ChronicleQueue, ExcerptAppender> queueToAppender = new ConcurrentHashMap<>();
     private Map<ChronicleQueue, ExcerptTailer> queueToTailer = new ConcurrentHashMap<>();
+    // bytes added to the readBatch reply being written
+    private long batchBytes;
 
     public QueueWireHandler() {
     }
@@ -124,6 +126,18 @@ public class QueueWireHandler implements WireHandler, Consumer<WireHandlers> {
 
                             outWire.writeDocument(false, wire -> wire.write(EventId.index).int64(appender.lastWrittenIndex()));
 
+                        } else if (EventId.submitBatch.contentEquals(eventName)) {
+                            ExcerptAppender appender = queueToAppender.get(queue);
+                            vin.sequence(documents -> {
+                                while (documents.hasNextSequenceItem()) {
+                                    Bytes<?> document = documents.bytes();
+                                    appender.writeDocument(wo -> wo.bytes().write(document));
+                                }
+                            });
+
+                            // one reply for the whole batch
+                            outWire.writeDocument(false, wire -> wire.write(EventId.index).int64(appender.lastWrittenIndex()));
+
                         } else if (EventId.createTailer.contentEquals(eventName)) {
                             //only need one appender per queue
                             queueToTailer.computeIfAbsent(queue,
@@ -149,6 +163,16 @@ public class QueueWireHandler implements WireHandler, Consumer<WireHandlers> {
 
                                 sendBackMessage(tailer, index);
                             });
+
+                        } else if (EventId.readBatch.contentEquals(eventName)) {
+                            ExcerptTailer tailer = queueToTailer.get(queue);
+                            vin.marshallable((ReadMarshallable) rm -> {
+                                long index = rm.read(EventId.index).int64();
+                                int credit = rm.read(EventId.credit).int32();
+                                int maxBytes = rm.read(EventId.maxBytes).int32();
+
+                                sendBackBatch(tailer, index, credit, maxBytes);
+                            });
                         }
 
                     } finally {
@@ -176,6 +200,28 @@ public class QueueWireHandler implements WireHandler, Consumer<WireHandlers> {
                 writeIndexedDocument(index, wireIn.bytes()));
     }
 
+    /**
+     * Replies with the excerpts from index, at most credit excerpts and no more than maxBytes, unless the first
+     * excerpt on its own is larger.
+     */
+    private void sendBackBatch(ExcerptTailer tailer, long index, int credit, int maxBytes) {
+        boolean found = tailer.index(index);
+        batchBytes = 0;
+        outWire.writeDocument(false, ow -> ow.write(CoreFields.reply).marshallable(reply -> {
+            reply.write(EventId.index).int64(index);
+            reply.write(EventId.excerpts).sequence(excerpts -> {
+                for (int i = 0; found && i < credit && batchBytes < maxBytes; i++) {
+                    if (!tailer.readDocument(wireIn -> {
+                        Bytes<?> bytes = wireIn.bytes();
+                        batchBytes += bytes.remaining();
+                        excerpts.bytes(bytes);
+                    }))
+                        break;
+                }
+            });
+        }));
+    }
+
     private void writeIndexedDocument(long index, Bytes<?> bytes) {
         outWire.writeDocument(false, ow ->
                 ow.write(EventId.index).int64(index)
@@ -0,0 +1,78 @@
+package net.openhft.load;
+
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Compares the percentiles written by {@link ResultGenerator} with those of a baseline run. A result fails when it is
+ * worse than the baseline by more than both the percentage and the absolute tolerance. Only the values in the
+ * baseline are compared, so removing a line from the baseline stops it being checked.
+ */
+public final class BaselineComparison {
+    private static final String COUNT_SUFFIX = ".count";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 4) {
+            throw new IllegalArgumentException(
+                    "Usage: <program> [results.properties] [baseline.properties] [tolerance-percent] [tolerance-us]");
+        }
+        final boolean passed = compare(load(Paths.get(args[0])), load(Paths.get(args[1])),
+                args.length > 2 ? Double.parseDouble(args[2]) : 10,
+                args.length > 3 ? Double.parseDouble(args[3]) : 5, System.out);
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * @return true if none of the results are worse than the baseline by more than the tolerances
+     */
+    public static boolean compare(final Properties results, final Properties baseline,
+                                  final double tolerancePercent, final double toleranceMicros, final PrintStream out) {
+        boolean passed = true;
+        out.printf("%-50s %12s %12s %8s%n", "latency us", "baseline", "result", "");
+        for (String key : new TreeSet<>(baseline.stringPropertyNames())) {
+            if (key.endsWith(COUNT_SUFFIX)) {
+                continue;
+            }
+            final double expected = Double.parseDouble(baseline.getProperty(key));
+            final String value = results.getProperty(key);
+            if (value == null) {
+                out.printf("%-50s %12.3f %12s %8s%n", key, expected, "-", "MISSING");
+                passed = false;
+                continue;
+            }
+            final double actual = Double.parseDouble(value);
+            final boolean ok = actual <= expected * (1 + tolerancePercent / 100) || actual <= expected + toleranceMicros;
+            out.printf("%-50s %12.3f %12.3f %8s%n", key, expected, actual, ok ? "" : "FAIL");
+            passed &= ok;
+        }
+        out.println(passed ? "PASSED" : "FAILED, worse than the baseline by more than " + tolerancePercent + "% and " +
+                toleranceMicros + "us");
+        return passed;
+    }
+
+    public static Properties load(final Path path) throws IOException {
+        final Properties properties = new Properties();
+        try (final Reader reader = new FileReader(path.toFile())) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+
+    public static void store(final Properties properties, final Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (final Writer writer = new FileWriter(path.toFile())) {
+            properties.store(writer, "baseline latencies in us");
+        }
+    }
+}
@@ -14,6 +14,7 @@ import java.io.Writer;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.function.ToLongFunction;
@@ -31,32 +32,35 @@ public final class PublishDeltaGenerator {
         }, (c, m, t) -> System.out.println(m));
 
         final ConfigParser configParser = new ConfigParser(args[0]);
-        final List<StageConfig> allStageConfigs = configParser.getAllStageConfigs();
-        final StageConfig lastStageConfig = allStageConfigs.
-                get(allStageConfigs.size() - 1);
         try (
                 final SingleChronicleQueue pubQueue =
                         SingleChronicleQueueBuilder.binary(configParser.getPublisherConfig().outputDir()).build();
-                final SingleChronicleQueue queue =
-                        SingleChronicleQueueBuilder.binary(lastStageConfig.getOutputPath()).build();
-                final Writer resultsWriter = new FileWriter("publish-deltas.txt", false);
-                final Writer s0Pub = new FileWriter("s0-deltas.txt", false);
-                final Writer s1Pub = new FileWriter("s1-deltas.txt", false);
-                final Writer s0s2Pub = new FileWriter("s0-s2-deltas.txt", false);
-                final Writer s1s2Pub = new FileWriter("s1-s2-deltas.txt", false);
+                final Writer resultsWriter = new FileWriter("publish-deltas.txt", false)
         ) {
             final MethodReader reader = pubQueue.createTailer().methodReader(new CapturingReceiver(resultsWriter, m -> m.publishNanos));
             while (reader.readOne()) {
                 // report
             }
-            final MethodReader methodReader = queue.createTailer().methodReader(new DelegatingReceiver(
-                    new CapturingReceiver(s0Pub, m -> m.t0),
-                    new CapturingReceiver(s1Pub, m -> m.t1),
-                    new CapturingReceiver(s0s2Pub, m -> m.t2, 5),
-                    new CapturingReceiver(s1s2Pub, m -> m.t2, 6)
-            ));
-            while (methodReader.readOne()) {
-                // report
+        }
+        // each stage's timestamps first appear in its output
+        for (StageConfig stageConfig : configParser.getAllStageConfigs()) {
+            final List<Writer> writers = new ArrayList<>();
+            try (final SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(stageConfig.getOutputPath()).build()) {
+                final List<MethodDefinition> receivers = new ArrayList<>();
+                for (Integer index : stageConfig.getStageIndices()) {
+                    final Writer writer = new FileWriter("s" + index + "-deltas.txt", false);
+                    writers.add(writer);
+                    receivers.add(new CapturingReceiver(writer, m -> m.stageTimestamp(index)));
+                }
+                final MethodReader methodReader = queue.createTailer().methodReader(
+                        new DelegatingReceiver(receivers.toArray(new MethodDefinition[0])));
+                while (methodReader.readOne()) {
+                    // report
+                }
+            } finally {
+                for (Writer writer : writers) {
+                    writer.close();
+                }
             }
         }
     }
@@ -80,30 +84,20 @@ public final class PublishDeltaGenerator {
         private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss nnnnnnnnn");
         private final Writer writer;
         private final ToLongFunction<EightyByteMessage> timestampAccessor;
-        private final long maskMatch;
         private long lastPublishNanos = -1L;
         private long lastBatchMillis = -1L;
         private long maxDelta = 0;
         private long previousValue = 0L;
 
         private CapturingReceiver(final Writer writer, final ToLongFunction<EightyByteMessage> timestampAccessor) {
-            this(writer, timestampAccessor, 0);
-        }
-
-        private CapturingReceiver(final Writer writer,
-                                  final ToLongFunction<EightyByteMessage> timestampAccessor, final long maskMatch) {
             this.writer = writer;
             this.timestampAccessor = timestampAccessor;
-            this.maskMatch = maskMatch;
         }
 
         @Override
         public void onEightyByteMessage(final EightyByteMessage message) {
             final long currentVal = timestampAccessor.applyAsLong(message);
-            if (currentVal == Long.MAX_VALUE) {
-                return;
-            }
-            if (maskMatch != 0 && message.stagesToPublishBitMask != maskMatch) {
+            if (!EightyByteMessage.isSet(currentVal)) {
                 return;
             }
             if (lastPublishNanos == -1L) {
@@ -1,5 +1,8 @@
 package net.openhft.load;
 
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.impl.single.Backpressure;
+import net.openhft.load.config.MessageSizes;
 import net.openhft.load.config.PublisherConfig;
 import net.openhft.load.config.StageConfig;
 import net.openhft.load.messages.EightyByteMessage;
@@ -10,86 +13,123 @@ import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
 public final class Publisher {
+    // checking the lag looks up the end of the queue, so not on every message
+    private static final long BACKPRESSURE_CHECK_MASK = 1023;
     private final PublisherConfig config;
     private final EightyByteMessage message = new EightyByteMessage();
     private final MethodDefinition methodDefinition;
     private final long[] stagePublishBitmasks = new long[16];
+    private final Backpressure backpressure;
     private int messagesPerSec;
+    private int baseMessageSize;
+    // copied into the message to pad it to the configured size
+    private Bytes<?> padding;
     private boolean warnOnce;
     private long publishMaskCount = 0;
 
     public Publisher(final PublisherConfig config, final MethodDefinition methodDefinition,
                      final List<StageConfig> stageConfigs) throws Exception {
+        this(config, methodDefinition, stageConfigs, null);
+    }
+
+    /**
+     * @param backpressure if not null, publishing waits while the stages reading the output are too far behind
+     */
+    public Publisher(final PublisherConfig config, final MethodDefinition methodDefinition,
+                     final List<StageConfig> stageConfigs, final Backpressure backpressure) throws Exception {
         this.config = config;
         this.methodDefinition = methodDefinition;
+        this.backpressure = backpressure;
         final Random random = new Random(1511514053000L);
         for (int i = 0; i < stagePublishBitmasks.length; i++) {
             for (StageConfig stageConfig : stageConfigs) {
                 final List<Integer> stageIndices = stageConfig.getStageIndices();
                 final int index = stageIndices.get(random.nextInt(stageIndices.size()));
-                stagePublishBitmasks[i] |= 1 << index;
+                stagePublishBitmasks[i] |= 1L << index;
             }
         }
     }
 
-    private static long nanosToMicros(final long nanos) {
-        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    private void awaitConsumers() {
+        final long waitedNanos = backpressure.awaitCapacity();
+        if (waitedNanos > 0) {
+            System.out.printf("Publisher waited %dms for stages to catch up%n",
+                    TimeUnit.NANOSECONDS.toMillis(waitedNanos));
+        }
     }
 
     void init() {
-        final int bytesPerSec = config.getPublishRateMegaBytesPerSecond() * 1024 * 1024;
-        messagesPerSec = bytesPerSec / Sizer.size(message);
+        final long bytesPerSec = (long) config.getPublishRateMegaBytesPerSecond() * 1024 * 1024 /
+                config.getPublisherCount();
+        baseMessageSize = Sizer.size(message);
+        final MessageSizes messageSizes = config.getMessageSizes();
+        if (messageSizes != null) {
+            padding = Bytes.wrapForRead(new byte[messageSizes.maxSize()]);
+        }
+        final double meanSize = messageSizes == null ? baseMessageSize : Math.max(baseMessageSize, messageSizes.meanSize());
+        messagesPerSec = Math.max(1, (int) (bytesPerSec / meanSize));
+        message.publisherIndex = config.getPublisherIndex();
+        System.out.printf("Publisher %d of %d publishing %d msg/sec, message sizes %s%n",
+                config.getPublisherIndex(), config.getPublisherCount(), messagesPerSec,
+                messageSizes == null ? baseMessageSize : messageSizes);
     }
 
+    /**
+     * Publishes the messages evenly spaced over each second, each at the time it was due rather than as soon as the
+     * last one was written. When writing stalls, the messages due in the meantime are sent as soon as possible and
+     * keep the time they were due, so the stall is counted in the latency of every message it delayed rather than
+     * only the one which was being written, see coordinated omission.
+     * <p>
+     * The publishers of a topology are offset from each other by a fraction of the interval between messages.
+     */
     public void startPublishing() {
-        Thread.currentThread().setName("load.publisher");
+        Thread.currentThread().setName("load.publisher-" + config.getPublisherIndex());
         final long startPublishingAt = System.currentTimeMillis();
+        final long nanosPerSecond = TimeUnit.SECONDS.toNanos(1L);
+        final MessageSizes messageSizes = config.getMessageSizes();
 
         boolean loggedException = false;
+        long secondStartNanos = System.nanoTime() +
+                nanosPerSecond / messagesPerSec * config.getPublisherIndex() / config.getPublisherCount();
+        long messageCount = 0;
         while (!Thread.currentThread().isInterrupted()) {
-            final long startNanos = System.nanoTime();
-            message.batchStartNanos = startNanos;
+            message.batchStartNanos = secondStartNanos;
             message.batchStartMillis = System.currentTimeMillis();
-            try {
-                for (int i = 0; i < messagesPerSec; i++) {
+            for (int i = 0; i < messagesPerSec && !Thread.currentThread().isInterrupted(); i++) {
+                final long intendedNanos = secondStartNanos + i * nanosPerSecond / messagesPerSec;
+                while (System.nanoTime() < intendedNanos) {
+                    // spin
+                }
+                try {
+                    if (backpressure != null && (publishMaskCount & BACKPRESSURE_CHECK_MASK) == 0) {
+                        awaitConsumers();
+                    }
                     message.stagesToPublishBitMask = stagePublishBitmasks[(int) (publishMaskCount & 15)];
+                    if (padding != null) {
+                        final int paddingSize = Math.max(0, messageSizes.size(messageCount) - baseMessageSize);
+                        message.padding.clear();
+                        message.padding.write(padding, 0, paddingSize);
+                    }
+                    message.intendedNanos = intendedNanos;
                     message.publishNanos = System.nanoTime();
                     publishMaskCount++;
-//                    DebugTimestamps.clearAll();
-//                    DebugTimestamps.operationStart(DebugTimestamps.Operation.OUTER_WRITE);
+                    messageCount++;
                     methodDefinition.onEightyByteMessage(message);
-//                    DebugTimestamps.operationEnd(DebugTimestamps.Operation.OUTER_WRITE);
-//                    final long outerNanos = DebugTimestamps.getDurationNanos(DebugTimestamps.Operation.OUTER_WRITE);
-//                    if (outerNanos >
-//                            TimeUnit.MILLISECONDS.toNanos(100L)) {
-//                        System.out.println("Total publish time us: " + nanosToMicros(outerNanos) + " at " + Instant.now());
-//                        final DebugTimestamps.Operation[] operations = DebugTimestamps.Operation.values();
-//                        for (DebugTimestamps.Operation operation : operations) {
-//                            System.out.printf("%25s %9dus%n", operation.name(),
-//                                    nanosToMicros(DebugTimestamps.getDurationNanos(operation)));
-//                        }
-//                    }
-
-                }
-
-            } catch (Exception e) {
-                if (!loggedException) {
-                    e.printStackTrace();
-                    loggedException = true;
+                } catch (Exception e) {
+                    if (!loggedException) {
+                        e.printStackTrace();
+                        loggedException = true;
+                    }
                 }
             }
+            secondStartNanos += nanosPerSecond;
 
-            final long endOfSecond = startNanos + TimeUnit.SECONDS.toNanos(1L);
-            boolean slept = false;
-            while (System.nanoTime() < endOfSecond) {
-                // spin
-                slept = true;
-            }
-
-            if (!warnOnce && !slept && System.currentTimeMillis() > startPublishingAt + 30_000L) {
-                System.err.println("Unable to publish at requested rate");
+            final long behindNanos = System.nanoTime() - secondStartNanos;
+            if (!warnOnce && behindNanos > nanosPerSecond && System.currentTimeMillis() > startPublishingAt + 30_000L) {
+                System.err.printf("Unable to publish at requested rate, %dms behind%n",
+                        TimeUnit.NANOSECONDS.toMillis(behindNanos));
                 warnOnce = true;
             }
         }
     }
-}
\ No newline at end of file
+}
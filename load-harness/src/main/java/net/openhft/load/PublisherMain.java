@@ -2,6 +2,7 @@ package net.openhft.load;
 
 import net.openhft.chronicle.queue.ExcerptAppender;
 import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.single.Backpressure;
 import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
 import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
 import net.openhft.load.config.ConfigParser;
@@ -31,8 +32,10 @@ public final class PublisherMain {
 
         executorService.submit(new HiccupReporter()::start);
 
+        final Backpressure backpressure = configParser.getBackpressureConfig().createBackpressure(
+                outputQueue(publisherConfig.outputDir()), configParser.getConsumerNames(publisherConfig.outputDir()));
         final Publisher publisher = new Publisher(publisherConfig, createOutput(publisherConfig.outputDir()),
-                configParser.getAllStageConfigs());
+                configParser.getAllStageConfigs(), backpressure);
         publisher.init();
         publisher.startPublishing();
     }
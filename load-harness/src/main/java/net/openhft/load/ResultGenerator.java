@@ -8,17 +8,20 @@ import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
 import net.openhft.chronicle.wire.Marshallable;
 import net.openhft.chronicle.wire.MessageHistory;
 import net.openhft.load.config.ConfigParser;
-import net.openhft.load.config.StageConfig;
 import net.openhft.load.messages.EightyByteMessage;
 
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 
 public final class ResultGenerator {
@@ -27,11 +30,6 @@ public final class ResultGenerator {
             throw new IllegalArgumentException("Usage: <program> [resource-name]");
         }
 
-        final ConfigParser configParser = new ConfigParser(args[0]);
-
-        final List<StageConfig> allStageConfigs = configParser.getAllStageConfigs();
-        final StageConfig lastStageConfig = allStageConfigs.
-                get(allStageConfigs.size() - 1);
         Jvm.setExceptionHandlers((c, m, t) -> {
             System.out.println(m);
         }, (c, m, t) -> {
@@ -40,12 +38,119 @@ public final class ResultGenerator {
                 t.printStackTrace();
             }
         }, (c, m, t) -> System.out.println(m));
-        try (final SingleChronicleQueue queue =
-                     SingleChronicleQueueBuilder.binary(lastStageConfig.getOutputPath()).build();
-             final Writer resultsWriter = new FileWriter("results.txt", false)) {
-            final MethodReader methodReader = queue.createTailer().methodReader(new CapturingReceiver(resultsWriter));
-            while (methodReader.readOne()) {
-                // report
+        generate(new ConfigParser(args[0]));
+    }
+
+    /**
+     * Writes the results of the messages in the queues no stage reads to results.txt, or results-[queue].txt when
+     * there are several, and the percentiles of all of them to percentiles.txt and percentiles.properties.
+     *
+     * @return the percentiles, as written to percentiles.properties
+     */
+    public static Properties generate(final ConfigParser configParser) throws IOException {
+        final List<Path> sinkPaths = configParser.getSinkPaths();
+        final PercentileReceiver percentiles = new PercentileReceiver();
+        for (Path sinkPath : sinkPaths) {
+            final String resultsFile = sinkPaths.size() == 1 ? "results.txt" : "results-" + sinkPath.getFileName() + ".txt";
+            try (final SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(sinkPath).build();
+                 final Writer resultsWriter = new FileWriter(resultsFile, false)) {
+                final CapturingReceiver results = new CapturingReceiver(resultsWriter);
+                final MethodReader methodReader = queue.createTailer().methodReader((MethodDefinition) message -> {
+                    results.onEightyByteMessage(message);
+                    percentiles.onEightyByteMessage(message);
+                });
+                while (methodReader.readOne()) {
+                    // report
+                }
+            }
+        }
+        final Properties properties = new Properties();
+        try (final Writer percentilesWriter = new FileWriter("percentiles.txt", false);
+             final Writer propertiesWriter = new FileWriter("percentiles.properties", false)) {
+            percentiles.writeTo(percentilesWriter, properties);
+            properties.store(propertiesWriter, "latencies in us");
+        }
+        return properties;
+    }
+
+    /**
+     * The latencies of all the messages, as percentile tables in the layout of HdrHistogram's percentile
+     * distribution. Latencies are from the time each message should have been published, so they include any time
+     * the publisher spent stalled, followed by the same end to end latency from the time they were actually
+     * published for comparison.
+     */
+    private static final class PercentileReceiver implements MethodDefinition {
+        private static final double[] PERCENTILES = {0.5, 0.75, 0.875, 0.9, 0.99, 0.999, 0.9999, 0.99999};
+        private final LatencyTable publish = new LatencyTable("publish delay");
+        private final Map<Integer, LatencyTable> stages = new TreeMap<>();
+        private final LatencyTable endToEnd = new LatencyTable("end to end");
+        private final LatencyTable endToEndUncorrected = new LatencyTable("end to end from actual publish time");
+
+        @Override
+        public void onEightyByteMessage(final EightyByteMessage message) {
+            publish.sample(message.publishNanos - message.intendedNanos);
+            for (int i = 0; i < message.stageCount(); i++) {
+                stages.computeIfAbsent(message.stageIndexAt(i), index -> new LatencyTable("stage " + index))
+                        .sample(message.stageTimestampAt(i) - message.intendedNanos);
+            }
+            final long latest = CapturingReceiver.getLatestTimestamp(message);
+            endToEnd.sample(latest - message.intendedNanos);
+            endToEndUncorrected.sample(latest - message.publishNanos);
+        }
+
+        void writeTo(final Writer writer, final Properties properties) throws IOException {
+            final StringBuilder sb = new StringBuilder();
+            publish.appendTo(sb, properties);
+            for (LatencyTable stage : stages.values()) {
+                stage.appendTo(sb, properties);
+            }
+            endToEnd.appendTo(sb, properties);
+            endToEndUncorrected.appendTo(sb, properties);
+            writer.append(sb);
+            System.out.print(sb);
+        }
+
+        private static final class LatencyTable {
+            private final String name;
+            private final Histogram histogram = new Histogram();
+            private long count = 0L;
+            private long totalNanos = 0L;
+            private long maxNanos = 0L;
+
+            LatencyTable(final String name) {
+                this.name = name;
+            }
+
+            void sample(final long nanos) {
+                histogram.sampleNanos(nanos);
+                count++;
+                totalNanos += nanos;
+                maxNanos = Math.max(maxNanos, nanos);
+            }
+
+            /**
+             * Appends the table, and adds the values to the properties as [name].[percentile], .mean and .max
+             */
+            void appendTo(final StringBuilder sb, final Properties properties) {
+                final String key = name.replace(' ', '-');
+                sb.append("# ").append(name).append(", latencies in us\n");
+                sb.append(String.format("%12s %14s %10s %14s%n", "Value", "Percentile", "TotalCount", "1/(1-Percentile)"));
+                properties.setProperty(key + ".count", Long.toString(count));
+                if (count == 0) {
+                    sb.append("\n");
+                    return;
+                }
+                for (double percentile : PERCENTILES) {
+                    final double micros = histogram.percentile(percentile) / 1e3;
+                    sb.append(String.format("%12.3f %14.12f %10d %14.2f%n", micros, percentile,
+                            (long) Math.ceil(percentile * count), 1 / (1 - percentile)));
+                    properties.setProperty(key + "." + percentile, String.format("%.3f", micros));
+                }
+                sb.append(String.format("%12.3f %14.12f %10d%n", maxNanos / 1e3, 1.0, count));
+                sb.append(String.format("#[Mean    = %12.3f, Max     = %12.3f]%n#[Total count    = %12d]%n%n",
+                        totalNanos / 1e3 / count, maxNanos / 1e3, count));
+                properties.setProperty(key + ".mean", String.format("%.3f", totalNanos / 1e3 / count));
+                properties.setProperty(key + ".max", String.format("%.3f", maxNanos / 1e3));
             }
         }
     }
@@ -70,28 +175,11 @@ public final class ResultGenerator {
         }
 
         private static long getLatestTimestamp(final EightyByteMessage message) {
-            if (EightyByteMessage.isSet(message.t6)) {
-                return message.t6;
-            }
-            if (EightyByteMessage.isSet(message.t5)) {
-                return message.t5;
-            }
-            if (EightyByteMessage.isSet(message.t4)) {
-                return message.t4;
-            }
-            if (EightyByteMessage.isSet(message.t3)) {
-                return message.t3;
+            final long latest = message.latestTimestamp();
+            if (!EightyByteMessage.isSet(latest)) {
+                throw new IllegalStateException("No values were set on message: " + Marshallable.$toString(message));
             }
-            if (EightyByteMessage.isSet(message.t2)) {
-                return message.t2;
-            }
-            if (EightyByteMessage.isSet(message.t1)) {
-                return message.t1;
-            }
-            if (EightyByteMessage.isSet(message.t0)) {
-                return message.t0;
-            }
-            throw new IllegalStateException("No values were set on message: " + Marshallable.$toString(message));
+            return latest;
         }
 
         @Override
@@ -102,7 +190,8 @@ public final class ResultGenerator {
             }
             long batchStartEpochSeconds = message.batchStartMillis / 1000;
 
-            for (int i = 0; i < messageHistory.timings() - 1; i++) {
+            // the messages of a join may have passed through different numbers of queues
+            for (int i = 0; i < Math.min(maxQueueDeltas.length, messageHistory.timings() - 1); i++) {
                 maxQueueDeltas[i] = Math.max(messageHistory.timing(i + 1) - messageHistory.timing(i),
                         maxQueueDeltas[i]);
             }
@@ -138,17 +227,12 @@ public final class ResultGenerator {
                 writeToResults("\n");
                 System.out.println("Worst in second");
                 System.out.println(FORMATTER.format(LocalDateTime.ofEpochSecond(worstCopy.batchStartMillis / 1000, 0, ZoneOffset.UTC)));
-                System.out.println("publish to first stage");
-                if (worstCopy.stagesToPublishBitMask == 5) {
-                    System.out.println(TimeUnit.NANOSECONDS.toMicros(worstCopy.t0 - worstCopy.publishNanos));
-                } else {
-                    System.out.println(TimeUnit.NANOSECONDS.toMicros(worstCopy.t1 - worstCopy.publishNanos));
-                }
-                System.out.println("first to second stage");
-                if (worstCopy.stagesToPublishBitMask == 5) {
-                    System.out.println(TimeUnit.NANOSECONDS.toMicros(worstCopy.t2 - worstCopy.t0));
-                } else {
-                    System.out.println(TimeUnit.NANOSECONDS.toMicros(worstCopy.t2 - worstCopy.t1));
+                long previous = worstCopy.intendedNanos;
+                for (int i = 0; i < worstCopy.stageCount(); i++) {
+                    System.out.println((i == 0 ? "publish" : "stage " + worstCopy.stageIndexAt(i - 1)) +
+                            " to stage " + worstCopy.stageIndexAt(i));
+                    System.out.println(TimeUnit.NANOSECONDS.toMicros(worstCopy.stageTimestampAt(i) - previous));
+                    previous = worstCopy.stageTimestampAt(i);
                 }
                 System.out.println(worstMessage);
 
@@ -162,7 +246,8 @@ public final class ResultGenerator {
                 Arrays.fill(maxQueueDeltas, 0L);
             }
             messagesInThisSecond++;
-            final long totalMessageLatency = getLatestTimestamp(message) - message.publishNanos;
+            // from when it should have been published, so a stalled publisher doesn't hide the messages it delayed
+            final long totalMessageLatency = getLatestTimestamp(message) - message.intendedNanos;
             maxTotalLatencyInThisSecond = Math.max(maxTotalLatencyInThisSecond,
                     totalMessageLatency);
             if (maxTotalLatencyInThisSecond == totalMessageLatency) {
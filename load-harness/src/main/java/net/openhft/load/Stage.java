@@ -12,12 +12,12 @@ public final class Stage implements MethodDefinition {
     private long lastLagReport = 0L;
 
     public Stage(final MethodDefinition output, final int index) {
-        if (index > 6) {
+        if (index < 0 || index >= EightyByteMessage.MAX_STAGES) {
             throw new IllegalArgumentException("Too many stages");
         }
         this.output = output;
         this.index = index;
-        this.mask = 1 << index;
+        this.mask = 1L << index;
     }
 
     @Override
@@ -29,33 +29,11 @@ public final class Stage implements MethodDefinition {
 
         if (currentNanoTime > lastLagReport + READ_LAG_REPORT_INTERVAL_NS) {
             System.out.printf("Stage %d is currently %dms behind publisher%n",
-                    index, TimeUnit.NANOSECONDS.toMillis(currentNanoTime - message.publishNanos));
+                    index, TimeUnit.NANOSECONDS.toMillis(currentNanoTime - message.intendedNanos));
             lastLagReport = currentNanoTime;
         }
 
-        switch (index) {
-            case 0:
-                message.t0 = currentNanoTime;
-                break;
-            case 1:
-                message.t1 = currentNanoTime;
-                break;
-            case 2:
-                message.t2 = currentNanoTime;
-                break;
-            case 3:
-                message.t3 = currentNanoTime;
-                break;
-            case 4:
-                message.t4 = currentNanoTime;
-                break;
-            case 5:
-                message.t5 = currentNanoTime;
-                break;
-            case 6:
-                message.t6 = currentNanoTime;
-                break;
-        }
+        message.stageTimestamp(index, currentNanoTime);
 
         if ((message.stagesToPublishBitMask & mask) != 0) {
             output.onEightyByteMessage(message);
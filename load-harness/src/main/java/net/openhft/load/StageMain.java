@@ -1,9 +1,13 @@
 package net.openhft.load;
 
 import net.openhft.chronicle.bytes.MethodReader;
+import net.openhft.chronicle.queue.ExcerptTailer;
 import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.single.Backpressure;
+import net.openhft.chronicle.queue.impl.single.ConsumerIndex;
 import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
 import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.load.config.BackpressureConfig;
 import net.openhft.load.config.ConfigParser;
 import net.openhft.load.config.StageConfig;
 import org.jetbrains.annotations.NotNull;
@@ -13,10 +17,13 @@ import java.nio.file.Path;
 import java.time.ZoneId;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public final class StageMain {
 
     private static final int UNSET_SOURCE = -1;
+    // checking the lag looks up the end of the queue, so not on every message
+    private static final long BACKPRESSURE_CHECK_MASK = 1023;
 
     public static void main(String[] args) throws IOException {
 //        MlockAll.doMlockall();
@@ -26,33 +33,54 @@ public final class StageMain {
         final ConfigParser configParser = new ConfigParser(args[0]);
 
         final StageConfig stageConfig = configParser.getStageConfig(Integer.parseInt(args[1]));
-        final ExecutorService service = Executors.newFixedThreadPool(stageConfig.getStageIndices().size() + 1);
+        final ExecutorService service = Executors.newFixedThreadPool(
+                stageConfig.getStageIndices().size() * stageConfig.getInputPaths().size() + 1);
         service.submit(new PretoucherTask(outputQueue(stageConfig.getOutputPath(), UNSET_SOURCE),
                 configParser.getPretouchIntervalMillis()));
 
+        final BackpressureConfig backpressureConfig = configParser.getBackpressureConfig();
         for (Integer index : stageConfig.getStageIndices()) {
-            service.submit(() -> {
-                final Stage stage = new Stage(createOutput(stageConfig.getOutputPath(), index + 1), index);
-                final MethodReader reader = createReader(stageConfig.getInputPath(), stage);
-                Thread.currentThread().setName("load.stage-consumer-" + index);
-                boolean warnOnce = false;
-                while (!Thread.currentThread().isInterrupted()) {
-                    try {
-                        reader.readOne();
-                    } catch (Exception e) {
-                        if (!warnOnce) {
-                            e.printStackTrace();
-                            warnOnce = true;
+            // a consumer reading several inputs joins them, with a thread for each
+            for (Path inputPath : stageConfig.getInputPaths()) {
+                service.submit(() -> {
+                    final Stage stage = new Stage(createOutput(stageConfig.getOutputPath(), index + 1), index);
+                    final SingleChronicleQueue inputQueue = outputQueue(inputPath, UNSET_SOURCE);
+                    final ExcerptTailer tailer = inputQueue.createTailer();
+                    final MethodReader reader = tailer.methodReader(stage);
+                    // published for the backpressure of the stage writing the input
+                    final ConsumerIndex consumerIndex = inputQueue.consumerIndex(ConfigParser.consumerName(index));
+                    final Backpressure backpressure = backpressureConfig.createBackpressure(
+                            outputQueue(stageConfig.getOutputPath(), UNSET_SOURCE),
+                            configParser.getConsumerNames(stageConfig.getOutputPath()));
+                    Thread.currentThread().setName("load.stage-consumer-" + index + "-" + inputPath.getFileName());
+                    boolean warnOnce = false;
+                    long messagesRead = 0;
+                    while (!Thread.currentThread().isInterrupted()) {
+                        try {
+                            if (reader.readOne()) {
+                                consumerIndex.update(tailer);
+                                if (backpressure != null && (++messagesRead & BACKPRESSURE_CHECK_MASK) == 0) {
+                                    awaitConsumers(backpressure, index);
+                                }
+                            }
+                        } catch (Exception e) {
+                            if (!warnOnce) {
+                                e.printStackTrace();
+                                warnOnce = true;
+                            }
                         }
                     }
-                }
-            });
+                });
+            }
         }
     }
 
-    private static MethodReader createReader(final Path path, final MethodDefinition impl) {
-        final SingleChronicleQueue queue = outputQueue(path, UNSET_SOURCE);
-        return queue.createTailer().methodReader(impl);
+    private static void awaitConsumers(final Backpressure backpressure, final int index) {
+        final long waitedNanos = backpressure.awaitCapacity();
+        if (waitedNanos > 0) {
+            System.out.printf("Stage %d waited %dms for the next stages to catch up%n",
+                    index, TimeUnit.NANOSECONDS.toMillis(waitedNanos));
+        }
     }
 
     private static MethodDefinition createOutput(final Path path, final Integer index) {
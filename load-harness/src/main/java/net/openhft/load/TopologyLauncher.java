@@ -0,0 +1,208 @@
+package net.openhft.load;
+
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.core.io.IOTools;
+import net.openhft.load.config.ConfigParser;
+import net.openhft.load.config.LaunchConfig;
+import net.openhft.load.config.PublisherConfig;
+import net.openhft.load.config.StageConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a whole topology on one box: each stage and each publisher in a JVM of its own, pinned to the configured cpus
+ * with taskset on Linux. After the configured duration the publishers are stopped, the stages are given time to
+ * drain, then the results are generated and compared with the baseline, if there is one.
+ * <pre>
+ * launch.duration.seconds=60
+ * launch.drain.seconds=5
+ * # optional, assigned in turn, one to each publisher, and to each stage one for its pretoucher and one for each
+ * # consumer and input
+ * launch.cpus=2-9
+ * launch.jvm.args=-Xmx1g -XX:+UseG1GC
+ * # optional, the run fails if it is worse than this, which is written instead when it doesn't exist yet
+ * baseline.file=baselines/diamond.properties
+ * baseline.tolerance.percent=10
+ * baseline.tolerance.us=5
+ * </pre>
+ * Any of the configuration can be overridden with a system property of the same name, which is passed on to the
+ * processes launched. Each process writes its output to [name].log.
+ * <p>
+ * Exits with 1 if the results are worse than the baseline.
+ */
+public final class TopologyLauncher {
+    private static final String[] FORWARDED_PROPERTY_PREFIXES =
+            {"publisher.", "stage.", "topology", "pretouch.", "backpressure."};
+
+    private final String resourceName;
+    private final ConfigParser configParser;
+    private final LaunchConfig launchConfig;
+    private final Iterator<Integer> cpus;
+    private final List<Process> publishers = new ArrayList<>();
+    private final List<Process> stages = new ArrayList<>();
+
+    private TopologyLauncher(final String resourceName) throws IOException {
+        this.resourceName = resourceName;
+        this.configParser = new ConfigParser(resourceName);
+        this.launchConfig = configParser.getLaunchConfig();
+        this.cpus = launchConfig.getCpus().iterator();
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: <program> [resource-name]");
+        }
+        final boolean passed = new TopologyLauncher(args[0]).run();
+        System.exit(passed ? 0 : 1);
+    }
+
+    private boolean run() throws Exception {
+        deleteQueues();
+        try {
+            // the stages first, so they are reading when the first message is published
+            final List<StageConfig> stageConfigs = configParser.getAllStageConfigs();
+            for (int i = 0; i < stageConfigs.size(); i++) {
+                final StageConfig stageConfig = stageConfigs.get(i);
+                // a thread for each consumer and input, and the pretoucher
+                final int threads = stageConfig.getStageIndices().size() * stageConfig.getInputPaths().size() + 1;
+                stages.add(launch("stage-" + i, StageMain.class, threads, new ArrayList<>(), Integer.toString(i)));
+            }
+            final PublisherConfig publisherConfig = configParser.getPublisherConfig();
+            for (int i = 0; i < publisherConfig.getPublisherCount(); i++) {
+                final List<String> jvmArgs = new ArrayList<>();
+                jvmArgs.add("-Dpublisher.index=" + i);
+                publishers.add(launch("publisher-" + i, PublisherMain.class, 1, jvmArgs));
+            }
+
+            System.out.printf("Running for %ds%n", launchConfig.getDurationSeconds());
+            final List<Process> all = new ArrayList<>(stages);
+            all.addAll(publishers);
+            awaitOrExit(TimeUnit.SECONDS.toMillis(launchConfig.getDurationSeconds()), all);
+            stop(publishers);
+            awaitOrExit(TimeUnit.SECONDS.toMillis(launchConfig.getDrainSeconds()), stages);
+        } finally {
+            stop(publishers);
+            stop(stages);
+        }
+
+        final Properties results = ResultGenerator.generate(configParser);
+        final Path baselinePath = launchConfig.getBaselinePath();
+        if (baselinePath == null) {
+            return true;
+        }
+        if (Boolean.getBoolean("baseline.update") || !Files.exists(baselinePath)) {
+            BaselineComparison.store(results, baselinePath);
+            System.out.println("Wrote the baseline to " + baselinePath);
+            return true;
+        }
+        return BaselineComparison.compare(results, BaselineComparison.load(baselinePath),
+                launchConfig.getTolerancePercent(), launchConfig.getToleranceMicros(), System.out);
+    }
+
+    private void deleteQueues() {
+        IOTools.deleteDirWithFiles(configParser.getPublisherConfig().outputDir().toFile(), 3);
+        for (StageConfig stageConfig : configParser.getAllStageConfigs()) {
+            IOTools.deleteDirWithFiles(stageConfig.getOutputPath().toFile(), 3);
+        }
+    }
+
+    private Process launch(final String name, final Class<?> mainClass, final int cpuCount,
+                           final List<String> jvmArgs, final String... args) throws IOException {
+        final List<String> command = new ArrayList<>();
+        final String cpuList = nextCpus(cpuCount);
+        if (cpuList != null) {
+            command.add("taskset");
+            command.add("-c");
+            command.add(cpuList);
+        }
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(launchConfig.getJvmArgs());
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (isForwarded(key)) {
+                command.add("-D" + key + "=" + System.getProperty(key));
+            }
+        }
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(mainClass.getName());
+        command.add(resourceName);
+        for (String arg : args) {
+            command.add(arg);
+        }
+
+        final File log = new File(name + ".log");
+        System.out.printf("Starting %s%s, logging to %s%n", name, cpuList == null ? "" : " on cpus " + cpuList, log);
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+    }
+
+    /**
+     * @return the next cpus for taskset, or null if there aren't enough left or it isn't Linux
+     */
+    private String nextCpus(final int count) {
+        if (launchConfig.getCpus().isEmpty()) {
+            return null;
+        }
+        if (!OS.isLinux()) {
+            System.out.println("Not pinning to cpus, as taskset is only available on Linux");
+            return null;
+        }
+        final StringJoiner joiner = new StringJoiner(",");
+        for (int i = 0; i < count; i++) {
+            if (!cpus.hasNext()) {
+                System.out.println("Not enough cpus configured in launch.cpus, running unpinned");
+                return null;
+            }
+            joiner.add(Integer.toString(cpus.next()));
+        }
+        return joiner.toString();
+    }
+
+    private static boolean isForwarded(final String key) {
+        for (String prefix : FORWARDED_PROPERTY_PREFIXES) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits, failing if any of the processes exits in the meantime
+     */
+    private static void awaitOrExit(final long millis, final List<Process> processes) throws InterruptedException {
+        final long end = System.currentTimeMillis() + millis;
+        while (System.currentTimeMillis() < end) {
+            for (Process process : processes) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("A process exited early with " + process.exitValue() +
+                            ", see its log");
+                }
+            }
+            Thread.sleep(Math.max(1, Math.min(100, end - System.currentTimeMillis())));
+        }
+    }
+
+    private static void stop(final List<Process> processes) throws InterruptedException {
+        for (Process process : processes) {
+            process.destroy();
+        }
+        for (Process process : processes) {
+            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+}
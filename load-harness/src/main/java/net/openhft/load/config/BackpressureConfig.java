@@ -0,0 +1,45 @@
+package net.openhft.load.config;
+
+import net.openhft.chronicle.queue.impl.single.Backpressure;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+
+public final class BackpressureConfig {
+    private final long maxLagMessages;
+    private final long maxLagBytes;
+    private final long maxLagMillis;
+
+    public BackpressureConfig(final long maxLagMessages, final long maxLagBytes, final long maxLagMillis) {
+        this.maxLagMessages = maxLagMessages;
+        this.maxLagBytes = maxLagBytes;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    public boolean isEnabled() {
+        return maxLagMessages != Long.MAX_VALUE || maxLagBytes != Long.MAX_VALUE || maxLagMillis != Long.MAX_VALUE;
+    }
+
+    public long getMaxLagMessages() {
+        return maxLagMessages;
+    }
+
+    public long getMaxLagBytes() {
+        return maxLagBytes;
+    }
+
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    /**
+     * @return backpressure on the consumers of the queue, or null if there are none or it isn't enabled
+     */
+    public Backpressure createBackpressure(final SingleChronicleQueue queue, final String[] consumerNames) {
+        if (!isEnabled() || consumerNames.length == 0) {
+            return null;
+        }
+        return queue.backpressure(consumerNames)
+                .maxLagMessages(maxLagMessages)
+                .maxLagBytes(maxLagBytes)
+                .maxLagMillis(maxLagMillis);
+    }
+}
@@ -1,7 +1,10 @@
 package net.openhft.load.config;
 
+import net.openhft.load.messages.EightyByteMessage;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
@@ -10,18 +13,42 @@ public final class ConfigParser {
     private final PublisherConfig config;
     private final List<StageConfig> stageConfigList = new ArrayList<>();
     private final int pretouchIntervalMillis;
+    private final BackpressureConfig backpressureConfig;
+    private final LaunchConfig launchConfig;
 
+    /**
+     * @param resourceName a resource on the class path, or else a file
+     */
     public ConfigParser(final String resourceName) throws IOException {
         final Properties properties = new Properties();
-        final InputStream stream = Thread.currentThread().getContextClassLoader().getResourceAsStream(resourceName);
+        InputStream stream = Thread.currentThread().getContextClassLoader().getResourceAsStream(resourceName);
+        if (stream == null && Files.isRegularFile(Paths.get(resourceName))) {
+            stream = Files.newInputStream(Paths.get(resourceName));
+        }
         if (stream == null) {
             throw new IllegalArgumentException("Resource not found: " + resourceName);
         }
-        properties.load(stream);
+        try {
+            properties.load(stream);
+        } finally {
+            stream.close();
+        }
+        final String topology = optionalValue(properties, "topology");
+        if (topology != null) {
+            if (properties.containsKey("stage.count")) {
+                throw new IllegalArgumentException("Configure either a topology or the stages, not both");
+            }
+            Topology.parse(topology).expand(properties, requiredValue(properties, "publisher.outputDir"),
+                    requiredIntValue(properties, "topology.size"));
+        }
         final int stageCount = requiredIntValue(properties, "stage.count");
+        final String messageSizes = optionalValue(properties, "publisher.message.sizes");
         this.config = new PublisherConfig(
                 toRelativePath(requiredValue(properties, "publisher.outputDir")),
-                requiredIntValue(properties, "publisher.rate.mbps"), stageCount);
+                requiredIntValue(properties, "publisher.rate.mbps"), stageCount,
+                optionalIntValue(properties, "publisher.count", 1),
+                optionalIntValue(properties, "publisher.index", 0),
+                messageSizes == null ? null : MessageSizes.parse(messageSizes));
 
         for (int i = 0; i < stageCount; i++) {
             stageConfigList.add(parseStageConfig(properties, i));
@@ -30,6 +57,10 @@ public final class ConfigParser {
         final Set<Integer> allIndices = new HashSet<>();
         for (StageConfig stageConfig : stageConfigList) {
             for (Integer integer : stageConfig.getStageIndices()) {
+                if (integer < 0 || integer >= EightyByteMessage.MAX_STAGES) {
+                    throw new IllegalArgumentException("Stage index must be from 0 to " +
+                            (EightyByteMessage.MAX_STAGES - 1) + " but was " + integer);
+                }
                 if (!allIndices.add(integer)) {
                     throw new IllegalArgumentException("Duplicate stage index found: " + integer);
                 }
@@ -37,6 +68,47 @@ public final class ConfigParser {
         }
 
         pretouchIntervalMillis = requiredIntValue(properties, "pretouch.interval.ms");
+        final long maxLagMegaBytes = optionalLongValue(properties, "backpressure.max.lag.mb");
+        backpressureConfig = new BackpressureConfig(
+                optionalLongValue(properties, "backpressure.max.lag.messages"),
+                maxLagMegaBytes == Long.MAX_VALUE ? Long.MAX_VALUE : maxLagMegaBytes * 1024 * 1024,
+                optionalLongValue(properties, "backpressure.max.lag.ms"));
+
+        final String cpus = optionalValue(properties, "launch.cpus");
+        final String jvmArgs = optionalValue(properties, "launch.jvm.args");
+        final String baseline = optionalValue(properties, "baseline.file");
+        launchConfig = new LaunchConfig(
+                optionalIntValue(properties, "launch.duration.seconds", 60),
+                optionalIntValue(properties, "launch.drain.seconds", 5),
+                cpus == null ? Collections.emptyList() : parseCpus(cpus),
+                jvmArgs == null ? Collections.emptyList() : Arrays.asList(jvmArgs.trim().split("\\s+")),
+                baseline == null ? null : Paths.get(baseline),
+                optionalDoubleValue(properties, "baseline.tolerance.percent", 10),
+                optionalDoubleValue(properties, "baseline.tolerance.us", 5));
+    }
+
+    /**
+     * @param cpus such as 2-5,8
+     */
+    static List<Integer> parseCpus(final String cpus) {
+        final List<Integer> list = new ArrayList<>();
+        for (String range : cpus.split(",")) {
+            final String[] bounds = range.trim().split("-");
+            try {
+                final int from = Integer.parseInt(bounds[0].trim());
+                final int to = bounds.length > 1 ? Integer.parseInt(bounds[1].trim()) : from;
+                for (int cpu = from; cpu <= to; cpu++) {
+                    list.add(cpu);
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cannot parse " + range + " as a cpu or range of cpus");
+            }
+        }
+        return list;
+    }
+
+    public static String consumerName(final int stageIndex) {
+        return "stage-" + stageIndex;
     }
 
     private static Path toRelativePath(final String subDir) {
@@ -52,6 +124,41 @@ public final class ConfigParser {
         }
     }
 
+    private static int optionalIntValue(final Properties properties, final String key, final int defaultValue) {
+        return optionalValue(properties, key) == null ? defaultValue : requiredIntValue(properties, key);
+    }
+
+    private static double optionalDoubleValue(final Properties properties, final String key, final double defaultValue) {
+        final String value = optionalValue(properties, key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cannot parse " + value + " as double for key " + key);
+        }
+    }
+
+    private static String optionalValue(final Properties properties, final String key) {
+        if (!System.getProperties().containsKey(key) && !properties.containsKey(key)) {
+            return null;
+        }
+        return requiredValue(properties, key);
+    }
+
+    private static long optionalLongValue(final Properties properties, final String key) {
+        if (!System.getProperties().containsKey(key) && !properties.containsKey(key)) {
+            return Long.MAX_VALUE;
+        }
+        final String value = requiredValue(properties, key);
+        try {
+            return Long.parseLong(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cannot parse " + value + " as long for key " + key);
+        }
+    }
+
     private static String requiredValue(final Properties properties, final String key) {
         if (System.getProperties().containsKey(key)) {
             return System.getProperties().getProperty(key);
@@ -78,14 +185,58 @@ public final class ConfigParser {
         return pretouchIntervalMillis;
     }
 
+    public BackpressureConfig getBackpressureConfig() {
+        return backpressureConfig;
+    }
+
+    public LaunchConfig getLaunchConfig() {
+        return launchConfig;
+    }
+
+    /**
+     * @return the outputs of the stages which no stage reads, where the messages end up
+     */
+    public List<Path> getSinkPaths() {
+        final Set<Path> inputs = new HashSet<>();
+        for (StageConfig stageConfig : stageConfigList) {
+            inputs.addAll(stageConfig.getInputPaths());
+        }
+        final Set<Path> sinks = new LinkedHashSet<>();
+        for (StageConfig stageConfig : stageConfigList) {
+            if (!inputs.contains(stageConfig.getOutputPath())) {
+                sinks.add(stageConfig.getOutputPath());
+            }
+        }
+        return new ArrayList<>(sinks);
+    }
+
+    /**
+     * @return the names of the consumers of all the stages reading from the queue at this path
+     */
+    public String[] getConsumerNames(final Path queuePath) {
+        final List<String> names = new ArrayList<>();
+        for (StageConfig stageConfig : stageConfigList) {
+            if (stageConfig.getInputPaths().contains(queuePath)) {
+                for (Integer index : stageConfig.getStageIndices()) {
+                    names.add(consumerName(index));
+                }
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+
     private StageConfig parseStageConfig(final Properties properties, final int index) {
         final int consumerCount = requiredIntValue(properties, String.format("stage.%d.consumers", index));
         final List<Integer> stageIndices = new ArrayList<>(consumerCount);
         for (int i = 0; i < consumerCount; i++) {
             stageIndices.add(requiredIntValue(properties, String.format("stage.%d.consumer.%d.index", index, i)));
         }
+        final List<Path> inputPaths = new ArrayList<>();
+        for (String inputDir : requiredValue(properties, String.format("stage.%d.inputDir", index)).split(",")) {
+            inputPaths.add(toRelativePath(inputDir.trim()));
+        }
         return new StageConfig(
-                toRelativePath(requiredValue(properties, String.format("stage.%d.inputDir", index))),
+                inputPaths,
                 toRelativePath(requiredValue(properties, String.format("stage.%d.outputDir", index))),
                 stageIndices);
     }
@@ -0,0 +1,61 @@
+package net.openhft.load.config;
+
+import java.nio.file.Path;
+import java.util.List;
+
+public final class LaunchConfig {
+    private final int durationSeconds;
+    private final int drainSeconds;
+    private final List<Integer> cpus;
+    private final List<String> jvmArgs;
+    private final Path baselinePath;
+    private final double tolerancePercent;
+    private final double toleranceMicros;
+
+    /**
+     * @param cpus             the cpus to pin the processes to in turn, empty for none
+     * @param baselinePath     the results to compare against, or null for none
+     * @param tolerancePercent how much worse than the baseline a result can be and still pass
+     * @param toleranceMicros  how much worse than the baseline a result can be regardless of the percentage, so
+     *                         small values don't fail on noise
+     */
+    public LaunchConfig(final int durationSeconds, final int drainSeconds, final List<Integer> cpus,
+                        final List<String> jvmArgs, final Path baselinePath,
+                        final double tolerancePercent, final double toleranceMicros) {
+        this.durationSeconds = durationSeconds;
+        this.drainSeconds = drainSeconds;
+        this.cpus = cpus;
+        this.jvmArgs = jvmArgs;
+        this.baselinePath = baselinePath;
+        this.tolerancePercent = tolerancePercent;
+        this.toleranceMicros = toleranceMicros;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getDrainSeconds() {
+        return drainSeconds;
+    }
+
+    public List<Integer> getCpus() {
+        return cpus;
+    }
+
+    public List<String> getJvmArgs() {
+        return jvmArgs;
+    }
+
+    public Path getBaselinePath() {
+        return baselinePath;
+    }
+
+    public double getTolerancePercent() {
+        return tolerancePercent;
+    }
+
+    public double getToleranceMicros() {
+        return toleranceMicros;
+    }
+}
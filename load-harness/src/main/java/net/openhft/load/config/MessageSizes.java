@@ -0,0 +1,117 @@
+package net.openhft.load.config;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The sizes of the messages to publish, in bytes, drawn from one of
+ * <pre>
+ * fixed:80
+ * uniform:80-1024
+ * weighted:80=90,1024=9,65536=1
+ * </pre>
+ * The sizes are sampled up front with a fixed seed, so every run publishes the same sequence without generating
+ * garbage or calling the random number generator while publishing.
+ */
+public final class MessageSizes {
+    private static final int SAMPLES = 1 << 16;
+
+    private final String spec;
+    private final int[] sizes;
+    private final int maxSize;
+    private final double meanSize;
+
+    private MessageSizes(final String spec, final int[] sizes) {
+        this.spec = spec;
+        this.sizes = sizes;
+        this.maxSize = Arrays.stream(sizes).max().orElse(0);
+        this.meanSize = Arrays.stream(sizes).average().orElse(0);
+    }
+
+    public static MessageSizes fixed(final int size) {
+        return parse("fixed:" + size);
+    }
+
+    public static MessageSizes parse(final String spec) {
+        final int colon = spec.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Expected <distribution>:<sizes> but got " + spec);
+        }
+        final String kind = spec.substring(0, colon).trim();
+        final String args = spec.substring(colon + 1).trim();
+        final Random random = new Random(1511514053000L);
+        final int[] sizes = new int[SAMPLES];
+        try {
+            switch (kind) {
+                case "fixed":
+                    Arrays.fill(sizes, positive(Integer.parseInt(args)));
+                    break;
+                case "uniform": {
+                    final int dash = args.indexOf('-');
+                    final int min = positive(Integer.parseInt(args.substring(0, dash).trim()));
+                    final int max = positive(Integer.parseInt(args.substring(dash + 1).trim()));
+                    if (max < min) {
+                        throw new IllegalArgumentException("Empty range " + args);
+                    }
+                    for (int i = 0; i < SAMPLES; i++) {
+                        sizes[i] = min + random.nextInt(max - min + 1);
+                    }
+                    break;
+                }
+                case "weighted": {
+                    final String[] entries = args.split(",");
+                    final int[] values = new int[entries.length];
+                    final long[] cumulativeWeights = new long[entries.length];
+                    long totalWeight = 0;
+                    for (int i = 0; i < entries.length; i++) {
+                        final String[] pair = entries[i].split("=");
+                        values[i] = positive(Integer.parseInt(pair[0].trim()));
+                        totalWeight += positive(Integer.parseInt(pair[1].trim()));
+                        cumulativeWeights[i] = totalWeight;
+                    }
+                    for (int i = 0; i < SAMPLES; i++) {
+                        final long r = (long) (random.nextDouble() * totalWeight);
+                        int j = 0;
+                        while (cumulativeWeights[j] <= r) {
+                            j++;
+                        }
+                        sizes[i] = values[j];
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown distribution " + kind);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cannot parse message sizes " + spec + ": " + e.getMessage(), e);
+        }
+        return new MessageSizes(spec, sizes);
+    }
+
+    private static int positive(final int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("Expected a positive value but got " + value);
+        }
+        return value;
+    }
+
+    /**
+     * @return the size of the n-th message
+     */
+    public int size(final long n) {
+        return sizes[(int) (n & (SAMPLES - 1))];
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    public double meanSize() {
+        return meanSize;
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
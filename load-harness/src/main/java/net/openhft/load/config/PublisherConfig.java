@@ -6,18 +6,52 @@ public final class PublisherConfig {
     private final Path outputDir;
     private final int publishRateMegaBytesPerSecond;
     private final int stageCount;
+    private final int publisherCount;
+    private final int publisherIndex;
+    private final MessageSizes messageSizes;
 
     public PublisherConfig(final Path outputDir, final int publishRateMegaBytesPerSecond, final int stageCount) {
+        this(outputDir, publishRateMegaBytesPerSecond, stageCount, 1, 0, null);
+    }
+
+    /**
+     * @param publisherCount the number of publisher processes sharing the publish rate
+     * @param publisherIndex the index of this publisher, from 0 to publisherCount - 1
+     * @param messageSizes   the sizes of the messages, or null to publish messages without padding
+     */
+    public PublisherConfig(final Path outputDir, final int publishRateMegaBytesPerSecond, final int stageCount,
+                           final int publisherCount, final int publisherIndex, final MessageSizes messageSizes) {
+        if (publisherCount < 1 || publisherIndex < 0 || publisherIndex >= publisherCount) {
+            throw new IllegalArgumentException("Invalid publisher " + publisherIndex + " of " + publisherCount);
+        }
         this.outputDir = outputDir;
         this.publishRateMegaBytesPerSecond = publishRateMegaBytesPerSecond;
         this.stageCount = stageCount;
+        this.publisherCount = publisherCount;
+        this.publisherIndex = publisherIndex;
+        this.messageSizes = messageSizes;
     }
 
     public Path outputDir() {
         return outputDir;
     }
 
+    /**
+     * @return the rate of all the publishers together
+     */
     public int getPublishRateMegaBytesPerSecond() {
         return publishRateMegaBytesPerSecond;
     }
+
+    public int getPublisherCount() {
+        return publisherCount;
+    }
+
+    public int getPublisherIndex() {
+        return publisherIndex;
+    }
+
+    public MessageSizes getMessageSizes() {
+        return messageSizes;
+    }
 }
@@ -4,18 +4,22 @@ import java.nio.file.Path;
 import java.util.List;
 
 public final class StageConfig {
-    private final Path inputPath;
+    private final List<Path> inputPaths;
     private final Path outputPath;
     private final List<Integer> stageIndices;
 
-    public StageConfig(final Path inputPath, final Path outputPath, final List<Integer> stageIndices) {
-        this.inputPath = inputPath;
+    /**
+     * @param inputPaths   the queues read by each of the consumers, more than one joins them
+     * @param stageIndices the index of each consumer, each message is passed on by one of them
+     */
+    public StageConfig(final List<Path> inputPaths, final Path outputPath, final List<Integer> stageIndices) {
+        this.inputPaths = inputPaths;
         this.outputPath = outputPath;
         this.stageIndices = stageIndices;
     }
 
-    public Path getInputPath() {
-        return inputPath;
+    public List<Path> getInputPaths() {
+        return inputPaths;
     }
 
     public Path getOutputPath() {
@@ -25,4 +29,4 @@ public final class StageConfig {
     public List<Integer> getStageIndices() {
         return stageIndices;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+package net.openhft.load.config;
+
+import java.util.Properties;
+import java.util.StringJoiner;
+
+/**
+ * Generates the stage configuration of a common topology of the given size, so it doesn't have to be written out
+ * stage by stage.
+ * <pre>
+ * chain     publisher -> stage 0 -> stage 1 -> ... -> stage N-1
+ * fan-out   publisher -> stage 0..N-1, each message is read by every stage, into a queue each
+ * fan-in    publisher -> N consumers writing to one queue, each message is passed on by one -> stage N
+ * diamond   publisher -> stage 0..N-1, each into a queue of its own -> stage N, which reads all of them
+ * </pre>
+ * The stages write to {@code stage-<index>-out}.
+ */
+public enum Topology {
+    CHAIN {
+        @Override
+        void expand(final Properties properties, final String publisherOutput, final int size) {
+            stageCount(properties, size);
+            for (int i = 0; i < size; i++) {
+                stage(properties, i, i == 0 ? publisherOutput : output(i - 1), i);
+            }
+        }
+    },
+    FAN_OUT {
+        @Override
+        void expand(final Properties properties, final String publisherOutput, final int size) {
+            stageCount(properties, size);
+            for (int i = 0; i < size; i++) {
+                stage(properties, i, publisherOutput, i);
+            }
+        }
+    },
+    FAN_IN {
+        @Override
+        void expand(final Properties properties, final String publisherOutput, final int size) {
+            stageCount(properties, 2);
+            final int[] consumers = new int[size];
+            for (int i = 0; i < size; i++) {
+                consumers[i] = i;
+            }
+            stage(properties, 0, publisherOutput, consumers);
+            stage(properties, 1, output(0), size);
+        }
+    },
+    DIAMOND {
+        @Override
+        void expand(final Properties properties, final String publisherOutput, final int size) {
+            stageCount(properties, size + 1);
+            final StringJoiner inputs = new StringJoiner(",");
+            for (int i = 0; i < size; i++) {
+                stage(properties, i, publisherOutput, i);
+                inputs.add(output(i));
+            }
+            stage(properties, size, inputs.toString(), size);
+        }
+    };
+
+    public static Topology parse(final String name) {
+        try {
+            return valueOf(name.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown topology " + name + ", expected chain, fan-out, fan-in or diamond");
+        }
+    }
+
+    private static String output(final int stage) {
+        return "stage-" + stage + "-out";
+    }
+
+    private static void stageCount(final Properties properties, final int count) {
+        properties.setProperty("stage.count", Integer.toString(count));
+    }
+
+    private static void stage(final Properties properties, final int stage, final String inputs, final int... consumers) {
+        properties.setProperty(String.format("stage.%d.inputDir", stage), inputs);
+        properties.setProperty(String.format("stage.%d.outputDir", stage), output(stage));
+        properties.setProperty(String.format("stage.%d.consumers", stage), Integer.toString(consumers.length));
+        for (int i = 0; i < consumers.length; i++) {
+            properties.setProperty(String.format("stage.%d.consumer.%d.index", stage, i), Integer.toString(consumers[i]));
+        }
+    }
+
+    /**
+     * Adds the stage properties of this topology
+     *
+     * @param size the number of stages of a chain, or the width of the others
+     */
+    abstract void expand(Properties properties, String publisherOutput, int size);
+}
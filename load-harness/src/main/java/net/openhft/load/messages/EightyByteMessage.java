@@ -1,22 +1,66 @@
 package net.openhft.load.messages;
 
+import net.openhft.chronicle.bytes.Bytes;
 import net.openhft.chronicle.wire.AbstractMarshallable;
 
 public final class EightyByteMessage extends AbstractMarshallable {
+    // the stages are selected with a bit mask
+    public static final int MAX_STAGES = 64;
     private static final long UNSET_VALUE = Long.MAX_VALUE;
+    private static final int STAGE_TIMESTAMP_SIZE = 4 + 8;
     public long batchStartNanos = 0L;
+    // when the message should have been sent, latencies are measured from here so a stalled publisher isn't hidden
+    public long intendedNanos = 0L;
     public long publishNanos = 0L;
     public long batchStartMillis = 0L;
     public long stagesToPublishBitMask = 0L;
-    public long t0 = UNSET_VALUE;
-    public long t1 = UNSET_VALUE;
-    public long t2 = UNSET_VALUE;
-    public long t3 = UNSET_VALUE;
-    public long t4 = UNSET_VALUE;
-    public long t5 = UNSET_VALUE;
-    public long t6 = UNSET_VALUE;
+    public long publisherIndex = 0L;
+    // the index of each stage passed and the time it read the message, in the order they were passed
+    public Bytes<?> stageTimestamps = Bytes.elasticHeapByteBuffer(4 * STAGE_TIMESTAMP_SIZE);
+    // pads the message to the configured size
+    public Bytes<?> padding = Bytes.elasticHeapByteBuffer(0);
 
     public static boolean isSet(final long value) {
         return value != UNSET_VALUE;
     }
+
+    public void stageTimestamp(final int stageIndex, final long nanoTime) {
+        stageTimestamps.writeInt(stageIndex);
+        stageTimestamps.writeLong(nanoTime);
+    }
+
+    /**
+     * @return when the stage read the message, or a value which is not {@link #isSet(long)} if it didn't
+     */
+    public long stageTimestamp(final int stageIndex) {
+        for (int i = 0; i < stageCount(); i++) {
+            if (stageIndexAt(i) == stageIndex) {
+                return stageTimestampAt(i);
+            }
+        }
+        return UNSET_VALUE;
+    }
+
+    /**
+     * @return the number of stages the message has passed
+     */
+    public int stageCount() {
+        return (int) (stageTimestamps.readRemaining() / STAGE_TIMESTAMP_SIZE);
+    }
+
+    public int stageIndexAt(final int i) {
+        return stageTimestamps.readInt(stageTimestamps.readPosition() + (long) i * STAGE_TIMESTAMP_SIZE);
+    }
+
+    public long stageTimestampAt(final int i) {
+        return stageTimestamps.readLong(stageTimestamps.readPosition() + (long) i * STAGE_TIMESTAMP_SIZE + 4);
+    }
+
+    /**
+     * @return when the last stage read the message, or a value which is not {@link #isSet(long)} if none has
+     */
+    public long latestTimestamp() {
+        final int count = stageCount();
+        return count == 0 ? UNSET_VALUE : stageTimestampAt(count - 1);
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.bench;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends messages, through a document context or by copying bytes in, from one writer or several contending for
+ * the write lock. Each iteration writes to a new queue so the disk doesn't fill up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class AppendBenchmark {
+    @Param({"BINARY_LIGHT", "FIELDLESS_BINARY"})
+    public String wireType;
+    @Param({"16", "256", "1024"})
+    public int messageSize;
+    @Param({"DAILY", "HOURLY"})
+    public String rollCycle;
+    // 0 for the roll cycle's default
+    @Param({"0", "16"})
+    public int indexSpacing;
+    /**
+     * DOCUMENT writes into the queue's mapped memory through a document context, BYTES copies a message in with
+     * writeBytes, as a relay would
+     */
+    @Param({"DOCUMENT", "BYTES"})
+    public String writePath;
+
+    SingleChronicleQueue queue;
+    private File dir;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        queue = Queues.builder("AppendBenchmark", wireType, rollCycle, indexSpacing).build();
+        dir = queue.file();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        queue.close();
+        Queues.delete(dir);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void singleWriter(Writer writer) {
+        writer.append();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void fourWriters(Writer writer) {
+        writer.append();
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+        private ExcerptAppender appender;
+        private BytesStore message;
+        private boolean copyBytes;
+
+        @Setup(Level.Iteration)
+        public void setUp(AppendBenchmark benchmark) {
+            appender = benchmark.queue.acquireAppender();
+            message = Queues.message(benchmark.messageSize);
+            copyBytes = "BYTES".equals(benchmark.writePath);
+        }
+
+        void append() {
+            if (copyBytes)
+                appender.writeBytes(message);
+            else
+                Queues.write(appender, message);
+        }
+    }
+}
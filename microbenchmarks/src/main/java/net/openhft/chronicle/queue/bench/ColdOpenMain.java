@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.bench;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+
+/**
+ * The time to open a queue with a given number of cycles and do the first read from the start, the first
+ * {@code toEnd()} and the first append to the last cycle, for a baseline of the directory listing and store
+ * acquisition on startup. Each run opens the queue afresh in this process, so the files are likely to be in the page
+ * cache.
+ * <pre>
+ * -DrollCycle=TEST_SECONDLY -Dcycles=10,100,1000,10000 -Druns=10
+ * </pre>
+ */
+public class ColdOpenMain {
+    static final String ROLL_CYCLE = System.getProperty("rollCycle", "TEST_SECONDLY");
+    static final String CYCLES = System.getProperty("cycles", "10,100,1000,10000");
+    static final int RUNS = Integer.getInteger("runs", 10);
+
+    public static void main(String[] args) {
+        System.out.println("-DrollCycle=" + ROLL_CYCLE
+                + " -Dcycles=" + CYCLES
+                + " -Druns=" + RUNS);
+        System.out.printf("%8s %14s %14s %14s %14s%n", "cycles", "open us", "first read us", "toEnd us", "first append us");
+        for (String cycles : CYCLES.split(","))
+            benchmark(Integer.parseInt(cycles.trim()));
+    }
+
+    static void benchmark(int cycles) {
+        long cycleMillis = RollCycles.valueOf(ROLL_CYCLE).length();
+        SetTimeProvider time = new SetTimeProvider();
+        time.currentTimeMillis(System.currentTimeMillis() / cycleMillis * cycleMillis);
+        BytesStore message = Queues.message(64);
+        File dir;
+        try (SingleChronicleQueue queue = builder(Queues.builder("ColdOpenMain", "BINARY_LIGHT", ROLL_CYCLE, 0), time)
+                .build()) {
+            dir = queue.file();
+            ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < cycles; i++) {
+                if (i > 0)
+                    time.currentTimeMillis(time.currentTimeMillis() + cycleMillis);
+                Queues.write(appender, message);
+            }
+        }
+
+        long open = 0, firstRead = 0, toEnd = 0, firstAppend = 0;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            try (SingleChronicleQueue queue = builder(SingleChronicleQueueBuilder.binary(dir), time).build()) {
+                long opened = System.nanoTime();
+                ExcerptTailer tailer = queue.createTailer();
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    if (!dc.isPresent())
+                        throw new AssertionError("Nothing read from " + dir);
+                }
+                long read = System.nanoTime();
+                tailer.toEnd();
+                long ended = System.nanoTime();
+                Queues.write(queue.acquireAppender(), message);
+                long appended = System.nanoTime();
+
+                open += opened - start;
+                firstRead += read - opened;
+                toEnd += ended - read;
+                firstAppend += appended - ended;
+            }
+        }
+        System.out.printf("%8d %14.1f %14.1f %14.1f %14.1f%n", cycles,
+                open / 1e3 / RUNS, firstRead / 1e3 / RUNS, toEnd / 1e3 / RUNS, firstAppend / 1e3 / RUNS);
+        Queues.delete(dir);
+    }
+
+    @NotNull
+    private static SingleChronicleQueueBuilder builder(@NotNull SingleChronicleQueueBuilder builder,
+                                                       @NotNull SetTimeProvider time) {
+        return builder.rollCycle(RollCycles.valueOf(ROLL_CYCLE)).timeProvider(time);
+    }
+}
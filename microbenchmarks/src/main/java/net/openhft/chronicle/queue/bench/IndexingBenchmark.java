@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.bench;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Random access by index, moving to the end, and counting the excerpts between two indexes, which depend on how
+ * sparse the index is.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class IndexingBenchmark {
+    private static final int MESSAGES = 1 << 18;
+    // must be a power of two
+    private static final int LOOKUPS = 1 << 12;
+
+    @Param({"DAILY", "HOURLY"})
+    public String rollCycle;
+    // 0 for the roll cycle's default
+    @Param({"0", "1", "16", "256"})
+    public int indexSpacing;
+
+    private final long[] indexes = new long[LOOKUPS];
+    private final long[] toIndexes = new long[LOOKUPS];
+    private SingleChronicleQueue queue;
+    private File dir;
+    private ExcerptTailer tailer;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        queue = Queues.builder("IndexingBenchmark", "BINARY_LIGHT", rollCycle, indexSpacing).build();
+        dir = queue.file();
+        ExcerptAppender appender = queue.acquireAppender();
+        BytesStore message = Queues.message(16);
+        for (int i = 0; i < MESSAGES; i++)
+            Queues.write(appender, message);
+
+        long first = queue.firstIndex();
+        long last = appender.lastIndexAppended();
+        // the same lookups each run
+        Random random = new Random(1);
+        for (int i = 0; i < LOOKUPS; i++) {
+            long a = first + (long) (random.nextDouble() * (last - first));
+            long b = first + (long) (random.nextDouble() * (last - first));
+            indexes[i] = Math.min(a, b);
+            toIndexes[i] = Math.max(a, b);
+        }
+        tailer = queue.createTailer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        queue.close();
+        Queues.delete(dir);
+    }
+
+    @Benchmark
+    public boolean moveToIndex() {
+        return tailer.moveToIndex(indexes[next++ & (LOOKUPS - 1)]);
+    }
+
+    @Benchmark
+    public long toEnd() {
+        return tailer.toEnd().index();
+    }
+
+    @Benchmark
+    public long countExcerpts() {
+        int i = next++ & (LOOKUPS - 1);
+        return queue.countExcerpts(indexes[i], toIndexes[i]);
+    }
+}
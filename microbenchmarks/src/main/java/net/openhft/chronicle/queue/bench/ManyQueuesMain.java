@@ -0,0 +1,165 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.bench;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.single.SharedQueueResources;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The cost per queue of holding thousands of small queues open in one JVM, each with an appender and a tailer, with
+ * and without {@link SharedQueueResources}. It prints the time to open each queue and do its first append and read,
+ * and the heap, file descriptors, estimated bytes mapped by open stores, virtual and resident memory and threads per
+ * queue.
+ * <pre>
+ * -Dqueues=1000 -Dmodes=default,shared -Dmessages=10 -DmessageSize=64 -DblockSize=0 -Dpretouch=false
+ * </pre>
+ * A blockSize of 0 uses the default for the mode. File descriptors and memory are only measured on Linux. Each queue
+ * is distinct, so the shared mode still opens one metadata store per queue; its savings are in threads, block size
+ * and release, not metadata.
+ */
+public class ManyQueuesMain {
+    static final int QUEUES = Integer.getInteger("queues", 1000);
+    static final String MODES = System.getProperty("modes", "default,shared");
+    static final int MESSAGES = Integer.getInteger("messages", 10);
+    static final int MESSAGE_SIZE = Integer.getInteger("messageSize", 64);
+    static final long BLOCK_SIZE = Long.getLong("blockSize", 0);
+    static final boolean PRETOUCH = Boolean.getBoolean("pretouch");
+
+    public static void main(String[] args) {
+        System.out.println("-Dqueues=" + QUEUES
+                + " -Dmodes=" + MODES
+                + " -Dmessages=" + MESSAGES
+                + " -DmessageSize=" + MESSAGE_SIZE
+                + " -DblockSize=" + BLOCK_SIZE
+                + " -Dpretouch=" + PRETOUCH);
+        System.out.printf("%8s %10s %10s %10s %10s %12s %10s %10s %8s%n", "mode", "open us", "append us", "read us",
+                "heap KB", "stores KB", "virt KB", "rss KB", "fds");
+        for (String mode : MODES.split(","))
+            benchmark(mode.trim());
+    }
+
+    static void benchmark(@NotNull String mode) {
+        boolean shared;
+        switch (mode) {
+            case "default":
+                shared = false;
+                break;
+            case "shared":
+                shared = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode " + mode + ", expected default or shared");
+        }
+        File root = new File(System.getProperty("java.io.tmpdir"), "ManyQueuesMain-" + System.nanoTime());
+        BytesStore message = Queues.message(MESSAGE_SIZE);
+        SharedQueueResources resources = shared ? new SharedQueueResources().pretouch(PRETOUCH) : null;
+        List<SingleChronicleQueue> queues = new ArrayList<>(QUEUES);
+        // keep the appenders and tailers reachable, as an application would
+        List<ExcerptTailer> tailers = new ArrayList<>(QUEUES);
+
+        long heap0 = usedHeap(), fds0 = openFileDescriptors(), threads0 = Thread.activeCount();
+        long virt0 = procStatus("VmSize"), rss0 = procStatus("VmRSS");
+        long open = 0, append = 0, read = 0;
+        for (int i = 0; i < QUEUES; i++) {
+            long start = System.nanoTime();
+            SingleChronicleQueueBuilder builder = SingleChronicleQueueBuilder.binary(new File(root, "q" + i));
+            if (resources != null)
+                builder.sharedResources(resources);
+            if (BLOCK_SIZE > 0)
+                builder.blockSize(BLOCK_SIZE);
+            SingleChronicleQueue queue = builder.build();
+            queues.add(queue);
+            long opened = System.nanoTime();
+            for (int j = 0; j < MESSAGES; j++)
+                Queues.write(queue.acquireAppender(), message);
+            long appended = System.nanoTime();
+            ExcerptTailer tailer = queue.createTailer();
+            for (int j = 0; j < MESSAGES; j++) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    if (!dc.isPresent())
+                        throw new AssertionError("Nothing read from " + queue.file());
+                }
+            }
+            tailers.add(tailer);
+            long done = System.nanoTime();
+
+            open += opened - start;
+            append += appended - opened;
+            read += done - appended;
+        }
+
+        long heap = usedHeap() - heap0;
+        long mapped = queues.stream().mapToLong(q -> q.metrics().getOpenStoreBytesEstimate()).sum();
+        long fds = openFileDescriptors() - fds0;
+        long virt = procStatus("VmSize") - virt0, rss = procStatus("VmRSS") - rss0;
+        System.out.printf("%8s %10.1f %10.1f %10.1f %10.1f %12.1f %10.1f %10.1f %8.2f%n", mode,
+                open / 1e3 / QUEUES, append / 1e3 / QUEUES, read / 1e3 / QUEUES,
+                heap / 1024.0 / QUEUES, mapped / 1024.0 / QUEUES,
+                virt / (double) QUEUES, rss / (double) QUEUES, fds / (double) QUEUES);
+        System.out.println("    threads started: " + (Thread.activeCount() - threads0)
+                + (resources == null ? "" : ", distinct metadata stores: " + resources.metaStores()));
+
+        tailers.clear();
+        queues.forEach(SingleChronicleQueue::close);
+        if (resources != null)
+            resources.close();
+        Queues.delete(root);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long openFileDescriptors() {
+        if (!OS.isLinux())
+            return 0;
+        String[] fds = new File("/proc/self/fd").list();
+        return fds == null ? 0 : fds.length;
+    }
+
+    /**
+     * @return a field of /proc/self/status in KB, or 0 if not on Linux
+     */
+    private static long procStatus(@NotNull String field) {
+        if (!OS.isLinux())
+            return 0;
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith(field + ":"))
+                    return Long.parseLong(line.substring(field.length() + 1).replace("kB", "").trim());
+            }
+        } catch (IOException | NumberFormatException e) {
+            // not available
+        }
+        return 0;
+    }
+}
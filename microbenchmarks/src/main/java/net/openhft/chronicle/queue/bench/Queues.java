@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.bench;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.io.IOTools;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.WireType;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+
+/**
+ * Builds the queues the benchmarks use from their parameters.
+ */
+final class Queues {
+    private Queues() {
+    }
+
+    /**
+     * @param name         of the benchmark, for the directory
+     * @param wireType     a {@link WireType} name
+     * @param rollCycle    a {@link RollCycles} name
+     * @param indexSpacing or 0 for the roll cycle's default
+     */
+    @NotNull
+    static SingleChronicleQueueBuilder builder(@NotNull String name, @NotNull String wireType, @NotNull String rollCycle,
+                                               int indexSpacing) {
+        File dir = new File(System.getProperty("java.io.tmpdir"), name + "-" + System.nanoTime());
+        SingleChronicleQueueBuilder builder = SingleChronicleQueueBuilder.builder(dir, WireType.valueOf(wireType))
+                .rollCycle(RollCycles.valueOf(rollCycle));
+        if (indexSpacing > 0)
+            builder.indexSpacing(indexSpacing);
+        return builder;
+    }
+
+    static void delete(@NotNull File dir) {
+        IOTools.deleteDirWithFiles(dir, 2);
+    }
+
+    @NotNull
+    static BytesStore message(int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++)
+            bytes[i] = (byte) ('A' + i % 26);
+        return BytesStore.wrap(bytes);
+    }
+
+    static void write(@NotNull ExcerptAppender appender, @NotNull BytesStore message) {
+        try (DocumentContext dc = appender.writingDocument()) {
+            dc.wire().bytes().write(message);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.bench;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The first append of each cycle, which rolls to a new file. The clock is moved on by a cycle before each append, so
+ * every operation is a roll. Each iteration writes to a new queue, as every operation creates a file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, batchSize = 50)
+@Measurement(iterations = 20, batchSize = 50)
+@Fork(2)
+public class RollBenchmark {
+    @Param({"MINUTELY", "HOURLY", "DAILY"})
+    public String rollCycle;
+    @Param({"65536", "67108864"})
+    public long blockSize;
+
+    private final SetTimeProvider time = new SetTimeProvider();
+    private SingleChronicleQueue queue;
+    private File dir;
+    private ExcerptAppender appender;
+    private BytesStore message;
+    private long cycleMillis;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        time.currentTimeMillis(System.currentTimeMillis());
+        queue = Queues.builder("RollBenchmark", "BINARY_LIGHT", rollCycle, 0)
+                .blockSize(blockSize)
+                .timeProvider(time)
+                .build();
+        dir = queue.file();
+        appender = queue.acquireAppender();
+        message = Queues.message(16);
+        cycleMillis = RollCycles.valueOf(rollCycle).length();
+        // so the first roll measured isn't the creation of the queue
+        Queues.write(appender, message);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        queue.close();
+        Queues.delete(dir);
+    }
+
+    @Benchmark
+    public void rollAndAppend() {
+        time.currentTimeMillis(time.currentTimeMillis() + cycleMillis);
+        Queues.write(appender, message);
+    }
+}
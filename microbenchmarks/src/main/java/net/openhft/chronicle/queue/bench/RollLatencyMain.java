@@ -0,0 +1,187 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.bench;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.util.Histogram;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends at a steady rate in real time with a reader tailing, with a short roll cycle so there are many rolls. The
+ * latencies of the appends, the reads, and from when each message should have been written to when it was read, are
+ * split into those within {@code nearRollMs} of the start of a cycle and the rest. The first append and read of each
+ * cycle are also recorded on their own.
+ * <pre>
+ * -DrollCycle=TEST_SECONDLY -Drate=100000 -Druntime=60 -Dwarmup=5 -DnearRollMs=5 -DmessageSize=64 -Dpretouch=false
+ * </pre>
+ */
+public class RollLatencyMain {
+    static final String ROLL_CYCLE = System.getProperty("rollCycle", "TEST_SECONDLY");
+    static final int RATE = Integer.getInteger("rate", 100_000); // messages/s
+    static final int RUNTIME = Integer.getInteger("runtime", 60); // seconds
+    static final int WARMUP = Integer.getInteger("warmup", 5); // seconds
+    static final int NEAR_ROLL_MS = Integer.getInteger("nearRollMs", 5);
+    static final int MESSAGE_SIZE = Math.max(8, Integer.getInteger("messageSize", 64));
+    static final boolean PRETOUCH = Boolean.getBoolean("pretouch");
+    private static final int NO_CYCLE = Integer.MIN_VALUE;
+
+    static volatile boolean writing = true;
+    static volatile long written = 0;
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("-DrollCycle=" + ROLL_CYCLE
+                + " -Drate=" + RATE
+                + " -Druntime=" + RUNTIME
+                + " -Dwarmup=" + WARMUP
+                + " -DnearRollMs=" + NEAR_ROLL_MS
+                + " -DmessageSize=" + MESSAGE_SIZE
+                + " -Dpretouch=" + PRETOUCH);
+
+        SingleChronicleQueue queue = Queues.builder("RollLatencyMain", "BINARY_LIGHT", ROLL_CYCLE, 0).build();
+        File dir = queue.file();
+        long cycleMillis = RollCycles.valueOf(ROLL_CYCLE).length();
+        long recordFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(WARMUP);
+        SplitHistogram appends = new SplitHistogram("append", cycleMillis, queue.epoch());
+        SplitHistogram reads = new SplitHistogram("read", cycleMillis, queue.epoch());
+        SplitHistogram endToEnd = new SplitHistogram("end to end", cycleMillis, queue.epoch());
+
+        Thread pretoucher = null;
+        if (PRETOUCH) {
+            pretoucher = new Thread(() -> {
+                ExcerptAppender appender = queue.acquireAppender();
+                while (!Thread.currentThread().isInterrupted()) {
+                    appender.pretouch();
+                    Jvm.pause(10);
+                }
+            }, "pretoucher");
+            pretoucher.setDaemon(true);
+            pretoucher.start();
+        }
+
+        Thread reader = new Thread(() -> read(queue, recordFrom, reads, endToEnd), "reader");
+        reader.start();
+        write(queue, recordFrom, appends);
+        writing = false;
+        reader.join();
+        if (pretoucher != null)
+            pretoucher.interrupt();
+
+        appends.print();
+        reads.print();
+        endToEnd.print();
+        queue.close();
+        Queues.delete(dir);
+    }
+
+    private static void write(@NotNull SingleChronicleQueue queue, long recordFrom, @NotNull SplitHistogram appends) {
+        ExcerptAppender appender = queue.acquireAppender();
+        BytesStore message = Queues.message(MESSAGE_SIZE - 8);
+        long interval = TimeUnit.SECONDS.toNanos(1) / RATE;
+        long next = System.nanoTime();
+        long end = next + TimeUnit.SECONDS.toNanos(WARMUP + RUNTIME);
+        int lastCycle = NO_CYCLE;
+        while (next < end) {
+            while (System.nanoTime() < next) {
+                // spin
+            }
+            long start = System.nanoTime();
+            try (DocumentContext dc = appender.writingDocument()) {
+                Bytes<?> bytes = dc.wire().bytes();
+                // when it should have been written
+                bytes.writeLong(next);
+                bytes.write(message);
+            }
+            long time = System.nanoTime() - start;
+            int cycle = appender.cycle();
+            if (start >= recordFrom)
+                appends.sample(time, lastCycle != NO_CYCLE && cycle != lastCycle);
+            lastCycle = cycle;
+            written++;
+            next += interval;
+        }
+    }
+
+    private static void read(@NotNull SingleChronicleQueue queue, long recordFrom,
+                             @NotNull SplitHistogram reads, @NotNull SplitHistogram endToEnd) {
+        ExcerptTailer tailer = queue.createTailer();
+        int lastCycle = NO_CYCLE;
+        long read = 0;
+        while (writing || read < written) {
+            long start = System.nanoTime();
+            long intended;
+            try (DocumentContext dc = tailer.readingDocument()) {
+                if (!dc.isPresent())
+                    continue;
+                intended = dc.wire().bytes().readLong();
+            }
+            long now = System.nanoTime();
+            read++;
+            int cycle = tailer.cycle();
+            if (start >= recordFrom) {
+                boolean firstOfCycle = lastCycle != NO_CYCLE && cycle != lastCycle;
+                reads.sample(now - start, firstOfCycle);
+                endToEnd.sample(now - intended, firstOfCycle);
+            }
+            lastCycle = cycle;
+        }
+    }
+
+    /**
+     * The latencies near the start of a cycle, the rest, and of the first operation of each cycle.
+     */
+    static final class SplitHistogram {
+        private final String name;
+        private final long cycleMillis;
+        private final long epoch;
+        private final Histogram steadyState = new Histogram(32, 7);
+        private final Histogram nearRoll = new Histogram(32, 7);
+        private final Histogram firstOfCycle = new Histogram(32, 7);
+
+        SplitHistogram(String name, long cycleMillis, long epoch) {
+            this.name = name;
+            this.cycleMillis = cycleMillis;
+            this.epoch = epoch;
+        }
+
+        void sample(long nanos, boolean first) {
+            long millisIntoCycle = Math.floorMod(System.currentTimeMillis() - epoch, cycleMillis);
+            if (first)
+                firstOfCycle.sample(nanos);
+            // either side of the roll
+            if (millisIntoCycle < NEAR_ROLL_MS || millisIntoCycle >= cycleMillis - NEAR_ROLL_MS)
+                nearRoll.sample(nanos);
+            else
+                steadyState.sample(nanos);
+        }
+
+        void print() {
+            System.out.println(name + " steady state (" + steadyState.totalCount() + "): " + steadyState.toMicrosFormat());
+            System.out.println(name + " within " + NEAR_ROLL_MS + "ms of a roll (" + nearRoll.totalCount() + "): "
+                    + nearRoll.toMicrosFormat());
+            System.out.println(name + " first of cycle (" + firstOfCycle.totalCount() + "): " + firstOfCycle.toMicrosFormat());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.bench;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a queue written before the benchmark, going back to the start at the end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class TailerBenchmark {
+    private static final long QUEUE_BYTES = 256L << 20;
+
+    @Param({"BINARY_LIGHT", "FIELDLESS_BINARY"})
+    public String wireType;
+    @Param({"16", "256", "1024"})
+    public int messageSize;
+    @Param({"DAILY"})
+    public String rollCycle;
+
+    SingleChronicleQueue queue;
+    private File dir;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        queue = Queues.builder("TailerBenchmark", wireType, rollCycle, 0).build();
+        dir = queue.file();
+        ExcerptAppender appender = queue.acquireAppender();
+        BytesStore message = Queues.message(messageSize);
+        for (long i = 0, messages = QUEUE_BYTES / messageSize; i < messages; i++)
+            Queues.write(appender, message);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        queue.close();
+        Queues.delete(dir);
+    }
+
+    @Benchmark
+    public long read(Reader reader) {
+        try (DocumentContext dc = reader.tailer.readingDocument()) {
+            if (dc.isPresent()) {
+                Bytes<?> bytes = dc.wire().bytes();
+                return bytes.readLong(bytes.readPosition());
+            }
+        }
+        reader.tailer.toStart();
+        return -1;
+    }
+
+    @State(Scope.Thread)
+    public static class Reader {
+        private ExcerptTailer tailer;
+
+        @Setup(Level.Trial)
+        public void setUp(TailerBenchmark benchmark) {
+            tailer = benchmark.queue.createTailer();
+        }
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.queue;
+
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.core.util.ThrowingSupplier;
+import net.openhft.chronicle.queue.impl.single.BackgroundAffinity;
+import net.openhft.chronicle.wire.MessageHistory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces consecutive updates with the same SQL into JDBC batches, run on one connection or a small pool of them.
+ * <p>
+ * Updates with arguments are batched and go to the connection chosen by the {@link JDBCService.Partitioner}, or the
+ * only connection if there is none. The updates of each connection are applied in input order, the updates of
+ * different connections may not be. Queries, and updates without arguments such as DDL, are a barrier: they wait for
+ * everything before them and nothing after them starts until they are done. The results are written in the order the
+ * statements were read, each with the message history of its statement.
+ * <p>
+ * All the methods are called by the thread reading the input, only the batches run on the connection threads.
+ */
+final class BatchingJDBCComponent implements JDBCStatement, Closeable {
+    private static final Object[] NO_ARGS = {};
+
+    @NotNull
+    private final JDBCResult result;
+    private final int batchSize;
+    private final long batchTimeNS;
+    private final int maxPending;
+    @NotNull
+    private final Connection[] connections;
+    @NotNull
+    private final ExecutorService[] executors;
+    @Nullable
+    private final JDBCService.Partitioner partitioner;
+    // statements whose results haven't been written yet, in input order
+    private final ArrayDeque<PendingStatement> pending = new ArrayDeque<>();
+    // the batch being filled for each connection, if any
+    @NotNull
+    private final List<PendingStatement>[] batches;
+    @NotNull
+    private final long[] batchStartNS;
+    @Nullable
+    private PendingStatement barrier;
+
+    @SuppressWarnings("unchecked")
+    BatchingJDBCComponent(@NotNull ThrowingSupplier<Connection, SQLException> connectionSupplier,
+                          @NotNull JDBCResult result,
+                          @NotNull String name,
+                          int connections,
+                          @Nullable JDBCService.Partitioner partitioner,
+                          int batchSize,
+                          long batchTimeMS,
+                          @Nullable BackgroundAffinity affinity) throws SQLException {
+        this.result = result;
+        this.partitioner = partitioner;
+        this.batchSize = batchSize;
+        this.batchTimeNS = TimeUnit.MILLISECONDS.toNanos(batchTimeMS);
+        this.maxPending = batchSize * connections * 4;
+        this.batches = new List[connections];
+        this.batchStartNS = new long[connections];
+        this.connections = new Connection[connections];
+        this.executors = new ExecutorService[connections];
+        for (int i = 0; i < connections; i++) {
+            this.connections[i] = connectionSupplier.get();
+            this.executors[i] = Executors.newSingleThreadExecutor(
+                    BackgroundAffinity.threadFactory(affinity, name + "-" + i, true));
+        }
+    }
+
+    /**
+     * @return whether another statement can be read, or it has to wait for a barrier or the statements pending
+     */
+    boolean canRead() {
+        return barrier == null && pending.size() < maxPending;
+    }
+
+    @Override
+    public void executeUpdate(String query, @NotNull Object... args) {
+        PendingStatement statement = new PendingStatement(false, query, args);
+        if (statement.args.length == 0) {
+            barrier(statement);
+            return;
+        }
+        pending.add(statement);
+        int partition = partition(statement);
+        List<PendingStatement> batch = batches[partition];
+        if (batch != null && !batch.get(0).query.equals(query)) {
+            dispatchBatch(partition);
+            batch = null;
+        }
+        if (batch == null) {
+            batch = batches[partition] = new ArrayList<>(batchSize);
+            batchStartNS[partition] = System.nanoTime();
+        }
+        batch.add(statement);
+        if (batch.size() >= batchSize)
+            dispatchBatch(partition);
+    }
+
+    @Override
+    public void executeQuery(String query, @NotNull Object... args) {
+        barrier(new PendingStatement(true, query, args));
+    }
+
+    /**
+     * Dispatches batches which have waited long enough, and a barrier once everything before it is done, and writes
+     * the results which are complete.
+     *
+     * @return true if anything was done
+     */
+    boolean poll() {
+        boolean busy = false;
+        long now = System.nanoTime();
+        for (int i = 0; i < batches.length; i++) {
+            if (batches[i] != null && now - batchStartNS[i] >= batchTimeNS) {
+                dispatchBatch(i);
+                busy = true;
+            }
+        }
+        PendingStatement statement;
+        while ((statement = pending.peek()) != null) {
+            if (statement == barrier && !statement.dispatched) {
+                // everything before it is done
+                dispatchBarrier(statement);
+                busy = true;
+            }
+            if (!statement.done)
+                break;
+            pending.poll();
+            statement.writeTo(result);
+            if (statement == barrier)
+                barrier = null;
+            busy = true;
+        }
+        return busy;
+    }
+
+    private void barrier(@NotNull PendingStatement statement) {
+        for (int i = 0; i < batches.length; i++) {
+            if (batches[i] != null)
+                dispatchBatch(i);
+        }
+        pending.add(statement);
+        barrier = statement;
+    }
+
+    private int partition(@NotNull PendingStatement statement) {
+        return partitioner == null ? 0
+                : Math.floorMod(partitioner.partition(statement.query, statement.args), connections.length);
+    }
+
+    private void dispatchBatch(int partition) {
+        List<PendingStatement> statements = batches[partition];
+        batches[partition] = null;
+        assert statements != null;
+        String query = statements.get(0).query;
+        Connection connection = connections[partition];
+        executors[partition].execute(() -> executeBatch(connection, query, statements));
+    }
+
+    private void dispatchBarrier(@NotNull PendingStatement statement) {
+        statement.dispatched = true;
+        Connection connection = connections[0];
+        executors[0].execute(() -> {
+            // the statement records its own result
+            try {
+                JDBCComponent component = new JDBCComponent(() -> connection, statement);
+                if (statement.isQuery)
+                    component.executeQuery(statement.query, statement.args);
+                else
+                    component.executeUpdate(statement.query, statement.args);
+            } catch (SQLException e) {
+                statement.updateThrown(e, statement.query, statement.args);
+            }
+        });
+    }
+
+    private static void executeBatch(@NotNull Connection connection, @NotNull String query,
+                                     @NotNull List<PendingStatement> statements) {
+        try (PreparedStatement ps = connection.prepareStatement(query)) {
+            for (PendingStatement statement : statements) {
+                for (int i = 0; i < statement.args.length; i++)
+                    ps.setObject(i + 1, statement.args[i]);
+                ps.addBatch();
+            }
+            int[] counts = ps.executeBatch();
+            for (int i = 0; i < statements.size(); i++) {
+                PendingStatement statement = statements.get(i);
+                statement.updateResult(counts[i], query, statement.args);
+            }
+        } catch (BatchUpdateException e) {
+            // depending on the driver, the counts stop at the first failure or mark each one which failed
+            int[] counts = e.getUpdateCounts();
+            for (int i = 0; i < statements.size(); i++) {
+                PendingStatement statement = statements.get(i);
+                if (counts != null && i < counts.length && counts[i] != Statement.EXECUTE_FAILED)
+                    statement.updateResult(counts[i], query, statement.args);
+                else
+                    statement.updateThrown(e, query, statement.args);
+            }
+        } catch (Throwable t) {
+            for (PendingStatement statement : statements)
+                statement.updateThrown(t, query, statement.args);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (ExecutorService executor : executors)
+            executor.shutdownNow();
+        Closeable.closeQuietly(connections);
+    }
+
+    /**
+     * A statement read, and once it has been executed, its result.
+     */
+    static final class PendingStatement implements JDBCResult {
+        final boolean isQuery;
+        @NotNull
+        final String query;
+        @NotNull
+        final Object[] args;
+        // the last source of the message history when the statement was read
+        private final int sourceId;
+        private final long sourceIndex;
+        boolean dispatched;
+        private long count;
+        @Nullable
+        private Throwable thrown;
+        @Nullable
+        private List<String> columns;
+        @Nullable
+        private List<List<Object>> rows;
+        // written last by the connection thread
+        private volatile boolean done;
+
+        PendingStatement(boolean isQuery, @NotNull String query, @Nullable Object[] args) {
+            this.isQuery = isQuery;
+            this.query = query;
+            this.args = args == null ? NO_ARGS : args;
+            MessageHistory history = MessageHistory.get();
+            int last = history.sources() - 1;
+            this.sourceId = last < 0 ? 0 : history.sourceId(last);
+            this.sourceIndex = last < 0 ? 0 : history.sourceIndex(last);
+        }
+
+        @Override
+        public void queryResult(List<String> columns, List<List<Object>> rows, String query, Object... args) {
+            this.columns = columns;
+            this.rows = rows;
+            done = true;
+        }
+
+        @Override
+        public void queryThrown(Throwable t, String query, Object... args) {
+            thrown = t;
+            done = true;
+        }
+
+        @Override
+        public void updateResult(long count, String update, Object... args) {
+            this.count = count;
+            done = true;
+        }
+
+        @Override
+        public void updateThrown(Throwable t, String update, Object... args) {
+            thrown = t;
+            done = true;
+        }
+
+        void writeTo(@NotNull JDBCResult result) {
+            // so afterLastWritten resumes after this statement rather than the last one read
+            MessageHistory history = MessageHistory.get();
+            if (sourceId == 0)
+                history.reset();
+            else
+                history.reset(sourceId, sourceIndex);
+
+            if (isQuery) {
+                if (thrown == null)
+                    result.queryResult(columns, rows, query, args);
+                else
+                    result.queryThrown(thrown, query, args);
+            } else if (thrown == null) {
+                result.updateResult(count, query, args);
+            } else {
+                result.updateThrown(thrown, query, args);
+            }
+        }
+    }
+}
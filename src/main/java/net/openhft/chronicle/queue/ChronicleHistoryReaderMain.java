@@ -55,8 +55,11 @@ public class ChronicleHistoryReaderMain {
         chronicleHistoryReader.
                 withMessageSink(System.out::println).
                 withProgress(commandLine.hasOption('p')).
-                withHistosByMethod(commandLine.hasOption('m')).
-                withBasePath(Paths.get(commandLine.getOptionValue('d')));
+                withHistosByMethod(commandLine.hasOption('m'));
+        final String[] directories = commandLine.getOptionValues('d');
+        chronicleHistoryReader.withBasePath(Paths.get(directories[0]));
+        for (int i = 1; i < directories.length; i++)
+            chronicleHistoryReader.addBasePath(Paths.get(directories[i]));
         if (commandLine.hasOption('t'))
             chronicleHistoryReader.withTimeUnit(TimeUnit.valueOf(commandLine.getOptionValue('t')));
         if (commandLine.hasOption('i'))
@@ -65,6 +68,10 @@ public class ChronicleHistoryReaderMain {
             chronicleHistoryReader.withMeasurementWindow(Long.parseLong(commandLine.getOptionValue('w')));
         if (commandLine.hasOption('u'))
             chronicleHistoryReader.withSummaryOutput(Integer.parseInt(commandLine.getOptionValue('u')));
+        if (commandLine.hasOption('o'))
+            chronicleHistoryReader.withOutputFormat(ChronicleHistoryReader.OutputFormat.valueOf(commandLine.getOptionValue('o').toUpperCase()));
+        if (commandLine.hasOption('f'))
+            chronicleHistoryReader.tail();
     }
 
     @NotNull
@@ -100,12 +107,14 @@ public class ChronicleHistoryReaderMain {
     @NotNull
     protected Options options() {
         final Options options = new Options();
-        ChronicleReaderMain.addOption(options, "d", "directory", true, "Directory containing chronicle queue files", true);
+        ChronicleReaderMain.addOption(options, "d", "directory", true, "Directory containing chronicle queue files. Repeat to merge the histograms of several queues", true);
         ChronicleReaderMain.addOption(options, "h", "help-message", false, "Print this help and exit", false);
         ChronicleReaderMain.addOption(options, "t", "time unit", true, "Time unit. Default nanos", false);
         ChronicleReaderMain.addOption(options, "i", "ignore", true, "How many items to ignore from start", false);
         ChronicleReaderMain.addOption(options, "w", "window", true, "Window duration in time unit. Instead of one output at the end, will output every window period", false);
         ChronicleReaderMain.addOption(options, "u", "histo offset", true, "Summary output. Instead of histograms, will show one value only, in CSV format. Set this to 0 for 50th, 1 for 90th etc., -1 for worst", false);
+        ChronicleReaderMain.addOption(options, "o", "output format", true, "Output format: TABLE (default), CSV, YAML or JSON", false);
+        options.addOption(new Option("f", false, "Follow the queues from the end, outputting each window until stopped. Needs a window"));
         options.addOption(new Option("p", false, "Show progress"));
         options.addOption(new Option("m", false, "By method"));
         return options;
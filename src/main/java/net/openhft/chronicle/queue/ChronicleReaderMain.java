@@ -109,6 +109,9 @@ public enum ChronicleReaderMain {
         if (commandLine.hasOption('s')) {
             chronicleReader.suppressDisplayIndex();
         }
+        if (commandLine.hasOption('p')) {
+            chronicleReader.withThreads(Integer.parseInt(commandLine.getOptionValue('p')));
+        }
     }
 
     @NotNull
@@ -124,6 +127,7 @@ public enum ChronicleReaderMain {
         addOption(options, "r", "as-method-reader", false, "Use when reading from a queue generated using a MethodWriter", false);
         addOption(options, "w", "wire-type", true, "Control output i.e. JSON", false);
         addOption(options, "s", "suppress-index", false, "Display index", false);
+        addOption(options, "p", "parallel", true, "Read on this many threads, output is still in index order (not with -f)", false);
         addOption(options, "l", "single-line", false, "Squash each output message into a single line", false);
         addOption(options, "h", "help-message", false, "Print this help and exit", false);
         return options;
@@ -15,6 +15,7 @@
  */
 package net.openhft.chronicle.queue;
 
+import net.openhft.chronicle.bytes.Byteable;
 import net.openhft.chronicle.bytes.Bytes;
 import net.openhft.chronicle.bytes.BytesStore;
 import net.openhft.chronicle.queue.batch.BatchAppender;
@@ -49,6 +50,38 @@ public interface ExcerptAppender extends ExcerptCommon<ExcerptAppender>, Marshal
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Reserves {@link Byteable#maxSize()} zeroed bytes in a new excerpt and binds the flyweight to them, so its fields
+     * are written straight to the queue, without copying or creating objects. Reuse the same flyweight for every
+     * message, and only use it until the returned context is closed, which commits the excerpt.
+     * <pre>
+     * try (DocumentContext dc = appender.writingFlyweight(tick)) {
+     *     tick.price(price);
+     *     tick.quantity(quantity);
+     * }
+     * </pre>
+     *
+     * @param flyweight of a fixed size message
+     * @return DocumentContext to close once the fields are set
+     */
+    @NotNull
+    default DocumentContext writingFlyweight(@NotNull Byteable flyweight) throws UnrecoverableTimeoutException {
+        final DocumentContext dc = writingDocument();
+        try {
+            final Bytes<?> bytes = dc.wire().bytes();
+            final long offset = bytes.writePosition();
+            final long length = flyweight.maxSize();
+            bytes.writeSkip(length);
+            bytes.zeroOut(offset, offset + length);
+            Flyweights.bind(bytes, offset, length, flyweight);
+            return dc;
+        } catch (Throwable t) {
+            dc.rollbackOnClose();
+            dc.close();
+            throw t;
+        }
+    }
+
     /**
      * @return the index last written, this index includes the cycle and the sequence number
      * @throws IllegalStateException if no index is available
@@ -15,6 +15,8 @@
  */
 package net.openhft.chronicle.queue;
 
+import net.openhft.chronicle.bytes.Byteable;
+import net.openhft.chronicle.bytes.Bytes;
 import net.openhft.chronicle.core.io.IORuntimeException;
 import net.openhft.chronicle.wire.DocumentContext;
 import net.openhft.chronicle.wire.MarshallableIn;
@@ -47,6 +49,40 @@ public interface ExcerptTailer extends ExcerptCommon<ExcerptTailer>, Marshallabl
     @NotNull
     DocumentContext readingDocument(boolean includeMetaData);
 
+    /**
+     * Reads the next excerpt, and if there is one, binds the flyweight to its first {@link Byteable#maxSize()} bytes,
+     * so its fields are read straight from the queue, without copying or creating objects. Reuse the same flyweight
+     * for every message, and only use it until the returned context is closed.
+     * <pre>
+     * try (DocumentContext dc = tailer.readingFlyweight(tick)) {
+     *     if (dc.isPresent())
+     *         onTick(tick.price(), tick.quantity());
+     * }
+     * </pre>
+     *
+     * @param flyweight of a fixed size message
+     * @return the document context, which is not present if there is no excerpt to read
+     * @throws IllegalStateException if the excerpt is shorter than the flyweight, once the excerpt has been skipped
+     */
+    @NotNull
+    default DocumentContext readingFlyweight(@NotNull Byteable flyweight) {
+        final DocumentContext dc = readingDocument();
+        if (!dc.isPresent())
+            return dc;
+        final Bytes<?> bytes = dc.wire().bytes();
+        final long offset = bytes.readPosition();
+        final long length = flyweight.maxSize();
+        if (bytes.readRemaining() < length) {
+            final long remaining = bytes.readRemaining();
+            dc.close();
+            throw new IllegalStateException("Excerpt of " + remaining + " bytes is too short for a flyweight of "
+                    + length + " bytes");
+        }
+        Flyweights.bind(bytes, offset, length, flyweight);
+        bytes.readSkip(length);
+        return dc;
+    }
+
     /**
      * @return true if readingDocument should be called, false if most like it's not needed.
      */
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue;
+
+import net.openhft.chronicle.bytes.Byteable;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Binds the flyweights of {@link ExcerptAppender#writingFlyweight(Byteable)} and
+ * {@link ExcerptTailer#readingFlyweight(Byteable)} to an excerpt's bytes.
+ */
+final class Flyweights {
+    private Flyweights() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static void bind(@NotNull Bytes<?> bytes, long offset, long length, @NotNull Byteable flyweight) {
+        // bind straight to the mapped chunk when it holds the whole region, to skip the bounds checks of the bytes
+        final BytesStore store = bytes.bytesStore();
+        final boolean inside = store != null && store.inside(offset) && store.inside(offset + length - 1);
+        flyweight.bytesStore(inside ? store : bytes, offset, length);
+    }
+}
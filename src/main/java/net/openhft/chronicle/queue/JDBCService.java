@@ -20,9 +20,11 @@ package net.openhft.chronicle.queue;
 import net.openhft.chronicle.bytes.MethodReader;
 import net.openhft.chronicle.core.io.Closeable;
 import net.openhft.chronicle.core.util.ThrowingSupplier;
-import net.openhft.chronicle.threads.NamedThreadFactory;
+import net.openhft.chronicle.queue.impl.single.BackgroundAffinity;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
 import net.openhft.chronicle.threads.Pauser;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,16 +42,67 @@ public class JDBCService implements Closeable {
     private final ChronicleQueue in;
     private final ChronicleQueue out;
     private final ThrowingSupplier<Connection, SQLException> connectionSupplier;
+    private final int connections;
+    @Nullable
+    private final Partitioner partitioner;
+    private final int batchSize;
+    private final long batchTimeMS;
     private volatile boolean closed = false;
 
     public JDBCService(@NotNull ChronicleQueue in, ChronicleQueue out, ThrowingSupplier<Connection, SQLException> connectionSupplier) {
+        this(in, out, connectionSupplier, 1, 0);
+    }
+
+    /**
+     * Executes the statements written to the input in batches, on one connection, so they are applied in input order.
+     * Consecutive updates of the same SQL are batched, up to batchSize statements or for up to batchTimeMS.
+     * <p>
+     * As the results are written in input order, statements read after the last result written may have been applied
+     * to the database before a restart, and are executed again after it.
+     *
+     * @param batchSize   the maximum number of updates in a batch
+     * @param batchTimeMS the longest time to wait for a batch to fill up
+     */
+    public JDBCService(@NotNull ChronicleQueue in, ChronicleQueue out, ThrowingSupplier<Connection, SQLException> connectionSupplier,
+                       int batchSize, long batchTimeMS) {
+        this(in, out, connectionSupplier, 1, null, batchSize, batchTimeMS);
+    }
+
+    /**
+     * Executes the statements written to the input in batches, on a pool of connections. Each update with arguments
+     * runs on the connection chosen by the partitioner, where consecutive updates of the same SQL are batched, up to
+     * batchSize statements or for up to batchTimeMS. Queries, and updates without arguments such as DDL, wait for
+     * everything before them, and everything after them waits for them. See {@link BatchingJDBCComponent}.
+     * <p>
+     * <b>Updates on different connections may be applied in a different order to the input.</b> The partitioner must
+     * give any two updates which touch the same rows, whatever their SQL, the same partition, e.g. by the key of the
+     * row, or an update may be overwritten by one written before it.
+     * <p>
+     * As the results are written in input order, statements read after the last result written may have been applied
+     * to the database before a restart, and are executed again after it.
+     *
+     * @param connections the number of connections to use
+     * @param partitioner chooses the connection of each update, only optional for one connection
+     * @param batchSize   the maximum number of updates in a batch
+     * @param batchTimeMS the longest time to wait for a batch to fill up
+     */
+    public JDBCService(@NotNull ChronicleQueue in, ChronicleQueue out, ThrowingSupplier<Connection, SQLException> connectionSupplier,
+                       int connections, @Nullable Partitioner partitioner, int batchSize, long batchTimeMS) {
+        if (connections < 1 || batchSize < 1 || batchTimeMS < 0)
+            throw new IllegalArgumentException("connections: " + connections + ", batchSize: " + batchSize + ", batchTimeMS: " + batchTimeMS);
+        if (connections > 1 && partitioner == null)
+            throw new IllegalArgumentException("A partitioner is needed to use " + connections + " connections");
         this.in = in;
         this.out = out;
         this.connectionSupplier = connectionSupplier;
+        this.connections = connections;
+        this.partitioner = partitioner;
+        this.batchSize = batchSize;
+        this.batchTimeMS = batchTimeMS;
 
         ExecutorService service = Executors.newSingleThreadExecutor(
-                new NamedThreadFactory(in.file().getName() + "-JDBCService", true));
-        service.execute(this::runLoop);
+                BackgroundAffinity.threadFactory(affinity(), in.file().getName() + "-JDBCService", true));
+        service.execute(connections == 1 && batchSize == 1 ? this::runLoop : this::runBatchingLoop);
         service.shutdown(); // stop when the task exits.
     }
 
@@ -73,6 +126,37 @@ public class JDBCService implements Closeable {
         }
     }
 
+    void runBatchingLoop() {
+        JDBCResult result = out.acquireAppender()
+                .methodWriterBuilder(JDBCResult.class)
+                .recordHistory(true)
+                .get();
+        try (BatchingJDBCComponent js = new BatchingJDBCComponent(connectionSupplier, result,
+                in.file().getName() + "-JDBCService", connections, partitioner, batchSize, batchTimeMS, affinity())) {
+            MethodReader reader = in.createTailer().afterLastWritten(out).methodReader(js);
+            // waiting for the database rather than the input, so don't back off as far
+            Pauser pauser = Pauser.balanced();
+            while (!closed) {
+                boolean busy = js.canRead() && reader.readOne();
+                busy |= js.poll();
+                if (busy)
+                    pauser.reset();
+                else
+                    pauser.pause();
+            }
+        } catch (Throwable t) {
+            LOGGER.warn("Run loop exited", t);
+        }
+    }
+
+    /**
+     * @return the cpus of the input queue's background threads, if any
+     */
+    @Nullable
+    private BackgroundAffinity affinity() {
+        return in instanceof SingleChronicleQueue ? ((SingleChronicleQueue) in).backgroundAffinity() : null;
+    }
+
     @Override
     public void close() {
         closed = true;
@@ -90,4 +174,17 @@ public class JDBCService implements Closeable {
     public MethodReader createReader(JDBCResult result) {
         return out.createTailer().methodReader(result);
     }
+
+    /**
+     * Chooses the connection of an update, so the updates which have to be applied in order share one.
+     */
+    @FunctionalInterface
+    public interface Partitioner {
+        /**
+         * @param update the SQL of the update
+         * @param args   its arguments, at least one
+         * @return any int, the same for all the updates which touch the same rows
+         */
+        int partition(String update, Object[] args);
+    }
 }
@@ -0,0 +1,342 @@
+package net.openhft.chronicle.queue.gateway;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.TailerDirection;
+import net.openhft.chronicle.queue.impl.ExcerptFrameReader;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.threads.NamedThreadFactory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves a queue, read only, to remote {@link QueueGatewayClient}s over TCP.
+ * <p>
+ * One thread serves every connection with a non-blocking selector. Each connection has its own tailer, and sends
+ * runs of adjacent excerpts in one cycle as frames, read by an {@link ExcerptFrameReader}, whose bytes go from the
+ * cycle file to the socket with {@link FileChannel#transferTo}, so consumers share the page cache of this host.
+ * When a connection's socket buffer is full, its tailer is not read again until the socket is writable and the
+ * rest of the frame has been sent, so a slow consumer only holds back itself.
+ * <p>
+ * A client starts by sending a subscription, one byte {@link #FROM_START}, {@link #FROM_INDEX} or
+ * {@link #FROM_TIME} followed by a long, the index or the epoch time in milliseconds. A subscription from a time
+ * starts at the first excerpt of the cycle which includes that time, or the first cycle after it.
+ */
+public final class QueueGateway implements Closeable {
+    public static final byte FROM_START = 'S';
+    public static final byte FROM_INDEX = 'I';
+    public static final byte FROM_TIME = 'T';
+    static final int SUBSCRIPTION_SIZE = 1 + 8;
+    static final int FRAME_HEADER_SIZE = ExcerptFrameReader.FRAME_HEADER_SIZE;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueueGateway.class);
+    // frames sent to one connection before the next connection is served
+    private static final int MAX_FRAMES_PER_PASS = 16;
+
+    @NotNull
+    private final SingleChronicleQueue queue;
+    @NotNull
+    private final ServerSocketChannel serverChannel;
+    @NotNull
+    private final Selector selector;
+    private final List<Connection> connections = new ArrayList<>();
+    private final int maxBatchCount;
+    private final int maxBatchBytes;
+    private volatile boolean closed;
+
+    public QueueGateway(@NotNull SingleChronicleQueue queue, @NotNull InetSocketAddress address) throws IOException {
+        this(queue, address, 1024, 256 << 10);
+    }
+
+    /**
+     * @param queue         to serve
+     * @param address       to listen on, a port of 0 picks a free port
+     * @param maxBatchCount the most excerpts to send in one frame
+     * @param maxBatchBytes the most bytes to send in one frame, a larger excerpt is sent on its own
+     */
+    public QueueGateway(@NotNull SingleChronicleQueue queue, @NotNull InetSocketAddress address,
+                        int maxBatchCount, int maxBatchBytes) throws IOException {
+        if (maxBatchCount <= 0 || maxBatchBytes <= 0)
+            throw new IllegalArgumentException("maxBatchCount and maxBatchBytes must be positive");
+        this.queue = queue;
+        this.maxBatchCount = maxBatchCount;
+        this.maxBatchBytes = maxBatchBytes;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        ExecutorService service = Executors.newSingleThreadExecutor(
+                new NamedThreadFactory(queue.file().getName() + "-gateway", true));
+        service.execute(this::runLoop);
+        service.shutdown(); // stop when the task exits.
+    }
+
+    /**
+     * @return the address clients should connect to
+     */
+    @NotNull
+    public InetSocketAddress localAddress() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    /**
+     * @return the number of clients connected
+     */
+    public int connectionCount() {
+        synchronized (connections) {
+            return connections.size();
+        }
+    }
+
+    void runLoop() {
+        try {
+            boolean busy = false;
+            while (!closed) {
+                if (busy)
+                    selector.selectNow();
+                else
+                    selector.select(1);
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid())
+                        continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable())
+                            connection.onReadable();
+                        if (key.isValid() && key.isWritable())
+                            connection.onWritable();
+                    } catch (IOException | RuntimeException e) {
+                        closeAfterError(connection, e);
+                    }
+                }
+
+                busy = false;
+                synchronized (connections) {
+                    for (int i = connections.size() - 1; i >= 0; i--) {
+                        Connection connection = connections.get(i);
+                        try {
+                            busy |= connection.send();
+                        } catch (IOException | RuntimeException e) {
+                            closeAfterError(connection, e);
+                        }
+                    }
+                }
+            }
+        } catch (Throwable t) {
+            if (!closed)
+                LOGGER.warn("Gateway for " + queue.fileAbsolutePath() + " stopped", t);
+        } finally {
+            synchronized (connections) {
+                for (Connection connection : connections.toArray(new Connection[0]))
+                    connection.close();
+            }
+            Closeable.closeQuietly(selector);
+        }
+    }
+
+    /**
+     * Closes only the connection which failed, e.g. on a bad subscription, so the other clients carry on.
+     */
+    private void closeAfterError(@NotNull Connection connection, @NotNull Exception e) {
+        if (e instanceof RuntimeException)
+            Jvm.warn().on(getClass(), "Closing a gateway connection to " + queue.fileAbsolutePath(), e);
+        connection.close();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null)
+            return;
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        synchronized (connections) {
+            connections.add(connection);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Closeable.closeQuietly(serverChannel);
+        selector.wakeup();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private final class Connection implements Closeable {
+        @NotNull
+        private final SocketChannel channel;
+        private final ByteBuffer subscription = ByteBuffer.allocate(SUBSCRIPTION_SIZE);
+        private final ByteBuffer frameHeader = ByteBuffer.allocateDirect(FRAME_HEADER_SIZE);
+        private SelectionKey key;
+        @Nullable
+        private ExcerptFrameReader frames;
+        // waiting for the socket to be writable
+        private boolean blocked;
+        private long framePosition;
+        private long frameRemaining;
+
+        Connection(@NotNull SocketChannel channel) {
+            this.channel = channel;
+            frameHeader.flip();
+        }
+
+        void onReadable() throws IOException {
+            if (frames != null || channel.read(subscription) < 0) {
+                // the client doesn't send anything after subscribing, so this is the client disconnecting
+                close();
+                return;
+            }
+            if (!subscription.hasRemaining())
+                frames = new ExcerptFrameReader(queue, subscribe(subscription.get(0), subscription.getLong(1)),
+                        maxBatchCount, maxBatchBytes);
+        }
+
+        void onWritable() throws IOException {
+            blocked = false;
+            key.interestOps(SelectionKey.OP_READ);
+            send();
+        }
+
+        /**
+         * Sends the rest of the current frame, then more frames while the socket accepts them.
+         *
+         * @return true if anything was sent
+         */
+        boolean send() throws IOException {
+            if (frames == null || blocked)
+                return false;
+            boolean sent = false;
+            for (int frameCount = 0; frameCount < MAX_FRAMES_PER_PASS; frameCount++) {
+                if (frameHeader.hasRemaining() || frameRemaining > 0) {
+                    sent |= sendFrame();
+                    if (frameHeader.hasRemaining() || frameRemaining > 0) {
+                        // stop reading the tailer until the client has caught up
+                        blocked = true;
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return sent;
+                    }
+                }
+                if (!nextFrame())
+                    break;
+            }
+            return sent;
+        }
+
+        private boolean sendFrame() throws IOException {
+            long written = 0;
+            if (frameHeader.hasRemaining()) {
+                written += channel.write(frameHeader);
+                if (frameHeader.hasRemaining())
+                    return written > 0;
+            }
+            final FileChannel fileChannel = frames.fileChannel();
+            assert fileChannel != null;
+            while (frameRemaining > 0) {
+                long transferred = fileChannel.transferTo(framePosition, frameRemaining, channel);
+                if (transferred <= 0)
+                    break;
+                written += transferred;
+                framePosition += transferred;
+                frameRemaining -= transferred;
+            }
+            return written > 0;
+        }
+
+        /**
+         * Reads the next run of adjacent excerpts in one cycle and prepares to send it.
+         *
+         * @return true if there was anything to send
+         */
+        private boolean nextFrame() throws IOException {
+            assert frames != null;
+            if (!frames.next())
+                return false;
+            frames.header(frameHeader);
+            framePosition = frames.position();
+            frameRemaining = frames.length();
+            return true;
+        }
+
+        @Override
+        public void close() {
+            Closeable.closeQuietly(channel);
+            Closeable.closeQuietly(frames);
+            synchronized (connections) {
+                connections.remove(this);
+            }
+        }
+    }
+
+    @NotNull
+    private ExcerptTailer subscribe(byte type, long value) {
+        ExcerptTailer tailer = queue.createTailer();
+        switch (type) {
+            case FROM_START:
+                return tailer;
+            case FROM_INDEX:
+                if (tailer.moveToIndex(value))
+                    return tailer;
+                Jvm.warn().on(getClass(), "Index " + Long.toHexString(value) +
+                        " not found in " + queue.fileAbsolutePath() + ", starting from the start");
+                return tailer.toStart();
+            case FROM_TIME:
+                return moveToCycleStart(tailer, cycleFor(value));
+            default:
+                throw new IllegalArgumentException("Unknown subscription type " + (char) type);
+        }
+    }
+
+    private int cycleFor(long epochMillis) {
+        return (int) ((epochMillis - queue.epoch()) / queue.rollCycle().length());
+    }
+
+    @NotNull
+    private ExcerptTailer moveToCycleStart(@NotNull ExcerptTailer tailer, int cycle) {
+        if (cycle <= queue.firstCycle())
+            return tailer;
+        if (cycle > queue.lastCycle())
+            return tailer.toEnd();
+        RollCycle rollCycle = queue.rollCycle();
+        if (tailer.moveToIndex(rollCycle.toIndex(cycle, 0)))
+            return tailer;
+        try {
+            int nextCycle = queue.nextCycle(cycle, TailerDirection.FORWARD);
+            if (nextCycle != -1 && tailer.moveToIndex(rollCycle.toIndex(nextCycle, 0)))
+                return tailer;
+        } catch (ParseException e) {
+            throw new IllegalStateException(e);
+        }
+        return tailer.toEnd();
+    }
+}
@@ -0,0 +1,137 @@
+package net.openhft.chronicle.queue.gateway;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.ReadBytesMarshallable;
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.wire.Wires;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import static net.openhft.chronicle.queue.gateway.QueueGateway.*;
+
+/**
+ * Reads a queue served by a {@link QueueGateway}.
+ * <p>
+ * Reads don't block, {@link #readBytes(ReadBytesMarshallable)} returns false until a whole frame has arrived.
+ * A client is not thread safe.
+ */
+public final class QueueGatewayClient implements Closeable {
+    @NotNull
+    private final SocketChannel channel;
+    private final ByteBuffer frameHeader = ByteBuffer.allocateDirect(FRAME_HEADER_SIZE);
+    private ByteBuffer frame = ByteBuffer.allocateDirect(64 << 10);
+    private Bytes<ByteBuffer> frameBytes = BytesStore.wrap(frame).bytesForRead();
+    private boolean inFrame;
+    private int excerptsLeft;
+    private long offset;
+    private long nextIndex;
+    private long lastReadIndex = Long.MIN_VALUE;
+    private boolean closed;
+
+    private QueueGatewayClient(@NotNull InetSocketAddress address, byte type, long value) throws IOException {
+        channel = SocketChannel.open(address);
+        channel.socket().setTcpNoDelay(true);
+        ByteBuffer subscription = ByteBuffer.allocate(SUBSCRIPTION_SIZE);
+        subscription.put(type).putLong(value).flip();
+        while (subscription.hasRemaining())
+            channel.write(subscription);
+        channel.configureBlocking(false);
+    }
+
+    @NotNull
+    public static QueueGatewayClient fromStart(@NotNull InetSocketAddress address) throws IOException {
+        return new QueueGatewayClient(address, FROM_START, 0);
+    }
+
+    @NotNull
+    public static QueueGatewayClient fromIndex(@NotNull InetSocketAddress address, long index) throws IOException {
+        return new QueueGatewayClient(address, FROM_INDEX, index);
+    }
+
+    /**
+     * @param epochMillis the time to start from, rounded down to the start of its cycle
+     */
+    @NotNull
+    public static QueueGatewayClient fromTime(@NotNull InetSocketAddress address, long epochMillis) throws IOException {
+        return new QueueGatewayClient(address, FROM_TIME, epochMillis);
+    }
+
+    /**
+     * Reads the next excerpt, if one has arrived.
+     *
+     * @param reader to pass the excerpt's bytes to
+     * @return true if an excerpt was read
+     */
+    public boolean readBytes(@NotNull ReadBytesMarshallable reader) throws IOException {
+        if (excerptsLeft == 0 && !readFrame())
+            return false;
+
+        while (true) {
+            int header = frameBytes.readInt(offset);
+            int length = Wires.lengthOf(header);
+            long start = offset + 4;
+            offset = start + length;
+            if (Wires.isData(header)) {
+                frameBytes.readPositionRemaining(start, length);
+                lastReadIndex = nextIndex++;
+                excerptsLeft--;
+                reader.readMarshallable(frameBytes);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return the index of the last excerpt read, or {@link Long#MIN_VALUE} if none has been read
+     */
+    public long lastReadIndex() {
+        return lastReadIndex;
+    }
+
+    private boolean readFrame() throws IOException {
+        if (!inFrame) {
+            read(frameHeader);
+            if (frameHeader.hasRemaining())
+                return false;
+            int length = frameHeader.getInt(12);
+            if (frame.capacity() < length) {
+                frame = ByteBuffer.allocateDirect(Math.max(length, frame.capacity() * 2));
+                frameBytes = BytesStore.wrap(frame).bytesForRead();
+            }
+            frame.clear().limit(length);
+            inFrame = true;
+        }
+        read(frame);
+        if (frame.hasRemaining())
+            return false;
+
+        nextIndex = frameHeader.getLong(0);
+        excerptsLeft = frameHeader.getInt(8);
+        offset = 0;
+        frameHeader.clear();
+        inFrame = false;
+        return excerptsLeft > 0;
+    }
+
+    private void read(@NotNull ByteBuffer buffer) throws IOException {
+        if (channel.read(buffer) < 0)
+            throw new EOFException("Gateway closed the connection");
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Closeable.closeQuietly(channel);
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+}
@@ -0,0 +1,186 @@
+package net.openhft.chronicle.queue.impl;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.Wires;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads runs of adjacent excerpts in one cycle from a tailer, so they can be sent as a frame straight from the
+ * cycle file, e.g. with {@link FileChannel#transferTo}. A frame is
+ * <pre>
+ *     long firstIndex, int count, int length, then length bytes of excerpts, each with its 4 byte header
+ * </pre>
+ * The reader holds the store and a file channel for the cycle of the last frame, until the next frame is in
+ * another cycle, or it is closed. It is used by one thread at a time.
+ */
+public final class ExcerptFrameReader implements Closeable {
+    public static final int FRAME_HEADER_SIZE = 8 + 4 + 4;
+
+    @NotNull
+    private final RollingChronicleQueue queue;
+    @NotNull
+    private final ExcerptTailer tailer;
+    private final int maxBatchCount;
+    private final int maxBatchBytes;
+    private long firstIndex;
+    private long lastIndex;
+    private int count;
+    private long position;
+    private int length;
+    private int cycle = Integer.MIN_VALUE;
+    @Nullable
+    private WireStore store;
+    @Nullable
+    private FileChannel fileChannel;
+    private boolean closed;
+
+    /**
+     * @param maxBatchCount the most excerpts in one frame
+     * @param maxBatchBytes the most bytes in one frame, a larger excerpt is a frame on its own
+     */
+    public ExcerptFrameReader(@NotNull RollingChronicleQueue queue, @NotNull ExcerptTailer tailer,
+                              int maxBatchCount, int maxBatchBytes) {
+        if (maxBatchCount <= 0 || maxBatchBytes <= 0)
+            throw new IllegalArgumentException("maxBatchCount and maxBatchBytes must be positive");
+        this.queue = queue;
+        this.tailer = tailer;
+        this.maxBatchCount = maxBatchCount;
+        this.maxBatchBytes = maxBatchBytes;
+    }
+
+    /**
+     * Reads the next frame, and opens its cycle file if needed.
+     *
+     * @return true if there was anything to read
+     * @throws IllegalStateException if the cycle's store can't be found
+     */
+    public boolean next() throws IOException {
+        final RollCycle rollCycle = queue.rollCycle();
+        long start = 0, end = 0;
+        int count = 0, batchCycle = 0;
+        while (count < maxBatchCount) {
+            try (DocumentContext dc = tailer.readingDocument()) {
+                if (!dc.isPresent())
+                    break;
+                final Bytes<?> bytes = dc.wire().bytes();
+                final long headerPosition = bytes.readPosition() - 4;
+                final long excerptEnd = bytes.readPosition() + Wires.lengthOf(bytes.readInt(headerPosition));
+                final int excerptCycle = rollCycle.toCycle(dc.index());
+                if (count > 0 && (excerptCycle != batchCycle || headerPosition != end ||
+                        excerptEnd - start > maxBatchBytes)) {
+                    // read for the next frame
+                    dc.rollbackOnClose();
+                    break;
+                }
+                if (count == 0) {
+                    firstIndex = dc.index();
+                    batchCycle = excerptCycle;
+                    start = headerPosition;
+                }
+                lastIndex = dc.index();
+                end = excerptEnd;
+                count++;
+            }
+        }
+        this.count = count;
+        if (count == 0)
+            return false;
+
+        openCycle(batchCycle);
+        this.position = start;
+        this.length = (int) (end - start);
+        return true;
+    }
+
+    /**
+     * Writes the header of the last frame read, ready to be sent.
+     */
+    public void header(@NotNull ByteBuffer frameHeader) {
+        frameHeader.clear();
+        frameHeader.putLong(firstIndex).putInt(count).putInt(length).flip();
+    }
+
+    public long firstIndex() {
+        return firstIndex;
+    }
+
+    public long lastIndex() {
+        return lastIndex;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @return the position of the frame's first header in the cycle file
+     */
+    public long position() {
+        return position;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int cycle() {
+        return cycle;
+    }
+
+    /**
+     * @return the store of the last frame's cycle
+     */
+    @Nullable
+    public WireStore store() {
+        return store;
+    }
+
+    /**
+     * @return the cycle file of the last frame
+     */
+    @Nullable
+    public FileChannel fileChannel() {
+        return fileChannel;
+    }
+
+    private void openCycle(int cycle) throws IOException {
+        if (cycle == this.cycle && fileChannel != null)
+            return;
+        releaseCycle();
+        store = queue.storeForCycle(cycle, queue.epoch(), false);
+        if (store == null)
+            throw new IllegalStateException("No store for cycle " + cycle + " in " + queue.file());
+        fileChannel = FileChannel.open(store.file().toPath(), StandardOpenOption.READ);
+        this.cycle = cycle;
+    }
+
+    private void releaseCycle() {
+        Closeable.closeQuietly(fileChannel);
+        fileChannel = null;
+        if (store != null) {
+            queue.release(store);
+            store = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        releaseCycle();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+}
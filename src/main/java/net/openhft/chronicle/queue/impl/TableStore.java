@@ -2,6 +2,7 @@ package net.openhft.chronicle.queue.impl;
 
 import net.openhft.chronicle.core.values.LongValue;
 import net.openhft.chronicle.queue.impl.table.Metadata;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.function.Function;
 
@@ -21,6 +22,16 @@ public interface TableStore<T extends Metadata> extends CommonStore {
      */
     LongValue acquireValueFor(CharSequence key);
 
+    /**
+     * Looks up a value without adding it if it isn't there yet, so unlike {@link #acquireValueFor(CharSequence)}
+     * this doesn't need {@link #doWithExclusiveLock(Function)}.
+     *
+     * @param key the key of the value
+     * @return {@link LongValue} object pointing to the value in the underlying file, or {@code null} if there is none
+     */
+    @Nullable
+    LongValue lookupValueFor(CharSequence key);
+
     /**
      * Acquires file-system level lock on the underlying file, to prevent concurrent access from multiple processes.
      * It is recommended to use this when acquiring your values for the first time, otherwise it is possible to get
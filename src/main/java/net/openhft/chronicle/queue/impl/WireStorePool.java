@@ -17,35 +17,49 @@ package net.openhft.chronicle.queue.impl;
 
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.annotation.Nullable;
-import net.openhft.chronicle.queue.RollDetails;
 import net.openhft.chronicle.queue.TailerDirection;
 import org.jetbrains.annotations.NotNull;
 
-import java.lang.ref.Reference;
-import java.lang.ref.WeakReference;
 import java.text.ParseException;
-import java.util.Map;
+import java.util.Collections;
 import java.util.NavigableSet;
-import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Reference counted stores for the cycles in use, keyed by cycle.
+ * <p>
+ * Stores are held in a small open-addressed table, starting at a slot picked by cycle. Looking up a store which
+ * is already open neither locks nor allocates; only opening a store takes a lock, striped by cycle, so that
+ * concurrent acquirers of the same new cycle open it once.
+ * <p>
+ * A slot is cleared by whichever thread first finds its store fully released, either the last release through
+ * the pool, or a later lookup, e.g. if the store was released some other way. Only the thread which clears it tells
+ * the listener, so every store acquired is released to the listener once. If more cycles are in use than the table
+ * holds, the rest are kept in an overflow set, which is searched in full.
+ */
 public class WireStorePool {
     // must be power-of-two
-    private static final int ROLL_CYCLE_CACHE_SIZE = 64;
-    private static final int INDEX_MASK = ROLL_CYCLE_CACHE_SIZE - 1;
+    private static final int STORE_TABLE_SIZE = 64;
+    private static final int INDEX_MASK = STORE_TABLE_SIZE - 1;
+    // must be power-of-two
+    private static final int LOCK_STRIPES = 16;
     @NotNull
     private final WireStoreSupplier supplier;
     @NotNull
-    private final Map<RollDetails, WeakReference<WireStore>> stores;
+    private final AtomicReferenceArray<StoreEntry> stores = new AtomicReferenceArray<>(STORE_TABLE_SIZE);
+    // stores which didn't fit in the table
+    private final Set<StoreEntry> overflow = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Object[] locks = new Object[LOCK_STRIPES];
     private final StoreFileListener storeFileListener;
-    // protected by synchronized on acquire()
-    private final RollDetails[] cache = new RollDetails[ROLL_CYCLE_CACHE_SIZE];
-    private boolean isClosed = false;
+    private volatile boolean isClosed = false;
 
     private WireStorePool(@NotNull WireStoreSupplier supplier, StoreFileListener storeFileListener) {
         this.supplier = supplier;
         this.storeFileListener = storeFileListener;
-        this.stores = new ConcurrentHashMap<>();
+        for (int i = 0; i < LOCK_STRIPES; i++)
+            locks[i] = new Object();
     }
 
     @NotNull
@@ -53,7 +67,7 @@ public class WireStorePool {
         return new WireStorePool(supplier, storeFileListener);
     }
 
-    private static int cacheIndex(final int cycle) {
+    private static int tableIndex(final int cycle) {
         return cycle & INDEX_MASK;
     }
 
@@ -62,62 +76,116 @@ public class WireStorePool {
             return;
         isClosed = true;
 
-        stores.values().stream()
-                .map(Reference::get)
-                .filter(Objects::nonNull)
-                .forEach(this::release);
+        for (int i = 0; i < STORE_TABLE_SIZE; i++) {
+            final StoreEntry entry = stores.get(i);
+            if (entry != null && entry.store.refCount() > 0)
+                release(entry.store);
+        }
+        for (StoreEntry entry : overflow) {
+            if (entry.store.refCount() > 0)
+                release(entry.store);
+        }
     }
 
     @org.jetbrains.annotations.Nullable
     @Nullable
-    public synchronized WireStore acquire(final int cycle, final long epoch, boolean createIfAbsent) {
-        final int cacheIndex = cacheIndex(cycle);
-        RollDetails rollDetails;
-        rollDetails = cache[cacheIndex];
-        if (rollDetails == null || rollDetails.cycle() != cycle) {
-            rollDetails = new RollDetails(cycle, epoch);
-            cache[cacheIndex] = rollDetails;
+    public WireStore acquire(final int cycle, final long epoch, boolean createIfAbsent) {
+        WireStore store = reserveExisting(cycle);
+        if (store != null)
+            return store;
+
+        synchronized (locks[cycle & (LOCK_STRIPES - 1)]) {
+            // another thread may have opened it while we waited for the lock
+            store = reserveExisting(cycle);
+            if (store != null)
+                return store;
+
+            store = this.supplier.acquire(cycle, createIfAbsent);
+            if (store != null) {
+                register(cycle, store);
+                storeFileListener.onAcquired(cycle, store.file());
+            }
+            return store;
         }
+    }
 
-        WeakReference<WireStore> reference = stores.get(rollDetails);
-        WireStore store;
-        if (reference != null) {
-            store = reference.get();
-            if (store != null) {
-                if (store.tryReserve())
-                    return store;
-                else
-                    /// this should never happen,
-                    // this method is synchronized
-                    // and this remove below, is only any use if the acquire method below that fails
-                    Jvm.warn().on(getClass(), "Logic failure - should never happen "+store);
-                    stores.remove(rollDetails);
+    @org.jetbrains.annotations.Nullable
+    private WireStore reserveExisting(final int cycle) {
+        final int start = tableIndex(cycle);
+        for (int i = 0; i < STORE_TABLE_SIZE; i++) {
+            final int index = (start + i) & INDEX_MASK;
+            final StoreEntry entry = stores.get(index);
+            if (entry == null || entry.cycle != cycle)
+                continue;
+            // a store which has just been released can't be reserved, a live one for the same cycle may follow it
+            if (entry.store.tryReserve())
+                return entry.store;
+            clearIfReleased(index, entry);
+        }
+        if (!overflow.isEmpty()) {
+            for (StoreEntry entry : overflow) {
+                if (entry.cycle != cycle)
+                    continue;
+                if (entry.store.tryReserve())
+                    return entry.store;
+                if (entry.store.refCount() == 0 && overflow.remove(entry))
+                    storeFileListener.onReleased(entry.cycle, entry.store.file());
             }
         }
+        return null;
+    }
+
+    /**
+     * Clears the slot of a store which has been released, telling the listener if this thread cleared it.
+     *
+     * @return true if the slot is now free
+     */
+    private boolean clearIfReleased(final int index, @NotNull final StoreEntry entry) {
+        if (entry.store.refCount() != 0)
+            return false;
+        if (stores.compareAndSet(index, entry, null)) {
+            storeFileListener.onReleased(entry.cycle, entry.store.file());
+            return true;
+        }
+        return stores.get(index) == null;
+    }
 
-        store = this.supplier.acquire(cycle, createIfAbsent);
-        if (store != null) {
-            stores.put(rollDetails, new WeakReference<>(store));
-            storeFileListener.onAcquired(cycle, store.file());
+    private void register(final int cycle, @NotNull WireStore store) {
+        final StoreEntry entry = new StoreEntry(cycle, store);
+        final int start = tableIndex(cycle);
+        for (int i = 0; i < STORE_TABLE_SIZE; i++) {
+            final int index = (start + i) & INDEX_MASK;
+            final StoreEntry existing = stores.get(index);
+            if ((existing == null || clearIfReleased(index, existing)) && stores.compareAndSet(index, null, entry))
+                return;
         }
-        return store;
+        if (overflow.isEmpty())
+            Jvm.debug().on(getClass(), "More than " + STORE_TABLE_SIZE + " cycles in use, tracking the rest in a set");
+        overflow.add(entry);
     }
 
     public int nextCycle(final int currentCycle, @NotNull TailerDirection direction) throws ParseException {
         return supplier.nextCycle(currentCycle, direction);
     }
 
-    public synchronized void release(@NotNull CommonStore store) {
+    public void release(@NotNull CommonStore store) {
         store.release();
 
         long refCount = store.refCount();
         assert refCount >= 0;
         if (refCount == 0) {
-            for (Map.Entry<RollDetails, WeakReference<WireStore>> entry : stores.entrySet()) {
-                WeakReference<WireStore> ref = entry.getValue();
-                if (ref != null && ref.get() == store) {
-                    stores.remove(entry.getKey());
-                    storeFileListener.onReleased(entry.getKey().cycle(), store.file());
+            for (int i = 0; i < STORE_TABLE_SIZE; i++) {
+                final StoreEntry entry = stores.get(i);
+                if (entry != null && entry.store == store) {
+                    // another thread releasing the same store may have cleared it
+                    if (stores.compareAndSet(i, entry, null))
+                        storeFileListener.onReleased(entry.cycle, store.file());
+                    return;
+                }
+            }
+            for (StoreEntry entry : overflow) {
+                if (entry.store == store && overflow.remove(entry)) {
+                    storeFileListener.onReleased(entry.cycle, store.file());
                     return;
                 }
             }
@@ -138,6 +206,21 @@ public class WireStorePool {
     }
 
     public boolean isEmpty() {
-        return stores.isEmpty();
+        for (int i = 0; i < STORE_TABLE_SIZE; i++) {
+            if (stores.get(i) != null)
+                return false;
+        }
+        return overflow.isEmpty();
+    }
+
+    private static final class StoreEntry {
+        final int cycle;
+        @NotNull
+        final WireStore store;
+
+        StoreEntry(int cycle, @NotNull WireStore store) {
+            this.cycle = cycle;
+            this.store = store;
+        }
     }
 }
@@ -0,0 +1,186 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.affinity.Affinity;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.threads.NamedThreadFactory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.BitSet;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The cpus a queue's background threads run on, given as a list of cpus or as a NUMA node, for
+ * {@link SingleChronicleQueueBuilder#backgroundAffinity(BackgroundAffinity)}.
+ * <p>
+ * Threads are pinned with the optional {@code net.openhft:affinity} library, and NUMA nodes are read from
+ * {@code /sys/devices/system/node}, so on other platforms, or without the library, a warning is logged once and
+ * threads are left where the OS puts them.
+ */
+public final class BackgroundAffinity {
+    private static final File NODES = new File("/sys/devices/system/node");
+    private static final int UNKNOWN = -1;
+    private static final AtomicBoolean WARNED = new AtomicBoolean();
+
+    private final String description;
+    private final BitSet cpus;
+
+    private BackgroundAffinity(@NotNull String description, @NotNull BitSet cpus) {
+        this.description = description;
+        this.cpus = cpus;
+    }
+
+    /**
+     * @param cpuList e.g. {@code 2-5,8}
+     */
+    @NotNull
+    public static BackgroundAffinity cpus(@NotNull String cpuList) {
+        return new BackgroundAffinity("cpus " + cpuList, parseCpuList(cpuList));
+    }
+
+    /**
+     * @param node a NUMA node, as numbered by {@code numactl --hardware}
+     * @throws IllegalArgumentException if the node isn't known
+     */
+    @NotNull
+    public static BackgroundAffinity numaNode(int node) {
+        final BitSet cpus = numaNodeCpus(node);
+        if (cpus.isEmpty())
+            throw new IllegalArgumentException("Unknown NUMA node " + node);
+        return new BackgroundAffinity("NUMA node " + node, cpus);
+    }
+
+    @NotNull
+    public BitSet cpus() {
+        return (BitSet) cpus.clone();
+    }
+
+    /**
+     * Pins the calling thread to these cpus.
+     *
+     * @return true if it was pinned
+     */
+    public boolean apply() {
+        return pin(cpus, description);
+    }
+
+    /**
+     * @return a factory of named threads which pin themselves to these cpus when they start
+     */
+    @NotNull
+    public ThreadFactory threadFactory(@NotNull String name, boolean daemon) {
+        final ThreadFactory named = new NamedThreadFactory(name, daemon);
+        return r -> named.newThread(() -> {
+            apply();
+            r.run();
+        });
+    }
+
+    /**
+     * @return a factory of named threads, pinned if there is an affinity
+     */
+    @NotNull
+    public static ThreadFactory threadFactory(@Nullable BackgroundAffinity affinity, @NotNull String name,
+                                              boolean daemon) {
+        return affinity == null ? new NamedThreadFactory(name, daemon) : affinity.threadFactory(name, daemon);
+    }
+
+    /**
+     * @return the cpu the calling thread is running on, or -1 if it can't be found
+     */
+    public static int currentCpu() {
+        try {
+            return Affinity.getCpu();
+        } catch (Throwable t) {
+            warnOnce("Cannot find the current cpu, " + t);
+            return UNKNOWN;
+        }
+    }
+
+    /**
+     * @return the NUMA node of a cpu, or -1 if it isn't known
+     */
+    public static int numaNodeOf(int cpu) {
+        if (cpu < 0 || !OS.isLinux())
+            return UNKNOWN;
+        final File[] nodes = NODES.listFiles((dir, name) -> name.matches("node\\d+"));
+        if (nodes == null)
+            return UNKNOWN;
+        for (File node : nodes) {
+            final int id = Integer.parseInt(node.getName().substring("node".length()));
+            if (numaNodeCpus(id).get(cpu))
+                return id;
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Pins the calling thread to the cpus of a NUMA node.
+     *
+     * @return true if it was pinned
+     */
+    static boolean pinToNumaNode(int node) {
+        final BitSet cpus = numaNodeCpus(node);
+        return !cpus.isEmpty() && pin(cpus, "NUMA node " + node);
+    }
+
+    @NotNull
+    static BitSet parseCpuList(@NotNull String cpuList) {
+        final BitSet cpus = new BitSet();
+        for (String range : cpuList.trim().split(",")) {
+            if (range.trim().isEmpty())
+                continue;
+            final String[] ends = range.split("-");
+            try {
+                final int from = Integer.parseInt(ends[0].trim());
+                final int to = ends.length > 1 ? Integer.parseInt(ends[1].trim()) : from;
+                if (from < 0 || to < from || ends.length > 2)
+                    throw new IllegalArgumentException("Invalid cpu range " + range + " in " + cpuList);
+                cpus.set(from, to + 1);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cpu range " + range + " in " + cpuList, e);
+            }
+        }
+        if (cpus.isEmpty())
+            throw new IllegalArgumentException("No cpus in " + cpuList);
+        return cpus;
+    }
+
+    @NotNull
+    private static BitSet numaNodeCpus(int node) {
+        final File cpuList = new File(NODES, "node" + node + "/cpulist");
+        if (!OS.isLinux() || !cpuList.exists())
+            return new BitSet();
+        try {
+            return parseCpuList(new String(Files.readAllBytes(cpuList.toPath())));
+        } catch (IOException | IllegalArgumentException e) {
+            warnOnce("Cannot read " + cpuList + ", " + e);
+            return new BitSet();
+        }
+    }
+
+    private static boolean pin(@NotNull BitSet cpus, @NotNull String description) {
+        try {
+            Affinity.setAffinity(cpus);
+            return true;
+        } catch (Throwable t) {
+            warnOnce("Cannot pin " + Thread.currentThread().getName() + " to " + description + ", " + t);
+            return false;
+        }
+    }
+
+    private static void warnOnce(@NotNull String message) {
+        if (WARNED.compareAndSet(false, true))
+            Jvm.warn().on(BackgroundAffinity.class, message);
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
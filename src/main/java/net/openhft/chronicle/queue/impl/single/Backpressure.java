@@ -0,0 +1,228 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.impl.WireStore;
+import net.openhft.chronicle.threads.Pauser;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+
+import java.text.ParseException;
+import java.util.NavigableSet;
+import java.util.concurrent.TimeUnit;
+
+import static net.openhft.chronicle.queue.impl.single.SingleChronicleQueueExcerpts.StoreTailer;
+
+/**
+ * Lets a producer see how far behind the consumers of a queue are, and wait for them when they fall too far behind,
+ * rather than filling the page cache and disk while a downstream stage is stalled.
+ * <p>
+ * The consumers publish how far they have read with a {@link ConsumerIndex} of the same name, from any process.
+ * Consumers which haven't published an index yet are ignored. The lag is that of the slowest consumer, in messages,
+ * in bytes, and in the time since this producer saw the first message the slowest consumer hasn't read.
+ * <p>
+ * Checking the lag looks up the end of the queue, so producers usually check every so many messages rather than on
+ * every message. This is not thread safe.
+ */
+public final class Backpressure implements Closeable {
+    private static final int SAMPLES = 256;
+
+    @NotNull
+    private final SingleChronicleQueue queue;
+    @NotNull
+    private final ConsumerIndex[] consumers;
+    @NotNull
+    private final StoreTailer end;
+    // the end index seen at the given times, for the lag in time
+    private final long[] sampleIndexes = new long[SAMPLES];
+    private final long[] sampleNanos = new long[SAMPLES];
+    private long samples = 0;
+    private long maxLagMessages = Long.MAX_VALUE;
+    private long maxLagBytes = Long.MAX_VALUE;
+    private long maxLagNanos = Long.MAX_VALUE;
+    private long sampleIntervalNanos = TimeUnit.MILLISECONDS.toNanos(1);
+    @NotNull
+    private Pauser pauser = Pauser.balanced();
+
+    Backpressure(@NotNull SingleChronicleQueue queue, @NotNull String... consumers) {
+        this.queue = queue;
+        this.consumers = new ConsumerIndex[consumers.length];
+        for (int i = 0; i < consumers.length; i++)
+            this.consumers[i] = queue.consumerIndex(consumers[i]);
+        this.end = (StoreTailer) queue.createTailer();
+    }
+
+    public Backpressure maxLagMessages(long maxLagMessages) {
+        this.maxLagMessages = maxLagMessages;
+        return this;
+    }
+
+    public Backpressure maxLagBytes(long maxLagBytes) {
+        this.maxLagBytes = maxLagBytes;
+        return this;
+    }
+
+    public Backpressure maxLagMillis(long maxLagMillis) {
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(maxLagMillis);
+        // so the samples cover the maximum lag
+        this.sampleIntervalNanos = Math.max(sampleIntervalNanos, maxLagNanos / (SAMPLES / 2));
+        return this;
+    }
+
+    /**
+     * @param pauser used while waiting for the consumers to catch up
+     * @return this
+     */
+    public Backpressure pauser(@NotNull Pauser pauser) {
+        this.pauser = pauser;
+        return this;
+    }
+
+    /**
+     * @return the lowest index the consumers are yet to read, or {@code Long.MIN_VALUE} if none has started
+     */
+    public long minConsumerIndex() {
+        long min = Long.MAX_VALUE;
+        for (ConsumerIndex consumer : consumers) {
+            long index = consumer.index();
+            if (index != ConsumerIndex.UNSET && index < min)
+                min = index;
+        }
+        return min == Long.MAX_VALUE ? ConsumerIndex.UNSET : min;
+    }
+
+    /**
+     * @return true if the slowest consumer is behind by more than any of the maximum lags
+     */
+    public boolean isLagging() {
+        long endIndex = endIndex();
+        ConsumerIndex slowest = slowest();
+        if (slowest == null)
+            return false;
+        long index = slowest.index();
+        if (index >= endIndex)
+            return false;
+        return (maxLagMessages != Long.MAX_VALUE && lagMessages(index, endIndex) > maxLagMessages)
+                || (maxLagNanos != Long.MAX_VALUE && lagNanos(index) > maxLagNanos)
+                || (maxLagBytes != Long.MAX_VALUE && lagBytes(slowest, endIndex) > maxLagBytes);
+    }
+
+    /**
+     * Waits while {@link #isLagging()}, or until the thread is interrupted.
+     *
+     * @return the nanoseconds waited
+     */
+    public long awaitCapacity() {
+        if (!isLagging())
+            return 0;
+        long start = System.nanoTime();
+        pauser.reset();
+        do {
+            pauser.pause();
+        } while (isLagging() && !Thread.currentThread().isInterrupted());
+        return System.nanoTime() - start;
+    }
+
+    public long lagMessages() {
+        long endIndex = endIndex();
+        long index = minConsumerIndex();
+        return index == ConsumerIndex.UNSET || index >= endIndex ? 0 : lagMessages(index, endIndex);
+    }
+
+    public long lagBytes() {
+        long endIndex = endIndex();
+        ConsumerIndex slowest = slowest();
+        return slowest == null || slowest.index() >= endIndex ? 0 : lagBytes(slowest, endIndex);
+    }
+
+    public long lagMillis() {
+        long endIndex = endIndex();
+        long index = minConsumerIndex();
+        return index == ConsumerIndex.UNSET || index >= endIndex ? 0 : TimeUnit.NANOSECONDS.toMillis(lagNanos(index));
+    }
+
+    private ConsumerIndex slowest() {
+        ConsumerIndex slowest = null;
+        long min = Long.MAX_VALUE;
+        for (ConsumerIndex consumer : consumers) {
+            long index = consumer.index();
+            if (index != ConsumerIndex.UNSET && index < min) {
+                min = index;
+                slowest = consumer;
+            }
+        }
+        return slowest;
+    }
+
+    private long endIndex() {
+        end.toEnd();
+        long index = end.index();
+        long now = System.nanoTime();
+        int last = (int) ((samples - 1) % SAMPLES);
+        if (samples == 0 || (sampleIndexes[last] != index && now - sampleNanos[last] >= sampleIntervalNanos)) {
+            int next = (int) (samples++ % SAMPLES);
+            sampleIndexes[next] = index;
+            sampleNanos[next] = now;
+        }
+        return index;
+    }
+
+    private long lagMessages(long index, long endIndex) {
+        return queue.countExcerpts(index, endIndex);
+    }
+
+    /**
+     * @return the time since the end index was first seen after the index
+     */
+    private long lagNanos(long index) {
+        int count = (int) Math.min(samples, SAMPLES);
+        long firstSeen = Long.MAX_VALUE;
+        // newest to oldest, stopping at the first sample which doesn't include the index
+        for (int i = 0; i < count; i++) {
+            int sample = (int) ((samples - 1 - i) % SAMPLES);
+            if (sampleIndexes[sample] <= index)
+                break;
+            firstSeen = sampleNanos[sample];
+        }
+        return firstSeen == Long.MAX_VALUE ? 0 : System.nanoTime() - firstSeen;
+    }
+
+    private long lagBytes(@NotNull ConsumerIndex consumer, long endIndex) {
+        long position = consumer.position();
+        Wire endWire = end.wire();
+        if (position == ConsumerIndex.UNSET || endWire == null)
+            return 0;
+        long endPosition = endWire.bytes().readPosition();
+        RollCycle rollCycle = queue.rollCycle();
+        int cycle = rollCycle.toCycle(consumer.index());
+        int endCycle = rollCycle.toCycle(endIndex);
+        if (cycle == endCycle)
+            return Math.max(0, endPosition - position);
+
+        // the rest of the consumer's cycle, all the cycles in between, and the end cycle so far
+        long bytes = endPosition - position;
+        NavigableSet<Long> cycles;
+        try {
+            cycles = queue.listCyclesBetween(cycle, endCycle - 1);
+        } catch (ParseException e) {
+            throw new IllegalStateException(e);
+        }
+        for (long c : cycles) {
+            WireStore store = queue.storeForCycle((int) c, queue.epoch(), false);
+            if (store == null)
+                continue;
+            try {
+                bytes += store.writePosition();
+            } finally {
+                queue.release(store);
+            }
+        }
+        return Math.max(0, bytes);
+    }
+
+    @Override
+    public void close() {
+        Closeable.closeQuietly(consumers);
+        end.releaseResources();
+    }
+}
@@ -0,0 +1,89 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.core.values.LongValue;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.ExcerptContext;
+import net.openhft.chronicle.queue.impl.TableStore;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * How far a named consumer has read a queue, kept in the queue's metadata table store so producers in any process
+ * can see it, see {@link Backpressure}.
+ * <p>
+ * The consumer calls {@link #update(ExcerptTailer)} after reading, which costs two ordered writes.
+ */
+public final class ConsumerIndex implements Closeable {
+    static final long UNSET = Long.MIN_VALUE;
+    private static final String KEY_PREFIX = "consumer.";
+
+    @NotNull
+    private final String name;
+    @NotNull
+    private final LongValue index;
+    @NotNull
+    private final LongValue position;
+
+    ConsumerIndex(@NotNull TableStore<?> tableStore, @NotNull String name) {
+        this.name = name;
+        LongValue[] values = tableStore.doWithExclusiveLock(ts -> new LongValue[]{
+                ts.acquireValueFor(KEY_PREFIX + name + ".index"),
+                ts.acquireValueFor(KEY_PREFIX + name + ".position")});
+        this.index = values[0];
+        this.position = values[1];
+    }
+
+    @NotNull
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Publishes the index of the next excerpt the tailer will read, and its position in the cycle file if known.
+     */
+    public void update(@NotNull ExcerptTailer tailer) {
+        long readPosition = UNSET;
+        if (tailer instanceof ExcerptContext) {
+            Wire wire = ((ExcerptContext) tailer).wire();
+            if (wire != null)
+                readPosition = wire.bytes().readPosition();
+        }
+        update(tailer.index(), readPosition);
+    }
+
+    public void update(long index, long position) {
+        // the position first, so it is never ahead of the index
+        this.position.setOrderedValue(position);
+        this.index.setOrderedValue(index);
+    }
+
+    /**
+     * @return the index of the next excerpt to read, or {@code Long.MIN_VALUE} if the consumer hasn't started
+     */
+    public long index() {
+        return index.getVolatileValue();
+    }
+
+    /**
+     * @return the position of the next excerpt to read in the cycle file of {@link #index()}, or
+     * {@code Long.MIN_VALUE} if not known
+     */
+    public long position() {
+        return position.getVolatileValue();
+    }
+
+    @Override
+    public void close() {
+        Closeable.closeQuietly(index, position);
+    }
+
+    @Override
+    public String toString() {
+        return "ConsumerIndex{" +
+                "name='" + name + '\'' +
+                ", index=" + Long.toHexString(index()) +
+                ", position=" + position() +
+                '}';
+    }
+}
@@ -2,8 +2,10 @@ package net.openhft.chronicle.queue.impl.single;
 
 import net.openhft.chronicle.core.io.Closeable;
 import net.openhft.chronicle.queue.impl.table.SingleTableStore;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.util.NavigableSet;
 
 public interface DirectoryListing extends Closeable {
     void init();
@@ -17,4 +19,13 @@ public interface DirectoryListing extends Closeable {
     int getMinCreatedCycle();
 
     long modCount();
+
+    /**
+     * @return the cycles on disk in ascending order, or {@code null} if this listing only tracks the
+     * lowest and highest cycle
+     */
+    @Nullable
+    default NavigableSet<Long> cycles() {
+        return null;
+    }
 }
@@ -0,0 +1,134 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-process budget for the wires which are no longer in use but have not been released yet. Mappings which are
+ * still in use are owned by chronicle-bytes' {@code MappedFile} and don't count towards it.
+ * <p>
+ * When a tailer or appender moves to another cycle, the wires it used for the old cycle are queued rather than
+ * released immediately. They are normally released once a second by the cleaner thread, or by a queue's
+ * {@link QueueResourceReleaser}, but a fast replay over many cycles can queue wires far quicker than that. When the
+ * number, or the mapped size, of the queued wires exceeds the budget, the cleaner thread is woken to release them
+ * straight away, so the thread which queued them never does the unmapping.
+ * <p>
+ * The limits can be set with {@code -Dchronicle.queue.mapping.budget.bytes} and
+ * {@code -Dchronicle.queue.mapping.budget.count}, or at runtime.
+ */
+public enum MappingBudget {
+    INSTANCE;
+
+    private final PendingReleases shared = new PendingReleases(this);
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private final AtomicLong releasedCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private volatile long maxBytes = Long.getLong("chronicle.queue.mapping.budget.bytes", 4L << 30);
+    private volatile long maxCount = Long.getLong("chronicle.queue.mapping.budget.count", 1024);
+
+    /**
+     * Queues a wire which is no longer used, to be released by the shared cleaner.
+     *
+     * @param wire        to release
+     * @param mappingSize the number of bytes this wire may keep mapped
+     */
+    void queueForRelease(@NotNull final Wire wire, final long mappingSize) {
+        shared.add(wire, mappingSize);
+    }
+
+    /**
+     * @return the bytes the wire's current chunk has mapped, or 0 if it has none
+     */
+    static long mappingSize(@NotNull final Wire wire) {
+        final BytesStore store = wire.bytes().bytesStore();
+        return store == null ? 0 : store.realCapacity();
+    }
+
+    /**
+     * Releases all the mappings queued so far for the shared cleaner.
+     *
+     * @return true if anything was released
+     */
+    boolean releasePending() {
+        return shared.releaseAll();
+    }
+
+    void onQueued(final long mappingSize) {
+        pendingCount.incrementAndGet();
+        pendingBytes.addAndGet(mappingSize);
+    }
+
+    void onReleased(final long mappingSize, final boolean evicted) {
+        pendingCount.decrementAndGet();
+        pendingBytes.addAndGet(-mappingSize);
+        releasedCount.incrementAndGet();
+        if (evicted)
+            evictedCount.incrementAndGet();
+    }
+
+    boolean overBudget() {
+        return pendingCount.get() > maxCount || pendingBytes.get() > maxBytes;
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    public MappingBudget maxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    public long maxCount() {
+        return maxCount;
+    }
+
+    public MappingBudget maxCount(long maxCount) {
+        this.maxCount = maxCount;
+        return this;
+    }
+
+    /**
+     * @return the number of mappings waiting to be released
+     */
+    public long pendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * @return the bytes mapped by the mappings waiting to be released
+     */
+    public long pendingBytes() {
+        return pendingBytes.get();
+    }
+
+    /**
+     * @return the number of mappings released so far
+     */
+    public long releasedCount() {
+        return releasedCount.get();
+    }
+
+    /**
+     * @return the number of mappings released while the budget was exceeded
+     */
+    public long evictedCount() {
+        return evictedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "MappingBudget{" +
+                "pendingCount=" + pendingCount() +
+                ", pendingBytes=" + pendingBytes() +
+                ", maxCount=" + maxCount +
+                ", maxBytes=" + maxBytes +
+                ", releasedCount=" + releasedCount() +
+                ", evictedCount=" + evictedCount() +
+                '}';
+    }
+}
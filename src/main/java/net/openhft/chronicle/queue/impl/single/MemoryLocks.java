@@ -0,0 +1,53 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import com.sun.jna.Native;
+import com.sun.jna.Platform;
+import com.sun.jna.Pointer;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.OS;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Locks pages of mapped chunks in memory with mlock, so they can't be paged out. The pages are unlocked when their
+ * chunk is unmapped. If mlock isn't available, or fails, e.g. because {@code ulimit -l} is too low, a warning is
+ * logged and nothing more is locked.
+ */
+final class MemoryLocks {
+    private static volatile boolean enabled;
+
+    static {
+        try {
+            if (OS.isLinux() && OS.is64Bit()) {
+                Native.register(MemoryLocks.class, Platform.C_LIBRARY_NAME);
+                enabled = true;
+            }
+        } catch (Throwable t) {
+            Jvm.warn().on(MemoryLocks.class, "mlock is not available, " + t);
+        }
+    }
+
+    private MemoryLocks() {
+    }
+
+    /**
+     * Faults in and locks the pages of the chunk from offset, which mlock rounds down to a page.
+     *
+     * @param offset in the chunk's file
+     * @param length in bytes, within the chunk
+     * @return true if the pages were locked
+     */
+    static boolean lock(@NotNull BytesStore chunk, long offset, long length) {
+        if (!enabled)
+            return false;
+        final long address = chunk.addressForRead(offset);
+        if (mlock(new Pointer(address), length) == 0)
+            return true;
+        enabled = false;
+        Jvm.warn().on(MemoryLocks.class, "mlock failed with error " + Native.getLastError()
+                + ", not locking any more mappings. Check ulimit -l");
+        return false;
+    }
+
+    private static native int mlock(Pointer address, long length);
+}
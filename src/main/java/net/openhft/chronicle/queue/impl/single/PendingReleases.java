@@ -0,0 +1,90 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wires which are no longer used and are waiting to be released, oldest first. The mappings they hold count
+ * towards the {@link MappingBudget}, and the ones released while it is exceeded are counted as evicted.
+ */
+final class PendingReleases {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PendingReleases.class);
+
+    private final Queue<PendingRelease> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicLong count = new AtomicLong();
+    @NotNull
+    private final MappingBudget budget;
+
+    PendingReleases(@NotNull final MappingBudget budget) {
+        this.budget = budget;
+    }
+
+    private static void release(@NotNull final Wire wire) {
+        try {
+            wire.bytes().release();
+        } catch (IllegalStateException e) {
+            // ignore this - resource may have already been released by explicit close() operation
+        } catch (Throwable t) {
+            LOGGER.warn("Failed to release wire bytes", t);
+        }
+    }
+
+    /**
+     * @param wire        to release
+     * @param mappingSize the number of bytes this wire may keep mapped
+     */
+    void add(@NotNull final Wire wire, final long mappingSize) {
+        pending.add(new PendingRelease(wire, mappingSize));
+        count.incrementAndGet();
+        budget.onQueued(mappingSize);
+    }
+
+    /**
+     * @param maxCount the most to release
+     * @return the number released
+     */
+    int release(final int maxCount) {
+        int released = 0;
+        while (released < maxCount && releaseOldest())
+            released++;
+        return released;
+    }
+
+    boolean releaseAll() {
+        boolean released = false;
+        while (releaseOldest())
+            released = true;
+        return released;
+    }
+
+    long count() {
+        return count.get();
+    }
+
+    private boolean releaseOldest() {
+        final PendingRelease oldest = pending.poll();
+        if (oldest == null)
+            return false;
+        count.decrementAndGet();
+        final boolean evicted = budget.overBudget();
+        budget.onReleased(oldest.mappingSize, evicted);
+        release(oldest.wire);
+        return true;
+    }
+
+    private static final class PendingRelease {
+        final Wire wire;
+        final long mappingSize;
+
+        PendingRelease(final Wire wire, final long mappingSize) {
+            this.wire = wire;
+            this.mappingSize = mappingSize;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.MappedBytes;
+import net.openhft.chronicle.core.OS;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Locks the pages a pretoucher touches of one queue in memory if
+ * {@link SingleChronicleQueueBuilder#mlockHotMappings(boolean)}. Only the page just touched is locked, so the cost
+ * is a page at a time, within the pretoucher's budget, rather than faulting in a whole chunk at once.
+ * <p>
+ * Touching from the writer's NUMA node is done by the {@link PretoucherService}, which has a thread per node, as this
+ * never moves the calling thread.
+ */
+final class PretouchPlacement {
+    private static final int PAGE_SIZE = OS.pageSize();
+    private final SingleChronicleQueue queue;
+
+    PretouchPlacement(@NotNull SingleChronicleQueue queue) {
+        this.queue = queue;
+    }
+
+    /**
+     * Locks the page just touched, which is in the chunk last acquired by the bytes.
+     *
+     * @param offset of the page touched
+     */
+    void touched(@NotNull MappedBytes bytes, long offset) {
+        if (!queue.mlockHotMappings())
+            return;
+        final BytesStore chunk = bytes.bytesStore();
+        if (chunk == null || offset < chunk.start() || offset + PAGE_SIZE > chunk.start() + chunk.realCapacity())
+            return;
+        try {
+            MemoryLocks.lock(chunk, offset, PAGE_SIZE);
+        } catch (LinkageError e) {
+            // JNA isn't on the class path, so nothing can be locked
+        }
+    }
+}
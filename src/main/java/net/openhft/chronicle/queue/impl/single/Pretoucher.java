@@ -6,6 +6,7 @@ import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
 import net.openhft.chronicle.core.time.TimeProvider;
 import net.openhft.chronicle.queue.impl.WireStore;
+import org.jetbrains.annotations.NotNull;
 
 import java.io.Closeable;
 import java.util.function.IntConsumer;
@@ -29,6 +30,7 @@ public final class Pretoucher implements Closeable {
     private final IntConsumer cycleChangedListener;
     private final PretoucherState pretoucherState;
     private final TimeProvider pretouchTimeProvider;
+    private final PretouchPlacement placement;
     private int currentCycle = Integer.MIN_VALUE;
     private WireStore currentCycleWireStore;
     private MappedBytes currentCycleMappedBytes;
@@ -45,7 +47,20 @@ public final class Pretoucher implements Closeable {
         this.chunkListener = chunkListener;
         this.cycleChangedListener = cycleChangedListener;
         queue.addCloseListener(this, Pretoucher::releaseResources);
-        pretoucherState = new PretoucherState(this::getStoreWritePosition);
+        placement = new PretouchPlacement(queue);
+        pretoucherState = new PretoucherState(this::getStoreWritePosition) {
+            @Override
+            protected boolean touchPage(@NotNull MappedBytes bytes, long offset) {
+                final boolean touched = super.touchPage(bytes, offset);
+                placement.touched(bytes, offset);
+                return touched;
+            }
+
+            @Override
+            protected void onTouched(int count) {
+                queue.metrics().onPretouch(count, lastTouchedPage() - getStoreWritePosition());
+            }
+        };
         pretouchTimeProvider = () -> queue.time().currentTimeMillis() + (EARLY_ACQUIRE_NEXT_CYCLE ? PRETOUCHER_PREROLL_TIME_MS : 0);
     }
 
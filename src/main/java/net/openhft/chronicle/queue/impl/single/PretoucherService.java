@@ -0,0 +1,371 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.MappedBytes;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.core.threads.EventHandler;
+import net.openhft.chronicle.core.threads.HandlerPriority;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
+import net.openhft.chronicle.queue.impl.WireStore;
+import net.openhft.chronicle.threads.NamedThreadFactory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pretouches many queues from one thread, unlike a {@link Pretoucher}, which pretouches one queue a fixed distance
+ * ahead.
+ * <p>
+ * The service tracks how fast each queue is written to, and keeps the pages which will be written to within the
+ * {@link #horizon(long, TimeUnit)} touched, so a busy queue is touched further ahead than an idle one, which only has
+ * {@link #minHeadRoom(long)} touched. The queues are taken in turn, and the time spent touching is limited to a
+ * {@link #cpuBudget(double)} fraction of the thread's time, so one busy queue can't starve the rest, or the other
+ * handlers on an event loop.
+ * <p>
+ * Add it to an event loop, or call {@link #action()} regularly from a thread of your own. Queues are dropped when
+ * they are closed, or when {@link #remove(SingleChronicleQueue)} is called. Only the thread calling {@link #action()}
+ * touches or releases the cycle files, so a queue removed, or the service closed, is released on its next call.
+ * <p>
+ * A cycle file is only pretouched once it has been created by an appender, unless
+ * {@link #earlyAcquireNextCycle(boolean)} is set.
+ * <p>
+ * Queues built with {@link SingleChronicleQueueBuilder#pretouchNumaLocal(boolean)} are handed to a thread for the
+ * NUMA node of their writer, which the service starts and pins to that node, so the pages are allocated there. The
+ * thread calling {@link #action()} is never moved.
+ */
+public final class PretoucherService implements EventHandler, Closeable {
+    private static final int PAGE_SIZE = OS.pageSize();
+    // how many pages to touch between checks of the budget
+    private static final int PAGES_PER_CHECK = 16;
+    // the shortest interval to measure a write rate over
+    private static final long RATE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // how long a NUMA node's thread waits when there is nothing to touch
+    private static final long IDLE_PAUSE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int NO_NODE = -1;
+
+    private final Queue<QueuePretoucher> pretouchers = new ConcurrentLinkedQueue<>();
+    // the service the options are set on, which starts the service of each NUMA node
+    private final PretoucherService root;
+    private final int node;
+    private final Map<Integer, PretoucherService> nodeServices = new ConcurrentHashMap<>();
+    private volatile long horizonNanos = TimeUnit.MILLISECONDS.toNanos(100);
+    private volatile long minHeadRoom = 16L * PAGE_SIZE;
+    private volatile long maxHeadRoom = 64L << 20;
+    private volatile double cpuBudget = 0.1;
+    private volatile boolean earlyAcquireNextCycle = false;
+    private volatile boolean closed;
+    private long lastActionNanos = Long.MIN_VALUE;
+    private long creditNanos = 0;
+
+    public PretoucherService() {
+        this(null, NO_NODE);
+    }
+
+    private PretoucherService(@Nullable PretoucherService root, int node) {
+        this.root = root == null ? this : root;
+        this.node = node;
+    }
+
+    /**
+     * @param horizon how far ahead in time to pretouch, at each queue's recent write rate
+     * @return this
+     */
+    @NotNull
+    public PretoucherService horizon(long horizon, @NotNull TimeUnit unit) {
+        this.horizonNanos = unit.toNanos(horizon);
+        return this;
+    }
+
+    public long horizonNanos() {
+        return horizonNanos;
+    }
+
+    /**
+     * @param minHeadRoom the bytes to keep touched ahead of a queue, however slowly it is written to
+     * @return this
+     */
+    @NotNull
+    public PretoucherService minHeadRoom(long minHeadRoom) {
+        this.minHeadRoom = minHeadRoom;
+        return this;
+    }
+
+    /**
+     * @param maxHeadRoom the most bytes to keep touched ahead of a queue, however fast it is written to
+     * @return this
+     */
+    @NotNull
+    public PretoucherService maxHeadRoom(long maxHeadRoom) {
+        this.maxHeadRoom = maxHeadRoom;
+        return this;
+    }
+
+    /**
+     * @param cpuBudget the fraction of its thread's time the service may spend touching pages, e.g. 0.1 for 10%
+     * @return this
+     */
+    @NotNull
+    public PretoucherService cpuBudget(double cpuBudget) {
+        if (cpuBudget <= 0 || cpuBudget > 1)
+            throw new IllegalArgumentException("cpuBudget must be in (0, 1], was " + cpuBudget);
+        this.cpuBudget = cpuBudget;
+        return this;
+    }
+
+    /**
+     * @param earlyAcquireNextCycle {@code true} to create and pretouch the next cycle's file when the roll is within
+     *                              the horizon. Tailers which look for the last cycle will see the new file early.
+     * @return this
+     */
+    @NotNull
+    public PretoucherService earlyAcquireNextCycle(boolean earlyAcquireNextCycle) {
+        this.earlyAcquireNextCycle = earlyAcquireNextCycle;
+        return this;
+    }
+
+    public void add(@NotNull SingleChronicleQueue queue) {
+        if (queue.isReadOnly())
+            throw new IllegalArgumentException("Cannot pretouch a read only queue " + queue.file());
+        pretouchers.add(new QueuePretoucher(queue));
+    }
+
+    public void remove(@NotNull SingleChronicleQueue queue) {
+        for (QueuePretoucher pretoucher : pretouchers) {
+            if (pretoucher.queue == queue)
+                pretoucher.removed = true;
+        }
+        for (PretoucherService service : nodeServices.values())
+            service.remove(queue);
+    }
+
+    /**
+     * @return the number of queues being pretouched
+     */
+    public int queues() {
+        int queues = 0;
+        for (QueuePretoucher pretoucher : pretouchers) {
+            if (!pretoucher.removed && !pretoucher.queue.isClosed())
+                queues++;
+        }
+        for (PretoucherService service : nodeServices.values())
+            queues += service.queues();
+        return queues;
+    }
+
+    /**
+     * Pretouches the queues in turn, until they are all touched far enough ahead or the budget is spent.
+     *
+     * @return true if any pages were touched
+     */
+    @Override
+    public boolean action() throws InvalidEventHandlerException {
+        if (closed) {
+            for (QueuePretoucher pretoucher; (pretoucher = pretouchers.poll()) != null; )
+                pretoucher.release();
+            throw new InvalidEventHandlerException("Pretoucher service closed");
+        }
+        final long start = System.nanoTime();
+        // earn credit for the time since the last call, but not enough for one call to run for long
+        if (lastActionNanos != Long.MIN_VALUE)
+            creditNanos = Math.min(creditNanos + (long) ((start - lastActionNanos) * root.cpuBudget),
+                    TimeUnit.MILLISECONDS.toNanos(1));
+        lastActionNanos = start;
+        if (creditNanos < 0)
+            return false;
+
+        boolean busy = false;
+        long now = start;
+        for (int i = pretouchers.size(); i > 0 && creditNanos >= 0; i--) {
+            final QueuePretoucher pretoucher = pretouchers.poll();
+            if (pretoucher == null)
+                break;
+            if (pretoucher.removed || pretoucher.queue.isClosed()) {
+                pretoucher.release();
+                continue;
+            }
+            final int queueNode = pretoucher.node();
+            if (queueNode != node) {
+                pretoucher.release();
+                root.forNode(queueNode).pretouch(pretoucher.queue);
+                continue;
+            }
+            try {
+                while (pretoucher.pretouch(now, PAGES_PER_CHECK)) {
+                    busy = true;
+                    final long later = System.nanoTime();
+                    creditNanos -= later - now;
+                    now = later;
+                    if (creditNanos < 0)
+                        break;
+                }
+            } catch (RuntimeException e) {
+                if (pretoucher.queue.isClosed()) {
+                    pretoucher.release();
+                    continue;
+                }
+                Jvm.warn().on(getClass(), e);
+            }
+            pretouchers.add(pretoucher);
+        }
+        creditNanos -= System.nanoTime() - now;
+        return busy;
+    }
+
+    @NotNull
+    @Override
+    public HandlerPriority priority() {
+        return HandlerPriority.MONITOR;
+    }
+
+    /**
+     * Stops the service, which releases the queues' cycle files on the next call to {@link #action()}. The threads of
+     * the NUMA nodes release theirs and stop.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (PretoucherService service : nodeServices.values())
+            service.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void pretouch(@NotNull SingleChronicleQueue queue) {
+        pretouchers.add(new QueuePretoucher(queue));
+    }
+
+    /**
+     * @return the service which pretouches from this NUMA node, started if there isn't one yet
+     */
+    @NotNull
+    private PretoucherService forNode(int node) {
+        if (node == NO_NODE)
+            return this;
+        return nodeServices.computeIfAbsent(node, n -> {
+            final PretoucherService service = new PretoucherService(this, n);
+            // so it stops at once if this was closed meanwhile
+            service.closed = closed;
+            new NamedThreadFactory("pretoucher-numa-node-" + n, true).newThread(service::runOnNode).start();
+            return service;
+        });
+    }
+
+    /**
+     * Runs a NUMA node's service on a thread of its own, pinned to the node, until the service is closed.
+     */
+    private void runOnNode() {
+        BackgroundAffinity.pinToNumaNode(node);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (!action())
+                    LockSupport.parkNanos(IDLE_PAUSE_NANOS);
+            }
+        } catch (InvalidEventHandlerException e) {
+            // closed
+        }
+    }
+
+    /**
+     * The state of one queue, only used by the service's thread, apart from {@link #removed}
+     */
+    private final class QueuePretoucher {
+        final SingleChronicleQueue queue;
+        volatile boolean removed;
+        private final PretouchPlacement placement;
+        private int cycle = Integer.MIN_VALUE;
+        private WireStore store;
+        private MappedBytes bytes;
+        private long lastPosition;
+        private long lastNanos;
+        private double bytesPerNano;
+        private long touchedTo;
+
+        QueuePretoucher(@NotNull SingleChronicleQueue queue) {
+            this.queue = queue;
+            this.placement = new PretouchPlacement(queue);
+        }
+
+        /**
+         * @return the NUMA node to pretouch from, or {@link #NO_NODE} for the thread calling {@link #action()}
+         */
+        int node() {
+            return queue.pretouchNumaLocal() ? queue.writerNumaNode() : NO_NODE;
+        }
+
+        /**
+         * Touches up to {@code maxPages} which are due to be written within the horizon.
+         *
+         * @return true if there may be more to touch
+         */
+        boolean pretouch(long nanos, int maxPages) {
+            final long horizon = root.horizonNanos;
+            if (!assignCycle(horizon))
+                return false;
+            final long position = store.writePosition();
+            if (nanos - lastNanos >= RATE_INTERVAL_NANOS) {
+                // a moving average, so one burst doesn't set the head room on its own
+                final double rate = (double) Math.max(0, position - lastPosition) / (nanos - lastNanos);
+                bytesPerNano = bytesPerNano * 0.75 + rate * 0.25;
+                lastPosition = position;
+                lastNanos = nanos;
+            }
+            final long headRoom = Math.min(root.maxHeadRoom,
+                    Math.max(root.minHeadRoom, (long) (bytesPerNano * horizon)));
+            final long target = position + headRoom;
+            if (touchedTo < position)
+                touchedTo = position - position % PAGE_SIZE;
+            int pages = 0;
+            for (; touchedTo < target && pages < maxPages; touchedTo += PAGE_SIZE, pages++) {
+                bytes.compareAndSwapLong(touchedTo, 0L, 0L);
+                placement.touched(bytes, touchedTo);
+            }
+            if (pages > 0)
+                queue.metrics().onPretouch(pages, touchedTo - position);
+            return touchedTo < target;
+        }
+
+        /**
+         * @return false if the cycle file doesn't exist yet
+         */
+        private boolean assignCycle(long horizon) {
+            final boolean early = root.earlyAcquireNextCycle;
+            final long lookAheadMillis = early ? TimeUnit.NANOSECONDS.toMillis(horizon) : 0;
+            final int qCycle = queue.cycle(() -> queue.time().currentTimeMillis() + lookAheadMillis);
+            if (qCycle == cycle && store != null)
+                return true;
+            release();
+            // the appender creates the file when it first writes to it, and tailers may be waiting to see it
+            store = queue.storeForCycle(qCycle, queue.epoch(), early);
+            if (store == null)
+                return false;
+            bytes = store.bytes();
+            cycle = qCycle;
+            lastPosition = store.writePosition();
+            touchedTo = 0;
+            return true;
+        }
+
+        void release() {
+            if (store != null) {
+                // a closed queue has released its stores
+                if (!queue.isClosed())
+                    queue.release(store);
+                store = null;
+            }
+            if (bytes != null) {
+                bytes.close();
+                bytes = null;
+            }
+        }
+    }
+}
@@ -113,4 +113,8 @@ class PretoucherState {
 
     protected void onTouched(int count) {
     }
+
+    long lastTouchedPage() {
+        return lastTouchedPage;
+    }
 }
@@ -0,0 +1,338 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.queue.impl.StoreFileListener;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of what a queue is doing, which can be sampled with {@link #snapshot()} or over JMX.
+ * <p>
+ * The counters on the append and read paths are {@link LongAdder}s, which are striped across threads and don't
+ * allocate once warmed up, so updating them costs a few nanoseconds. Timings are only taken where something slow
+ * happens anyway: when the write lock isn't free, and when the appender rolls. Rates are found by comparing two
+ * snapshots.
+ */
+public final class QueueMetrics implements QueueMetricsMBean {
+    static final String JMX_DOMAIN = "net.openhft.chronicle.queue";
+
+    @NotNull
+    private final SingleChronicleQueue queue;
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder rolls = new LongAdder();
+    private final LongAdder rollNanos = new LongAdder();
+    private final LongAccumulator maxRollNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder linearScans = new LongAdder();
+    private final LongAdder linearScanEntries = new LongAdder();
+    private final LongAdder storeAcquires = new LongAdder();
+    private final LongAdder storeReleases = new LongAdder();
+    private final LongAdder pretouchedPages = new LongAdder();
+    private volatile long pretouchHeadRoom = 0;
+    @Nullable
+    private ObjectName objectName;
+
+    QueueMetrics(@NotNull SingleChronicleQueue queue) {
+        this.queue = queue;
+    }
+
+    void onAppend(long bytes) {
+        appends.increment();
+        bytesWritten.add(bytes);
+    }
+
+    void onRead() {
+        reads.increment();
+    }
+
+    void onRoll(long nanos) {
+        rolls.increment();
+        rollNanos.add(nanos);
+        maxRollNanos.accumulate(nanos);
+    }
+
+    void onLinearScan(long entries) {
+        linearScans.increment();
+        linearScanEntries.add(entries);
+    }
+
+    void onPretouch(int pages, long headRoom) {
+        pretouchedPages.add(pages);
+        pretouchHeadRoom = headRoom;
+    }
+
+    /**
+     * @return a listener which counts the store files opened and released, before passing them on
+     */
+    @NotNull
+    StoreFileListener countingListener(@NotNull StoreFileListener listener) {
+        return new StoreFileListener() {
+            @Override
+            public void onAcquired(int cycle, File file) {
+                storeAcquires.increment();
+                listener.onAcquired(cycle, file);
+            }
+
+            @Override
+            public void onReleased(int cycle, File file) {
+                storeReleases.increment();
+                listener.onReleased(cycle, file);
+            }
+        };
+    }
+
+    @NotNull
+    public Snapshot snapshot() {
+        long[] values = new long[Metric.VALUES.length];
+        for (Metric metric : Metric.VALUES)
+            values[metric.ordinal()] = value(metric);
+        return new Snapshot(System.nanoTime(), values);
+    }
+
+    public long value(@NotNull Metric metric) {
+        switch (metric) {
+            case APPENDS:
+                return appends.sum();
+            case BYTES_WRITTEN:
+                return bytesWritten.sum();
+            case READS:
+                return reads.sum();
+            case WRITE_LOCK_WAITS:
+                return queue.writeLock() instanceof TableStoreWriteLock ? ((TableStoreWriteLock) queue.writeLock()).waitCount() : 0;
+            case WRITE_LOCK_WAIT_NANOS:
+                return queue.writeLock() instanceof TableStoreWriteLock ? ((TableStoreWriteLock) queue.writeLock()).waitNanos() : 0;
+            case ROLLS:
+                return rolls.sum();
+            case ROLL_NANOS:
+                return rollNanos.sum();
+            case MAX_ROLL_NANOS:
+                return maxRollNanos.get();
+            case LINEAR_SCANS:
+                return linearScans.sum();
+            case LINEAR_SCAN_ENTRIES:
+                return linearScanEntries.sum();
+            case STORE_ACQUIRES:
+                return storeAcquires.sum();
+            case STORE_RELEASES:
+                return storeReleases.sum();
+            case OPEN_STORE_BYTES_ESTIMATE:
+                return Math.max(0, storeAcquires.sum() - storeReleases.sum()) * queue.mappingSize();
+            case PRETOUCHED_PAGES:
+                return pretouchedPages.sum();
+            case PRETOUCH_HEAD_ROOM:
+                return pretouchHeadRoom;
+            default:
+                throw new AssertionError(metric);
+        }
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server, named after the queue's path.
+     */
+    synchronized void registerMBean() {
+        if (objectName != null)
+            return;
+        try {
+            // the same queue can be open more than once in a process
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=QueueMetrics,path=" + ObjectName.quote(queue.fileAbsolutePath())
+                    + ",id=" + Integer.toHexString(System.identityHashCode(this)));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            objectName = name;
+        } catch (JMException e) {
+            Jvm.warn().on(getClass(), "Unable to register queue metrics for " + queue.fileAbsolutePath(), e);
+        }
+    }
+
+    synchronized void unregisterMBean() {
+        if (objectName == null)
+            return;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(objectName);
+        } catch (JMException e) {
+            Jvm.debug().on(getClass(), "Unable to unregister " + objectName, e);
+        }
+        objectName = null;
+    }
+
+    @Nullable
+    public synchronized ObjectName objectName() {
+        return objectName;
+    }
+
+    @Override
+    public String getPath() {
+        return queue.fileAbsolutePath();
+    }
+
+    @Override
+    public long getAppendCount() {
+        return value(Metric.APPENDS);
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return value(Metric.BYTES_WRITTEN);
+    }
+
+    @Override
+    public long getReadCount() {
+        return value(Metric.READS);
+    }
+
+    @Override
+    public long getWriteLockWaitCount() {
+        return value(Metric.WRITE_LOCK_WAITS);
+    }
+
+    @Override
+    public long getWriteLockWaitNanos() {
+        return value(Metric.WRITE_LOCK_WAIT_NANOS);
+    }
+
+    @Override
+    public long getRollCount() {
+        return value(Metric.ROLLS);
+    }
+
+    @Override
+    public long getRollNanos() {
+        return value(Metric.ROLL_NANOS);
+    }
+
+    @Override
+    public long getMaxRollNanos() {
+        return value(Metric.MAX_ROLL_NANOS);
+    }
+
+    @Override
+    public long getLinearScanCount() {
+        return value(Metric.LINEAR_SCANS);
+    }
+
+    @Override
+    public long getLinearScanEntries() {
+        return value(Metric.LINEAR_SCAN_ENTRIES);
+    }
+
+    @Override
+    public long getStoreAcquireCount() {
+        return value(Metric.STORE_ACQUIRES);
+    }
+
+    @Override
+    public long getStoreReleaseCount() {
+        return value(Metric.STORE_RELEASES);
+    }
+
+    @Override
+    public long getOpenStoreBytesEstimate() {
+        return value(Metric.OPEN_STORE_BYTES_ESTIMATE);
+    }
+
+    @Override
+    public long getPretouchedPages() {
+        return value(Metric.PRETOUCHED_PAGES);
+    }
+
+    @Override
+    public long getPretouchHeadRoom() {
+        return value(Metric.PRETOUCH_HEAD_ROOM);
+    }
+
+    @Override
+    public String toString() {
+        return "QueueMetrics{" + queue.fileAbsolutePath() + ", " + snapshot() + '}';
+    }
+
+    public enum Metric {
+        APPENDS,
+        BYTES_WRITTEN,
+        READS,
+        /**
+         * The times the write lock was held by another thread or process when an appender wanted it
+         */
+        WRITE_LOCK_WAITS,
+        WRITE_LOCK_WAIT_NANOS,
+        ROLLS,
+        ROLL_NANOS,
+        MAX_ROLL_NANOS,
+        /**
+         * Linear scans to an index, from the nearest indexed entry
+         */
+        LINEAR_SCANS,
+        LINEAR_SCAN_ENTRIES,
+        /**
+         * The times a store file was opened, rather than shared with a tailer or appender already using it
+         */
+        STORE_ACQUIRES,
+        STORE_RELEASES,
+        /**
+         * The store files open times the size of one chunk and its overlap. This is an estimate of what the open
+         * stores have mapped, not a measure: it doesn't count the chunks still mapped by stores waiting to be
+         * released, nor any store with more than one chunk mapped
+         */
+        OPEN_STORE_BYTES_ESTIMATE,
+        PRETOUCHED_PAGES,
+        /**
+         * How far the pretoucher is ahead of the write position, in bytes
+         */
+        PRETOUCH_HEAD_ROOM;
+
+        static final Metric[] VALUES = values();
+    }
+
+    /**
+     * The metrics at one point in time.
+     */
+    public static final class Snapshot {
+        private final long nanoTime;
+        @NotNull
+        private final long[] values;
+
+        Snapshot(long nanoTime, @NotNull long[] values) {
+            this.nanoTime = nanoTime;
+            this.values = values;
+        }
+
+        public long nanoTime() {
+            return nanoTime;
+        }
+
+        public long get(@NotNull Metric metric) {
+            return values[metric.ordinal()];
+        }
+
+        /**
+         * @param earlier snapshot of the same queue
+         * @return the change in this metric per second since the earlier snapshot
+         */
+        public double ratePerSecond(@NotNull Metric metric, @NotNull Snapshot earlier) {
+            long nanos = nanoTime - earlier.nanoTime;
+            if (nanos <= 0)
+                return 0;
+            return (double) (get(metric) - earlier.get(metric)) * TimeUnit.SECONDS.toNanos(1) / nanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("Snapshot{");
+            for (Metric metric : Metric.VALUES) {
+                if (metric.ordinal() > 0)
+                    sb.append(", ");
+                sb.append(metric.name().toLowerCase()).append('=').append(values[metric.ordinal()]);
+            }
+            return sb.append('}').toString();
+        }
+    }
+}
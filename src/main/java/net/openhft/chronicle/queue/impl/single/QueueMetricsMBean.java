@@ -0,0 +1,38 @@
+package net.openhft.chronicle.queue.impl.single;
+
+/**
+ * The JMX view of a queue's {@link QueueMetrics}. Each attribute is read when it is sampled.
+ */
+public interface QueueMetricsMBean {
+    String getPath();
+
+    long getAppendCount();
+
+    long getBytesWritten();
+
+    long getReadCount();
+
+    long getWriteLockWaitCount();
+
+    long getWriteLockWaitNanos();
+
+    long getRollCount();
+
+    long getRollNanos();
+
+    long getMaxRollNanos();
+
+    long getLinearScanCount();
+
+    long getLinearScanEntries();
+
+    long getStoreAcquireCount();
+
+    long getStoreReleaseCount();
+
+    long getOpenStoreBytesEstimate();
+
+    long getPretouchedPages();
+
+    long getPretouchHeadRoom();
+}
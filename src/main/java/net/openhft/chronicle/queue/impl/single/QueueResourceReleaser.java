@@ -0,0 +1,148 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.core.threads.EventHandler;
+import net.openhft.chronicle.core.threads.HandlerPriority;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Releases the resources of one queue's appenders and tailers, once the threads that used them have gone, and the
+ * wires they no longer use.
+ * <p>
+ * This does the same work as {@link StoreComponentReferenceHandler}, but for a single queue and on that queue's
+ * own event loop, or when {@link #action()} is called explicitly, rather than on a JVM wide daemon thread. Each
+ * call does at most {@code maxBatchSize} releases, so a backlog can't stall the event loop.
+ */
+public final class QueueResourceReleaser implements EventHandler, Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueueResourceReleaser.class);
+
+    private final ReferenceQueue<ExcerptAppender> appenderQueue = new ReferenceQueue<>();
+    private final ReferenceQueue<SingleChronicleQueueExcerpts.StoreTailer> tailerQueue = new ReferenceQueue<>();
+    private final ConcurrentMap<Reference<?>, Runnable> closeActions = new ConcurrentHashMap<>();
+    private final PendingReleases wiresToRelease = new PendingReleases(MappingBudget.INSTANCE);
+    private final AtomicLong closeActionsRun = new AtomicLong();
+    private final int maxBatchSize;
+    private volatile boolean closed;
+
+    QueueResourceReleaser(final int maxBatchSize) {
+        if (maxBatchSize <= 0)
+            throw new IllegalArgumentException("maxBatchSize must be positive, was " + maxBatchSize);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    ReferenceQueue<ExcerptAppender> appenderQueue() {
+        return appenderQueue;
+    }
+
+    ReferenceQueue<SingleChronicleQueueExcerpts.StoreTailer> tailerQueue() {
+        return tailerQueue;
+    }
+
+    void register(final Reference<?> reference, final Runnable cleanupJob) {
+        closeActions.put(reference, cleanupJob);
+    }
+
+    void queueForRelease(final Wire wire, final long mappingSize) {
+        wiresToRelease.add(wire, mappingSize);
+    }
+
+    /**
+     * Releases up to {@code maxBatchSize} resources.
+     *
+     * @return true if anything was released
+     */
+    @Override
+    public boolean action() throws InvalidEventHandlerException {
+        if (closed)
+            throw new InvalidEventHandlerException("Queue closed");
+        int remaining = maxBatchSize;
+        remaining -= processReferenceQueue(appenderQueue, remaining);
+        remaining -= processReferenceQueue(tailerQueue, remaining);
+        remaining -= wiresToRelease.release(remaining);
+        return remaining < maxBatchSize;
+    }
+
+    @NotNull
+    @Override
+    public HandlerPriority priority() {
+        return HandlerPriority.MONITOR;
+    }
+
+    /**
+     * @return the number of appenders and tailers which are registered and have not been released yet, whether or
+     * not they are still in use
+     */
+    public long registeredCloseActions() {
+        return closeActions.size();
+    }
+
+    /**
+     * @return the number of wires waiting to be released
+     */
+    public long pendingWireReleases() {
+        return wiresToRelease.count();
+    }
+
+    /**
+     * @return the number of appenders and tailers released so far
+     */
+    public long closeActionsRun() {
+        return closeActionsRun.get();
+    }
+
+    /**
+     * Releases everything still registered or queued, whether or not it has been collected. Called once the queue
+     * has closed its appenders, tailers and stores.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        wiresToRelease.releaseAll();
+        for (Reference<?> reference : closeActions.keySet()) {
+            final Runnable closeAction = closeActions.remove(reference);
+            if (closeAction != null)
+                run(closeAction);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "QueueResourceReleaser{" +
+                "registeredCloseActions=" + registeredCloseActions() +
+                ", pendingWireReleases=" + pendingWireReleases() +
+                ", closeActionsRun=" + closeActionsRun() +
+                '}';
+    }
+
+    private int processReferenceQueue(final ReferenceQueue<?> referenceQueue, final int maxCount) {
+        int processedCount = 0;
+        Reference<?> reference;
+        while (processedCount < maxCount && (reference = referenceQueue.poll()) != null) {
+            processedCount++;
+            final Runnable closeAction = closeActions.remove(reference);
+            if (closeAction != null)
+                run(closeAction);
+        }
+        return processedCount;
+    }
+
+    private void run(@NotNull final Runnable closeAction) {
+        try {
+            closeAction.run();
+            closeActionsRun.incrementAndGet();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Error occurred attempting to release resources.", e);
+        }
+    }
+}
@@ -5,12 +5,16 @@ import net.openhft.chronicle.core.util.ThrowingFunction;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 /**
  * Thread-safe, self-cleaning cache for ReferenceCounted objects.
+ * <p>
+ * Looking up a live value only reserves it, it doesn't lock or allocate. Values are created on a miss, under a
+ * lock so that each value is created once, and dereferenced values are removed in a batch at the same time.
  *
  * Created by Jerry Shea on 27/04/18.
  */
@@ -26,26 +30,45 @@ public class ReferenceCountedCache<K, T extends ReferenceCounted, V, E extends T
 
     @NotNull
     V get(@NotNull final K key) throws E {
-        boolean created = false;
+        @Nullable T value = cache.get(key);
+        // the value may have been dereferenced since it was cached
+        if (value == null || !value.tryReserve())
+            value = reserveOrCreate(key);
 
-        // remove all which have been dereferenced. Garbagy but rare
-        cache.entrySet().removeIf(entry -> entry.getValue().refCount() == 0);
+        try {
+            return transformer.apply(value);
+        } finally {
+            // the transformed value holds its own reference
+            value.release();
+        }
+    }
 
-        @Nullable T value = cache.get(key);
-        // another thread may have reduced refCount since removeIf above
-        if (value == null || value.refCount() == 0) {
-            // worst case is that 2 threads create at 'same' time
+    /**
+     * @return a reserved value for the key, creating it if there is no live value
+     */
+    @NotNull
+    private T reserveOrCreate(@NotNull final K key) throws E {
+        synchronized (cache) {
+            @Nullable T value = cache.get(key);
+            if (value != null && value.tryReserve())
+                return value;
+
+            removeDereferenced();
+            // created with a reference count of one, which the caller releases
             value = creator.apply(key);
             cache.put(key, value);
-            created = true;
+            return value;
         }
+    }
 
-        try {
-            return transformer.apply(value);
-        } finally {
-            // release if we just created it
-            if (created)
-                value.release();
+    private void removeDereferenced() {
+        for (Iterator<T> iterator = cache.values().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().refCount() == 0)
+                iterator.remove();
         }
     }
+
+    int size() {
+        return cache.size();
+    }
 }
@@ -60,6 +60,9 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
     Sequence sequence;
     // visible for testing
     int linearScanCount;
+    // of the queue which opened this store
+    @Nullable
+    QueueMetrics metrics;
 
     private static Boolean REPORT_LINEAR_SCAN;
 
@@ -313,6 +316,9 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
         if (toIndex == fromKnownIndex)
             return ScanResult.FOUND;
         ScanResult scanResult = linearScan0(wire, toIndex, fromKnownIndex, knownAddress);
+        QueueMetrics metrics = this.metrics;
+        if (metrics != null)
+            metrics.onLinearScan(toIndex - fromKnownIndex);
         if (REPORT_LINEAR_SCAN)
             checkLinearScanTime(toIndex, fromKnownIndex, start);
         return scanResult;
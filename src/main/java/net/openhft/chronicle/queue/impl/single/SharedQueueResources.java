@@ -0,0 +1,201 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.core.threads.EventLoop;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.impl.TableStore;
+import net.openhft.chronicle.threads.EventGroup;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Resources shared by many queues in one JVM, for applications with hundreds or thousands of queues, most of them
+ * small or idle. Set with {@link SingleChronicleQueueBuilder#sharedResources(SharedQueueResources)}, the queues
+ * <ul>
+ * <li>release their appender and tailer resources deterministically, on one shared event loop rather than
+ * on the JVM wide {@link StoreComponentReferenceHandler}</li>
+ * <li>are pretouched, if enabled, by one {@link PretoucherService} on that same event loop, rather than with a
+ * {@link Pretoucher} and a thread each</li>
+ * <li>share one metadata table store per directory, so opening the same queue several times in the JVM maps its
+ * metadata and holds its file open once. Distinct queues still have a metadata store each, one mapping and one file
+ * descriptor per queue, as the metadata file belongs to its queue's directory and is read by other processes and
+ * tools</li>
+ * <li>default to {@link ChronicleQueue#TEST_BLOCK_SIZE} blocks, so each cycle maps a few hundred KB rather than
+ * 80 MB of address space when it is first used</li>
+ * </ul>
+ * The resources should be closed after all the queues using them.
+ */
+public final class SharedQueueResources implements Closeable {
+    private final EventLoop eventLoop;
+    private final boolean ownsEventLoop;
+    private final Map<File, PooledMetaStore> metaStores = new HashMap<>();
+    private final PretoucherService pretoucher = new PretoucherService();
+    private volatile long blockSize = ChronicleQueue.TEST_BLOCK_SIZE;
+    private volatile boolean pretouch = false;
+    private volatile boolean closed;
+
+    /**
+     * Shares a daemon {@link EventGroup} of its own, which is closed with these resources.
+     */
+    public SharedQueueResources() {
+        this(new EventGroup(true), true);
+        eventLoop.start();
+    }
+
+    /**
+     * Shares an event loop which the caller starts and closes.
+     *
+     * @param eventLoop to release and pretouch on
+     */
+    public SharedQueueResources(@NotNull final EventLoop eventLoop) {
+        this(eventLoop, false);
+    }
+
+    private SharedQueueResources(@NotNull final EventLoop eventLoop, final boolean ownsEventLoop) {
+        this.eventLoop = eventLoop;
+        this.ownsEventLoop = ownsEventLoop;
+        eventLoop.addHandler(pretoucher);
+    }
+
+    @NotNull
+    public EventLoop eventLoop() {
+        return eventLoop;
+    }
+
+    public long blockSize() {
+        return blockSize;
+    }
+
+    /**
+     * @param blockSize the default block size of queues built with these resources afterwards
+     * @return this
+     */
+    @NotNull
+    public SharedQueueResources blockSize(final long blockSize) {
+        this.blockSize = blockSize;
+        return this;
+    }
+
+    public boolean pretouch() {
+        return pretouch;
+    }
+
+    /**
+     * @param pretouch {@code true} to pretouch queues built with these resources afterwards
+     * @return this
+     */
+    @NotNull
+    public SharedQueueResources pretouch(final boolean pretouch) {
+        this.pretouch = pretouch;
+        return this;
+    }
+
+    /**
+     * @return the service which pretouches the queues, to tune
+     */
+    @NotNull
+    public PretoucherService pretoucherService() {
+        return pretoucher;
+    }
+
+    /**
+     * @return the number of queues being pretouched
+     */
+    public int pretouchedQueues() {
+        return pretoucher.queues();
+    }
+
+    /**
+     * @return the number of distinct metadata table stores open
+     */
+    public synchronized int metaStores() {
+        return metaStores.size();
+    }
+
+    void register(@NotNull final SingleChronicleQueue queue) {
+        if (pretouch && !queue.isReadOnly())
+            pretoucher.add(queue);
+    }
+
+    /**
+     * Pools by the canonical metadata file, so this only saves anything when the same queue is opened again.
+     *
+     * @return the open metadata store for this file, or a new one from the factory
+     */
+    @NotNull
+    synchronized TableStore<SCQMeta> acquireMetaStore(@NotNull final File metapath,
+                                                      @NotNull final SCQMeta metadata,
+                                                      @NotNull final Supplier<TableStore<SCQMeta>> factory) {
+        if (closed)
+            throw new IllegalStateException("Shared queue resources closed");
+        final File key = canonical(metapath);
+        PooledMetaStore pooled = metaStores.get(key);
+        if (pooled == null) {
+            pooled = new PooledMetaStore(factory.get());
+            metaStores.put(key, pooled);
+        } else {
+            metadata.ensureSame(pooled.store.metadata());
+        }
+        pooled.users++;
+        return pooled.store;
+    }
+
+    /**
+     * Closes the metadata store once the last queue using it has released it.
+     */
+    synchronized void releaseMetaStore(@NotNull final TableStore<SCQMeta> store) {
+        final File key = canonical(store.file());
+        final PooledMetaStore pooled = metaStores.get(key);
+        if (pooled == null || pooled.store != store) {
+            Closeable.closeQuietly(store);
+            return;
+        }
+        if (--pooled.users == 0) {
+            metaStores.remove(key);
+            Closeable.closeQuietly(store);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            for (PooledMetaStore pooled : metaStores.values())
+                Closeable.closeQuietly(pooled.store);
+            metaStores.clear();
+        }
+        pretoucher.close();
+        if (ownsEventLoop)
+            eventLoop.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @NotNull
+    private static File canonical(@NotNull final File file) {
+        try {
+            return file.getCanonicalFile();
+        } catch (IOException e) {
+            return file.getAbsoluteFile();
+        }
+    }
+
+    private static final class PooledMetaStore {
+        final TableStore<SCQMeta> store;
+        int users;
+
+        PooledMetaStore(@NotNull final TableStore<SCQMeta> store) {
+            this.store = store;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import net.openhft.chronicle.bytes.MappedFile;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.OS;
 import net.openhft.chronicle.core.threads.EventLoop;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
 import net.openhft.chronicle.core.threads.ThreadLocalHelper;
 import net.openhft.chronicle.core.time.TimeProvider;
 import net.openhft.chronicle.core.util.StringUtils;
@@ -37,6 +38,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.text.ParseException;
@@ -64,6 +67,7 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
     private static final boolean SHOULD_CHECK_CYCLE = Boolean.getBoolean("chronicle.queue.checkrollcycle");
     private static final boolean SHOULD_RELEASE_RESOURCES = Boolean.valueOf(
             System.getProperty("chronicle.queue.release.weakRef.resources", Boolean.TRUE.toString()));
+    private static final int RELEASE_BATCH_SIZE = Integer.getInteger("chronicle.queue.release.batchSize", 128);
 
     protected final ThreadLocal<WeakReference<ExcerptAppender>> weakExcerptAppenderThreadLocal = new ThreadLocal<>();
     protected final ThreadLocal<ExcerptAppender> strongExcerptAppenderThreadLocal = new ThreadLocal<>();
@@ -104,10 +108,23 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
     @NotNull
     private final DirectoryListing directoryListing;
     @NotNull
+    private final SourceIndexTable sourceIndexes;
+    @NotNull
     private final QueueLock queueLock;
     @NotNull
     private final WriteLock writeLock;
     private final boolean strongAppenders;
+    @Nullable
+    private final QueueResourceReleaser resourceReleaser;
+    @NotNull
+    private final QueueMetrics metrics;
+    @Nullable
+    private final SharedQueueResources sharedResources;
+    @Nullable
+    private final BackgroundAffinity backgroundAffinity;
+    private final boolean mlockHotMappings;
+    private final boolean pretouchNumaLocal;
+    private volatile int writerNumaNode = -1;
     protected int sourceId;
     long firstAndLastCycleTime = 0;
     int firstCycle = Integer.MAX_VALUE, lastCycle = Integer.MIN_VALUE;
@@ -124,7 +141,8 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         epoch = builder.epoch();
         dateCache = new RollingResourcesCache(rollCycle, epoch, textToFile(builder), fileToText());
 
-        storeFileListener = builder.storeFileListener();
+        metrics = new QueueMetrics(this);
+        storeFileListener = metrics.countingListener(builder.storeFileListener());
         storeSupplier = new StoreSupplier();
         pool = WireStorePool.withSupplier(storeSupplier, storeFileListener);
         isBuffered = builder.buffered();
@@ -137,6 +155,16 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         blockSize = builder.blockSize();
         overlapSize = Math.max(64 << 10, builder.blockSize() / 4);
         eventLoop = builder.eventLoop();
+        if (builder.deterministicRelease()) {
+            resourceReleaser = new QueueResourceReleaser(RELEASE_BATCH_SIZE);
+            if (eventLoop != null)
+                eventLoop.addHandler(resourceReleaser);
+        } else {
+            resourceReleaser = null;
+        }
+        backgroundAffinity = builder.backgroundAffinity();
+        mlockHotMappings = builder.mlockHotMappings();
+        pretouchNumaLocal = builder.pretouchNumaLocal();
         bufferCapacity = builder.bufferCapacity();
         onRingBufferStats = builder.onRingBufferStats();
         indexCount = builder.indexCount();
@@ -148,8 +176,15 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         storeFactory = builder.storeFactory();
         strongAppenders = builder.strongAppenders();
         metaStore = builder.metaStore();
+        sourceIndexes = new SourceIndexTable(metaStore, readOnly);
 
-        if (readOnly) {
+        if (builder.watchDirectory()) {
+            // a writer keeps the table listing up to date for other processes which don't watch the directory
+            final DirectoryListing table = readOnly ? null
+                    : new TableDirectoryListing(metaStore, path.toPath(), fileToCycleFunction(), false);
+            this.directoryListing = new WatchingDirectoryListing(path.toPath(), fileToCycleFunction(), table);
+            directoryListing.init();
+        } else if (readOnly) {
             this.directoryListing = new FileSystemDirectoryListing(path, fileToCycleFunction());
         } else {
             this.directoryListing = new TableDirectoryListing(metaStore, path.toPath(), fileToCycleFunction(), false);
@@ -173,18 +208,93 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
 
         sourceId = builder.sourceId();
         recoverySupplier = builder.recoverySupplier();
+        if (builder.jmxMetrics())
+            metrics.registerMBean();
+        sharedResources = builder.sharedResources();
+        if (sharedResources != null)
+            sharedResources.register(this);
     }
 
     @NotNull
     StoreTailer acquireTailer() {
         if (SHOULD_RELEASE_RESOURCES) {
             return ThreadLocalHelper.getTL(tlTailer, this, StoreTailer::new,
-                    StoreComponentReferenceHandler.tailerQueue(),
-                    (ref) -> StoreComponentReferenceHandler.register(ref, ref.get().getCloserJob()));
+                    tailerReferenceQueue(),
+                    (ref) -> registerCloserJob(ref, ref.get().getCloserJob()));
         }
         return ThreadLocalHelper.getTL(tlTailer, this, StoreTailer::new);
     }
 
+    private ReferenceQueue<StoreTailer> tailerReferenceQueue() {
+        return resourceReleaser == null ? StoreComponentReferenceHandler.tailerQueue() : resourceReleaser.tailerQueue();
+    }
+
+    private ReferenceQueue<ExcerptAppender> appenderReferenceQueue() {
+        return resourceReleaser == null ? StoreComponentReferenceHandler.appenderQueue() : resourceReleaser.appenderQueue();
+    }
+
+    private void registerCloserJob(final Reference<?> reference, final Runnable closerJob) {
+        if (resourceReleaser == null)
+            StoreComponentReferenceHandler.register(reference, closerJob);
+        else
+            resourceReleaser.register(reference, closerJob);
+    }
+
+    void queueForRelease(final Wire wire) {
+        if (resourceReleaser == null)
+            StoreComponentReferenceHandler.queueForRelease(wire, MappingBudget.mappingSize(wire));
+        else
+            resourceReleaser.queueForRelease(wire, MappingBudget.mappingSize(wire));
+    }
+
+    /**
+     * @return the releaser for this queue's appender and tailer resources, or null if they are released by the
+     * JVM wide {@link StoreComponentReferenceHandler}
+     */
+    @Nullable
+    public QueueResourceReleaser resourceReleaser() {
+        return resourceReleaser;
+    }
+
+    /**
+     * @return the cpus this queue's background threads are pinned to, or null if they aren't
+     */
+    @Nullable
+    public BackgroundAffinity backgroundAffinity() {
+        return backgroundAffinity;
+    }
+
+    boolean mlockHotMappings() {
+        return mlockHotMappings;
+    }
+
+    boolean pretouchNumaLocal() {
+        return pretouchNumaLocal;
+    }
+
+    /**
+     * @return the NUMA node of the thread which last acquired an appender, or -1 if it isn't known
+     */
+    int writerNumaNode() {
+        return writerNumaNode;
+    }
+
+    /**
+     * Releases a batch of this queue's unused appender and tailer resources on the calling thread. Only needed
+     * when deterministic release is enabled and the queue has no event loop.
+     *
+     * @return true if anything was released
+     */
+    public boolean releaseResources() {
+        if (resourceReleaser == null || isClosed())
+            return false;
+        try {
+            return resourceReleaser.action();
+        } catch (InvalidEventHandlerException e) {
+            return false;
+        }
+    }
+
     @NotNull
     private Function<String, File> textToFile(@NotNull SingleChronicleQueueBuilder builder) {
         return name -> new File(builder.path(), name + SUFFIX);
@@ -203,6 +313,52 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         return sourceId;
     }
 
+    /**
+     * The index of the last message read from a source, according to the message history of the messages written to
+     * this queue. This is kept up to date as messages with a history are written, so it can be looked up on restart
+     * without scanning the queue.
+     *
+     * @param sourceId of the queue read
+     * @return the index in that queue, or {@code Long.MIN_VALUE} if unknown
+     */
+    public long lastSourceIndex(int sourceId) {
+        return sourceIndexes.lastSourceIndex(sourceId);
+    }
+
+    /**
+     * @return the counters of what this queue is doing, which can also be registered over JMX with
+     * {@link SingleChronicleQueueBuilder#jmxMetrics(boolean)}
+     */
+    @NotNull
+    public QueueMetrics metrics() {
+        return metrics;
+    }
+
+    @NotNull
+    SourceIndexTable sourceIndexes() {
+        return sourceIndexes;
+    }
+
+    /**
+     * @param name of the consumer
+     * @return where the consumer publishes how far it has read this queue, for {@link #backpressure(String...)}
+     */
+    @NotNull
+    public ConsumerIndex consumerIndex(@NotNull String name) {
+        if (readOnly)
+            throw new IllegalStateException("Consumer indexes are kept in the metadata, which is read only");
+        return new ConsumerIndex(metaStore, name);
+    }
+
+    /**
+     * @param consumers the names of the {@link ConsumerIndex}es to wait for
+     * @return a view of how far behind the consumers are, with no maximum lag set
+     */
+    @NotNull
+    public Backpressure backpressure(@NotNull String... consumers) {
+        return new Backpressure(this, consumers);
+    }
+
     @Override
     public void clear() {
         throw new UnsupportedOperationException("Not yet implemented");
@@ -335,6 +491,8 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
     @NotNull
     protected ExcerptAppender newAppender() {
         queueLock.waitForLock();
+        if (pretouchNumaLocal)
+            writerNumaNode = BackgroundAffinity.numaNodeOf(BackgroundAffinity.currentCpu());
 
         final WireStorePool newPool = WireStorePool.withSupplier(storeSupplier, storeFileListener);
         return new StoreAppender(this, newPool);
@@ -371,8 +529,8 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         ExcerptAppender appender;
         if (SHOULD_RELEASE_RESOURCES) {
             return ThreadLocalHelper.getTL(weakExcerptAppenderThreadLocal, this, SingleChronicleQueue::newAppender,
-                    StoreComponentReferenceHandler.appenderQueue(),
-                    (ref) -> StoreComponentReferenceHandler.register(ref, ref.get().getCloserJob()));
+                    appenderReferenceQueue(),
+                    (ref) -> registerCloserJob(ref, ref.get().getCloserJob()));
         } else {
             appender = ThreadLocalHelper.getTL(weakExcerptAppenderThreadLocal, this, SingleChronicleQueue::newAppender);
         }
@@ -398,8 +556,8 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         final StoreTailer storeTailer = new StoreTailer(this);
         directoryListing.refresh();
         if (SHOULD_RELEASE_RESOURCES) {
-            StoreComponentReferenceHandler.register(
-                    new WeakReference<>(storeTailer, StoreComponentReferenceHandler.tailerQueue()),
+            registerCloserJob(
+                    new WeakReference<>(storeTailer, tailerReferenceQueue()),
                     storeTailer.getCloserJob());
         }
         return storeTailer.toStart();
@@ -540,14 +698,19 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         if (isClosed.getAndSet(true))
             return;
 
-        closeQuietly(directoryListing, queueLock, writeLock);
+        metrics.unregisterMBean();
+        closeQuietly(directoryListing, sourceIndexes, queueLock, writeLock);
 
         synchronized (closers) {
             closers.forEach((k, v) -> v.accept(k));
             closers.clear();
         }
         this.pool.close();
-        closeQuietly(metaStore);
+        closeQuietly(resourceReleaser);
+        if (sharedResources != null && !readOnly)
+            sharedResources.releaseMetaStore(metaStore);
+        else
+            closeQuietly(metaStore);
     }
 
     @Override
@@ -660,6 +823,13 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         return this.bufferCapacity;
     }
 
+    /**
+     * @return the most a single MappedBytes of this queue can have mapped, i.e. one chunk and its overlap
+     */
+    long mappingSize() {
+        return OS.pageAlign(blockSize) + OS.pageAlign(blockSize / 4);
+    }
+
     @NotNull
     private MappedFile mappedFile(File file) throws FileNotFoundException {
         long chunkSize = OS.pageAlign(blockSize);
@@ -783,6 +953,8 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
                         throw new StreamCorruptedException("The first message should be the header, was " + name);
                     }
                 }
+                if (wireStore instanceof SingleChronicleQueueStore)
+                    ((SingleChronicleQueueStore) wireStore).metrics(metrics);
 
                 return wireStore;
 
@@ -845,7 +1017,6 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
             if (direction == NONE)
                 throw new AssertionError("direction is NONE");
             assert currentCycle >= 0 : "currentCycle=" + Integer.toHexString(currentCycle);
-            NavigableMap<Long, File> tree = cycleTree(false);
             final File currentCycleFile = dateCache.resourceFor(currentCycle).path;
 
             if (currentCycle > directoryListing.getMaxCreatedCycle() ||
@@ -871,6 +1042,15 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
                 }
             }
 
+            final NavigableSet<Long> listedCycles = directoryListing.cycles();
+            if (listedCycles != null) {
+                final Long next = direction == TailerDirection.FORWARD
+                        ? listedCycles.higher((long) currentCycle)
+                        : listedCycles.lower((long) currentCycle);
+                return next == null ? -1 : next.intValue();
+            }
+
+            NavigableMap<Long, File> tree = cycleTree(false);
             Long key = dateCache.toLong(currentCycleFile);
             File file = tree.get(key);
             // already checked that the file should be on-disk, so if it is null, call cycleTree again with force
@@ -901,6 +1081,10 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
          */
         @Override
         public NavigableSet<Long> cycles(int lowerCycle, int upperCycle) {
+            final NavigableSet<Long> listedCycles = directoryListing.cycles();
+            if (listedCycles != null)
+                return listedCycles.subSet((long) lowerCycle, true, (long) upperCycle, true);
+
             final NavigableMap<Long, File> tree = cycleTree(false);
             final Long lowerKey = toKey(lowerCycle, "lowerCycle");
             final Long upperKey = toKey(upperCycle, "upperCycle");
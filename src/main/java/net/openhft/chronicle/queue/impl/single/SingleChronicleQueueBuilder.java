@@ -64,6 +64,15 @@ public class SingleChronicleQueueBuilder<S extends SingleChronicleQueueBuilder>
     }
 
     protected TableStore<SCQMeta> metaStore;
+    private boolean watchDirectory = false;
+    private boolean deterministicRelease = false;
+    private boolean jmxMetrics = Boolean.getBoolean("chronicle.queue.jmx");
+    @Nullable
+    private SharedQueueResources sharedResources;
+    @Nullable
+    private BackgroundAffinity backgroundAffinity;
+    private boolean mlockHotMappings = false;
+    private boolean pretouchNumaLocal = false;
 
     @SuppressWarnings("unchecked")
     @Deprecated
@@ -358,6 +367,139 @@ public class SingleChronicleQueueBuilder<S extends SingleChronicleQueueBuilder>
         return super.rollTime(time, ZoneId.of("UTC"));
     }
 
+    /**
+     * when set to {@code true}, the cycles in the queue directory are tracked in memory and kept up to date
+     * by a file system {@link java.nio.file.WatchService}, rather than listing the directory on each refresh.
+     * Recommended for queues which keep a large number of cycle files. A writable queue still updates the listing
+     * in its metadata, which other processes read.
+     * <p>
+     * On macOS the JDK's WatchService polls the directory every few seconds, so until it does, cycles created by
+     * other processes aren't seen, and {@code nextCycle} can be stale.
+     *
+     * @param watchDirectory {@code true} to watch the queue directory
+     * @return this
+     */
+    public SingleChronicleQueueBuilder<S> watchDirectory(boolean watchDirectory) {
+        this.watchDirectory = watchDirectory;
+        return this;
+    }
+
+    public boolean watchDirectory() {
+        return watchDirectory;
+    }
+
+    /**
+     * when set to {@code true}, the resources of this queue's appenders and tailers are released in bounded
+     * batches on the queue's {@link #eventLoop(EventLoop)}, or by calling
+     * {@link SingleChronicleQueue#releaseResources()} if there is none, instead of by the JVM wide
+     * {@link StoreComponentReferenceHandler} daemon.
+     *
+     * @param deterministicRelease {@code true} to release resources per queue
+     * @return this
+     */
+    public SingleChronicleQueueBuilder<S> deterministicRelease(boolean deterministicRelease) {
+        this.deterministicRelease = deterministicRelease;
+        return this;
+    }
+
+    public boolean deterministicRelease() {
+        return deterministicRelease;
+    }
+
+    /**
+     * when set to {@code true}, the queue's {@link QueueMetrics} are registered with the platform MBean server
+     * until it is closed. Defaults to {@code -Dchronicle.queue.jmx}
+     *
+     * @param jmxMetrics {@code true} to register the metrics over JMX
+     * @return this
+     */
+    public SingleChronicleQueueBuilder<S> jmxMetrics(boolean jmxMetrics) {
+        this.jmxMetrics = jmxMetrics;
+        return this;
+    }
+
+    public boolean jmxMetrics() {
+        return jmxMetrics;
+    }
+
+    /**
+     * shares the event loop, the metadata table stores and pretouching of many queues in one JVM. Enables
+     * {@link #deterministicRelease(boolean)} on the shared event loop and sets the block size to the shared
+     * default, which can be overridden by calling {@link #blockSize(long)} afterwards.
+     *
+     * @param sharedResources the resources to share, closed after all the queues using them
+     * @return this
+     */
+    public SingleChronicleQueueBuilder<S> sharedResources(@NotNull SharedQueueResources sharedResources) {
+        this.sharedResources = sharedResources;
+        eventLoop(sharedResources.eventLoop());
+        deterministicRelease(true);
+        blockSize(sharedResources.blockSize());
+        return this;
+    }
+
+    @Nullable
+    public SharedQueueResources sharedResources() {
+        return sharedResources;
+    }
+
+    /**
+     * pins the background threads started for this queue, i.e. those of a
+     * {@link net.openhft.chronicle.queue.JDBCService} reading from it. Threads the queue doesn't own, such as those of
+     * its {@link #eventLoop(EventLoop)}, are left for their owner to pin, and the JVM wide cleaner thread can be
+     * pinned with {@link StoreComponentReferenceHandler#affinity(BackgroundAffinity)}.
+     *
+     * @param backgroundAffinity the cpus or NUMA node to run on, or null to leave the threads unpinned
+     * @return this
+     */
+    public SingleChronicleQueueBuilder<S> backgroundAffinity(@Nullable BackgroundAffinity backgroundAffinity) {
+        this.backgroundAffinity = backgroundAffinity;
+        return this;
+    }
+
+    @Nullable
+    public BackgroundAffinity backgroundAffinity() {
+        return backgroundAffinity;
+    }
+
+    /**
+     * when set to {@code true}, a {@link Pretoucher} or {@link PretoucherService} locks each page of the current
+     * cycle it touches in memory, so it can't be paged out.
+     * <p>
+     * A page stays locked until its chunk is unmapped, which is at the latest when the cycle's store is released after
+     * a roll. So each queue locks up to what has been written to its current cycle plus the pretouch head room, and
+     * its previous cycle's until that is released. This has to fit, for all the queues of the process, within
+     * {@code ulimit -l}, otherwise a warning is logged and nothing more is locked.
+     *
+     * @param mlockHotMappings {@code true} to mlock the mappings being written to
+     * @return this
+     */
+    public SingleChronicleQueueBuilder<S> mlockHotMappings(boolean mlockHotMappings) {
+        this.mlockHotMappings = mlockHotMappings;
+        return this;
+    }
+
+    public boolean mlockHotMappings() {
+        return mlockHotMappings;
+    }
+
+    /**
+     * when set to {@code true}, a {@link PretoucherService} touches this queue from a thread of its own on the NUMA
+     * node of the thread which last acquired an appender, so the pages are allocated on the writer's node. The writer
+     * should be pinned to a cpu. A {@link Pretoucher} runs on the caller's thread, so ignores this.
+     *
+     * @param pretouchNumaLocal {@code true} to pretouch from the writer's NUMA node
+     * @return this
+     */
+    public SingleChronicleQueueBuilder<S> pretouchNumaLocal(boolean pretouchNumaLocal) {
+        this.pretouchNumaLocal = pretouchNumaLocal;
+        return this;
+    }
+
+    public boolean pretouchNumaLocal() {
+        return pretouchNumaLocal;
+    }
+
     @Override
     protected void initializeMetadata() {
         File metapath = metapath();
@@ -365,7 +507,11 @@ public class SingleChronicleQueueBuilder<S extends SingleChronicleQueueBuilder>
         SCQMeta metadata = new SCQMeta(new SCQRoll(rollCycle, epoch), deltaCheckpointInterval(), sourceId());
         try {
 
-            metaStore = SingleTableBuilder.binary(metapath, metadata).timeoutMS(timeoutMS()).readOnly(readOnly()).validateMetadata(!readOnly).build();
+            Supplier<TableStore<SCQMeta>> metaStoreSupplier = () -> SingleTableBuilder.binary(metapath, metadata)
+                    .timeoutMS(timeoutMS()).readOnly(readOnly()).validateMetadata(!readOnly).build();
+            metaStore = sharedResources == null || readOnly
+                    ? metaStoreSupplier.get()
+                    : sharedResources.acquireMetaStore(metapath, metadata, metaStoreSupplier);
             // check if metadata was overridden
             SCQMeta newMeta = metaStore.metadata();
             if (sourceId() == 0)
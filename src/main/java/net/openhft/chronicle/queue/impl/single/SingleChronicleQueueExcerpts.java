@@ -50,8 +50,8 @@ public class SingleChronicleQueueExcerpts {
     private static final int MESSAGE_HISTORY_METHOD_ID = -1;
     private static StringBuilderPool SBP = new StringBuilderPool();
 
-    private static void releaseWireResources(final Wire wire) {
-        StoreComponentReferenceHandler.queueForRelease(wire);
+    private static void releaseWireResources(final SingleChronicleQueue queue, final Wire wire) {
+        queue.queueForRelease(wire);
     }
 
     // *************************************************************************
@@ -301,7 +301,7 @@ public class SingleChronicleQueueExcerpts {
                 closableResources.wireReference = this.wire.bytes();
                 assert wire != oldw;
                 if (oldw != null) {
-                    releaseWireResources(oldw);
+                    releaseWireResources(queue, oldw);
                 }
             }
             {
@@ -310,7 +310,7 @@ public class SingleChronicleQueueExcerpts {
                 closableResources.wireForIndexReference = wireForIndex.bytes();
                 assert wire != old;
                 if (old != null) {
-                    releaseWireResources(old);
+                    releaseWireResources(queue, old);
                 }
             }
 
@@ -458,11 +458,13 @@ public class SingleChronicleQueueExcerpts {
                 beforeAppend(wire, wire.headerNumber() + 1);
                 wire.bytes().write(bytes);
                 wire.updateHeader(position, false, 0);
+                queue.metrics().onAppend(wire.bytes().writePosition() - position);
                 lastIndex(wire.headerNumber());
                 lastPosition = position;
                 lastCycle = cycle;
                 store.writePosition(position);
                 writeIndexForPosition(lastIndex, position);
+                recordSourceIndex(wire.bytes(), position + SPB_HEADER_SIZE);
             } catch (StreamCorruptedException e) {
                 throw new AssertionError(e);
             } finally {
@@ -498,26 +500,31 @@ public class SingleChronicleQueueExcerpts {
 
             writeLock.lock();
             try {
-                int cycle = queue.rollCycle().toCycle(index);
+                writeBytesAtIndex(index, bytes);
+            } finally {
+                writeLock.unlock();
+            }
+        }
 
-                if (wire == null) {
-                    setCycle2(cycle, true);
-                } else if (this.cycle < cycle)
-                    rollCycleTo(cycle);
+        private void writeBytesAtIndex(long index, @NotNull BytesStore bytes) {
+            assert writeLock.locked();
+            int cycle = queue.rollCycle().toCycle(index);
 
-                boolean rollbackDontClose = index != wire.headerNumber() + 1;
-                if (rollbackDontClose) {
-                    if (index > wire.headerNumber() + 1)
-                        throw new IllegalStateException("Unable to move to index " + Long.toHexString(index) + " beyond the end of the queue");
-                    // TODO: assert bytes.equalBytes(wire.bytes() ...);
-                    Jvm.warn().on(getClass(), "Trying to overwrite index " + Long.toHexString(index) + " which is before the end of the queue");
-                    return;
-                }
+            if (wire == null) {
+                setCycle2(cycle, true);
+            } else if (this.cycle < cycle)
+                rollCycleTo(cycle);
 
-                writeBytesInternal(index, bytes);
-            } finally {
-                writeLock.unlock();
+            boolean rollbackDontClose = index != wire.headerNumber() + 1;
+            if (rollbackDontClose) {
+                if (index > wire.headerNumber() + 1)
+                    throw new IllegalStateException("Unable to move to index " + Long.toHexString(index) + " beyond the end of the queue");
+                // TODO: assert bytes.equalBytes(wire.bytes() ...);
+                Jvm.warn().on(getClass(), "Trying to overwrite index " + Long.toHexString(index) + " which is before the end of the queue");
+                return;
             }
+
+            writeBytesInternal(index, bytes);
         }
 
         private void writeBytesInternal(long index, @NotNull BytesStore bytes) {
@@ -541,6 +548,26 @@ public class SingleChronicleQueueExcerpts {
             }
         }
 
+        /**
+         * Records the last source of the message history, if the message starts with one, so afterLastWritten
+         * doesn't have to scan for it. Only binary history is checked, the cost of anything else is a byte read,
+         * and of a history, reading its last source.
+         */
+        private void recordSourceIndex(@NotNull Bytes<?> bytes, long start) {
+            if (bytes.readByte(start) != (byte) FIELD_NUMBER)
+                return;
+            // the write position is the end of this message
+            long readPosition = bytes.readPosition();
+            try {
+                bytes.readPosition(start + 1);
+                if (bytes.readStopBit() != MESSAGE_HISTORY_METHOD_ID)
+                    return;
+                queue.sourceIndexes().recordLastSource(bytes, bytes.readPosition(), bytes.writePosition());
+            } finally {
+                bytes.readPosition(readPosition);
+            }
+        }
+
         private void position(long position) {
             // did the position jump too far forward.
             if (position > store.writePosition() + queue.blockSize())
@@ -602,6 +629,12 @@ public class SingleChronicleQueueExcerpts {
         }
 
         private void rollCycleTo(int cycle) throws UnrecoverableTimeoutException {
+            long start = System.nanoTime();
+            rollCycleTo0(cycle);
+            queue.metrics().onRoll(System.nanoTime() - start);
+        }
+
+        private void rollCycleTo0(int cycle) throws UnrecoverableTimeoutException {
             if (wire != null) {
                 // only a valid check if the wire was set.
                 if (this.cycle == cycle)
@@ -612,7 +645,7 @@ public class SingleChronicleQueueExcerpts {
 
             if (lastCycle != cycle && lastCycle > this.cycle) {
                 setCycle2(lastCycle, false);
-                rollCycleTo(cycle);
+                rollCycleTo0(cycle);
             } else {
                 setCycle2(cycle, true);
             }
@@ -765,12 +798,14 @@ public class SingleChronicleQueueExcerpts {
                         lastCycle = cycle;
 
                         if (!metaData) {
+                            queue.metrics().onAppend(wire.bytes().writePosition() - position);
                             lastIndex(wire.headerNumber());
                             store.writePosition(position);
                             if (lastIndex != Long.MIN_VALUE)
                                 writeIndexForPosition(lastIndex, position);
                             else
                                 assert lastIndex == Long.MIN_VALUE || checkIndex(lastIndex, position);
+                            recordSourceIndex(wire.bytes(), position + SPB_HEADER_SIZE);
                         }
                         assert checkWritePositionHeaderNumber();
                     } else if (wire != null) {
@@ -1014,6 +1049,7 @@ public class SingleChronicleQueueExcerpts {
 
                 Jvm.optionalSafepoint();
                 if (context.present(next)) {
+                    queue.metrics().onRead();
                     Bytes<?> bytes = context.wire().bytes();
                     context.setStart(bytes.readPosition() - 4);
                     readingDocumentFound = true;
@@ -1503,7 +1539,7 @@ public class SingleChronicleQueueExcerpts {
             assert wire != wireForIndexOld;
 
             if (wireForIndexOld != null) {
-                releaseWireResources(wireForIndexOld);
+                releaseWireResources(queue, wireForIndexOld);
             }
 
         }
@@ -1792,6 +1828,9 @@ public class SingleChronicleQueueExcerpts {
         public ExcerptTailer afterLastWritten(@NotNull ChronicleQueue queue) {
             if (queue == this.queue)
                 throw new IllegalArgumentException("You must pass the queue written to, not the queue read");
+            if (queue instanceof SingleChronicleQueue && moveAfter(((SingleChronicleQueue) queue).lastSourceIndex(sourceId())))
+                return this;
+
             @NotNull ExcerptTailer tailer = queue.createTailer()
                     .direction(BACKWARD)
                     .toEnd();
@@ -1836,6 +1875,19 @@ public class SingleChronicleQueueExcerpts {
             }
         }
 
+        /**
+         * Moves to after a source index recorded by the queue written to. If it can't, e.g. as the message hasn't
+         * been replicated yet, the queue written to is scanned instead, which reports what is missing.
+         */
+        private boolean moveAfter(long sourceIndex) {
+            if (sourceIndex == Long.MIN_VALUE || !moveToIndexInternal(sourceIndex))
+                return false;
+            try (DocumentContext content = readingDocument()) {
+                // skip this message and go to the next.
+                return content.isPresent();
+            }
+        }
+
         private String extraInfo(@NotNull ExcerptTailer tailer, @NotNull VanillaMessageHistory messageHistory) {
             return String.format(
                     ". That sourceIndex was determined fom the last entry written to queue %s " +
@@ -2046,7 +2098,7 @@ public class SingleChronicleQueueExcerpts {
                 this.wire = wire;
 
                 if (oldWire != null) {
-                    releaseWireResources(oldWire);
+                    releaseWireResources(queue, oldWire);
                 }
             }
         }
@@ -383,6 +383,10 @@ public class SingleChronicleQueueStore implements WireStore {
         }
     }
 
+    void metrics(@NotNull QueueMetrics metrics) {
+        indexing.metrics = metrics;
+    }
+
     int rollIndexCount() {
         return indexing.indexCount();
     }
@@ -0,0 +1,143 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.core.values.LongValue;
+import net.openhft.chronicle.queue.impl.TableStore;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * The index of the last message read from each source, as recorded in the message history of the messages written to
+ * a queue. This is kept in the queue's metadata table store so
+ * {@link net.openhft.chronicle.queue.ExcerptTailer#afterLastWritten(net.openhft.chronicle.queue.ChronicleQueue)} can
+ * look it up rather than scanning the queue backwards.
+ * <p>
+ * Values are written under the queue's write lock, in the order the messages are written, so each is the source
+ * index in the history of the last message written from that source. This is usually, but not necessarily, the
+ * highest, e.g. if a source is replayed.
+ * <p>
+ * The values of the sources seen are cached in a copy on write array, so neither writing nor reading a known source
+ * locks or allocates. A source is only added to the table store when a message from it is written.
+ * <p>
+ * The table of a read only queue only looks up the values written by other processes.
+ */
+final class SourceIndexTable implements Closeable {
+    static final long UNSET = Long.MIN_VALUE;
+    private static final String KEY_PREFIX = "history.lastSourceIndex.";
+    private static final SourceValue[] NO_VALUES = {};
+
+    @NotNull
+    private final TableStore<?> tableStore;
+    private final boolean readOnly;
+    private volatile SourceValue[] values = NO_VALUES;
+
+    SourceIndexTable(@NotNull TableStore<?> tableStore, boolean readOnly) {
+        this.tableStore = tableStore;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Records the last source of a message history in the binary form of
+     * {@link net.openhft.chronicle.wire.VanillaMessageHistory}: an unsigned byte count of sources, their int ids,
+     * then their long indexes. Only the last source is read, nothing else of the history.
+     *
+     * @param bytes  holding the history
+     * @param offset of the count of sources
+     * @param limit  the end of the message
+     */
+    void recordLastSource(@NotNull BytesStore bytes, long offset, long limit) {
+        if (offset >= limit)
+            return;
+        final int sources = bytes.readUnsignedByte(offset);
+        if (sources == 0 || offset + 1 + sources * (4L + 8L) > limit)
+            return;
+        final int sourceId = bytes.readInt(offset + 1 + (sources - 1) * 4L);
+        final long sourceIndex = bytes.readLong(offset + 1 + sources * 4L + (sources - 1) * 8L);
+        lastSourceIndex(sourceId, sourceIndex);
+    }
+
+    void lastSourceIndex(int sourceId, long sourceIndex) {
+        if (sourceId == 0)
+            return;
+        LongValue value = cached(sourceId);
+        if (value == null)
+            value = acquire(sourceId);
+        value.setOrderedValue(sourceIndex);
+    }
+
+    /**
+     * @return the index of the last message from this source, or {@link #UNSET} if none has been written
+     */
+    long lastSourceIndex(int sourceId) {
+        if (sourceId == 0)
+            return UNSET;
+        LongValue value = cached(sourceId);
+        if (value == null) {
+            // written by another process, or not at all
+            value = lookup(sourceId);
+            if (value == null)
+                return UNSET;
+        }
+        return value.getVolatileValue();
+    }
+
+    @Nullable
+    private LongValue cached(int sourceId) {
+        for (SourceValue sourceValue : values) {
+            if (sourceValue.sourceId == sourceId)
+                return sourceValue.value;
+        }
+        return null;
+    }
+
+    @NotNull
+    private synchronized LongValue acquire(int sourceId) {
+        if (readOnly)
+            throw new UnsupportedOperationException("Read only");
+        LongValue value = cached(sourceId);
+        if (value == null) {
+            // another process may be adding the same key
+            value = tableStore.doWithExclusiveLock(ts -> ts.acquireValueFor(KEY_PREFIX + sourceId));
+            add(sourceId, value);
+        }
+        return value;
+    }
+
+    @Nullable
+    private synchronized LongValue lookup(int sourceId) {
+        LongValue value = cached(sourceId);
+        if (value == null) {
+            value = tableStore.lookupValueFor(KEY_PREFIX + sourceId);
+            if (value != null)
+                add(sourceId, value);
+        }
+        return value;
+    }
+
+    private void add(int sourceId, @NotNull LongValue value) {
+        final SourceValue[] values = Arrays.copyOf(this.values, this.values.length + 1);
+        values[values.length - 1] = new SourceValue(sourceId, value);
+        this.values = values;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (SourceValue sourceValue : values)
+            Closeable.closeQuietly(sourceValue.value);
+        values = NO_VALUES;
+    }
+
+    private static final class SourceValue {
+        final int sourceId;
+        @NotNull
+        final LongValue value;
+
+        SourceValue(int sourceId, @NotNull LongValue value) {
+            this.sourceId = sourceId;
+            this.value = value;
+        }
+    }
+}
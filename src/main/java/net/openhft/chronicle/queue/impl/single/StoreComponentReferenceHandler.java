@@ -4,12 +4,13 @@ import net.openhft.chronicle.core.io.Closeable;
 import net.openhft.chronicle.queue.ExcerptAppender;
 import net.openhft.chronicle.threads.Threads;
 import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
-import java.util.Queue;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.LockSupport;
@@ -25,7 +26,6 @@ public enum StoreComponentReferenceHandler implements Closeable {
     private static final ScheduledExecutorService THREAD_LOCAL_CLEANER_EXECUTOR_SERVICE =
             Threads.acquireScheduledExecutorService(THREAD_NAME, true);
 
-    private static final Queue<Wire> WIRES_TO_RELEASE = new ConcurrentLinkedQueue<>();
     private static final ConcurrentMap<Reference<?>, Runnable> CLOSE_ACTIONS = new ConcurrentHashMap<>();
     private static final boolean SHOULD_RELEASE_RESOURCES =
             Boolean.valueOf(System.getProperty("chronicle.queue.release.weakRef.resources",
@@ -33,21 +33,53 @@ public enum StoreComponentReferenceHandler implements Closeable {
     private static final int MAX_BATCH_SIZE =
             Integer.getInteger("chronicle.queue.release.weakRef.maxBatch", 10_000);
     private static final AtomicBoolean MAX_BATCH_WARNING_LOGGED = new AtomicBoolean(false);
+    private static final AtomicBoolean EARLY_RELEASE_SCHEDULED = new AtomicBoolean(false);
+    @Nullable
+    private static volatile RunListener runListener;
 
     static {
         THREAD_LOCAL_CLEANER_EXECUTOR_SERVICE.scheduleWithFixedDelay(() -> {
 
-            boolean workDone;
+            final long start = System.nanoTime();
+            boolean workDone, anyWorkDone = false;
             do {
                 workDone = processReferenceQueue(EXPIRED_THREAD_LOCAL_APPENDERS_QUEUE);
                 workDone |= processReferenceQueue(EXPIRED_THREAD_LOCAL_TAILERS_QUEUE);
                 workDone |= processWireQueue();
+                anyWorkDone |= workDone;
             } while (workDone);
+
+            final RunListener listener = runListener;
+            if (anyWorkDone && listener != null) {
+                // an exception would cancel this task for every queue in the JVM
+                try {
+                    listener.onRun(start, System.nanoTime() - start);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Run listener failed", e);
+                }
+            }
         }, 0, 1, TimeUnit.SECONDS);
 
         Runtime.getRuntime().addShutdownHook(new Thread(THREAD_LOCAL_CLEANER_EXECUTOR_SERVICE::shutdown));
     }
 
+    /**
+     * @param listener to be told of each run which released something, or null for none
+     */
+    public static void runListener(@Nullable final RunListener listener) {
+        runListener = listener;
+    }
+
+    /**
+     * Pins the JVM wide cleaner thread, which releases the resources of queues without deterministic release. This
+     * is shared by every such queue, so it isn't an option of a queue.
+     *
+     * @param affinity the cpus to run on
+     */
+    public static void affinity(@NotNull final BackgroundAffinity affinity) {
+        THREAD_LOCAL_CLEANER_EXECUTOR_SERVICE.execute(affinity::apply);
+    }
+
     static ReferenceQueue<ExcerptAppender> appenderQueue() {
         return EXPIRED_THREAD_LOCAL_APPENDERS_QUEUE;
     }
@@ -60,25 +92,24 @@ public enum StoreComponentReferenceHandler implements Closeable {
         CLOSE_ACTIONS.put(reference, cleanupJob);
     }
 
-    static void queueForRelease(final Wire wire) {
-        WIRES_TO_RELEASE.add(wire);
-    }
-
-    private static boolean processWireQueue() {
-        Wire wireToRelease;
-        boolean released = false;
-        while ((wireToRelease = WIRES_TO_RELEASE.poll()) != null) {
+    static void queueForRelease(final Wire wire, final long mappingSize) {
+        MappingBudget.INSTANCE.queueForRelease(wire, mappingSize);
+        // release on the cleaner thread rather than waiting for its next run, or unmapping on the caller's thread
+        if (MappingBudget.INSTANCE.overBudget() && EARLY_RELEASE_SCHEDULED.compareAndSet(false, true)) {
             try {
-                released = true;
-                wireToRelease.bytes().release();
-            } catch (IllegalStateException e) {
-                // ignore this - resource may have already been released by explicit close() operation
-            } catch (Throwable t) {
-                LOGGER.warn("Failed to release wire bytes", t);
+                THREAD_LOCAL_CLEANER_EXECUTOR_SERVICE.execute(() -> {
+                    EARLY_RELEASE_SCHEDULED.set(false);
+                    processWireQueue();
+                });
+            } catch (RejectedExecutionException e) {
+                // shutting down
+                EARLY_RELEASE_SCHEDULED.set(false);
             }
         }
+    }
 
-        return released;
+    private static boolean processWireQueue() {
+        return MappingBudget.INSTANCE.releasePending();
     }
 
     private static boolean processReferenceQueue(final ReferenceQueue<?> referenceQueue) {
@@ -117,4 +148,15 @@ public enum StoreComponentReferenceHandler implements Closeable {
 
         }
     }
-}
\ No newline at end of file
+
+    @FunctionalInterface
+    public interface RunListener {
+        /**
+         * Called on the cleaner thread after a run which released something.
+         *
+         * @param startNanos    the {@link System#nanoTime()} the run started
+         * @param durationNanos how long it took
+         */
+        void onRun(long startNanos, long durationNanos);
+    }
+}
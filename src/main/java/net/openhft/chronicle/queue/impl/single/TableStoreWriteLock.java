@@ -23,6 +23,7 @@ import net.openhft.chronicle.threads.TimingPauser;
 
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
 import static net.openhft.chronicle.core.Jvm.getProcessId;
@@ -33,6 +34,9 @@ public class TableStoreWriteLock extends AbstractTSQueueLock implements WriteLoc
     private static final long PID = getProcessId();
     private final ThreadLocal<Boolean> lockedByCurrentThread = ThreadLocal.withInitial(() -> false);
     private final long timeout;
+    // only updated when the lock isn't free, so taking a free lock isn't timed
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
 
     public TableStoreWriteLock(final TableStore<?> tableStore, Supplier<TimingPauser> pauser, Long timeoutMs) {
         super(LOCK_KEY, tableStore, pauser);
@@ -44,10 +48,18 @@ public class TableStoreWriteLock extends AbstractTSQueueLock implements WriteLoc
         assert !lockedByCurrentThread.get() : "Lock is already acquired by current thread and is not reentrant - nested document context?";
         closeCheck();
         try {
-            while (!lock.compareAndSwapValue(UNLOCKED, PID)) {
-                if (Thread.interrupted())
-                    throw new IllegalStateException("Interrupted for the lock file:" + path);
-                pauser.pause(timeout, TimeUnit.MILLISECONDS);
+            if (!lock.compareAndSwapValue(UNLOCKED, PID)) {
+                long start = System.nanoTime();
+                try {
+                    while (!lock.compareAndSwapValue(UNLOCKED, PID)) {
+                        if (Thread.interrupted())
+                            throw new IllegalStateException("Interrupted for the lock file:" + path);
+                        pauser.pause(timeout, TimeUnit.MILLISECONDS);
+                    }
+                } finally {
+                    waits.increment();
+                    waitNanos.add(System.nanoTime() - start);
+                }
             }
 
             // success
@@ -78,6 +90,17 @@ public class TableStoreWriteLock extends AbstractTSQueueLock implements WriteLoc
         assert setLock(false);
     }
 
+    /**
+     * @return the number of times the lock was held by someone else when this tried to take it
+     */
+    public long waitCount() {
+        return waits.sum();
+    }
+
+    public long waitNanos() {
+        return waitNanos.sum();
+    }
+
     @Override
     public boolean locked() {
         return lock.getVolatileValue() != UNLOCKED;
@@ -0,0 +1,222 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Jvm;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * A DirectoryListing which keeps a sorted set of the cycles on disk in memory.
+ * <p>
+ * The directory is scanned once on {@link #init()}, after that the set is updated incrementally from
+ * {@link #onFileCreated(File, int)} and from a {@link WatchService} registered on the queue directory.
+ * The directory is only rescanned in full if the watch service reports an overflow, or if no watch service
+ * could be registered for the directory.
+ * <p>
+ * A writable queue passes its {@link TableDirectoryListing} as the delegate, which is kept up to date with the cycles
+ * seen here, so other processes using the default listing still see the cycles this one creates.
+ */
+final class WatchingDirectoryListing implements DirectoryListing {
+    private static final int UNSET_MAX_CYCLE = Integer.MIN_VALUE;
+    private static final int UNSET_MIN_CYCLE = Integer.MAX_VALUE;
+
+    private final Path queuePath;
+    private final ToIntFunction<File> fileToCycleFunction;
+    private final NavigableSet<Long> cycles = new ConcurrentSkipListSet<>();
+    private final AtomicLong modCount = new AtomicLong();
+    @Nullable
+    private final DirectoryListing delegate;
+    @Nullable
+    private volatile WatchService watchService;
+    private volatile boolean closed;
+
+    WatchingDirectoryListing(@NotNull final Path queuePath,
+                             @NotNull final ToIntFunction<File> fileToCycleFunction) {
+        this(queuePath, fileToCycleFunction, null);
+    }
+
+    /**
+     * @param delegate a listing to keep up to date with the cycles created and deleted, or {@code null}
+     */
+    WatchingDirectoryListing(@NotNull final Path queuePath,
+                             @NotNull final ToIntFunction<File> fileToCycleFunction,
+                             @Nullable final DirectoryListing delegate) {
+        this.queuePath = queuePath;
+        this.fileToCycleFunction = fileToCycleFunction;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void init() {
+        if (delegate != null)
+            delegate.init();
+        try {
+            watchService = queuePath.getFileSystem().newWatchService();
+            queuePath.register(watchService, ENTRY_CREATE, ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException e) {
+            Jvm.warn().on(getClass(), "Unable to watch " + queuePath + ", falling back to scanning the directory", e);
+            closeWatchService();
+        }
+        rescan();
+    }
+
+    @Override
+    public void refresh() {
+        closeCheck();
+        if (watchService == null)
+            rescan();
+        else
+            processEvents();
+    }
+
+    @Override
+    public void onFileCreated(final File file, final int cycle) {
+        closeCheck();
+        if (cycles.add((long) cycle))
+            modCount.incrementAndGet();
+        if (delegate != null)
+            delegate.onFileCreated(file, cycle);
+    }
+
+    @Override
+    public int getMaxCreatedCycle() {
+        closeCheck();
+        processEvents();
+        return cycles.isEmpty() ? UNSET_MAX_CYCLE : cycles.last().intValue();
+    }
+
+    @Override
+    public int getMinCreatedCycle() {
+        closeCheck();
+        processEvents();
+        return cycles.isEmpty() ? UNSET_MIN_CYCLE : cycles.first().intValue();
+    }
+
+    @Override
+    public long modCount() {
+        closeCheck();
+        processEvents();
+        return modCount.get();
+    }
+
+    @NotNull
+    @Override
+    public NavigableSet<Long> cycles() {
+        closeCheck();
+        processEvents();
+        return cycles;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        closeWatchService();
+        if (delegate != null)
+            delegate.close();
+    }
+
+    @Override
+    public String toString() {
+        return "WatchingDirectoryListing{" +
+                "queuePath=" + queuePath +
+                ", cycles=" + cycles.size() +
+                ", modCount=" + modCount +
+                '}';
+    }
+
+    private void closeCheck() {
+        if (closed)
+            throw new IllegalStateException("DirectoryListing is already closed - was the Queue closed?");
+    }
+
+    private void closeWatchService() {
+        final WatchService ws = watchService;
+        watchService = null;
+        if (ws == null)
+            return;
+        try {
+            ws.close();
+        } catch (IOException e) {
+            Jvm.debug().on(getClass(), "Failed to close watch service", e);
+        }
+    }
+
+    /**
+     * Applies any pending watch events. Only one thread can dequeue a signalled key, so the others return
+     * immediately rather than waiting for it to be processed.
+     */
+    private void processEvents() {
+        final WatchService ws = watchService;
+        if (ws == null)
+            return;
+        final WatchKey key;
+        try {
+            key = ws.poll();
+        } catch (ClosedWatchServiceException e) {
+            return;
+        }
+        if (key == null)
+            return;
+
+        boolean overflow = false;
+        boolean deleted = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            final WatchEvent.Kind<?> kind = event.kind();
+            if (kind == OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            final Path name = (Path) event.context();
+            if (!name.toString().endsWith(SingleChronicleQueue.SUFFIX))
+                continue;
+            final File file = queuePath.resolve(name).toFile();
+            final int cycle = fileToCycleFunction.applyAsInt(file);
+            if (kind == ENTRY_CREATE) {
+                if (cycles.add((long) cycle)) {
+                    modCount.incrementAndGet();
+                    if (delegate != null)
+                        delegate.onFileCreated(file, cycle);
+                }
+            } else if (cycles.remove((long) cycle)) {
+                modCount.incrementAndGet();
+                deleted = true;
+            }
+        }
+        if (!key.reset()) {
+            // the directory is no longer accessible
+            closeWatchService();
+            overflow = true;
+        }
+        if (overflow)
+            rescan();
+        else if (deleted && delegate != null)
+            // only a rescan can move the lowest cycle up
+            delegate.refresh();
+    }
+
+    private void rescan() {
+        final File[] queueFiles = queuePath.toFile().
+                listFiles((d, f) -> f.endsWith(SingleChronicleQueue.SUFFIX));
+        final NavigableSet<Long> onDisk = new ConcurrentSkipListSet<>();
+        if (queueFiles != null) {
+            for (File queueFile : queueFiles) {
+                onDisk.add((long) fileToCycleFunction.applyAsInt(queueFile));
+            }
+        }
+        boolean changed = cycles.retainAll(onDisk);
+        changed |= cycles.addAll(onDisk);
+        if (changed)
+            modCount.incrementAndGet();
+        if (delegate != null)
+            delegate.refresh();
+    }
+}
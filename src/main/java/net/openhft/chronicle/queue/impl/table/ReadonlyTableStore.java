@@ -48,6 +48,15 @@ public class ReadonlyTableStore<T extends Metadata> implements TableStore<T> {
         throw new UnsupportedOperationException("Read only");
     }
 
+    /**
+     * There is no table, so no values.
+     */
+    @Nullable
+    @Override
+    public LongValue lookupValueFor(CharSequence key) {
+        return null;
+    }
+
     @Override
     public <R> R doWithExclusiveLock(Function<TableStore<T>, ? extends R> code) {
         throw new UnsupportedOperationException("Read only");
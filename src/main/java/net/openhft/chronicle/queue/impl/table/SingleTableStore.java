@@ -30,6 +30,7 @@ import net.openhft.chronicle.queue.impl.single.SimpleStoreRecovery;
 import net.openhft.chronicle.queue.impl.single.StoreRecovery;
 import net.openhft.chronicle.wire.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -211,6 +212,20 @@ public class SingleTableStore<T extends Metadata> implements TableStore<T> {
      */
     @Override
     public synchronized LongValue acquireValueFor(CharSequence key) { // TODO Change to ThreadLocal values if performance is a problem.
+        return valueFor(key, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Nullable
+    @Override
+    public synchronized LongValue lookupValueFor(CharSequence key) {
+        return valueFor(key, false);
+    }
+
+    @Nullable
+    private LongValue valueFor(CharSequence key, boolean create) {
         StringBuilder sb = Wires.acquireStringBuilder();
         mappedBytes.reserve();
         try {
@@ -229,6 +244,8 @@ public class SingleTableStore<T extends Metadata> implements TableStore<T> {
                 mappedBytes.readPosition(readPosition + length);
             }
             // not found
+            if (!create)
+                return null;
             int safeLength = Maths.toUInt31(mappedBytes.realCapacity() - mappedBytes.readPosition());
             mappedBytes.writeLimit(mappedBytes.realCapacity());
             mappedBytes.writePosition(mappedBytes.readPosition());
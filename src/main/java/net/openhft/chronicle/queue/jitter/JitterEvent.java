@@ -0,0 +1,56 @@
+package net.openhft.chronicle.queue.jitter;
+
+/**
+ * What a record of a jitter recording is. Everything but a {@link #SAMPLE} is activity which might explain a slow
+ * sample around the same time.
+ */
+public enum JitterEvent {
+    /**
+     * A ping-pong round trip, the value is the sequence number
+     */
+    SAMPLE("sample", false),
+    /**
+     * An append which moved to a new cycle, the value is the new cycle
+     */
+    ROLL("roll", true),
+    /**
+     * A cycle file was acquired, the value is the cycle
+     */
+    STORE_ACQUIRED("store acquired", true),
+    /**
+     * A cycle file was released, the value is the cycle
+     */
+    STORE_RELEASED("store released", true),
+    /**
+     * A pretouch which touched pages, the value is the number of pages
+     */
+    PRETOUCH("pretoucher", true),
+    /**
+     * A run of the StoreComponentReferenceHandler which released something
+     */
+    REFERENCE_HANDLER("reference handler", true),
+    /**
+     * A thread which only sleeps woke late, so the whole process or machine stalled, e.g. a GC, a safepoint or
+     * the OS. The value is how late, in nanoseconds.
+     */
+    HICCUP("hiccup", false);
+
+    private final String description;
+    private final boolean queueActivity;
+
+    JitterEvent(String description, boolean queueActivity) {
+        this.description = description;
+        this.queueActivity = queueActivity;
+    }
+
+    public String description() {
+        return description;
+    }
+
+    /**
+     * @return true if this is the queue's own background work
+     */
+    public boolean isQueueActivity() {
+        return queueActivity;
+    }
+}
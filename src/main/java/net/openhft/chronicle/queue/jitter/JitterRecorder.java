@@ -0,0 +1,185 @@
+package net.openhft.chronicle.queue.jitter;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.StoreFileListener;
+import net.openhft.chronicle.queue.impl.single.Pretoucher;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.queue.impl.single.StoreComponentReferenceHandler;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Records the samples of one process, and the activity which might explain slow samples, to a queue of its own for
+ * {@link JitterTimelineMain} to analyse. Each excerpt is
+ * <pre>
+ * byte  {@link JitterEvent} ordinal
+ * long  start, {@link System#nanoTime()}
+ * long  duration in nanoseconds, 0 for an instant
+ * long  value, which depends on the event
+ * </pre>
+ * Samples are written by the measuring thread, after each has been measured. Events from other threads are queued and
+ * written by the measuring thread too, with the next sample, so recording doesn't contend for the write lock.
+ */
+public final class JitterRecorder implements Closeable {
+    private static final int PRETOUCH_INTERVAL_MS = 10;
+
+    private final SingleChronicleQueue recording;
+    private final Queue<long[]> events = new ConcurrentLinkedQueue<>();
+    private final long hiccupThresholdNanos;
+    private volatile boolean closed;
+    private ExcerptAppender appender;
+
+    /**
+     * @param dir             for the recording queue
+     * @param hiccupThreshold how late the sleeping thread must wake to record a {@link JitterEvent#HICCUP}, or 0
+     *                        for no such thread
+     */
+    public JitterRecorder(@NotNull File dir, long hiccupThreshold, @NotNull TimeUnit unit) {
+        this.recording = SingleChronicleQueueBuilder.binary(dir).testBlockSize().build();
+        this.hiccupThresholdNanos = unit.toNanos(hiccupThreshold);
+        StoreComponentReferenceHandler.runListener((start, duration) ->
+                event(JitterEvent.REFERENCE_HANDLER, start, duration, 0));
+        if (hiccupThresholdNanos > 0)
+            daemon("jitter-hiccup", this::detectHiccups);
+    }
+
+    /**
+     * @return a listener which records the acquiring and releasing of cycle files, for the queue being measured
+     */
+    @NotNull
+    public StoreFileListener storeFileListener() {
+        return new StoreFileListener() {
+            @Override
+            public void onAcquired(int cycle, File file) {
+                event(JitterEvent.STORE_ACQUIRED, System.nanoTime(), 0, cycle);
+            }
+
+            @Override
+            public void onReleased(int cycle, File file) {
+                event(JitterEvent.STORE_RELEASED, System.nanoTime(), 0, cycle);
+            }
+        };
+    }
+
+    /**
+     * Pretouches the queue being measured every {@value #PRETOUCH_INTERVAL_MS} ms on a thread of its own, recording
+     * each pretouch which touches pages.
+     */
+    public void pretouch(@NotNull SingleChronicleQueue queue) {
+        daemon("jitter-pretoucher", () -> {
+            Pretoucher pretoucher = new Pretoucher(queue);
+            while (!closed && !queue.isClosed()) {
+                long pages = queue.metrics().getPretouchedPages();
+                long start = System.nanoTime();
+                try {
+                    pretoucher.execute();
+                } catch (Exception e) {
+                    break;
+                }
+                long touched = queue.metrics().getPretouchedPages() - pages;
+                if (touched > 0)
+                    event(JitterEvent.PRETOUCH, start, System.nanoTime() - start, touched);
+                Jvm.pause(PRETOUCH_INTERVAL_MS);
+            }
+            pretoucher.close();
+        });
+    }
+
+    /**
+     * Records an event from any thread.
+     */
+    public void event(@NotNull JitterEvent event, long startNanos, long durationNanos, long value) {
+        if (!closed)
+            events.add(new long[]{event.ordinal(), startNanos, durationNanos, value});
+    }
+
+    /**
+     * Records a sample, and any events queued since the last, on the measuring thread.
+     */
+    public void sample(long startNanos, long durationNanos, long sequence) {
+        write(JitterEvent.SAMPLE.ordinal(), startNanos, durationNanos, sequence);
+        flushEvents();
+    }
+
+    /**
+     * Writes any events queued, on the measuring thread.
+     */
+    public void flushEvents() {
+        for (long[] event; (event = events.poll()) != null; )
+            write((int) event[0], event[1], event[2], event[3]);
+    }
+
+    private void write(int event, long startNanos, long durationNanos, long value) {
+        if (appender == null)
+            appender = recording.acquireAppender();
+        try (DocumentContext dc = appender.writingDocument()) {
+            Bytes<?> bytes = dc.wire().bytes();
+            bytes.writeByte((byte) event);
+            bytes.writeLong(startNanos);
+            bytes.writeLong(durationNanos);
+            bytes.writeLong(value);
+        }
+    }
+
+    private void detectHiccups() {
+        long sleepNanos = TimeUnit.MILLISECONDS.toNanos(1);
+        while (!closed) {
+            long start = System.nanoTime();
+            LockSupport.parkNanos(sleepNanos);
+            long late = System.nanoTime() - start - sleepNanos;
+            if (late > hiccupThresholdNanos)
+                event(JitterEvent.HICCUP, start + sleepNanos, late, late);
+        }
+    }
+
+    private static void daemon(@NotNull String name, @NotNull Runnable runnable) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        flushEvents();
+        closed = true;
+        StoreComponentReferenceHandler.runListener(null);
+        recording.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Reads a recording, in the order written.
+     */
+    public static void read(@NotNull File dir, @NotNull Consumer<long[]> consumer) {
+        try (SingleChronicleQueue recording = SingleChronicleQueueBuilder.binary(dir).testBlockSize().readOnly(true)
+                .build()) {
+            ExcerptTailer tailer = recording.createTailer();
+            while (true) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    if (!dc.isPresent())
+                        return;
+                    Bytes<?> bytes = dc.wire().bytes();
+                    consumer.accept(new long[]{bytes.readByte(), bytes.readLong(), bytes.readLong(), bytes.readLong()});
+                }
+            }
+        }
+    }
+}
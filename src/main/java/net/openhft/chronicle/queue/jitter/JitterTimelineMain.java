@@ -0,0 +1,202 @@
+package net.openhft.chronicle.queue.jitter;
+
+import net.openhft.chronicle.core.util.Histogram;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analyses the recordings of a {@link QueuePingPongMain} run, in the recording-* directories of the run's directory.
+ * It prints
+ * <ul>
+ * <li>a timeline, with the round trip percentiles and the events of each process in each bucket</li>
+ * <li>what the spikes, the round trips slower than {@code spikeUs}, overlapped within {@code windowUs}: the queue's
+ * own background work, a process stall, or nothing recorded, which leaves the OS or the hardware</li>
+ * <li>the slowest round trips and what each overlapped</li>
+ * </ul>
+ * <pre>
+ * -DbucketMs=1000 -DspikeUs=20 -DwindowUs=100 -Dworst=20
+ * </pre>
+ */
+public class JitterTimelineMain {
+    static int bucketMs = Integer.getInteger("bucketMs", 1000);
+    static int spikeUs = Integer.getInteger("spikeUs", 20);
+    static int windowUs = Integer.getInteger("windowUs", 100);
+    static int worst = Integer.getInteger("worst", 20);
+
+    public static void main(String[] args) {
+        if (args.length != 1)
+            throw new IllegalArgumentException("Usage: <program> [run directory]");
+        analyse(new File(args[0]), System.out);
+    }
+
+    public static void analyse(@NotNull File dir, @NotNull PrintStream out) {
+        out.println("-DbucketMs=" + bucketMs
+                + " -DspikeUs=" + spikeUs
+                + " -DwindowUs=" + windowUs
+                + " -Dworst=" + worst);
+        File[] recordings = dir.listFiles((d, name) -> name.startsWith("recording-"));
+        if (recordings == null || recordings.length == 0) {
+            out.println("No recordings in " + dir);
+            return;
+        }
+        List<Record> samples = new ArrayList<>();
+        List<Record> events = new ArrayList<>();
+        for (File recording : recordings) {
+            String process = recording.getName().substring("recording-".length());
+            JitterRecorder.read(recording, r -> {
+                Record record = new Record(process, JitterEvent.values()[(int) r[0]], r[1], r[2], r[3]);
+                (record.event == JitterEvent.SAMPLE ? samples : events).add(record);
+            });
+        }
+        if (samples.isEmpty()) {
+            out.println("No samples in " + dir);
+            return;
+        }
+        samples.sort(Comparator.comparingLong(r -> r.start));
+        events.sort(Comparator.comparingLong(r -> r.start));
+
+        printTimeline(out, samples, events);
+        printSpikes(out, samples, events);
+    }
+
+    private static void printTimeline(@NotNull PrintStream out, @NotNull List<Record> samples,
+                                      @NotNull List<Record> events) {
+        long origin = samples.get(0).start;
+        long bucketNanos = TimeUnit.MILLISECONDS.toNanos(bucketMs);
+        TreeMap<Long, Histogram> histograms = new TreeMap<>();
+        TreeMap<Long, Map<String, Integer>> eventCounts = new TreeMap<>();
+        for (Record sample : samples)
+            histograms.computeIfAbsent(bucket(sample.start, origin, bucketNanos), b -> new Histogram(32, 7))
+                    .sampleNanos(sample.duration);
+        for (Record event : events) {
+            if (event.start >= origin)
+                eventCounts.computeIfAbsent(bucket(event.start, origin, bucketNanos), b -> new TreeMap<>())
+                        .merge(event.process + " " + event.event.description(), 1, Integer::sum);
+        }
+
+        out.println("Timeline, round trips in us");
+        out.printf("%10s %10s %8s %8s %8s %8s  %s%n", "from ms", "count", "50%", "99%", "99.9%", "max", "events");
+        for (Map.Entry<Long, Histogram> entry : histograms.entrySet()) {
+            Histogram h = entry.getValue();
+            StringJoiner joiner = new StringJoiner(", ");
+            eventCounts.getOrDefault(entry.getKey(), new TreeMap<>()).forEach((k, v) -> joiner.add(k + " " + v));
+            out.printf("%10d %10d %8.1f %8.1f %8.1f %8.1f  %s%n", entry.getKey() * bucketMs, h.totalCount(),
+                    h.percentile(0.5) / 1e3, h.percentile(0.99) / 1e3, h.percentile(0.999) / 1e3,
+                    h.percentile(1.0) / 1e3, joiner);
+        }
+    }
+
+    private static void printSpikes(@NotNull PrintStream out, @NotNull List<Record> samples,
+                                     @NotNull List<Record> events) {
+        long spikeNanos = TimeUnit.MICROSECONDS.toNanos(spikeUs);
+        long windowNanos = TimeUnit.MICROSECONDS.toNanos(windowUs);
+        long maxEventDuration = events.stream().mapToLong(e -> e.duration).max().orElse(0);
+        long[] eventStarts = events.stream().mapToLong(e -> e.start).toArray();
+
+        Map<String, Integer> causes = new LinkedHashMap<>();
+        List<Record> spikes = new ArrayList<>();
+        for (Record sample : samples) {
+            if (sample.duration < spikeNanos)
+                continue;
+            spikes.add(sample);
+            causes.merge(cause(overlapping(sample, events, eventStarts, windowNanos, maxEventDuration)), 1,
+                    Integer::sum);
+        }
+
+        out.printf("%nSpikes over %d us: %d of %d round trips%n", spikeUs, spikes.size(), samples.size());
+        causes.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(e -> out.printf("%8d %6.2f%%  %s%n", e.getValue(), 100.0 * e.getValue() / spikes.size(),
+                        e.getKey()));
+
+        out.printf("%nSlowest round trips%n%10s %10s  %s%n", "at ms", "us", "overlapping");
+        long origin = samples.get(0).start;
+        spikes.sort(Comparator.comparingLong((Record r) -> r.duration).reversed());
+        for (Record spike : spikes.subList(0, Math.min(worst, spikes.size()))) {
+            StringJoiner joiner = new StringJoiner(", ");
+            for (Record event : overlapping(spike, events, eventStarts, windowNanos, maxEventDuration))
+                joiner.add(String.format("%s %s %+.1f us for %.1f us", event.process, event.event.description(),
+                        (event.start - spike.start) / 1e3, event.duration / 1e3));
+            out.printf("%10.3f %10.1f  %s%n", (spike.start - origin) / 1e6, spike.duration / 1e3,
+                    joiner.length() == 0 ? "nothing recorded" : joiner);
+        }
+    }
+
+    /**
+     * @return the events which overlap the sample, widened by the window either side
+     */
+    @NotNull
+    private static List<Record> overlapping(@NotNull Record sample, @NotNull List<Record> events,
+                                            @NotNull long[] eventStarts, long windowNanos, long maxEventDuration) {
+        long from = sample.start - windowNanos;
+        long to = sample.start + sample.duration + windowNanos;
+        List<Record> overlapping = new ArrayList<>();
+        int first = lowerBound(eventStarts, from - maxEventDuration);
+        for (int i = first; i < eventStarts.length && eventStarts[i] <= to; i++) {
+            Record event = events.get(i);
+            if (event.start + event.duration >= from)
+                overlapping.add(event);
+        }
+        return overlapping;
+    }
+
+    /**
+     * The queue's own work is blamed first, then a process stall, else the OS
+     */
+    @NotNull
+    private static String cause(@NotNull List<Record> overlapping) {
+        Map<JitterEvent, Record> byEvent = new EnumMap<>(JitterEvent.class);
+        for (Record event : overlapping)
+            byEvent.putIfAbsent(event.event, event);
+        for (Map.Entry<JitterEvent, Record> entry : byEvent.entrySet()) {
+            if (entry.getKey().isQueueActivity())
+                return "queue: " + entry.getValue().process + " " + entry.getKey().description();
+        }
+        if (byEvent.containsKey(JitterEvent.HICCUP))
+            return "process stall: " + byEvent.get(JitterEvent.HICCUP).process + " (GC, safepoint or OS)";
+        return "nothing recorded (OS or hardware)";
+    }
+
+    private static int lowerBound(@NotNull long[] sorted, long key) {
+        int low = 0, high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private static long bucket(long nanos, long origin, long bucketNanos) {
+        return (nanos - origin) / bucketNanos;
+    }
+
+    static final class Record {
+        final String process;
+        final JitterEvent event;
+        final long start;
+        final long duration;
+        final long value;
+
+        Record(String process, JitterEvent event, long start, long duration, long value) {
+            this.process = process;
+            this.event = event;
+            this.start = start;
+            this.duration = duration;
+            this.value = value;
+        }
+    }
+}
@@ -1,109 +1,214 @@
 package net.openhft.chronicle.queue.jitter;
 
+import net.openhft.chronicle.bytes.Bytes;
 import net.openhft.chronicle.bytes.MappedFile;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.OS;
 import net.openhft.chronicle.core.io.IOTools;
 import net.openhft.chronicle.core.util.Histogram;
-import net.openhft.chronicle.queue.ChronicleQueue;
-import net.openhft.chronicle.queue.ChronicleQueueBuilder;
 import net.openhft.chronicle.queue.ExcerptAppender;
 import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
 import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
 import net.openhft.chronicle.wire.DocumentContext;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the round trip of a message written to one queue by the ping, copied to another by the pong and read back
+ * by the ping, with the ping and pong in separate processes by default. Every round trip is recorded, with the rolls,
+ * cycle files acquired and released, pretouches, {@code StoreComponentReferenceHandler} runs and process stalls of
+ * both processes, by a {@link JitterRecorder} per process. At the end, {@link JitterTimelineMain} prints a timeline
+ * of the recordings and what the slow round trips coincided with, and the recordings are kept for offline analysis.
+ * <pre>
+ * -Druntime=30 -Dwarmup=5 -Dpath=/tmp -DintervalUs=20 -Dsize=64 -DrollCycle=TEST_SECONDLY -Dprocesses=2
+ * -Dpretouch=false -DhiccupUs=200
+ * </pre>
+ * The processes compare {@link System#nanoTime()}, which is only consistent between processes on the same machine
+ * on some operating systems, such as Linux.
+ */
 public class QueuePingPongMain {
-    //    static int throughput = Integer.getInteger("throughput", 250); // MB/s
     static int runtime = Integer.getInteger("runtime", 30); // seconds
+    static int warmup = Integer.getInteger("warmup", 5); // seconds
     static String basePath = System.getProperty("path", OS.TMP);
-    static volatile long writeTime = 0;
-    static volatile int writeCount = 0;
-    static volatile int readCount = 0;
-    static volatile boolean running = true;
+    static int intervalUs = Integer.getInteger("intervalUs", 20); // between pings
+    static int size = Math.max(16, Integer.getInteger("size", 64));
+    static String rollCycle = System.getProperty("rollCycle", "TEST_SECONDLY");
+    static int processes = Integer.getInteger("processes", 2);
+    static boolean pretouch = Boolean.getBoolean("pretouch");
+    static int hiccupUs = Integer.getInteger("hiccupUs", 200);
+    private static final long STOP = -1;
+    private static final int NO_CYCLE = Integer.MIN_VALUE;
 
     static {
         System.setProperty("jvm.safepoint.enabled", "true");
     }
 
-    public static void main(String[] args) {
-        System.out.println(
-//                "-Dthroughput=" + throughput
-                " -Druntime=" + runtime
-                        + " -Dpath=" + basePath);
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if ("pong".equals(System.getProperty("role"))) {
+            MappedFile.warmup();
+            pong(new File(System.getProperty("dir")));
+            return;
+        }
+
+        System.out.println("-Druntime=" + runtime
+                + " -Dwarmup=" + warmup
+                + " -Dpath=" + basePath
+                + " -DintervalUs=" + intervalUs
+                + " -Dsize=" + size
+                + " -DrollCycle=" + rollCycle
+                + " -Dprocesses=" + processes
+                + " -Dpretouch=" + pretouch
+                + " -DhiccupUs=" + hiccupUs);
         MappedFile.warmup();
 
-        pingPong(64);
+        File dir = new File(basePath, "test-q-" + System.nanoTime());
+        Process pongProcess = null;
+        Thread pongThread = null;
+        if (processes > 1) {
+            pongProcess = startPongProcess(dir);
+        } else {
+            pongThread = new Thread(() -> pong(dir), "pong");
+            pongThread.setDaemon(true);
+            pongThread.start();
+        }
+
+        pingPong(dir);
+
+        if (pongProcess != null && !pongProcess.waitFor(10, TimeUnit.SECONDS))
+            pongProcess.destroyForcibly();
+        if (pongThread != null)
+            pongThread.join(10_000);
+
+        JitterTimelineMain.analyse(dir, System.out);
+        IOTools.deleteDirWithFiles(new File(dir, "ping"), 2);
+        IOTools.deleteDirWithFiles(new File(dir, "pong"), 2);
+        System.out.println("Recordings kept in " + dir + ", run " + JitterTimelineMain.class.getName() + " " + dir
+                + " to analyse them again");
     }
 
-    static void pingPong(int size) {
-        String path = QueuePingPongMain.basePath + "/test-q-" + System.nanoTime();
-        Histogram readDelay = new Histogram();
-        Histogram readDelay2 = new Histogram();
-        try (ChronicleQueue queue = createQueue(path)) {
-
-            Thread reader = new Thread(() -> {
-                ExcerptTailer tailer = queue.createTailer();
-                while (running) {
-                    //noinspection StatementWithEmptyBody
-                    while (readCount == writeCount) ;
-
-                    long wakeTime = System.nanoTime();
-                    while (running) {
-                        int count = 0;
-                        try (DocumentContext dc = tailer.readingDocument(true)) {
-                            if (!dc.isPresent()) {
-                                count++;
-                                continue;
-                            }
-                        }
-                        if (count > 0)
-                            System.out.println(count);
-                        break;
-                    }
-                    long delay = wakeTime - writeTime;
-                    long time = System.nanoTime() - wakeTime;
-                    readDelay2.sample(time);
-                    readDelay.sample(delay);
-                    if (time + delay > 20_000)
-                        System.out.println("td " + delay + " + " + time);
-                    if (readCount == 100000) {
-                        System.out.println("reset");
-                        readDelay.reset();
-                        readDelay2.reset();
+    static void pingPong(@NotNull File dir) {
+        Histogram roundTrips = new Histogram(32, 7);
+        try (JitterRecorder recorder = recorder(dir, "ping");
+             SingleChronicleQueue pings = createQueue(new File(dir, "ping"), recorder);
+             SingleChronicleQueue pongs = createQueue(new File(dir, "pong"), null)) {
+            if (pretouch)
+                recorder.pretouch(pings);
+            ExcerptAppender appender = pings.acquireAppender();
+            ExcerptTailer tailer = pongs.createTailer();
+
+            long interval = TimeUnit.MICROSECONDS.toNanos(intervalUs);
+            long recordFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmup);
+            long finish = recordFrom + TimeUnit.SECONDS.toNanos(runtime);
+            long next = System.nanoTime();
+            int lastCycle = NO_CYCLE;
+            for (long seq = 0; next < finish; seq++) {
+                while (System.nanoTime() < next) {
+                    // spin
+                }
+                long start = System.nanoTime();
+                write(appender, seq, start);
+                lastCycle = recordRoll(recorder, appender, lastCycle, start);
+                // the first reply waits for the pong to start
+                while (true) {
+                    try (DocumentContext dc = tailer.readingDocument()) {
+                        if (dc.isPresent())
+                            break;
                     }
-                    readCount++;
                 }
-            });
-            reader.setDaemon(true);
-            reader.start();
-            Jvm.pause(100);
-
-            long finish = System.currentTimeMillis() + runtime * 1000;
-            ExcerptAppender appender = queue.acquireAppender();
-            while (System.currentTimeMillis() < finish) {
-                if (readCount < writeCount) {
-                    Thread.yield();
-                    continue;
+                long end = System.nanoTime();
+                if (start >= recordFrom) {
+                    roundTrips.sample(end - start);
+                    recorder.sample(start, end - start, seq);
+                } else {
+                    recorder.flushEvents();
                 }
-                try (DocumentContext dc = appender.writingDocument(false)) {
-                    dc.wire().bytes().writeSkip(size);
+                next = Math.max(next + interval, end);
+            }
+            write(appender, STOP, System.nanoTime());
+        }
+        System.out.println("round trip: " + roundTrips.toMicrosFormat());
+    }
+
+    static void pong(@NotNull File dir) {
+        try (JitterRecorder recorder = recorder(dir, "pong");
+             SingleChronicleQueue pings = createQueue(new File(dir, "ping"), null);
+             SingleChronicleQueue pongs = createQueue(new File(dir, "pong"), recorder)) {
+            if (pretouch)
+                recorder.pretouch(pongs);
+            ExcerptTailer tailer = pings.createTailer();
+            ExcerptAppender appender = pongs.acquireAppender();
+            int lastCycle = NO_CYCLE;
+            while (true) {
+                long seq, sent;
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    if (!dc.isPresent())
+                        continue;
+                    Bytes<?> bytes = dc.wire().bytes();
+                    seq = bytes.readLong();
+                    sent = bytes.readLong();
                 }
-                writeCount++;
-                writeTime = System.nanoTime();
+                if (seq == STOP)
+                    break;
+                long start = System.nanoTime();
+                write(appender, seq, sent);
+                lastCycle = recordRoll(recorder, appender, lastCycle, start);
+                recorder.flushEvents();
             }
-            running = false;
         }
-        System.out.println("read delay: " + readDelay.toMicrosFormat());
-        System.out.println("read delay2: " + readDelay2.toMicrosFormat());
-        IOTools.deleteDirWithFiles(path, 2);
     }
 
     @NotNull
-    private static SingleChronicleQueue createQueue(String path) {
-        return ChronicleQueueBuilder.single(path)
-//                .blockSize(1 << 30)
-                .build();
+    private static JitterRecorder recorder(@NotNull File dir, @NotNull String role) {
+        return new JitterRecorder(new File(dir, "recording-" + role), hiccupUs, TimeUnit.MICROSECONDS);
+    }
+
+    private static void write(@NotNull ExcerptAppender appender, long seq, long sent) {
+        try (DocumentContext dc = appender.writingDocument()) {
+            Bytes<?> bytes = dc.wire().bytes();
+            bytes.writeLong(seq);
+            bytes.writeLong(sent);
+            bytes.writeSkip(size - 16);
+        }
+    }
+
+    private static int recordRoll(@NotNull JitterRecorder recorder, @NotNull ExcerptAppender appender, int lastCycle,
+                                  long start) {
+        int cycle = appender.cycle();
+        if (lastCycle != NO_CYCLE && cycle != lastCycle)
+            recorder.event(JitterEvent.ROLL, start, System.nanoTime() - start, cycle);
+        return cycle;
+    }
+
+    @NotNull
+    private static Process startPongProcess(@NotNull File dir) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-Dsize=" + size);
+        command.add("-DrollCycle=" + rollCycle);
+        command.add("-Dpretouch=" + pretouch);
+        command.add("-DhiccupUs=" + hiccupUs);
+        command.add("-Drole=pong");
+        command.add("-Ddir=" + dir);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(QueuePingPongMain.class.getName());
+        Jvm.debug().on(QueuePingPongMain.class, "Starting " + command);
+        return new ProcessBuilder(command).inheritIO().start();
     }
 
+    @NotNull
+    private static SingleChronicleQueue createQueue(@NotNull File dir, JitterRecorder recorder) {
+        SingleChronicleQueueBuilder builder = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.valueOf(rollCycle));
+        if (recorder != null)
+            builder.storeFileListener(recorder.storeFileListener());
+        return builder.build();
+    }
 }
@@ -1,21 +1,24 @@
 package net.openhft.chronicle.queue.reader;
 
+import net.openhft.chronicle.bytes.Bytes;
 import net.openhft.chronicle.bytes.MethodReader;
+import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.util.Histogram;
 import net.openhft.chronicle.queue.ChronicleQueue;
 import net.openhft.chronicle.queue.ExcerptTailer;
 import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
-import net.openhft.chronicle.wire.MessageHistory;
-import net.openhft.chronicle.wire.VanillaMessageHistory;
-import net.openhft.chronicle.wire.VanillaMethodReader;
-import net.openhft.chronicle.wire.WireParselet;
+import net.openhft.chronicle.wire.*;
 import org.jetbrains.annotations.NotNull;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -25,7 +28,11 @@ import java.util.stream.Collectors;
 public class ChronicleHistoryReader {
 
     private static final int SUMMART_OUTPUT_UNSET = -999;
+    private static final String[] PERCENTILES = {"50", "90", "99", "99.9", "99.99", "99.999", "worst"};
     protected Path basePath;
+    protected List<Path> extraBasePaths = new ArrayList<>();
+    protected boolean tail = false;
+    protected OutputFormat outputFormat = OutputFormat.TABLE;
     protected Consumer<String> messageSink;
     protected boolean progress = false;
     protected TimeUnit timeUnit = TimeUnit.NANOSECONDS;
@@ -49,6 +56,33 @@ public class ChronicleHistoryReader {
         return this;
     }
 
+    /**
+     * Reads another queue as well, on its own thread, merging its histograms with those of the other queues for each
+     * measurement window.
+     */
+    public ChronicleHistoryReader addBasePath(final Path path) {
+        this.extraBasePaths.add(path);
+        return this;
+    }
+
+    /**
+     * Reads the messages written from now on, and outputs each measurement window once all the queues have moved past
+     * it, until the thread is interrupted. This needs a measurement window.
+     * <p>
+     * A message is in the window of the first timing in its history, which is the System.nanoTime() of the host which
+     * wrote it. While there are no new messages, a queue is moved on to the window of this host's System.nanoTime(),
+     * so this only works on the same host as the first writer of the messages.
+     */
+    public ChronicleHistoryReader tail() {
+        this.tail = true;
+        return this;
+    }
+
+    public ChronicleHistoryReader withOutputFormat(OutputFormat outputFormat) {
+        this.outputFormat = outputFormat;
+        return this;
+    }
+
     public ChronicleHistoryReader withProgress(boolean p) {
         this.progress = p;
         return this;
@@ -81,6 +115,11 @@ public class ChronicleHistoryReader {
 
     @NotNull
     protected ChronicleQueue createQueue() {
+        return createQueue(basePath);
+    }
+
+    @NotNull
+    protected ChronicleQueue createQueue(Path basePath) {
         if (!Files.exists(basePath)) {
             throw new IllegalArgumentException(String.format("Path %s does not exist", basePath));
         }
@@ -91,6 +130,10 @@ public class ChronicleHistoryReader {
     }
 
     public void execute() {
+        if (tail || !extraBasePaths.isEmpty() || outputFormat != OutputFormat.TABLE) {
+            executeStreaming();
+            return;
+        }
         readChronicle();
         if (measurementWindowNanos == 0)
             outputData();
@@ -114,13 +157,17 @@ public class ChronicleHistoryReader {
     }
 
     public void outputData() {
+        outputData(histos, (lastWindowCount * measurementWindowNanos) - firstTimeStampNanos);
+    }
+
+    private void outputData(Map<String, Histogram> histos, long tsSinceStart) {
         if (summaryOutputOffset != SUMMART_OUTPUT_UNSET)
-            printSummary();
+            printSummary(histos, tsSinceStart);
         else
-            printPercentilesSummary();
+            printPercentilesSummary(histos);
     }
 
-    private void printPercentilesSummary() {
+    private void printPercentilesSummary(Map<String, Histogram> histos) {
         // we should also consider the case where >1 output messages are from 1 incoming
 
         if (histos.size() == 0) {
@@ -132,23 +179,22 @@ public class ChronicleHistoryReader {
         final StringBuilder sb = new StringBuilder("sourceId        ");
         histos.forEach((id, histogram) -> sb.append(String.format("%12s ", id)));
         messageSink.accept(sb.toString());
-        messageSink.accept("count:  " + count());
-        messageSink.accept("50:     " + percentiles(counter++));
-        messageSink.accept("90:     " + percentiles(counter++));
-        messageSink.accept("99:     " + percentiles(counter++));
-        messageSink.accept("99.9:   " + percentiles(counter++));
-        messageSink.accept("99.99:  " + percentiles(counter++));
-        messageSink.accept("99.999: " + percentiles(counter++));
-        messageSink.accept("99.9999:" + percentiles(counter++));
-        messageSink.accept("worst:  " + percentiles(-1));
-    }
-
-    private void printSummary() {
+        messageSink.accept("count:  " + count(histos));
+        messageSink.accept("50:     " + percentiles(histos, counter++));
+        messageSink.accept("90:     " + percentiles(histos, counter++));
+        messageSink.accept("99:     " + percentiles(histos, counter++));
+        messageSink.accept("99.9:   " + percentiles(histos, counter++));
+        messageSink.accept("99.99:  " + percentiles(histos, counter++));
+        messageSink.accept("99.999: " + percentiles(histos, counter++));
+        messageSink.accept("99.9999:" + percentiles(histos, counter++));
+        messageSink.accept("worst:  " + percentiles(histos, -1));
+    }
+
+    private void printSummary(Map<String, Histogram> histos, long tsSinceStart) {
         if (histos.size() > lastHistosSize) {
             messageSink.accept("relative_ts," + String.join(",", histos.keySet()));
             lastHistosSize = histos.size();
         }
-        long tsSinceStart = (lastWindowCount * measurementWindowNanos) - firstTimeStampNanos;
         messageSink.accept(
                 Long.toString(timeUnit.convert(tsSinceStart, TimeUnit.NANOSECONDS)) + "," +
                         histos.values().stream().
@@ -160,13 +206,13 @@ public class ChronicleHistoryReader {
         return offset >= 0 ? percentiles[offset] : percentiles[percentiles.length + offset];
     }
 
-    private String count() {
+    private String count(Map<String, Histogram> histos) {
         final StringBuilder sb = new StringBuilder("        ");
         histos.forEach((id, histogram) -> sb.append(String.format("%12d ", histogram.totalCount())));
         return sb.toString();
     }
 
-    private String percentiles(final int index) {
+    private String percentiles(Map<String, Histogram> histos, final int index) {
         final StringBuilder sb = new StringBuilder("        ");
         histos.forEach((id, histogram) -> {
             double[] percentiles = histogram.getPercentiles();
@@ -209,6 +255,10 @@ public class ChronicleHistoryReader {
     }
 
     protected void processMessage(CharSequence methodName, MessageHistory history) {
+        processMessage(histos, methodName, history);
+    }
+
+    protected void processMessage(Map<String, Histogram> histos, CharSequence methodName, MessageHistory history) {
         CharSequence extraHistoId = histosByMethod ? ("_" + methodName) : "";
         long lastTime = 0;
         // if the tailer has recordHistory(true) then the MessageHistory will be
@@ -248,4 +298,218 @@ public class ChronicleHistoryReader {
     protected Histogram histogram() {
         return new Histogram(60, 4);
     }
+
+    /**
+     * Reads each queue on its own thread, which accumulates the histograms of the window it is in and hands them over
+     * when it moves on. This thread merges them, and outputs each window once every queue has moved past it.
+     */
+    protected void executeStreaming() {
+        if (tail && measurementWindowNanos == 0)
+            throw new IllegalArgumentException("Tailing needs a measurement window");
+        final List<Path> paths = new ArrayList<>();
+        paths.add(basePath);
+        paths.addAll(extraBasePaths);
+        for (Path path : paths)
+            if (!Files.exists(path))
+                throw new IllegalArgumentException(String.format("Path %s does not exist", path));
+
+        final HistoryWindows windows = new HistoryWindows(paths.size());
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < paths.size(); i++) {
+            final int reader = i;
+            final Path path = paths.get(i);
+            Thread thread = new Thread(() -> readWindows(reader, path, windows, running), "history-reader-" + i);
+            thread.setDaemon(true);
+            readers.add(thread);
+            thread.start();
+        }
+
+        final WindowWriter writer = new WindowWriter();
+        try {
+            while (!windows.drain(writer::write) && !Thread.currentThread().isInterrupted())
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        } finally {
+            running.set(false);
+            boolean interrupted = Thread.interrupted();
+            for (Thread thread : readers) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    private void readWindows(int reader, Path path, HistoryWindows windows, AtomicBoolean running) {
+        MessageHistory.set(new VanillaMessageHistory());
+        final WindowAccumulator accumulator = new WindowAccumulator(reader, windows);
+        try (ChronicleQueue q = createQueue(path)) {
+            final ExcerptTailer tailer = q.createTailer();
+            if (tail)
+                tailer.toEnd();
+            final MethodReader mr = new VanillaMethodReader(tailer, true, accumulator, null, accumulator);
+            while (running.get()) {
+                if (mr.readOne())
+                    continue;
+                if (!tail)
+                    break;
+                // any message read from now on was written in this window or later, if written on this host
+                accumulator.idle(System.nanoTime() / measurementWindowNanos);
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+            }
+        } catch (Throwable t) {
+            Jvm.warn().on(ChronicleHistoryReader.class, "Failed to read " + path, t);
+        } finally {
+            accumulator.done();
+        }
+    }
+
+    public enum OutputFormat {
+        /**
+         * The percentiles as a table, or the summary output, as when reading a single queue
+         */
+        TABLE,
+        /**
+         * A row for each histogram of each window, with the start of the window relative to the first, in the time unit
+         */
+        CSV,
+        YAML,
+        JSON
+    }
+
+    /**
+     * The histograms of the window one reader is in, only used by that reader's thread.
+     */
+    private final class WindowAccumulator implements WireParselet {
+        private final int reader;
+        private final HistoryWindows windows;
+        private Map<String, Histogram> histos = new LinkedHashMap<>();
+        private long windowId = Long.MIN_VALUE;
+        private long count = 0;
+
+        WindowAccumulator(int reader, HistoryWindows windows) {
+            this.reader = reader;
+            this.windows = windows;
+        }
+
+        @Override
+        public void accept(CharSequence methodName, ValueIn v) {
+            v.skipValue();
+            if (count++ < ignore)
+                return;
+            final MessageHistory history = MessageHistory.get();
+            if (history == null || history.timings() == 0)
+                return;
+            long id = measurementWindowNanos > 0 ? history.timing(0) / measurementWindowNanos : 0;
+            // a message from a window this reader has already moved past is counted in the current one
+            if (id > windowId)
+                moveTo(id);
+            processMessage(histos, methodName, history);
+        }
+
+        void idle(long id) {
+            if (id > windowId)
+                moveTo(id);
+        }
+
+        void done() {
+            if (!histos.isEmpty())
+                windows.publish(windowId, histos);
+            windows.watermark(reader, HistoryWindows.DONE);
+        }
+
+        private void moveTo(long id) {
+            if (!histos.isEmpty()) {
+                windows.publish(windowId, histos);
+                histos = new LinkedHashMap<>();
+            }
+            windowId = id;
+            windows.watermark(reader, id);
+        }
+    }
+
+    /**
+     * Outputs the merged histograms of each window, on the thread merging them. The windows are labelled relative to
+     * the first, as they are in the System.nanoTime() of the writers, which can't be turned into wall clock time here.
+     */
+    private final class WindowWriter {
+        private final Bytes<?> bytes = Bytes.elasticHeapByteBuffer(256);
+        private boolean headerWritten = false;
+        private long firstWindowId = Long.MIN_VALUE;
+
+        void write(long windowId, Map<String, Histogram> merged) {
+            if (firstWindowId == Long.MIN_VALUE)
+                firstWindowId = windowId;
+            switch (outputFormat) {
+                case TABLE:
+                    outputData(merged, (windowId - firstWindowId) * measurementWindowNanos);
+                    break;
+                case CSV:
+                    writeCsv(windowId, merged);
+                    break;
+                case YAML:
+                    writeWire(WireType.TEXT, windowId, merged);
+                    break;
+                case JSON:
+                    writeWire(WireType.JSON, windowId, merged);
+                    break;
+            }
+        }
+
+        private void writeCsv(long windowId, Map<String, Histogram> merged) {
+            if (!headerWritten) {
+                messageSink.accept("relative_ts,histogram,count," + String.join(",", PERCENTILES));
+                headerWritten = true;
+            }
+            final long relativeTs = relativeTs(windowId);
+            merged.forEach((id, histogram) -> {
+                final StringBuilder sb = new StringBuilder();
+                sb.append(relativeTs).append(',').append(id).append(',').append(histogram.totalCount());
+                double[] percentiles = histogram.getPercentiles();
+                for (int i = 0; i < PERCENTILES.length; i++) {
+                    sb.append(',');
+                    int index = percentileIndex(percentiles, i);
+                    if (index >= 0)
+                        sb.append(timeUnit.convert((long) percentiles[index], TimeUnit.NANOSECONDS));
+                }
+                messageSink.accept(sb.toString());
+            });
+        }
+
+        private void writeWire(WireType wireType, long windowId, Map<String, Histogram> merged) {
+            bytes.clear();
+            final Wire wire = wireType.apply(bytes);
+            wire.write("window").marshallable(w -> {
+                w.write("relativeTs").int64(relativeTs(windowId));
+                w.write("timeUnit").text(timeUnit.name());
+                merged.forEach((id, histogram) -> w.write(id).marshallable(hw -> {
+                    hw.write("count").int64(histogram.totalCount());
+                    double[] percentiles = histogram.getPercentiles();
+                    for (int i = 0; i < PERCENTILES.length; i++) {
+                        int index = percentileIndex(percentiles, i);
+                        if (index >= 0)
+                            hw.write(PERCENTILES[i]).int64(timeUnit.convert((long) percentiles[index], TimeUnit.NANOSECONDS));
+                    }
+                }));
+            });
+            messageSink.accept(bytes.toString());
+        }
+
+        private long relativeTs(long windowId) {
+            return timeUnit.convert((windowId - firstWindowId) * measurementWindowNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @return the index of this column in the percentiles, or -1 if there were too few samples for it
+     */
+    private static int percentileIndex(double[] percentiles, int column) {
+        if (column == PERCENTILES.length - 1)
+            return percentiles.length - 1;
+        return column < percentiles.length - 1 ? column : -1;
+    }
 }
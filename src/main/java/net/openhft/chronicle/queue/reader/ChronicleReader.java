@@ -22,18 +22,28 @@ import net.openhft.chronicle.bytes.Bytes;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.queue.ChronicleQueue;
 import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycle;
 import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
 import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.threads.NamedThreadFactory;
 import net.openhft.chronicle.threads.Pauser;
 import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.WireIn;
 import net.openhft.chronicle.wire.WireType;
 import org.jetbrains.annotations.NotNull;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.text.ParseException;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -41,6 +51,7 @@ import java.util.regex.Pattern;
 
 public final class ChronicleReader {
     private static final long UNSET_VALUE = Long.MIN_VALUE;
+    private static final int MESSAGES_PER_TASK = Integer.getInteger("chronicle.reader.messagesPerTask", 1 << 16);
 
     private final List<Pattern> inclusionRegex = new ArrayList<>();
     private final List<Pattern> exclusionRegex = new ArrayList<>();
@@ -56,8 +67,10 @@ public final class ChronicleReader {
     private WireType wireType = WireType.TEXT;
     private Supplier<QueueEntryHandler> entryHandlerFactory = () -> new MessageToTextQueueEntryHandler(wireType);
     private boolean displayIndex = true;
+    private int threads = 1;
+    private int messagesPerTask = MESSAGES_PER_TASK;
 
-    private static boolean checkForMatches(final List<Pattern> patterns, final String text,
+    private static boolean checkForMatches(final List<Pattern> patterns, final CharSequence text,
                                            final boolean shouldBePresent) {
         for (Pattern pattern : patterns) {
             if (!shouldBePresent == pattern.matcher(text).find()) {
@@ -71,11 +84,11 @@ public final class ChronicleReader {
         return configValue != UNSET_VALUE;
     }
 
-    private static boolean isBinaryFormat(final byte dataFormatIndicator) {
-        return dataFormatIndicator < 0;
-    }
-
     public void execute() {
+        if (threads > 1 && !tailInputSource) {
+            executeInParallel();
+            return;
+        }
         long lastObservedTailIndex;
         long highestReachedIndex = 0L;
         boolean isFirstIteration = true;
@@ -106,8 +119,8 @@ public final class ChronicleReader {
                             pauser.reset();
 
                             if (customPlugin == null) {
-                                messageConverter.accept(dc.wire(), text -> applyFiltersAndLog(text, tailer.index()));
-                            } else {
+                                handleMessage(dc.wire(), tailer.index(), messageConverter, messageSink, false);
+                            } else if (preFilter(dc.wire().bytes())) {
                                 customPlugin.onReadDocument(dc);
                             }
                         }
@@ -188,11 +201,29 @@ public final class ChronicleReader {
         return this;
     }
 
+    /**
+     * Reads the queue on this many threads, unless following it. The output is in index order, but a
+     * {@link ChronicleReaderPlugin} is only used to {@link ChronicleReaderPlugin#preFilter(Bytes) pre-filter}
+     * messages, which are then converted to text.
+     */
+    public ChronicleReader withThreads(final int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads: " + threads);
+        this.threads = threads;
+        return this;
+    }
+
     public ChronicleReader suppressDisplayIndex() {
         this.displayIndex = false;
         return this;
     }
 
+    // visible for testing
+    ChronicleReader withMessagesPerTask(final int messagesPerTask) {
+        this.messagesPerTask = messagesPerTask;
+        return this;
+    }
+
     // visible for testing
     ChronicleReader withDocumentPollMethod(final Function<ExcerptTailer, DocumentContext> pollMethod) {
         this.pollMethod = pollMethod;
@@ -244,13 +275,129 @@ public final class ChronicleReader {
                 .build();
     }
 
-    private void applyFiltersAndLog(final String text, final long index) {
-        if (inclusionRegex.isEmpty() || checkForMatches(inclusionRegex, text, true)) {
-            if (exclusionRegex.isEmpty() || checkForMatches(exclusionRegex, text, false)) {
-                if (displayIndex)
-                    messageSink.accept("0x" + Long.toHexString(index) + ": ");
-                messageSink.accept(text);
+    /**
+     * Reads the messages from the start index, or the history records, to the current end of the queue, on a
+     * number of threads. Each cycle is split into ranges of at most messagesPerTask indexes, which are
+     * converted and filtered concurrently, and the output of each range is passed to the message sink in index order.
+     */
+    private void executeInParallel() {
+        try (final SingleChronicleQueue queue = createQueue()) {
+            final ExcerptTailer tailer = queue.createTailer().toStart();
+            moveToSpecifiedPosition(queue, tailer, true);
+            final long start = tailer.index();
+            final long end = queue.createTailer().toEnd().index();
+            if (start >= end)
+                return;
+
+            final ExecutorService service = Executors.newFixedThreadPool(threads,
+                    new NamedThreadFactory("chronicle-reader", true));
+            try {
+                final ArrayDeque<Future<List<String>>> results = new ArrayDeque<>();
+                for (long[] range : indexRanges(queue, start, end)) {
+                    results.add(service.submit(() -> readRange(queue, range[0], range[1])));
+                    // bounds the output held in memory
+                    if (results.size() >= threads * 4)
+                        writeOutput(results.poll());
+                }
+                while (!results.isEmpty())
+                    writeOutput(results.poll());
+            } finally {
+                service.shutdownNow();
+            }
+        }
+    }
+
+    @NotNull
+    private List<long[]> indexRanges(final SingleChronicleQueue queue, final long start, final long end) {
+        final RollCycle rollCycle = queue.rollCycle();
+        final int startCycle = rollCycle.toCycle(start);
+        final int endCycle = rollCycle.toCycle(end);
+        final NavigableSet<Long> cycles;
+        try {
+            cycles = queue.listCyclesBetween(startCycle, endCycle);
+        } catch (ParseException e) {
+            throw new IllegalStateException(e);
+        }
+
+        final List<long[]> ranges = new ArrayList<>();
+        for (long c : cycles) {
+            final int cycle = (int) c;
+            final long fromSequence = cycle == startCycle ? rollCycle.toSequenceNumber(start) : 0;
+            final long toSequence = cycle == endCycle ? rollCycle.toSequenceNumber(end) : queue.exceptsPerCycle(cycle);
+            for (long sequence = fromSequence; sequence < toSequence; sequence += messagesPerTask) {
+                ranges.add(new long[]{rollCycle.toIndex(cycle, sequence),
+                        rollCycle.toIndex(cycle, Math.min(toSequence, sequence + messagesPerTask))});
             }
         }
+        return ranges;
+    }
+
+    @NotNull
+    private List<String> readRange(final SingleChronicleQueue queue, final long fromIndex, final long toIndex) {
+        final List<String> output = new ArrayList<>();
+        final ExcerptTailer tailer = queue.createTailer();
+        if (!tailer.moveToIndex(fromIndex)) {
+            Jvm.warn().on(ChronicleReader.class, "Unable to move to index " + Long.toHexString(fromIndex) + ", skipping to " + Long.toHexString(toIndex));
+            return output;
+        }
+        try (final QueueEntryHandler messageConverter = entryHandlerFactory.get()) {
+            while (!Thread.currentThread().isInterrupted()) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    if (!dc.isPresent() || dc.index() >= toIndex)
+                        break;
+                    if (customPlugin == null || preFilter(dc.wire().bytes()))
+                        handleMessage(dc.wire(), dc.index(), messageConverter, output::add, true);
+                }
+            }
+        }
+        return output;
+    }
+
+    private void writeOutput(final Future<List<String>> result) {
+        final List<String> output;
+        try {
+            output = result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw Jvm.rethrow(e.getCause());
+        }
+        output.forEach(messageSink);
+    }
+
+    private boolean preFilter(final Bytes<?> bytes) {
+        final long readPosition = bytes.readPosition();
+        try {
+            return customPlugin.preFilter(bytes);
+        } finally {
+            bytes.readPosition(readPosition);
+        }
+    }
+
+    /**
+     * @param filterText whether to filter a message in text on its bytes, which are the same as its converted form,
+     *                   rather than copying it to a String first. Only done when reading in parallel.
+     */
+    private void handleMessage(final WireIn wire, final long index, final QueueEntryHandler messageConverter,
+                               final Consumer<String> sink, final boolean filterText) {
+        final Bytes<?> bytes = wire.bytes();
+        if (filterText
+                && messageConverter instanceof MessageToTextQueueEntryHandler
+                && !MessageToTextQueueEntryHandler.isBinaryFormat(bytes.readByte(bytes.readPosition()))
+                && !matchesFilters(bytes))
+            return;
+        messageConverter.accept(wire, text -> {
+            if (matchesFilters(text)) {
+                if (displayIndex)
+                    sink.accept("0x" + Long.toHexString(index) + ": ");
+                sink.accept(text);
+            }
+        });
+    }
+
+    private boolean matchesFilters(final CharSequence text) {
+        return (inclusionRegex.isEmpty() || checkForMatches(inclusionRegex, text, true))
+                && (exclusionRegex.isEmpty() || checkForMatches(exclusionRegex, text, false));
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package net.openhft.chronicle.queue.reader;
 
+import net.openhft.chronicle.bytes.Bytes;
 import net.openhft.chronicle.wire.DocumentContext;
 
 /**
@@ -9,4 +10,15 @@ import net.openhft.chronicle.wire.DocumentContext;
  */
 public interface ChronicleReaderPlugin {
     void onReadDocument(DocumentContext dc);
+
+    /**
+     * Looks at the raw bytes of a message before it is handled, so messages can be skipped without converting them.
+     * When reading on several threads this is called concurrently, and is the only method called.
+     *
+     * @param bytes of the message, from its read position to its read limit
+     * @return false to skip the message
+     */
+    default boolean preFilter(Bytes<?> bytes) {
+        return true;
+    }
 }
@@ -0,0 +1,81 @@
+package net.openhft.chronicle.queue.reader;
+
+import net.openhft.chronicle.core.util.Histogram;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+
+/**
+ * Merges the histograms of each measurement window from several reader threads, without locks.
+ * <p>
+ * Each reader accumulates its own histograms for the window it is in, hands them over with {@link #publish} when it
+ * moves on, then raises its watermark. The thread calling {@link #drain} merges the histograms handed over and
+ * passes on, in order, each window all the readers have moved past.
+ */
+final class HistoryWindows {
+    static final long DONE = Long.MAX_VALUE;
+
+    private final Queue<Window> published = new ConcurrentLinkedQueue<>();
+    // every window before this has been published by the reader
+    private final AtomicLongArray watermarks;
+    // only used by the draining thread
+    private final TreeMap<Long, Map<String, Histogram>> merging = new TreeMap<>();
+
+    HistoryWindows(int readers) {
+        watermarks = new AtomicLongArray(readers);
+        for (int i = 0; i < readers; i++)
+            watermarks.set(i, Long.MIN_VALUE);
+    }
+
+    void publish(long windowId, @NotNull Map<String, Histogram> histos) {
+        published.add(new Window(windowId, histos));
+    }
+
+    void watermark(int reader, long windowId) {
+        watermarks.lazySet(reader, windowId);
+    }
+
+    /**
+     * @return true once every reader is done and every window has been passed on
+     */
+    boolean drain(@NotNull BiConsumer<Long, Map<String, Histogram>> windowConsumer) {
+        // read before polling, as the readers publish before raising their watermark
+        long complete = DONE;
+        for (int i = 0; i < watermarks.length(); i++)
+            complete = Math.min(complete, watermarks.get(i));
+
+        for (Window window; (window = published.poll()) != null; ) {
+            Map<String, Histogram> merged = merging.get(window.id);
+            if (merged == null) {
+                merging.put(window.id, window.histos);
+                continue;
+            }
+            window.histos.forEach((id, histogram) -> {
+                Histogram existing = merged.get(id);
+                if (existing == null)
+                    merged.put(id, histogram);
+                else
+                    existing.add(histogram);
+            });
+        }
+
+        while (!merging.isEmpty() && (merging.firstKey() < complete || complete == DONE)) {
+            Map.Entry<Long, Map<String, Histogram>> entry = merging.pollFirstEntry();
+            windowConsumer.accept(entry.getKey(), entry.getValue());
+        }
+        return complete == DONE && merging.isEmpty();
+    }
+
+    private static final class Window {
+        final long id;
+        final Map<String, Histogram> histos;
+
+        Window(long id, Map<String, Histogram> histos) {
+            this.id = id;
+            this.histos = histos;
+        }
+    }
+}
@@ -15,7 +15,7 @@ public final class MessageToTextQueueEntryHandler implements QueueEntryHandler {
         this.wireType = wireType;
     }
 
-    private static boolean isBinaryFormat(final byte dataFormatIndicator) {
+    static boolean isBinaryFormat(final byte dataFormatIndicator) {
         return dataFormatIndicator < 0;
     }
 
@@ -0,0 +1,146 @@
+package net.openhft.chronicle.queue.replication;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.PointerBytesStore;
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.TailerDirection;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueExcerpts.InternalAppender;
+import net.openhft.chronicle.threads.NamedThreadFactory;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.Wires;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static net.openhft.chronicle.queue.replication.ReplicationSource.FRAME_HEADER_SIZE;
+import static net.openhft.chronicle.queue.replication.ReplicationSource.NO_INDEX;
+
+/**
+ * Follows a {@link ReplicationSource}, writing each excerpt it receives at the same index with
+ * {@link InternalAppender#writeBytes(long, BytesStore)}, so this queue ends up with the same excerpts at the same indexes.
+ * <p>
+ * The queue must have the same roll cycle and wire type as the source, and must not be written to by anything
+ * else. On connecting, the sink resumes after the last excerpt already in the queue.
+ */
+public final class ReplicationSink implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationSink.class);
+
+    @NotNull
+    private final SingleChronicleQueue queue;
+    @NotNull
+    private final SocketChannel channel;
+    private final ByteBuffer frameHeader = ByteBuffer.allocateDirect(FRAME_HEADER_SIZE);
+    private final ByteBuffer indexBuffer = ByteBuffer.allocateDirect(8);
+    private ByteBuffer frame = ByteBuffer.allocateDirect(64 << 10);
+    private BytesStore<?, ByteBuffer> frameBytes = BytesStore.wrap(frame);
+    // a view of one excerpt in the frame
+    private final PointerBytesStore excerpt = new PointerBytesStore();
+    private volatile long lastIndexWritten;
+    private volatile boolean closed;
+
+    public ReplicationSink(@NotNull SingleChronicleQueue queue, @NotNull InetSocketAddress source) throws IOException {
+        this.queue = queue;
+        this.lastIndexWritten = lastIndex(queue);
+        this.channel = SocketChannel.open(source);
+        channel.socket().setTcpNoDelay(true);
+        ExecutorService service = Executors.newSingleThreadExecutor(
+                new NamedThreadFactory(queue.file().getName() + "-replication-sink", true));
+        service.execute(this::runLoop);
+        service.shutdown(); // stop when the task exits.
+    }
+
+    private static long lastIndex(@NotNull SingleChronicleQueue queue) {
+        ExcerptTailer tailer = queue.createTailer().direction(TailerDirection.BACKWARD).toEnd();
+        try (DocumentContext dc = tailer.readingDocument()) {
+            return dc.isPresent() ? dc.index() : NO_INDEX;
+        }
+    }
+
+    /**
+     * @return the index of the last excerpt written, or {@link Long#MIN_VALUE} if there is none
+     */
+    public long lastIndexWritten() {
+        return lastIndexWritten;
+    }
+
+    void runLoop() {
+        try {
+            InternalAppender appender = (InternalAppender) queue.acquireAppender();
+            writeLong(lastIndexWritten);
+            while (!closed) {
+                frameHeader.clear();
+                readFully(frameHeader);
+                long index = frameHeader.getLong(0);
+                int count = frameHeader.getInt(8);
+                int length = frameHeader.getInt(12);
+                readFrame(length);
+
+                long offset = 0;
+                for (int i = 0; i < count; ) {
+                    int header = frameBytes.readInt(offset);
+                    int excerptLength = Wires.lengthOf(header);
+                    if (Wires.isData(header)) {
+                        // rolls to the index's cycle, and drops an excerpt already written before a reconnect
+                        excerpt.set(frameBytes.addressForRead(offset + 4), excerptLength);
+                        appender.writeBytes(index, excerpt);
+                        lastIndexWritten = index++;
+                        i++;
+                    }
+                    offset += 4 + excerptLength;
+                }
+                writeLong(lastIndexWritten);
+            }
+        } catch (ClosedChannelException | EOFException e) {
+            // the source disconnected
+        } catch (Throwable t) {
+            if (!closed)
+                LOGGER.warn("Replication into " + queue.fileAbsolutePath() + " stopped", t);
+        } finally {
+            close();
+        }
+    }
+
+    private void readFrame(int length) throws IOException {
+        if (frame.capacity() < length) {
+            frame = ByteBuffer.allocateDirect(Math.max(length, frame.capacity() * 2));
+            frameBytes = BytesStore.wrap(frame);
+        }
+        frame.clear().limit(length);
+        readFully(frame);
+    }
+
+    private void readFully(@NotNull ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            if (channel.read(buffer) < 0)
+                throw new EOFException();
+    }
+
+    private void writeLong(long value) throws IOException {
+        indexBuffer.clear();
+        indexBuffer.putLong(0, value);
+        while (indexBuffer.hasRemaining())
+            channel.write(indexBuffer);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Closeable.closeQuietly(channel);
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+}
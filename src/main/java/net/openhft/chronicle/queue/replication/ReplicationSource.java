@@ -0,0 +1,256 @@
+package net.openhft.chronicle.queue.replication;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.ExcerptFrameReader;
+import net.openhft.chronicle.queue.impl.WireStore;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.threads.NamedThreadFactory;
+import net.openhft.chronicle.threads.Pauser;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Streams the excerpts of a queue to {@link ReplicationSink}s over TCP.
+ * <p>
+ * Excerpts are not copied through the heap. Runs of adjacent excerpts in the same cycle are sent as one frame, read by
+ * an {@link ExcerptFrameReader}, and the bytes of the frame are sent straight from the cycle file to the socket with
+ * {@link FileChannel#transferTo}.
+ * A sink starts by sending the last index it has, or {@link Long#MIN_VALUE} if it has none, and then sends the
+ * last index of each frame once it has written it. The indexes sent and acknowledged are recorded in the
+ * cycle's store as {@code lastIndexReplicated} and {@code lastAcknowledgedIndexReplicated}.
+ * <p>
+ * Each sink is served by its own tailer and thread.
+ */
+public final class ReplicationSource implements Closeable {
+    static final int FRAME_HEADER_SIZE = ExcerptFrameReader.FRAME_HEADER_SIZE;
+    static final long NO_INDEX = Long.MIN_VALUE;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationSource.class);
+    private static final int DEFAULT_MAX_BATCH_COUNT = Integer.getInteger("chronicle.queue.replication.batchCount", 1024);
+    private static final int DEFAULT_MAX_BATCH_BYTES = Integer.getInteger("chronicle.queue.replication.batchBytes", 256 << 10);
+
+    @NotNull
+    private final SingleChronicleQueue queue;
+    @NotNull
+    private final ServerSocketChannel serverChannel;
+    @NotNull
+    private final ExecutorService service;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final int maxBatchCount;
+    private final int maxBatchBytes;
+    private volatile boolean closed;
+
+    public ReplicationSource(@NotNull SingleChronicleQueue queue, @NotNull InetSocketAddress address) throws IOException {
+        this(queue, address, DEFAULT_MAX_BATCH_COUNT, DEFAULT_MAX_BATCH_BYTES);
+    }
+
+    /**
+     * @param queue         to replicate
+     * @param address       to listen on, a port of 0 picks a free port
+     * @param maxBatchCount the most excerpts to send in one frame
+     * @param maxBatchBytes the most bytes to send in one frame, a larger excerpt is sent on its own
+     */
+    public ReplicationSource(@NotNull SingleChronicleQueue queue, @NotNull InetSocketAddress address,
+                             int maxBatchCount, int maxBatchBytes) throws IOException {
+        if (maxBatchCount <= 0 || maxBatchBytes <= 0)
+            throw new IllegalArgumentException("maxBatchCount and maxBatchBytes must be positive");
+        this.queue = queue;
+        this.maxBatchCount = maxBatchCount;
+        this.maxBatchBytes = maxBatchBytes;
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        this.service = Executors.newCachedThreadPool(
+                new NamedThreadFactory(queue.file().getName() + "-replication-source", true));
+        service.execute(this::acceptLoop);
+    }
+
+    /**
+     * @return the address sinks should connect to
+     */
+    @NotNull
+    public InetSocketAddress localAddress() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.socket().setTcpNoDelay(true);
+                Connection connection = new Connection(channel);
+                connections.add(connection);
+                service.execute(connection::sendLoop);
+                service.execute(connection::acknowledgementLoop);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (!closed)
+                    Jvm.warn().on(getClass(), "Failed to accept a replication connection", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Closeable.closeQuietly(serverChannel);
+        for (Connection connection : connections)
+            connection.close();
+        service.shutdown();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private final class Connection implements Closeable {
+        @NotNull
+        private final SocketChannel channel;
+        private final ByteBuffer frameHeader = ByteBuffer.allocateDirect(FRAME_HEADER_SIZE);
+        // used by the send loop until it has started, then by the acknowledgement loop
+        private final ByteBuffer indexBuffer = ByteBuffer.allocateDirect(8);
+        private volatile long lastAcknowledged = NO_INDEX;
+        private volatile boolean started;
+        private volatile boolean closed;
+
+        Connection(@NotNull SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void sendLoop() {
+            ExcerptFrameReader frames = null;
+            try {
+                long lastIndex = readLong();
+                ExcerptTailer tailer = queue.createTailer();
+                if (lastIndex != NO_INDEX) {
+                    if (!tailer.moveToIndex(lastIndex))
+                        throw new IllegalStateException("Sink is at index " + Long.toHexString(lastIndex) +
+                                " which is not in " + queue.fileAbsolutePath());
+                    // skip the excerpt the sink already has
+                    try (DocumentContext dc = tailer.readingDocument()) {
+                        assert dc.isPresent();
+                    }
+                }
+                frames = new ExcerptFrameReader(queue, tailer, maxBatchCount, maxBatchBytes);
+                started = true;
+
+                Pauser pauser = Pauser.balanced();
+                long acknowledged = NO_INDEX;
+                while (!closed && !ReplicationSource.this.closed) {
+                    if (sendBatch(frames))
+                        pauser.reset();
+                    else
+                        pauser.pause();
+
+                    long lastAcknowledged = this.lastAcknowledged;
+                    if (lastAcknowledged != acknowledged) {
+                        acknowledged = lastAcknowledged;
+                        acknowledge(frames, acknowledged);
+                    }
+                }
+            } catch (ClosedChannelException | EOFException e) {
+                // the sink disconnected
+            } catch (Throwable t) {
+                if (!closed)
+                    LOGGER.warn("Replication of " + queue.fileAbsolutePath() + " stopped", t);
+            } finally {
+                close();
+                Closeable.closeQuietly(frames);
+            }
+        }
+
+        void acknowledgementLoop() {
+            try {
+                while (!started && !closed)
+                    Jvm.pause(1);
+                while (!closed)
+                    lastAcknowledged = readLong();
+            } catch (ClosedChannelException | EOFException e) {
+                // the sink disconnected
+            } catch (IOException e) {
+                if (!closed)
+                    LOGGER.warn("Replication of " + queue.fileAbsolutePath() + " stopped", e);
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Sends the next run of adjacent excerpts in one cycle, if any.
+         *
+         * @return true if a frame was sent
+         */
+        private boolean sendBatch(@NotNull ExcerptFrameReader frames) throws IOException {
+            if (!frames.next())
+                return false;
+            frames.header(frameHeader);
+            while (frameHeader.hasRemaining())
+                channel.write(frameHeader);
+            final FileChannel fileChannel = frames.fileChannel();
+            assert fileChannel != null;
+            for (long sent = 0; sent < frames.length(); )
+                sent += fileChannel.transferTo(frames.position() + sent, frames.length() - sent, channel);
+
+            final WireStore store = frames.store();
+            assert store != null;
+            store.lastIndexReplicated(frames.lastIndex());
+            return true;
+        }
+
+        private void acknowledge(@NotNull ExcerptFrameReader frames, long index) {
+            int cycle = queue.rollCycle().toCycle(index);
+            WireStore current = frames.store();
+            if (cycle == frames.cycle() && current != null) {
+                current.lastAcknowledgedIndexReplicated(index);
+                return;
+            }
+            // the sink acknowledged the end of a previous cycle
+            WireStore store = queue.storeForCycle(cycle, queue.epoch(), false);
+            if (store == null)
+                return;
+            try {
+                store.lastAcknowledgedIndexReplicated(index);
+            } finally {
+                queue.release(store);
+            }
+        }
+
+        private long readLong() throws IOException {
+            indexBuffer.clear();
+            while (indexBuffer.hasRemaining())
+                if (channel.read(indexBuffer) < 0)
+                    throw new EOFException();
+            return indexBuffer.getLong(0);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            Closeable.closeQuietly(channel);
+            connections.remove(this);
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+    }
+}
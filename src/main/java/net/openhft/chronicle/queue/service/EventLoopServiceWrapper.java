@@ -24,6 +24,8 @@ import net.openhft.chronicle.core.threads.EventLoop;
 import net.openhft.chronicle.core.threads.HandlerPriority;
 import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
 import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
 import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -36,6 +38,13 @@ import java.util.List;
 public class EventLoopServiceWrapper<O> implements ServiceWrapper, EventHandler {
     @NotNull
     protected final MethodReader[] serviceIn;
+    @NotNull
+    private final ExcerptTailer[] tailers;
+    @NotNull
+    private final int[] batchSizes;
+    @NotNull
+    private final InputStats[] inputStats;
+    private final boolean strictPriority;
     private final HandlerPriority priority;
     @NotNull
     private final ChronicleQueue[] inputQueues;
@@ -45,26 +54,47 @@ public class EventLoopServiceWrapper<O> implements ServiceWrapper, EventHandler
     private final O serviceOut;
     private final boolean createdEventLoop;
     private final Object[] serviceImpl;
+    @Nullable
+    private final ShardFilter shardFilter;
     private volatile boolean closed = false;
     @Nullable
     private EventLoop eventLoop;
 
     public EventLoopServiceWrapper(@NotNull ServiceWrapperBuilder<O> builder) {
+        this(builder, builder.outputPath(), builder.eventLoop(), builder.createdEventLoop(), null);
+    }
+
+    /**
+     * @param shardFilter if not null, only the messages of this shard are read
+     */
+    EventLoopServiceWrapper(@NotNull ServiceWrapperBuilder<O> builder, String outputPath, @NotNull EventLoop eventLoop,
+                            boolean createdEventLoop, @Nullable ShardFilter shardFilter) {
         this.priority = builder.priority();
-        outputQueue = SingleChronicleQueueBuilder.binary(builder.outputPath()).testBlockSize().sourceId(builder.outputSourceId()).build();
+        this.shardFilter = shardFilter;
+        outputQueue = SingleChronicleQueueBuilder.binary(outputPath).testBlockSize().sourceId(builder.outputSourceId()).build();
         serviceOut = outputQueue.acquireAppender().methodWriterBuilder(builder.outClass()).recordHistory(builder.outputSourceId() != 0).get();
         serviceImpl = builder.getServiceFunctions().stream().map(f -> f.apply(serviceOut)).toArray();
 
         List<String> paths = builder.inputPath();
         serviceIn = new MethodReader[paths.size()];
         inputQueues = new ChronicleQueue[paths.size()];
+        tailers = new ExcerptTailer[paths.size()];
+        batchSizes = new int[paths.size()];
+        inputStats = new InputStats[paths.size()];
+        strictPriority = builder.strictPriority();
         for (int i = 0; i < paths.size(); i++) {
-            inputQueues[i] = SingleChronicleQueueBuilder.binary(paths.get(i)).sourceId(builder.inputSourceId()).build();
-            serviceIn[i] = inputQueues[i].createTailer().afterLastWritten(outputQueue).methodReader(serviceImpl);
+            SingleChronicleQueue inputQueue = SingleChronicleQueueBuilder.binary(paths.get(i)).sourceId(builder.inputSourceId()).build();
+            inputQueues[i] = inputQueue;
+            tailers[i] = shardFilter == null
+                    ? inputQueue.createTailer().afterLastWritten(outputQueue)
+                    : shardFilter.afterLastWritten(inputQueue, outputQueue);
+            serviceIn[i] = tailers[i].methodReader(serviceImpl);
+            batchSizes[i] = builder.inputBatchSizes().get(i);
+            inputStats[i] = new InputStats(inputQueue, tailers[i].index());
         }
-        eventLoop = builder.eventLoop();
+        this.eventLoop = eventLoop;
         eventLoop.addHandler(this);
-        createdEventLoop = builder.createdEventLoop();
+        this.createdEventLoop = createdEventLoop;
         if (createdEventLoop)
             eventLoop.start();
     }
@@ -92,12 +122,44 @@ public class EventLoopServiceWrapper<O> implements ServiceWrapper, EventHandler
         }
 
         boolean busy = false;
-        for (MethodReader reader : serviceIn) {
-            busy |= reader.readOne();
+        for (int i = 0; i < serviceIn.length; i++) {
+            if (readBatch(i)) {
+                busy = true;
+                // lower priority inputs wait until this one is idle
+                if (strictPriority)
+                    break;
+            }
         }
         return busy;
     }
 
+    private boolean readBatch(int input) {
+        MethodReader reader = serviceIn[input];
+        int batchSize = batchSizes[input];
+        int count = 0;
+        while (count < batchSize && readOne(input, reader))
+            count++;
+        if (count == 0)
+            return false;
+        inputStats[input].onBatch(count, count == batchSize, tailers[input].index());
+        return true;
+    }
+
+    private boolean readOne(int input, @NotNull MethodReader reader) {
+        // messages for other shards are skipped
+        if (shardFilter != null && !shardFilter.skipToShard(tailers[input]))
+            return false;
+        return reader.readOne();
+    }
+
+    /**
+     * @return the statistics for each input, in the order they were added
+     */
+    @NotNull
+    public InputStats[] inputStats() {
+        return inputStats;
+    }
+
     @NotNull
     @Override
     public HandlerPriority priority() {
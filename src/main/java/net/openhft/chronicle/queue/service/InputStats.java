@@ -0,0 +1,85 @@
+package net.openhft.chronicle.queue.service;
+
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.RollingChronicleQueue;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * How much of one input a service has read, and how far behind it is.
+ * <p>
+ * Updated by the service's event loop once per batch, and can be read from any thread.
+ */
+public final class InputStats {
+    @NotNull
+    private final RollingChronicleQueue queue;
+    private volatile long messagesRead;
+    private volatile long batchesRead;
+    private volatile long fullBatches;
+    private volatile long nextIndex;
+    // only used by lag()
+    @Nullable
+    private ExcerptTailer endTailer;
+
+    InputStats(@NotNull RollingChronicleQueue queue, long nextIndex) {
+        this.queue = queue;
+        this.nextIndex = nextIndex;
+    }
+
+    void onBatch(int count, boolean full, long nextIndex) {
+        // only the event loop thread updates these
+        messagesRead += count;
+        batchesRead++;
+        if (full)
+            fullBatches++;
+        this.nextIndex = nextIndex;
+    }
+
+    public long messagesRead() {
+        return messagesRead;
+    }
+
+    public long batchesRead() {
+        return batchesRead;
+    }
+
+    /**
+     * @return the number of batches which stopped at the batch size rather than because the input was empty
+     */
+    public long fullBatches() {
+        return fullBatches;
+    }
+
+    /**
+     * @return the index of the next message to read
+     */
+    public long nextIndex() {
+        return nextIndex;
+    }
+
+    /**
+     * Counts the messages written to the input which have not been read yet. This moves a tailer to the end of the
+     * input, so is intended for monitoring rather than for every message.
+     *
+     * @return the number of messages behind
+     */
+    public synchronized long lag() {
+        long next = nextIndex;
+        // kept for the next call, tailers hold resources until they are released
+        if (endTailer == null)
+            endTailer = queue.createTailer();
+        long end = endTailer.toEnd().index();
+        return next >= end ? 0 : queue.countExcerpts(next, end);
+    }
+
+    @Override
+    public String toString() {
+        return "InputStats{" +
+                "queue=" + queue.fileAbsolutePath() +
+                ", messagesRead=" + messagesRead +
+                ", batchesRead=" + batchesRead +
+                ", fullBatches=" + fullBatches +
+                ", nextIndex=" + Long.toHexString(nextIndex) +
+                '}';
+    }
+}
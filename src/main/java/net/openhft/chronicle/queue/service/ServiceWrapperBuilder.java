@@ -23,18 +23,21 @@ import net.openhft.chronicle.core.threads.HandlerPriority;
 import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
 import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
 import net.openhft.chronicle.threads.EventGroup;
+import net.openhft.chronicle.wire.WireIn;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 /*
  * Created by Peter Lawrey on 23/04/16.
  */
 public class ServiceWrapperBuilder<O> implements Supplier<ServiceWrapper> {
     private final List<String> inputPaths = new ArrayList<>();
+    private final List<Integer> inputBatchSizes = new ArrayList<>();
     private final List<Function<O, Object>> serviceFunctions = new ArrayList<>();
     private String outputPath;
     private Class<O> outClass;
@@ -43,6 +46,10 @@ public class ServiceWrapperBuilder<O> implements Supplier<ServiceWrapper> {
     private boolean createdEventLoop = false;
     private int inputSourceId;
     private int outputSourceId;
+    private boolean strictPriority = false;
+    private int shards = 1;
+    private ToLongFunction<WireIn> shardKey;
+    private boolean sharedOutput = false;
 
     ServiceWrapperBuilder() {
     }
@@ -64,7 +71,45 @@ public class ServiceWrapperBuilder<O> implements Supplier<ServiceWrapper> {
 
     @NotNull
     public ServiceWrapperBuilder<O> addInputPath(String inputPath) {
+        return addInputPath(inputPath, 1);
+    }
+
+    /**
+     * Adds an input which is read up to {@code batchSize} messages at a time. Inputs take turns, so the batch
+     * sizes are the relative weights of the inputs when they are all busy.
+     *
+     * @param inputPath of the queue to read
+     * @param batchSize the most messages to read from this input before moving to the next
+     * @return this
+     */
+    @NotNull
+    public ServiceWrapperBuilder<O> addInputPath(String inputPath, int batchSize) {
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize must be positive, was " + batchSize);
         this.inputPaths.add(inputPath);
+        this.inputBatchSizes.add(batchSize);
+        return this;
+    }
+
+    @NotNull
+    public List<Integer> inputBatchSizes() {
+        return inputBatchSizes;
+    }
+
+    public boolean strictPriority() {
+        return strictPriority;
+    }
+
+    /**
+     * When set to {@code true}, an input is only read when every input added before it has nothing to read,
+     * rather than inputs taking turns.
+     *
+     * @param strictPriority to give inputs priority in the order they were added
+     * @return this
+     */
+    @NotNull
+    public ServiceWrapperBuilder<O> strictPriority(boolean strictPriority) {
+        this.strictPriority = strictPriority;
         return this;
     }
 
@@ -142,9 +187,59 @@ public class ServiceWrapperBuilder<O> implements Supplier<ServiceWrapper> {
         return this;
     }
 
+    public int shards() {
+        return shards;
+    }
+
+    public ToLongFunction<WireIn> shardKey() {
+        return shardKey;
+    }
+
+    /**
+     * Runs {@code shards} instances of the service, each on its own thread, or on the {@link #eventLoop()} if one is
+     * set. Each message is processed by the instance chosen by the hash of its key, so the messages for a key are
+     * processed in order by one instance. Every instance reads every message, see {@link ShardedServiceWrapper}.
+     *
+     * @param shards   the number of instances
+     * @param shardKey reads the key from a message, the wire is positioned after any message history
+     * @return this
+     */
+    @NotNull
+    public ServiceWrapperBuilder<O> shards(int shards, @NotNull ToLongFunction<WireIn> shardKey) {
+        if (shards <= 0)
+            throw new IllegalArgumentException("shards must be positive, was " + shards);
+        this.shards = shards;
+        this.shardKey = shardKey;
+        return this;
+    }
+
+    public boolean sharedOutput() {
+        return sharedOutput;
+    }
+
+    /**
+     * When set to {@code true}, all the shards write to {@link #outputPath()}, otherwise each shard writes to
+     * {@link #shardOutputPath(int)}.
+     *
+     * @param sharedOutput to have the shards write to one queue
+     * @return this
+     */
+    @NotNull
+    public ServiceWrapperBuilder<O> sharedOutput(boolean sharedOutput) {
+        this.sharedOutput = sharedOutput;
+        return this;
+    }
+
+    @NotNull
+    public String shardOutputPath(int shard) {
+        return sharedOutput ? outputPath : outputPath + "-shard" + shard;
+    }
+
     @NotNull
     @Override
     public ServiceWrapper get() {
+        if (shards > 1)
+            return new ShardedServiceWrapper<>(this);
         if (eventLoop == null) {
             eventLoop = new EventGroup(false);
             createdEventLoop = true;
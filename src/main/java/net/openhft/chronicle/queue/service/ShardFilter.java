@@ -0,0 +1,134 @@
+package net.openhft.chronicle.queue.service;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.TailerDirection;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueExcerpts.StoreTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.MessageHistory;
+import net.openhft.chronicle.wire.VanillaMessageHistory;
+import net.openhft.chronicle.wire.Wire;
+import net.openhft.chronicle.wire.WireIn;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Picks out the messages of one shard from an input shared by all the shards.
+ * <p>
+ * Each message is given to the shard chosen by the hash of its key, so all the messages with the same key are read,
+ * in order, by the same shard. As each shard reads the input itself, the source indexes in its message history are
+ * those of the input.
+ */
+final class ShardFilter {
+    private final int shard;
+    private final int shards;
+    @NotNull
+    private final ToLongFunction<WireIn> shardKey;
+    private final VanillaMessageHistory history = new VanillaMessageHistory();
+
+    ShardFilter(int shard, int shards, @NotNull ToLongFunction<WireIn> shardKey) {
+        this.shard = shard;
+        this.shards = shards;
+        this.shardKey = shardKey;
+    }
+
+    static int shardFor(long key, int shards) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        return (int) Math.floorMod(hash, (long) shards);
+    }
+
+    /**
+     * Skips messages for other shards.
+     *
+     * @return true if the next message is for this shard, false if there are no more messages
+     */
+    boolean skipToShard(@NotNull ExcerptTailer tailer) {
+        while (true) {
+            try (DocumentContext dc = tailer.readingDocument()) {
+                if (!dc.isPresent())
+                    return false;
+                if (shardOf(dc) == shard) {
+                    // leave it to be read by the service
+                    dc.rollbackOnClose();
+                    return true;
+                }
+            }
+        }
+    }
+
+    private int shardOf(@NotNull DocumentContext dc) {
+        Wire wire = dc.wire();
+        Bytes<?> bytes = wire.bytes();
+        long position = bytes.readPosition();
+        try {
+            // the key is in the message, after its history
+            if (StoreTailer.readHistory(dc, history) == null)
+                bytes.readPosition(position);
+            return shardFor(shardKey.applyAsLong(wire), shards);
+        } finally {
+            bytes.readPosition(position);
+        }
+    }
+
+    /**
+     * Like {@link ExcerptTailer#afterLastWritten(ChronicleQueue)}, but for the last message of this shard, which
+     * may be followed by messages of other shards when the output is shared.
+     */
+    @NotNull
+    ExcerptTailer afterLastWritten(@NotNull ChronicleQueue input, @NotNull ChronicleQueue output) {
+        ExcerptTailer tailer = input.createTailer();
+        ExcerptTailer probe = input.createTailer();
+        int sourceId = input.sourceId();
+        if (output instanceof SingleChronicleQueue) {
+            // if the last message written for any shard is for this one, there is no need to scan
+            long sourceIndex = ((SingleChronicleQueue) output).lastSourceIndex(sourceId);
+            if (sourceIndex != Long.MIN_VALUE && isForShard(probe, sourceIndex))
+                return after(tailer, input, sourceIndex);
+        }
+
+        ExcerptTailer outputTailer = output.createTailer().direction(TailerDirection.BACKWARD).toEnd();
+        VanillaMessageHistory outputHistory = new VanillaMessageHistory();
+        while (true) {
+            try (DocumentContext dc = outputTailer.readingDocument()) {
+                if (!dc.isPresent())
+                    return tailer.toStart();
+
+                MessageHistory messageHistory = StoreTailer.readHistory(dc, outputHistory);
+                if (messageHistory == null || messageHistory.sources() == 0)
+                    continue;
+                int last = messageHistory.sources() - 1;
+                if (messageHistory.sourceId(last) != sourceId)
+                    continue;
+                long sourceIndex = messageHistory.sourceIndex(last);
+                if (!isForShard(probe, sourceIndex))
+                    continue;
+
+                return after(tailer, input, sourceIndex);
+            }
+        }
+    }
+
+    @NotNull
+    private static ExcerptTailer after(@NotNull ExcerptTailer tailer, @NotNull ChronicleQueue input, long sourceIndex) {
+        if (!tailer.moveToIndex(sourceIndex))
+            throw new IllegalStateException("Unable to move to sourceIndex " + Long.toHexString(sourceIndex) +
+                    " in queue " + input.fileAbsolutePath());
+        // skip the message already processed
+        try (DocumentContext processed = tailer.readingDocument()) {
+            assert processed.isPresent();
+        }
+        return tailer;
+    }
+
+    private boolean isForShard(@NotNull ExcerptTailer probe, long index) {
+        if (!probe.moveToIndex(index))
+            return false;
+        try (DocumentContext dc = probe.readingDocument()) {
+            return dc.isPresent() && shardOf(dc) == shard;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package net.openhft.chronicle.queue.service;
+
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.core.threads.EventLoop;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.threads.EventGroup;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Runs one instance of a service per shard, each on its own event loop, or all on the builder's event loop if it has
+ * one, with the input partitioned between them by the key of each message.
+ * <p>
+ * Every shard tails the input and skips the messages of the other shards, so there is no hand off between threads,
+ * and the order of messages for a key and the source indexes in their message history are those of the input. The
+ * cost is that every shard reads the whole input and its history, and the key of every message, so N shards do N
+ * times the reading of one. This suits services whose processing costs much more than reading a message.
+ */
+public class ShardedServiceWrapper<O> implements ServiceWrapper {
+    @NotNull
+    private final EventLoopServiceWrapper<O>[] shards;
+    private volatile boolean closed = false;
+
+    @SuppressWarnings("unchecked")
+    ShardedServiceWrapper(@NotNull ServiceWrapperBuilder<O> builder) {
+        if (builder.inputPath().size() != 1)
+            throw new IllegalArgumentException("A sharded service has one input, not " + builder.inputPath().size());
+        shards = new EventLoopServiceWrapper[builder.shards()];
+        EventLoop eventLoop = builder.eventLoop();
+        for (int i = 0; i < shards.length; i++) {
+            ShardFilter filter = new ShardFilter(i, shards.length, builder.shardKey());
+            shards[i] = eventLoop == null
+                    ? new EventLoopServiceWrapper<>(builder, builder.shardOutputPath(i), new EventGroup(false), true, filter)
+                    : new EventLoopServiceWrapper<>(builder, builder.shardOutputPath(i), eventLoop, false, filter);
+        }
+    }
+
+    /**
+     * @return the service wrapper of each shard
+     */
+    @NotNull
+    public EventLoopServiceWrapper<O>[] shards() {
+        return shards;
+    }
+
+    @NotNull
+    @Override
+    public ChronicleQueue[] inputQueues() {
+        return shards[0].inputQueues();
+    }
+
+    /**
+     * @return the output queue of the first shard, which is the output of every shard if the output is shared
+     */
+    @NotNull
+    @Override
+    public ChronicleQueue outputQueue() {
+        return shards[0].outputQueue();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Closeable.closeQuietly(shards);
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+}
@@ -0,0 +1,128 @@
+package net.openhft.chronicle.queue;
+
+import net.openhft.chronicle.bytes.Byteable;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FlyweightTest extends ChronicleQueueTestBase {
+
+    @Test
+    public void shouldWriteAndReadThroughFlyweights() {
+        try (ChronicleQueue queue = SingleChronicleQueueBuilder.binary(getTmpDir()).testBlockSize().build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            Tick tick = new Tick();
+            // enough to cross a few chunks of the test block size
+            for (int i = 0; i < 10_000; i++) {
+                try (DocumentContext dc = appender.writingFlyweight(tick)) {
+                    tick.time(i);
+                    tick.price(100 + i / 8.0);
+                    if (i % 2 == 0)
+                        tick.quantity(i);
+                }
+            }
+
+            ExcerptTailer tailer = queue.createTailer();
+            Tick read = new Tick();
+            for (int i = 0; i < 10_000; i++) {
+                try (DocumentContext dc = tailer.readingFlyweight(read)) {
+                    assertTrue(dc.isPresent());
+                    assertEquals(i, read.time());
+                    assertEquals(100 + i / 8.0, read.price(), 0.0);
+                    // the region is zeroed, so fields which aren't set are 0
+                    assertEquals(i % 2 == 0 ? i : 0, read.quantity());
+                }
+            }
+            try (DocumentContext dc = tailer.readingFlyweight(read)) {
+                assertFalse(dc.isPresent());
+            }
+        }
+    }
+
+    @Test
+    public void shouldSkipExcerptTooShortForFlyweight() {
+        try (ChronicleQueue queue = SingleChronicleQueueBuilder.binary(getTmpDir()).testBlockSize().build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            try (DocumentContext dc = appender.writingDocument()) {
+                dc.wire().bytes().writeLong(1);
+            }
+            Tick tick = new Tick();
+            try (DocumentContext dc = appender.writingFlyweight(tick)) {
+                tick.time(2);
+            }
+
+            ExcerptTailer tailer = queue.createTailer();
+            try {
+                tailer.readingFlyweight(tick);
+                fail();
+            } catch (IllegalStateException expected) {
+                // skipped
+            }
+            try (DocumentContext dc = tailer.readingFlyweight(tick)) {
+                assertTrue(dc.isPresent());
+                assertEquals(2, tick.time());
+            }
+        }
+    }
+
+    static final class Tick implements Byteable {
+        private static final int TIME = 0;
+        private static final int PRICE = TIME + 8;
+        private static final int QUANTITY = PRICE + 8;
+        private static final int SIZE = QUANTITY + 4;
+
+        private BytesStore bytes;
+        private long offset;
+
+        long time() {
+            return bytes.readLong(offset + TIME);
+        }
+
+        void time(long time) {
+            bytes.writeLong(offset + TIME, time);
+        }
+
+        double price() {
+            return bytes.readDouble(offset + PRICE);
+        }
+
+        void price(double price) {
+            bytes.writeDouble(offset + PRICE, price);
+        }
+
+        int quantity() {
+            return bytes.readInt(offset + QUANTITY);
+        }
+
+        void quantity(int quantity) {
+            bytes.writeInt(offset + QUANTITY, quantity);
+        }
+
+        @Override
+        public void bytesStore(@NotNull BytesStore bytesStore, long offset, long length) {
+            if (length != SIZE)
+                throw new IllegalArgumentException("length " + length);
+            this.bytes = bytesStore;
+            this.offset = offset;
+        }
+
+        @Override
+        public BytesStore bytesStore() {
+            return bytes;
+        }
+
+        @Override
+        public long offset() {
+            return offset;
+        }
+
+        @Override
+        public long maxSize() {
+            return SIZE;
+        }
+    }
+}
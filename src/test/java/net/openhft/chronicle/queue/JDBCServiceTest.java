@@ -19,6 +19,7 @@ package net.openhft.chronicle.queue;
 
 import net.openhft.chronicle.bytes.BytesUtil;
 import net.openhft.chronicle.bytes.MethodReader;
+import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.OS;
 import net.openhft.chronicle.core.io.Closeable;
 import net.openhft.chronicle.core.io.IOTools;
@@ -28,8 +29,13 @@ import org.junit.Test;
 
 import java.io.File;
 import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 /*
  * Created by Peter Lawrey on 08/04/16.
  */
@@ -106,6 +112,78 @@ public class JDBCServiceTest {
         }
     }
 
+    @Test
+    public void testBatchedUpdatesInInputOrder() {
+        File path1 = DirectoryUtils.tempDir("batched1");
+        File path2 = DirectoryUtils.tempDir("batched2");
+        String url = "jdbc:hsqldb:mem:batched-" + System.nanoTime();
+        int noUpdates = 2000;
+
+        try (ChronicleQueue in = SingleChronicleQueueBuilder.binary(path1).testBlockSize().build();
+             ChronicleQueue out = SingleChronicleQueueBuilder.binary(path2).testBlockSize().build()) {
+
+            // each row is only inserted once, so any partition will do
+            JDBCService service = new JDBCService(in, out, () -> DriverManager.getConnection(url, "SA", ""), 2,
+                    (update, args) -> args[0].hashCode(), 64, 5);
+            try {
+                JDBCStatement writer = service.createWriter();
+                writer.executeUpdate("CREATE TABLE first (num INT)");
+                writer.executeUpdate("CREATE TABLE second (num INT)");
+                // runs of each statement, so each is batched
+                for (int i = 0; i < noUpdates; i++) {
+                    if (i / 10 % 2 == 0)
+                        writer.executeUpdate("INSERT INTO first (num) VALUES (?)", i);
+                    else
+                        writer.executeUpdate("INSERT INTO second (num) VALUES (?)", i);
+                }
+                writer.executeQuery("SELECT COUNT(*) FROM first");
+                writer.executeUpdate("INSERT INTO first (num) VALUES (?)", "not a number");
+
+                List<Object> results = new ArrayList<>();
+                MethodReader methodReader = service.createReader(new JDBCResult() {
+                    @Override
+                    public void queryResult(List<String> columns, List<List<Object>> rows, String query, Object... args) {
+                        results.add(rows.get(0).get(0));
+                    }
+
+                    @Override
+                    public void queryThrown(Throwable t, String query, Object... args) {
+                        throw Jvm.rethrow(t);
+                    }
+
+                    @Override
+                    public void updateResult(long count, String update, Object... args) {
+                        assertEquals(args.length == 0 ? 0 : 1, count);
+                        results.add(args.length == 0 ? update : args[0]);
+                    }
+
+                    @Override
+                    public void updateThrown(Throwable t, String update, Object... args) {
+                        results.add(t.getClass());
+                    }
+                });
+                long end = System.currentTimeMillis() + 30_000;
+                while (results.size() < noUpdates + 4) {
+                    if (!methodReader.readOne())
+                        Thread.yield();
+                    assertTrue(System.currentTimeMillis() < end);
+                }
+
+                assertEquals("CREATE TABLE first (num INT)", results.get(0));
+                assertEquals("CREATE TABLE second (num INT)", results.get(1));
+                for (int i = 0; i < noUpdates; i++)
+                    assertEquals(i, ((Number) results.get(i + 2)).intValue());
+                assertEquals(noUpdates / 2, ((Number) results.get(noUpdates + 2)).intValue());
+                assertTrue(Throwable.class.isAssignableFrom((Class) results.get(noUpdates + 3)));
+            } finally {
+                Closeable.closeQuietly(service);
+            }
+        } finally {
+            IOTools.deleteDirWithFiles(path1, 2);
+            IOTools.deleteDirWithFiles(path2, 2);
+        }
+    }
+
     @After
     public void checkRegisteredBytes() {
         BytesUtil.checkRegisteredBytes();
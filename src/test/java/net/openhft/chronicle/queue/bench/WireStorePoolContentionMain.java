@@ -0,0 +1,83 @@
+package net.openhft.chronicle.queue.bench;
+
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.core.io.IOTools;
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.util.Arrays;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * Contention benchmark for WireStorePool. Many tailers share one queue, and so one pool, and all move to the next
+ * cycle at the same moment, which is when they all acquire and release stores.
+ */
+public class WireStorePoolContentionMain {
+    static final int threads = Integer.getInteger("threads", 40);
+    static final int cycles = Integer.getInteger("cycles", 200);
+    static final int perCycle = Integer.getInteger("perCycle", 10);
+    static final String path = System.getProperty("path", OS.TMP);
+
+    public static void main(String[] args) throws Exception {
+        String base = path + "/delete-" + System.nanoTime() + ".me";
+        SetTimeProvider timeProvider = new SetTimeProvider();
+        timeProvider.currentTimeMillis(System.currentTimeMillis());
+
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(base)
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .timeProvider(timeProvider)
+                .build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            for (int c = 0; c < cycles; c++) {
+                for (int i = 0; i < perCycle; i++)
+                    appender.writeText("cycle " + c + " message " + i);
+                timeProvider.currentTimeMillis(timeProvider.currentTimeMillis() + 1000);
+            }
+
+            long[] switchNanos = new long[threads];
+            CyclicBarrier barrier = new CyclicBarrier(threads);
+            Thread[] readers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                readers[t] = new Thread(() -> {
+                    try {
+                        ExcerptTailer tailer = queue.createTailer();
+                        for (int c = 0; c < cycles; c++) {
+                            barrier.await();
+                            long start = System.nanoTime();
+                            // the first read of each cycle acquires the new store and releases the old one.
+                            for (int i = 0; i < perCycle; i++) {
+                                try (DocumentContext dc = tailer.readingDocument()) {
+                                    if (!dc.isPresent())
+                                        throw new AssertionError("Missing message " + i + " in cycle " + c);
+                                    if (i == 0)
+                                        switchNanos[id] += System.nanoTime() - start;
+                                }
+                            }
+                        }
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                }, "tailer-" + t);
+                readers[t].start();
+            }
+            long start = System.nanoTime();
+            for (Thread reader : readers)
+                reader.join();
+            long time = System.nanoTime() - start;
+
+            Arrays.sort(switchNanos);
+            System.out.printf("%d threads read %,d cycles in %.3f seconds%n", threads, cycles, time / 1e9);
+            System.out.printf("Average time to read the first message of a cycle, per thread: median %,d ns, worst %,d ns%n",
+                    switchNanos[threads / 2] / cycles, switchNanos[threads - 1] / cycles);
+        }
+
+        System.gc(); // make sure its cleaned up for windows to delete.
+        IOTools.deleteDirWithFiles(base, 2);
+    }
+}
@@ -0,0 +1,141 @@
+package net.openhft.chronicle.queue.gateway;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+
+public class QueueGatewayTest extends ChronicleQueueTestBase {
+    private final SetTimeProvider timeProvider = new SetTimeProvider();
+
+    @Test
+    public void shouldStreamFromStartAcrossCycles() throws Exception {
+        try (SingleChronicleQueue queue = queue()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 10; i++)
+                appender.writeText("first-" + i);
+            timeProvider.advanceMillis(2000);
+            for (int i = 0; i < 10; i++)
+                appender.writeText("second-" + i);
+
+            try (QueueGateway gateway = new QueueGateway(queue, loopback(), 4, 1024);
+                 QueueGatewayClient client = QueueGatewayClient.fromStart(gateway.localAddress())) {
+                List<String> read = read(client, 20);
+                assertEquals("first-0", read.get(0));
+                assertEquals("second-9", read.get(19));
+
+                appender.writeText("live");
+                assertEquals("[live]", read(client, 1).toString());
+                assertEquals(appender.lastIndexAppended(), client.lastReadIndex());
+            }
+        }
+    }
+
+    @Test
+    public void shouldSubscribeFromIndexAndTime() throws Exception {
+        try (SingleChronicleQueue queue = queue()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            appender.writeText("a");
+            appender.writeText("b");
+            long indexOfB = appender.lastIndexAppended();
+            timeProvider.advanceMillis(3000);
+            long timeOfC = timeProvider.currentTimeMillis();
+            appender.writeText("c");
+
+            try (QueueGateway gateway = new QueueGateway(queue, loopback())) {
+                try (QueueGatewayClient client = QueueGatewayClient.fromIndex(gateway.localAddress(), indexOfB)) {
+                    assertEquals("[b, c]", read(client, 2).toString());
+                }
+                try (QueueGatewayClient client = QueueGatewayClient.fromTime(gateway.localAddress(), timeOfC - 1000)) {
+                    assertEquals("[c]", read(client, 1).toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void slowClientShouldReceiveEverythingInOrder() throws Exception {
+        final int messages = 20_000;
+        try (SingleChronicleQueue queue = queue()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            String padding = new String(new char[100]).replace('\0', '-');
+            for (int i = 0; i < messages; i++)
+                appender.writeText(i + padding);
+
+            try (QueueGateway gateway = new QueueGateway(queue, loopback());
+                 QueueGatewayClient slow = QueueGatewayClient.fromStart(gateway.localAddress());
+                 QueueGatewayClient fast = QueueGatewayClient.fromStart(gateway.localAddress())) {
+                // the slow client's socket fills up, which mustn't hold back the fast one
+                assertEquals(messages, read(fast, messages).size());
+
+                List<String> read = read(slow, messages);
+                for (int i = 0; i < messages; i++)
+                    assertEquals(i + padding, read.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void badSubscriptionShouldOnlyCloseItsOwnConnection() throws Exception {
+        try (SingleChronicleQueue queue = queue()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            appender.writeText("a");
+
+            try (QueueGateway gateway = new QueueGateway(queue, loopback());
+                 QueueGatewayClient good = QueueGatewayClient.fromStart(gateway.localAddress());
+                 SocketChannel bad = SocketChannel.open(gateway.localAddress())) {
+                assertEquals("[a]", read(good, 1).toString());
+
+                ByteBuffer subscription = ByteBuffer.allocate(QueueGateway.SUBSCRIPTION_SIZE);
+                subscription.put((byte) 'X').putLong(0).flip();
+                while (subscription.hasRemaining())
+                    bad.write(subscription);
+                // the gateway closes the bad connection
+                assertEquals(-1, bad.read(ByteBuffer.allocate(1)));
+
+                appender.writeText("b");
+                assertEquals("[b]", read(good, 1).toString());
+                assertEquals(1, gateway.connectionCount());
+            }
+        }
+    }
+
+    private SingleChronicleQueue queue() {
+        return SingleChronicleQueueBuilder.binary(getTmpDir())
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .timeProvider(timeProvider)
+                .build();
+    }
+
+    private static InetSocketAddress loopback() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    }
+
+    private static List<String> read(QueueGatewayClient client, int count) throws IOException, TimeoutException {
+        List<String> read = new ArrayList<>();
+        long end = System.currentTimeMillis() + 10_000;
+        while (read.size() < count) {
+            if (!client.readBytes(bytes -> read.add(bytes.toString())))
+                Jvm.pause(1);
+            if (System.currentTimeMillis() > end)
+                throw new TimeoutException("Read " + read.size() + " of " + count);
+        }
+        return read;
+    }
+}
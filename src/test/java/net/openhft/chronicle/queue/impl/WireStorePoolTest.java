@@ -0,0 +1,100 @@
+package net.openhft.chronicle.queue.impl;
+
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class WireStorePoolTest extends ChronicleQueueTestBase {
+
+    @Test
+    public void shouldShareAndReleaseMoreCyclesThanTheTableHolds() {
+        final AtomicInteger acquired = new AtomicInteger();
+        final AtomicInteger released = new AtomicInteger();
+        final StoreFileListener listener = new StoreFileListener() {
+            @Override
+            public void onAcquired(int cycle, File file) {
+                acquired.incrementAndGet();
+            }
+
+            @Override
+            public void onReleased(int cycle, File file) {
+                released.incrementAndGet();
+            }
+        };
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(getTmpDir())
+                .testBlockSize()
+                .storeFileListener(listener)
+                .build()) {
+            final int first = queue.cycle();
+            final int cycles = 100;
+            final List<WireStore> stores = new ArrayList<>();
+            for (int i = 0; i < cycles; i++)
+                stores.add(queue.storeForCycle(first + i, queue.epoch(), true));
+            for (int i = 0; i < cycles; i++)
+                assertSame(stores.get(i), queue.storeForCycle(first + i, queue.epoch(), false));
+            final int acquiredBefore = acquired.get();
+            final int releasedBefore = released.get();
+
+            for (WireStore store : stores) {
+                queue.release(store);
+                queue.release(store);
+            }
+            assertEquals(acquiredBefore, acquired.get());
+            assertEquals(releasedBefore + cycles, released.get());
+        }
+    }
+
+    @Test
+    public void shouldTellListenerOnceWhenLastReferencesAreReleasedConcurrently() throws Exception {
+        final AtomicInteger released = new AtomicInteger();
+        final StoreFileListener listener = new StoreFileListener() {
+            @Override
+            public void onAcquired(int cycle, File file) {
+            }
+
+            @Override
+            public void onReleased(int cycle, File file) {
+                released.incrementAndGet();
+            }
+        };
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(getTmpDir())
+                .testBlockSize()
+                .storeFileListener(listener)
+                .build()) {
+            final int cycle = queue.cycle();
+            final int iterations = 200;
+            final AtomicReference<Throwable> failure = new AtomicReference<>();
+            for (int i = 0; i < iterations; i++) {
+                final WireStore store = queue.storeForCycle(cycle, queue.epoch(), true);
+                assertSame(store, queue.storeForCycle(cycle, queue.epoch(), false));
+                final CyclicBarrier barrier = new CyclicBarrier(2);
+                final Thread thread = new Thread(() -> {
+                    try {
+                        barrier.await();
+                        queue.release(store);
+                    } catch (Throwable t) {
+                        failure.set(t);
+                    }
+                });
+                thread.start();
+                barrier.await();
+                queue.release(store);
+                thread.join();
+            }
+            assertNull(failure.get());
+            assertEquals(iterations, released.get());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+public class BackgroundAffinityTest extends ChronicleQueueTestBase {
+
+    @Test
+    public void shouldParseCpuLists() {
+        BitSet expected = new BitSet();
+        expected.set(2, 6);
+        expected.set(8);
+        assertEquals(expected, BackgroundAffinity.cpus("2-5, 8").cpus());
+        assertEquals("cpus 2-5, 8", BackgroundAffinity.cpus("2-5, 8").toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectReversedRange() {
+        BackgroundAffinity.cpus("5-2");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectEmptyList() {
+        BackgroundAffinity.cpus(" , ");
+    }
+
+    @Test
+    public void shouldNotFindNodeOfUnknownCpu() {
+        assertEquals(-1, BackgroundAffinity.numaNodeOf(-1));
+    }
+
+    @Test
+    public void shouldPretouchWithPlacementOptions() throws InvalidEventHandlerException {
+        BackgroundAffinity affinity = BackgroundAffinity.cpus("0");
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(getTmpDir())
+                .testBlockSize()
+                .backgroundAffinity(affinity)
+                .mlockHotMappings(true)
+                .pretouchNumaLocal(true)
+                .build();
+             PretoucherService service = new PretoucherService()) {
+            assertSame(affinity, queue.backgroundAffinity());
+            queue.acquireAppender().writeText("hello");
+            service.add(queue);
+            // mlock and pinning may not be allowed here, but pretouching carries on regardless, on a thread of the
+            // writer's NUMA node if it is known
+            long end = System.currentTimeMillis() + 5_000;
+            while (queue.metrics().getPretouchedPages() == 0 && System.currentTimeMillis() < end) {
+                service.action();
+                Jvm.pause(1);
+            }
+            assertTrue(queue.metrics().getPretouchedPages() > 0);
+            assertEquals(1, service.queues());
+            int node = queue.writerNumaNode();
+            if (node != -1) {
+                assertTrue(Thread.getAllStackTraces().keySet().stream()
+                        .anyMatch(t -> t.getName().startsWith("pretoucher-numa-node-" + node)));
+            }
+            assertEquals("hello", queue.createTailer().readText());
+        }
+    }
+}
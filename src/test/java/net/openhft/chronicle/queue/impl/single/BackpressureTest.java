@@ -0,0 +1,91 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BackpressureTest extends ChronicleQueueTestBase {
+
+    @Test
+    public void shouldMeasureLagOfSlowestConsumerAcrossQueueInstances() {
+        File dir = getTmpDir();
+        try (SingleChronicleQueue producerQueue = SingleChronicleQueueBuilder.binary(dir).testBlockSize().build();
+             SingleChronicleQueue consumerQueue = SingleChronicleQueueBuilder.binary(dir).testBlockSize().build();
+             Backpressure backpressure = producerQueue.backpressure("fast", "slow").maxLagMessages(5)) {
+            ExcerptAppender appender = producerQueue.acquireAppender();
+            for (int i = 0; i < 10; i++)
+                appender.writeText("message-" + i);
+
+            // consumers which haven't started are ignored
+            assertEquals(Long.MIN_VALUE, backpressure.minConsumerIndex());
+            assertFalse(backpressure.isLagging());
+
+            ExcerptTailer fastTailer = consumerQueue.createTailer();
+            ExcerptTailer slowTailer = consumerQueue.createTailer();
+            try (ConsumerIndex fast = consumerQueue.consumerIndex("fast");
+                 ConsumerIndex slow = consumerQueue.consumerIndex("slow")) {
+                read(fastTailer, fast, 10);
+                read(slowTailer, slow, 3);
+
+                assertEquals(slowTailer.index(), backpressure.minConsumerIndex());
+                assertEquals(7, backpressure.lagMessages());
+                assertTrue(backpressure.lagBytes() > 0);
+                assertTrue(backpressure.isLagging());
+
+                read(slowTailer, slow, 2);
+                assertEquals(5, backpressure.lagMessages());
+                assertFalse(backpressure.isLagging());
+
+                read(slowTailer, slow, 5);
+                assertEquals(0, backpressure.lagMessages());
+                assertEquals(0, backpressure.lagBytes());
+            }
+        }
+    }
+
+    @Test
+    public void shouldWaitForConsumerToCatchUp() throws InterruptedException {
+        File dir = getTmpDir();
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir).testBlockSize().build();
+             Backpressure backpressure = queue.backpressure("consumer").maxLagMessages(2)) {
+            ExcerptAppender appender = queue.acquireAppender();
+            ExcerptTailer tailer = queue.createTailer();
+            try (ConsumerIndex consumer = queue.consumerIndex("consumer")) {
+                for (int i = 0; i < 5; i++)
+                    appender.writeText("message-" + i);
+                consumer.update(tailer.toStart());
+                assertTrue(backpressure.isLagging());
+
+                Thread thread = new Thread(() -> {
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    read(tailer, consumer, 5);
+                });
+                thread.start();
+                long waited = backpressure.awaitCapacity();
+                thread.join();
+                assertTrue(waited >= TimeUnit.MILLISECONDS.toNanos(10));
+                assertFalse(backpressure.isLagging());
+            }
+        }
+    }
+
+    private static void read(ExcerptTailer tailer, ConsumerIndex consumerIndex, int count) {
+        for (int i = 0; i < count; i++) {
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertTrue(dc.isPresent());
+            }
+            consumerIndex.update(tailer);
+        }
+    }
+}
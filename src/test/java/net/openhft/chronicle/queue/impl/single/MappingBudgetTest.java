@@ -0,0 +1,93 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.wire.Wire;
+import net.openhft.chronicle.wire.WireType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class MappingBudgetTest {
+    private final MappingBudget budget = MappingBudget.INSTANCE;
+    private long maxBytes;
+    private long maxCount;
+
+    @Before
+    public void setUp() {
+        maxBytes = budget.maxBytes();
+        maxCount = budget.maxCount();
+        budget.releasePending();
+    }
+
+    @After
+    public void tearDown() {
+        budget.maxBytes(maxBytes).maxCount(maxCount);
+        budget.releasePending();
+    }
+
+    @Test
+    public void shouldNotReleaseOnCallingThreadWhenCountExceeded() {
+        budget.maxCount(2).maxBytes(Long.MAX_VALUE);
+        final long evicted = budget.evictedCount();
+        final List<Wire> wires = newWires(3);
+        for (Wire wire : wires)
+            budget.queueForRelease(wire, 100);
+
+        for (Wire wire : wires)
+            assertEquals(1, wire.bytes().refCount());
+        assertEquals(3, budget.pendingCount());
+        assertEquals(300, budget.pendingBytes());
+
+        // as the cleaner thread would
+        budget.releasePending();
+        assertEquals(0, wires.get(0).bytes().refCount());
+        assertEquals(evicted + 1, budget.evictedCount());
+    }
+
+    @Test
+    public void shouldCountReleasesOverBytesBudgetAsEvicted() {
+        budget.maxCount(Long.MAX_VALUE).maxBytes(250);
+        final long evicted = budget.evictedCount();
+        final List<Wire> wires = newWires(4);
+        for (Wire wire : wires)
+            budget.queueForRelease(wire, 100);
+
+        assertEquals(400, budget.pendingBytes());
+        budget.releasePending();
+        assertEquals(evicted + 2, budget.evictedCount());
+        assertEquals(0, budget.pendingBytes());
+    }
+
+    @Test
+    public void shouldSizeFromMappedChunk() {
+        final Wire wire = WireType.BINARY.apply(Bytes.allocateElasticDirect(64));
+        assertEquals(wire.bytes().bytesStore().realCapacity(), MappingBudget.mappingSize(wire));
+        wire.bytes().release();
+    }
+
+    @Test
+    public void shouldReleaseAllPending() {
+        final List<Wire> wires = newWires(3);
+        for (Wire wire : wires)
+            budget.queueForRelease(wire, 100);
+
+        budget.releasePending();
+
+        for (Wire wire : wires)
+            assertEquals(0, wire.bytes().refCount());
+        assertEquals(0, budget.pendingCount());
+        assertEquals(0, budget.pendingBytes());
+    }
+
+    private static List<Wire> newWires(int count) {
+        final List<Wire> wires = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            wires.add(WireType.BINARY.apply(Bytes.allocateElasticDirect(64)));
+        return wires;
+    }
+}
@@ -0,0 +1,108 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PretoucherServiceTest extends ChronicleQueueTestBase {
+
+    @Test
+    public void shouldPretouchFurtherAheadOfBusierQueue() throws InvalidEventHandlerException {
+        long minHeadRoom = 4L * OS.pageSize();
+        try (SingleChronicleQueue busy = SingleChronicleQueueBuilder.binary(getTmpDir()).build();
+             SingleChronicleQueue idle = SingleChronicleQueueBuilder.binary(getTmpDir()).build();
+             PretoucherService service = new PretoucherService()
+                     .horizon(1, TimeUnit.SECONDS)
+                     .minHeadRoom(minHeadRoom)
+                     .maxHeadRoom(1 << 20)
+                     .cpuBudget(1.0)) {
+            service.add(busy);
+            service.add(idle);
+            assertEquals(2, service.queues());
+            ExcerptAppender appender = busy.acquireAppender();
+            idle.acquireAppender().writeText("only");
+
+            long end = System.currentTimeMillis() + 5_000;
+            while (busy.metrics().getPretouchHeadRoom() < 256 << 10 && System.currentTimeMillis() < end) {
+                // about 6 MB/s
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().bytes().writeSkip(60 << 10);
+                }
+                Jvm.pause(10);
+                service.action();
+            }
+            assertTrue(busy.metrics().getPretouchHeadRoom() >= 256 << 10);
+            assertTrue(idle.metrics().getPretouchedPages() > 0);
+            assertTrue(idle.metrics().getPretouchHeadRoom() <= minHeadRoom + OS.pageSize());
+        }
+    }
+
+    @Test
+    public void shouldStopWhenBudgetSpent() throws InvalidEventHandlerException {
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(getTmpDir()).build();
+             PretoucherService service = new PretoucherService()
+                     .minHeadRoom(16 << 20)
+                     .cpuBudget(0.001)) {
+            service.add(queue);
+            queue.acquireAppender().writeText("first");
+            assertTrue(service.action());
+            long touched = queue.metrics().getPretouchedPages();
+            assertFalse(service.action());
+            assertEquals(touched, queue.metrics().getPretouchedPages());
+        }
+    }
+
+    @Test
+    public void shouldNotCreateCycleFile() throws InvalidEventHandlerException {
+        File dir = getTmpDir();
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir).build();
+             PretoucherService service = new PretoucherService()) {
+            service.add(queue);
+            assertFalse(service.action());
+            File[] cycleFiles = dir.listFiles((d, name) -> name.endsWith(SingleChronicleQueue.SUFFIX));
+            assertEquals(0, cycleFiles == null ? 0 : cycleFiles.length);
+
+            queue.acquireAppender().writeText("first");
+            assertTrue(service.action());
+        }
+    }
+
+    @Test
+    public void shouldStopPretouchingRemovedQueue() throws InvalidEventHandlerException {
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(getTmpDir()).build();
+             PretoucherService service = new PretoucherService()
+                     .minHeadRoom(16 << 20)
+                     .cpuBudget(1.0)) {
+            service.add(queue);
+            queue.acquireAppender().writeText("first");
+            assertTrue(service.action());
+            service.remove(queue);
+            assertEquals(0, service.queues());
+
+            long touched = queue.metrics().getPretouchedPages();
+            assertFalse(service.action());
+            assertEquals(touched, queue.metrics().getPretouchedPages());
+        }
+    }
+
+    @Test
+    public void shouldDropClosedQueues() throws InvalidEventHandlerException {
+        try (PretoucherService service = new PretoucherService()) {
+            SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(getTmpDir()).build();
+            service.add(queue);
+            service.action();
+            queue.close();
+            service.action();
+            assertEquals(0, service.queues());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.single.QueueMetrics.Metric;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class QueueMetricsTest extends ChronicleQueueTestBase {
+
+    @Test
+    public void shouldCountAppendsReadsAndRolls() {
+        SetTimeProvider timeProvider = new SetTimeProvider();
+        long start = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(3);
+        timeProvider.currentTimeMillis(start);
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(getTmpDir())
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY)
+                .timeProvider(timeProvider)
+                .build()) {
+            QueueMetrics.Snapshot before = queue.metrics().snapshot();
+            ExcerptAppender appender = queue.acquireAppender();
+            for (int day = 0; day < 3; day++) {
+                timeProvider.currentTimeMillis(start + TimeUnit.DAYS.toMillis(day));
+                for (int i = 0; i < 3; i++)
+                    appender.writeText("message-" + day + "-" + i);
+            }
+
+            ExcerptTailer tailer = queue.createTailer();
+            for (int i = 0; i < 9; i++) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertTrue(dc.isPresent());
+                }
+            }
+
+            QueueMetrics.Snapshot after = queue.metrics().snapshot();
+            assertEquals(9, after.get(Metric.APPENDS) - before.get(Metric.APPENDS));
+            assertEquals(9, after.get(Metric.READS) - before.get(Metric.READS));
+            // the first cycle isn't a roll
+            assertEquals(2, after.get(Metric.ROLLS));
+            assertTrue(after.get(Metric.MAX_ROLL_NANOS) > 0);
+            assertTrue(after.get(Metric.BYTES_WRITTEN) >= 9 * "message-0-0".length());
+            assertTrue(after.get(Metric.STORE_ACQUIRES) >= 3);
+            assertTrue(after.ratePerSecond(Metric.APPENDS, before) > 0);
+        }
+    }
+
+    @Test
+    public void shouldRegisterOverJmxUntilClosed() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name;
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(getTmpDir())
+                .testBlockSize()
+                .jmxMetrics(true)
+                .build()) {
+            queue.acquireAppender().writeText("hello");
+
+            name = queue.metrics().objectName();
+            assertNotNull(name);
+            assertTrue(server.isRegistered(name));
+            assertEquals(1L, server.getAttribute(name, "AppendCount"));
+            assertEquals(queue.fileAbsolutePath(), server.getAttribute(name, "Path"));
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
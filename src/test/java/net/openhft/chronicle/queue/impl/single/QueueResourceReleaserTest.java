@@ -0,0 +1,73 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class QueueResourceReleaserTest {
+
+    @Test
+    public void shouldReleaseInBoundedBatches() throws InvalidEventHandlerException {
+        final QueueResourceReleaser releaser = new QueueResourceReleaser(2);
+        final AtomicInteger released = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            final WeakReference<SingleChronicleQueueExcerpts.StoreTailer> reference =
+                    new WeakReference<>(null, releaser.tailerQueue());
+            releaser.register(reference, released::incrementAndGet);
+            reference.enqueue();
+        }
+        assertEquals(3, releaser.registeredCloseActions());
+
+        assertTrue(releaser.action());
+        assertEquals(2, released.get());
+        assertEquals(1, releaser.registeredCloseActions());
+
+        assertTrue(releaser.action());
+        assertEquals(3, released.get());
+        assertEquals(3, releaser.closeActionsRun());
+
+        assertFalse(releaser.action());
+    }
+
+    @Test
+    public void shouldRunRegisteredCloseActionsOnClose() {
+        final QueueResourceReleaser releaser = new QueueResourceReleaser(10);
+        final AtomicInteger released = new AtomicInteger();
+        for (int i = 0; i < 2; i++)
+            releaser.register(new WeakReference<>(null, releaser.tailerQueue()), released::incrementAndGet);
+
+        releaser.close();
+        assertEquals(2, released.get());
+        assertEquals(0, releaser.registeredCloseActions());
+    }
+
+    @Test(expected = InvalidEventHandlerException.class)
+    public void shouldRemoveItselfFromEventLoopWhenClosed() throws InvalidEventHandlerException {
+        final QueueResourceReleaser releaser = new QueueResourceReleaser(10);
+        releaser.close();
+        releaser.action();
+    }
+
+    @Test
+    public void queueShouldRegisterTailersWithItsOwnReleaser() {
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder
+                .binary(DirectoryUtils.tempDir(QueueResourceReleaserTest.class.getSimpleName()))
+                .testBlockSize()
+                .deterministicRelease(true)
+                .build()) {
+            final QueueResourceReleaser releaser = queue.resourceReleaser();
+            assertNotNull(releaser);
+
+            final ExcerptTailer tailer = queue.createTailer();
+            assertEquals(1, releaser.registeredCloseActions());
+            assertNotNull(tailer);
+            assertFalse(queue.releaseResources());
+        }
+    }
+}
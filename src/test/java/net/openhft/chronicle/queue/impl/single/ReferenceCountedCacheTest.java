@@ -0,0 +1,88 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.MappedBytes;
+import net.openhft.chronicle.bytes.MappedFile;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReferenceCountedCacheTest {
+    private final AtomicInteger created = new AtomicInteger();
+    private final ReferenceCountedCache<File, MappedFile, MappedBytes, IOException> cache =
+            new ReferenceCountedCache<>(MappedBytes::mappedBytes, this::mappedFile);
+    private File directory;
+
+    @Before
+    public void setUp() {
+        directory = DirectoryUtils.tempDir(ReferenceCountedCacheTest.class.getSimpleName());
+        directory.mkdirs();
+    }
+
+    @Test
+    public void shouldReuseLiveValue() throws IOException {
+        final File file = new File(directory, "a");
+        final MappedBytes first = cache.get(file);
+        final MappedBytes second = cache.get(file);
+
+        assertEquals(1, created.get());
+        assertEquals(first.mappedFile(), second.mappedFile());
+        assertEquals(2, first.mappedFile().refCount());
+
+        first.release();
+        second.release();
+    }
+
+    @Test
+    public void shouldRecreateAndRemoveDereferencedValues() throws IOException {
+        final File a = new File(directory, "a");
+        final File b = new File(directory, "b");
+        final MappedBytes bytesA = cache.get(a);
+        final MappedBytes bytesB = cache.get(b);
+        bytesA.release();
+        bytesB.release();
+
+        final MappedBytes again = cache.get(a);
+
+        assertEquals(3, created.get());
+        assertEquals(1, cache.size());
+        assertEquals(1, again.mappedFile().refCount());
+        again.release();
+    }
+
+    @Test
+    public void shouldCreateOnceUnderContention() throws Exception {
+        final File file = new File(directory, "contended");
+        final int threads = 8;
+        final ExecutorService service = Executors.newFixedThreadPool(threads);
+        try {
+            final CyclicBarrier barrier = new CyclicBarrier(threads);
+            final List<Future<MappedBytes>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++)
+                futures.add(service.submit(() -> {
+                    barrier.await();
+                    return cache.get(file);
+                }));
+            for (Future<MappedBytes> future : futures)
+                future.get(5, TimeUnit.SECONDS).release();
+        } finally {
+            service.shutdown();
+        }
+
+        assertEquals(1, created.get());
+    }
+
+    private MappedFile mappedFile(File file) throws IOException {
+        created.incrementAndGet();
+        return MappedFile.of(file, OS.pageSize(), OS.pageSize(), false);
+    }
+}
@@ -0,0 +1,93 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SharedQueueResourcesTest extends ChronicleQueueTestBase {
+
+    @Test
+    public void shouldShareMetaStoreBetweenQueuesInSameDirectory() {
+        File dir = getTmpDir();
+        try (SharedQueueResources resources = new SharedQueueResources()) {
+            SingleChronicleQueue writer = SingleChronicleQueueBuilder.binary(dir).sharedResources(resources).build();
+            try (SingleChronicleQueue reader = SingleChronicleQueueBuilder.binary(dir).sharedResources(resources).build()) {
+                assertEquals(1, resources.metaStores());
+                assertSame(resources.eventLoop(), writer.eventLoop());
+                assertNotNull(writer.resourceReleaser());
+                assertEquals(ChronicleQueue.TEST_BLOCK_SIZE, writer.blockSize());
+
+                writer.acquireAppender().writeText("before");
+                writer.close();
+                assertEquals(1, resources.metaStores());
+
+                // the metadata is still usable by the queue left open
+                reader.acquireAppender().writeText("after");
+                ExcerptTailer tailer = reader.createTailer();
+                assertEquals("before", tailer.readText());
+                assertEquals("after", tailer.readText());
+            }
+            assertEquals(0, resources.metaStores());
+        }
+    }
+
+    @Test
+    public void shouldRejectDifferentRollCycleInSameDirectory() {
+        File dir = getTmpDir();
+        try (SharedQueueResources resources = new SharedQueueResources();
+             SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir).sharedResources(resources)
+                     .rollCycle(RollCycles.DAILY).build()) {
+            try {
+                SingleChronicleQueueBuilder.binary(dir).sharedResources(resources)
+                        .rollCycle(RollCycles.MINUTELY).build();
+                fail();
+            } catch (IllegalStateException expected) {
+                // different roll length
+            }
+            assertEquals(1, resources.metaStores());
+            assertFalse(queue.isClosed());
+        }
+    }
+
+    @Test
+    public void shouldPretouchManyQueuesOnOneEventLoop() {
+        List<SingleChronicleQueue> queues = new ArrayList<>();
+        try (SharedQueueResources resources = new SharedQueueResources().pretouch(true)) {
+            for (int i = 0; i < 50; i++) {
+                SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(new File(getTmpDir(), "q" + i))
+                        .sharedResources(resources).build();
+                queues.add(queue);
+                queue.acquireAppender().writeText("message-" + i);
+            }
+            assertEquals(50, resources.metaStores());
+            assertEquals(50, resources.pretouchedQueues());
+
+            long end = System.currentTimeMillis() + 5_000;
+            while (queues.stream().anyMatch(q -> q.metrics().getPretouchedPages() == 0)
+                    && System.currentTimeMillis() < end)
+                Jvm.pause(10);
+            for (int i = 0; i < queues.size(); i++) {
+                assertTrue(queues.get(i).metrics().getPretouchedPages() > 0);
+                assertEquals("message-" + i, queues.get(i).createTailer().readText());
+            }
+
+            queues.forEach(SingleChronicleQueue::close);
+            assertEquals(0, resources.metaStores());
+            end = System.currentTimeMillis() + 5_000;
+            while (resources.pretouchedQueues() > 0 && System.currentTimeMillis() < end)
+                Jvm.pause(10);
+            assertEquals(0, resources.pretouchedQueues());
+        } finally {
+            queues.forEach(SingleChronicleQueue::close);
+        }
+    }
+}
@@ -16,6 +16,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.CoreMatchers.is;
@@ -99,6 +101,133 @@ public class StoreTailerTest extends ChronicleQueueTestBase {
         secondInputQueue.createTailer().afterLastWritten(outputQueue);
     }
 
+    @Test
+    public void shouldRecordLastSourceIndexOfEachSource() {
+        final SingleChronicleQueue firstInputQueue =
+                createQueue(dataDirectory, RollCycles.TEST_DAILY, 1, "firstInputQueue");
+        final SingleChronicleQueue secondInputQueue =
+                createQueue(dataDirectory, RollCycles.TEST_SECONDLY, 2, "secondInputQueue");
+        final SingleChronicleQueue outputQueue =
+                createQueue(dataDirectory, RollCycles.TEST_DAILY, 0, "outputQueue");
+
+        final ExcerptAppender firstAppender = firstInputQueue.acquireAppender();
+        final StringEvents firstWriter = firstAppender.methodWriterBuilder(StringEvents.class).get();
+        firstWriter.onEvent("one");
+        firstWriter.onEvent("two");
+        final ExcerptAppender secondAppender = secondInputQueue.acquireAppender();
+        secondAppender.methodWriterBuilder(StringEvents.class).get().onEvent("three");
+
+        final StringEvents eventSink = outputQueue.acquireAppender().
+                methodWriterBuilder(StringEvents.class).recordHistory(true).get();
+        final MethodReader firstMethodReader = firstInputQueue.createTailer().methodReader(eventSink);
+        final MethodReader secondMethodReader = secondInputQueue.createTailer().methodReader(eventSink);
+
+        assertThat(outputQueue.lastSourceIndex(1), is(Long.MIN_VALUE));
+        assertThat(firstMethodReader.readOne(), is(true));
+        assertThat(secondMethodReader.readOne(), is(true));
+        assertThat(firstMethodReader.readOne(), is(true));
+
+        assertThat(outputQueue.lastSourceIndex(1), is(firstAppender.lastIndexAppended()));
+        assertThat(outputQueue.lastSourceIndex(2), is(secondAppender.lastIndexAppended()));
+    }
+
+    @Test
+    public void shouldRecordLastSourceIndexOfHistoryWithManySources() {
+        final SingleChronicleQueue inputQueue =
+                createQueue(dataDirectory, RollCycles.TEST_DAILY, 1, "inputQueue");
+        final SingleChronicleQueue middleQueue =
+                createQueue(dataDirectory, RollCycles.TEST_DAILY, 2, "middleQueue");
+        final SingleChronicleQueue outputQueue =
+                createQueue(dataDirectory, RollCycles.TEST_DAILY, 0, "outputQueue");
+
+        final ExcerptAppender inputAppender = inputQueue.acquireAppender();
+        inputAppender.methodWriterBuilder(StringEvents.class).get().onEvent("one");
+        final ExcerptAppender middleAppender = middleQueue.acquireAppender();
+        final MethodReader middleReader = inputQueue.createTailer().methodReader(
+                middleAppender.methodWriterBuilder(StringEvents.class).recordHistory(true).get());
+        final MethodReader outputReader = middleQueue.createTailer().methodReader(
+                outputQueue.acquireAppender().methodWriterBuilder(StringEvents.class).recordHistory(true).get());
+
+        assertThat(middleReader.readOne(), is(true));
+        assertThat(outputReader.readOne(), is(true));
+
+        // the history is input then middle, the last source is the middle queue
+        assertThat(outputQueue.lastSourceIndex(2), is(middleAppender.lastIndexAppended()));
+        assertThat(outputQueue.lastSourceIndex(1), is(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void shouldRecordLastSourceIndexOfBytesWritten() {
+        final SingleChronicleQueue inputQueue =
+                createQueue(dataDirectory, RollCycles.TEST_DAILY, 1, "inputQueue");
+        final SingleChronicleQueue middleQueue =
+                createQueue(dataDirectory, RollCycles.TEST_DAILY, 2, "middleQueue");
+        final SingleChronicleQueue outputQueue =
+                createQueue(dataDirectory, RollCycles.TEST_DAILY, 0, "outputQueue");
+
+        final ExcerptAppender inputAppender = inputQueue.acquireAppender();
+        inputAppender.methodWriterBuilder(StringEvents.class).get().onEvent("one");
+        final MethodReader middleReader = inputQueue.createTailer().methodReader(
+                middleQueue.acquireAppender().methodWriterBuilder(StringEvents.class).recordHistory(true).get());
+        assertThat(middleReader.readOne(), is(true));
+
+        // copy the message with its history as it is
+        try (DocumentContext dc = middleQueue.createTailer().readingDocument()) {
+            assertTrue(dc.isPresent());
+            outputQueue.acquireAppender().writeBytes(dc.wire().bytes());
+        }
+
+        assertThat(outputQueue.lastSourceIndex(1), is(inputAppender.lastIndexAppended()));
+    }
+
+    @Test
+    public void shouldLookUpLastSourceIndexInReadOnlyQueue() {
+        final SingleChronicleQueue inputQueue =
+                createQueue(dataDirectory, RollCycles.TEST_DAILY, 1, "inputQueue");
+        final SingleChronicleQueue outputQueue =
+                createQueue(dataDirectory, RollCycles.TEST_DAILY, 0, "outputQueue");
+        final SingleChronicleQueue readOnlyQueue =
+                build(createQueue(dataDirectory, RollCycles.TEST_DAILY, 0, "outputQueue", true));
+
+        final ExcerptAppender inputAppender = inputQueue.acquireAppender();
+        inputAppender.methodWriterBuilder(StringEvents.class).get().onEvent("one");
+        assertThat(readOnlyQueue.lastSourceIndex(1), is(Long.MIN_VALUE));
+
+        final MethodReader reader = inputQueue.createTailer().methodReader(
+                outputQueue.acquireAppender().methodWriterBuilder(StringEvents.class).recordHistory(true).get());
+        assertThat(reader.readOne(), is(true));
+
+        assertThat(readOnlyQueue.lastSourceIndex(1), is(inputAppender.lastIndexAppended()));
+    }
+
+    @Test
+    public void shouldResumeAfterLastWrittenFromRecordedSourceIndex() {
+        final SingleChronicleQueue inputQueue =
+                createQueue(dataDirectory, RollCycles.TEST_DAILY, 1, "inputQueue");
+        final StringEvents inputWriter = inputQueue.acquireAppender().methodWriterBuilder(StringEvents.class).get();
+        for (String event : new String[]{"one", "two", "three"})
+            inputWriter.onEvent(event);
+
+        try (SingleChronicleQueue outputQueue = createQueue(dataDirectory, RollCycles.TEST_DAILY, 0, "outputQueue",
+                false).build()) {
+            final StringEvents eventSink = outputQueue.acquireAppender().
+                    methodWriterBuilder(StringEvents.class).recordHistory(true).get();
+            final MethodReader reader = inputQueue.createTailer().methodReader(eventSink);
+            assertThat(reader.readOne(), is(true));
+            assertThat(reader.readOne(), is(true));
+            // messages without a history don't change what was read last
+            outputQueue.acquireAppender().methodWriterBuilder(StringEvents.class).get().onEvent("other");
+        }
+
+        // the source index is read from the metadata of a queue reopened
+        final SingleChronicleQueue outputQueue = createQueue(dataDirectory, RollCycles.TEST_DAILY, 0, "outputQueue");
+        final List<String> events = new ArrayList<>();
+        final MethodReader reader = inputQueue.createTailer().afterLastWritten(outputQueue)
+                .methodReader((StringEvents) events::add);
+        assertThat(reader.readOne(), is(true));
+        assertThat(events, is(Collections.singletonList("three")));
+    }
+
     @Test
     public void shouldHandleCycleRoll() {
         File dir = getTmpDir();
@@ -0,0 +1,94 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.RollCycles;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class WatchingDirectoryListingTest {
+    private WatchingDirectoryListing listing;
+    private File testDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        testDirectory = DirectoryUtils.tempDir(WatchingDirectoryListingTest.class.getSimpleName());
+        testDirectory.mkdirs();
+        new File(testDirectory, 1 + SingleChronicleQueue.SUFFIX).createNewFile();
+        new File(testDirectory, 3 + SingleChronicleQueue.SUFFIX).createNewFile();
+        listing = new WatchingDirectoryListing(testDirectory.toPath(),
+                f -> Integer.parseInt(f.getName().split("\\.")[0]));
+        listing.init();
+    }
+
+    @After
+    public void tearDown() {
+        listing.close();
+    }
+
+    @Test
+    public void shouldInitialiseFromFilesystem() {
+        assertThat(listing.getMinCreatedCycle(), is(1));
+        assertThat(listing.getMaxCreatedCycle(), is(3));
+        assertThat(listing.cycles().size(), is(2));
+    }
+
+    @Test
+    public void shouldTrackCreatedFiles() {
+        final long modCount = listing.modCount();
+        listing.onFileCreated(new File(testDirectory, 7 + SingleChronicleQueue.SUFFIX), 7);
+
+        assertThat(listing.getMaxCreatedCycle(), is(7));
+        assertThat(listing.cycles().higher(3L), is(7L));
+        assertTrue(listing.modCount() > modCount);
+    }
+
+    @Test
+    public void shouldPickUpChangesMadeByOtherWriters() throws Exception {
+        new File(testDirectory, 5 + SingleChronicleQueue.SUFFIX).createNewFile();
+        new File(testDirectory, 0 + SingleChronicleQueue.SUFFIX).createNewFile();
+        new File(testDirectory, 3 + SingleChronicleQueue.SUFFIX).delete();
+        new File(testDirectory, "ignored.tmp").createNewFile();
+
+        for (int i = 0; i < 100 && listing.cycles().size() != 3; i++) {
+            Jvm.pause(50);
+            listing.refresh();
+        }
+
+        assertThat(listing.getMinCreatedCycle(), is(0));
+        assertThat(listing.getMaxCreatedCycle(), is(5));
+        assertThat(listing.cycles().higher(1L), is(5L));
+    }
+
+    @Test
+    public void shouldKeepTableListingUpToDateForOtherQueues() {
+        final File dir = DirectoryUtils.tempDir("shouldKeepTableListingUpToDateForOtherQueues");
+        final SetTimeProvider time = new SetTimeProvider(System.currentTimeMillis());
+        try (SingleChronicleQueue watching = SingleChronicleQueueBuilder.binary(dir).testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY).timeProvider(time).watchDirectory(true).build();
+             SingleChronicleQueue other = SingleChronicleQueueBuilder.binary(dir).testBlockSize()
+                     .rollCycle(RollCycles.TEST_DAILY).timeProvider(time).build()) {
+            watching.acquireAppender().writeText("first");
+            time.advanceMillis(86_400_000L);
+            watching.acquireAppender().writeText("second");
+            time.advanceMillis(1);
+
+            assertThat(other.lastCycle(), is(watching.cycle()));
+            assertThat(other.firstCycle(), is(watching.cycle() - 1));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldBlowUpIfClosed() {
+        listing.close();
+        listing.getMaxCreatedCycle();
+    }
+}
@@ -30,11 +30,10 @@ import org.junit.Assume;
 import org.junit.Test;
 
 import java.io.File;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
 
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 /*
  * Created by Jerry Shea on 12/10/17
@@ -134,6 +133,158 @@ public class ChronicleHistoryReaderTest {
         }
     }
 
+    @Test
+    public void shouldMergeWindowsOfSeveralQueues() {
+        Assume.assumeFalse(OS.isWindows());
+        MessageHistory.set(new VanillaMessageHistory());
+
+        long nanoTime = System.nanoTime();
+        File in1 = new File(OS.TARGET, "testMergeWindows-in1-" + nanoTime);
+        File out1 = new File(OS.TARGET, "testMergeWindows-out1-" + nanoTime);
+        File in2 = new File(OS.TARGET, "testMergeWindows-in2-" + nanoTime);
+        File out2 = new File(OS.TARGET, "testMergeWindows-out2-" + nanoTime);
+        try {
+            writeThroughHop(in1, out1, 10);
+            writeThroughHop(in2, out2, 20);
+
+            List<String> lines = new ArrayList<>();
+            new ChronicleHistoryReader().
+                    withBasePath(out1.toPath()).
+                    addBasePath(out2.toPath()).
+                    withMessageSink(lines::add).
+                    withOutputFormat(ChronicleHistoryReader.OutputFormat.CSV).
+                    withTimeUnit(TimeUnit.MICROSECONDS).
+                    withMeasurementWindow(TimeUnit.MINUTES.toMicros(1)).
+                    execute();
+
+            assertEquals("relative_ts,histogram,count,50,90,99,99.9,99.99,99.999,worst", lines.get(0));
+            // the messages may straddle two windows
+            Map<String, Long> counts = new TreeMap<>();
+            long lastWindowStart = 0;
+            for (String line : lines.subList(1, lines.size())) {
+                String[] columns = line.split(",", -1);
+                // relative to the first window
+                long windowStart = Long.parseLong(columns[0]);
+                assertTrue(windowStart >= lastWindowStart);
+                lastWindowStart = windowStart;
+                counts.merge(columns[1], Long.parseLong(columns[2]), Long::sum);
+            }
+            assertEquals("{1=30, startTo1=30}", counts.toString());
+
+        } finally {
+            deleteQuietly(in1, out1, in2, out2);
+        }
+    }
+
+    @Test
+    public void shouldOutputMergedWindowsAsSummary() {
+        Assume.assumeFalse(OS.isWindows());
+        MessageHistory.set(new VanillaMessageHistory());
+
+        long nanoTime = System.nanoTime();
+        File in1 = new File(OS.TARGET, "testMergeSummary-in1-" + nanoTime);
+        File out1 = new File(OS.TARGET, "testMergeSummary-out1-" + nanoTime);
+        File in2 = new File(OS.TARGET, "testMergeSummary-in2-" + nanoTime);
+        File out2 = new File(OS.TARGET, "testMergeSummary-out2-" + nanoTime);
+        try {
+            writeThroughHop(in1, out1, 10);
+            writeThroughHop(in2, out2, 20);
+
+            List<String> lines = new ArrayList<>();
+            ChronicleHistoryReader reader = new ChronicleHistoryReader().
+                    withBasePath(out1.toPath()).
+                    addBasePath(out2.toPath()).
+                    withMessageSink(lines::add).
+                    withSummaryOutput(-1).
+                    withTimeUnit(TimeUnit.MICROSECONDS).
+                    withMeasurementWindow(TimeUnit.MINUTES.toMicros(1));
+            reader.execute();
+
+            assertEquals("relative_ts,1,startTo1", lines.get(0));
+            // the first window starts at 0, any other a minute later
+            assertTrue(lines.get(1), lines.get(1).startsWith("0,"));
+            for (String line : lines.subList(2, lines.size()))
+                assertTrue(line, line.startsWith(TimeUnit.MINUTES.toMicros(1) + ","));
+            // each window is output from its own histograms
+            assertTrue(reader.histos.isEmpty());
+
+        } finally {
+            deleteQuietly(in1, out1, in2, out2);
+        }
+    }
+
+    @Test(timeout = 20_000)
+    public void shouldTailAndOutputEachWindow() throws InterruptedException {
+        Assume.assumeFalse(OS.isWindows());
+        MessageHistory.set(new VanillaMessageHistory());
+
+        long nanoTime = System.nanoTime();
+        File in = new File(OS.TARGET, "testTailWindows-in-" + nanoTime);
+        File out = new File(OS.TARGET, "testTailWindows-out-" + nanoTime);
+        try {
+            // so the queue exists, these are before the tailer starts
+            writeThroughHop(in, out, 1);
+
+            List<String> windows = Collections.synchronizedList(new ArrayList<>());
+            ChronicleHistoryReader reader = new ChronicleHistoryReader().
+                    withBasePath(out.toPath()).
+                    withMessageSink(windows::add).
+                    withOutputFormat(ChronicleHistoryReader.OutputFormat.YAML).
+                    withTimeUnit(TimeUnit.MILLISECONDS).
+                    withMeasurementWindow(100).
+                    tail();
+            Thread thread = new Thread(reader::execute);
+            thread.start();
+
+            // a window is output once the reader has moved past it
+            while (windows.isEmpty()) {
+                writeThroughHop(in, out, 1);
+                Thread.sleep(20);
+            }
+            thread.interrupt();
+            thread.join();
+
+            String window = windows.get(0);
+            assertTrue(window, window.contains("window: {"));
+            assertTrue(window, window.contains("count: "));
+            assertTrue(window, window.contains("startTo1: {"));
+
+        } finally {
+            deleteQuietly(in, out);
+        }
+    }
+
+    private static void writeThroughHop(File inPath, File outPath, int messages) {
+        try (SingleChronicleQueue in = SingleChronicleQueueBuilder.binary(inPath).testBlockSize().sourceId(1).build();
+             SingleChronicleQueue out = SingleChronicleQueueBuilder.binary(outPath).testBlockSize().build()) {
+            DummyListener first = in.acquireAppender()
+                    .methodWriterBuilder(DummyListener.class)
+                    .recordHistory(true)
+                    .get();
+            // not carrying over the history of the messages read last time
+            MessageHistory.get().reset();
+            for (int i = 0; i < messages; i++)
+                first.say("hello-" + i);
+
+            DummyListener writer = out.acquireAppender()
+                    .methodWriterBuilder(DummyListener.class)
+                    .recordHistory(true)
+                    .get();
+            MethodReader reader = in.createTailer().afterLastWritten(out).methodReader(writer);
+            for (int i = 0; i < messages; i++)
+                assertTrue(reader.readOne());
+        }
+    }
+
+    private static void deleteQuietly(File... paths) {
+        for (File path : paths) {
+            try {
+                IOTools.shallowDeleteDirWithFiles(path);
+            } catch (Exception e) {
+            }
+        }
+    }
+
     @FunctionalInterface
     private interface DummyListener {
         void say(String what);
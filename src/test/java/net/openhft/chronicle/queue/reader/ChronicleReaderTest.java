@@ -1,5 +1,6 @@
 package net.openhft.chronicle.queue.reader;
 
+import net.openhft.chronicle.bytes.Bytes;
 import net.openhft.chronicle.bytes.MethodWriterBuilder;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.OS;
@@ -20,6 +21,7 @@ import java.io.RandomAccessFile;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Queue;
@@ -326,6 +328,64 @@ public class ChronicleReaderTest {
         assertThat(capturedOutput.stream().filter(msg -> !msg.startsWith("0x")).count(), is(0L));
     }
 
+    @Test
+    public void shouldReadInParallelInIndexOrder() throws Exception {
+        basicReader().withInclusionRegex(".*good.*").execute();
+        final List<String> sequential = new ArrayList<>(capturedOutput);
+        capturedOutput.clear();
+
+        basicReader().withInclusionRegex(".*good.*").withThreads(4).withMessagesPerTask(5).execute();
+
+        assertThat(sequential.size(), is(24));
+        assertThat(new ArrayList<>(capturedOutput), is(sequential));
+    }
+
+    @Test
+    public void shouldFilterTextMessagesInParallelAsWhenReadSequentially() throws Exception {
+        final Path path = DirectoryUtils.tempDir("shouldFilterTextMessagesInParallel").toPath();
+        try (final SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(path).testBlockSize().build()) {
+            final ExcerptAppender excerptAppender = queue.acquireAppender();
+            for (int i = 0; i < 24; i++)
+                excerptAppender.writeText(i % 3 == 0 ? "hello " + i : "goodbye " + i);
+        }
+
+        new ChronicleReader().withBasePath(path).withMessageSink(capturedOutput::add).
+                withInclusionRegex("good").withExclusionRegex("bye 1").execute();
+        final List<String> sequential = new ArrayList<>(capturedOutput);
+        capturedOutput.clear();
+
+        // messages in text are filtered before they are converted
+        new ChronicleReader().withBasePath(path).withMessageSink(capturedOutput::add).
+                withInclusionRegex("good").withExclusionRegex("bye 1").
+                withThreads(3).withMessagesPerTask(4).execute();
+
+        assertThat(sequential.stream().filter(msg -> !msg.startsWith("0x")).count(), is(8L));
+        assertThat(new ArrayList<>(capturedOutput), is(sequential));
+    }
+
+    @Test
+    public void shouldApplyPluginPreFilterInParallel() throws Exception {
+        final AtomicLong filtered = new AtomicLong();
+        basicReader().withThreads(2).withMessagesPerTask(7).withCustomPlugin(new ChronicleReaderPlugin() {
+            @Override
+            public void onReadDocument(final DocumentContext dc) {
+                fail("Only the pre-filter is used in parallel");
+            }
+
+            @Override
+            public boolean preFilter(final Bytes<?> bytes) {
+                filtered.incrementAndGet();
+                // skips the messages containing "hello" without converting them
+                return bytes.indexOf(Bytes.from("hello")) < 0;
+            }
+        }).execute();
+
+        assertThat(filtered.get(), is(24L));
+        assertThat(capturedOutput.size(), is(24));
+        capturedOutput.stream().filter(msg -> !msg.startsWith("0x")).
+                forEach(msg -> assertThat(msg, containsString("goodbye")));
+    }
+
     @Test
     public void shouldReturnNoMoreThanTheSpecifiedNumberOfMaxRecords() throws Exception {
         basicReader().historyRecords(5).execute();
@@ -0,0 +1,129 @@
+package net.openhft.chronicle.queue.replication;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.WireStore;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReplicationTest extends ChronicleQueueTestBase {
+    private final SetTimeProvider timeProvider = new SetTimeProvider();
+
+    @Test
+    public void shouldReplicateAcrossCycles() throws Exception {
+        try (SingleChronicleQueue source = queue(getTmpDir());
+             SingleChronicleQueue sink = queue(getTmpDir())) {
+            ExcerptAppender appender = source.acquireAppender();
+            for (int i = 0; i < 20; i++)
+                appender.writeText("first-" + i);
+            timeProvider.advanceMillis(2000);
+            // larger than the batch size so sent in more than one frame
+            for (int i = 0; i < 20; i++)
+                appender.writeText("second-" + i + "-" + new String(new char[200]).replace('\0', 'x'));
+
+            try (ReplicationSource replicationSource = new ReplicationSource(source, loopback(), 8, 1024);
+                 ReplicationSink replicationSink = new ReplicationSink(sink, replicationSource.localAddress())) {
+                awaitIndex(replicationSink, appender.lastIndexAppended());
+
+                timeProvider.advanceMillis(1000);
+                appender.writeText("live");
+                awaitIndex(replicationSink, appender.lastIndexAppended());
+                awaitAcknowledged(source, appender.lastIndexAppended());
+            }
+
+            assertEquals(excerpts(source), excerpts(sink));
+        }
+    }
+
+    @Test
+    public void shouldResumeAfterReconnecting() throws Exception {
+        try (SingleChronicleQueue source = queue(getTmpDir());
+             SingleChronicleQueue sink = queue(getTmpDir())) {
+            ExcerptAppender appender = source.acquireAppender();
+            for (int i = 0; i < 10; i++)
+                appender.writeText("msg-" + i);
+
+            try (ReplicationSource replicationSource = new ReplicationSource(source, loopback())) {
+                try (ReplicationSink replicationSink = new ReplicationSink(sink, replicationSource.localAddress())) {
+                    awaitIndex(replicationSink, appender.lastIndexAppended());
+                }
+
+                timeProvider.advanceMillis(1000);
+                for (int i = 10; i < 20; i++)
+                    appender.writeText("msg-" + i);
+
+                try (ReplicationSink replicationSink = new ReplicationSink(sink, replicationSource.localAddress())) {
+                    awaitIndex(replicationSink, appender.lastIndexAppended());
+                }
+            }
+
+            List<String> excerpts = excerpts(sink);
+            assertEquals(20, excerpts.size());
+            assertEquals(excerpts(source), excerpts);
+        }
+    }
+
+    private SingleChronicleQueue queue(File dir) {
+        return SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .timeProvider(timeProvider)
+                .build();
+    }
+
+    private static InetSocketAddress loopback() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    }
+
+    private static void awaitIndex(ReplicationSink sink, long index) throws TimeoutException {
+        long end = System.currentTimeMillis() + 10_000;
+        while (sink.lastIndexWritten() != index) {
+            if (System.currentTimeMillis() > end)
+                throw new TimeoutException("Expected " + Long.toHexString(index) +
+                        " but was " + Long.toHexString(sink.lastIndexWritten()));
+            Jvm.pause(1);
+        }
+    }
+
+    private static void awaitAcknowledged(SingleChronicleQueue queue, long index) throws TimeoutException {
+        WireStore store = queue.storeForCycle(queue.rollCycle().toCycle(index), queue.epoch(), false);
+        try {
+            long end = System.currentTimeMillis() + 10_000;
+            while (store.lastIndexReplicated() != index || store.lastAcknowledgedIndexReplicated() != index) {
+                if (System.currentTimeMillis() > end)
+                    throw new TimeoutException("Expected " + Long.toHexString(index) + " to be acknowledged but was " +
+                            Long.toHexString(store.lastAcknowledgedIndexReplicated()));
+                Jvm.pause(1);
+            }
+        } finally {
+            queue.release(store);
+        }
+    }
+
+    private static List<String> excerpts(SingleChronicleQueue queue) {
+        List<String> excerpts = new ArrayList<>();
+        ExcerptTailer tailer = queue.createTailer();
+        while (true) {
+            try (DocumentContext dc = tailer.readingDocument()) {
+                if (!dc.isPresent())
+                    return excerpts;
+                excerpts.add(Long.toHexString(dc.index()) + ": " + dc.wire().bytes().toString());
+            }
+        }
+    }
+}
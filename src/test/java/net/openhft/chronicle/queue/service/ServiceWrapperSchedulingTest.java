@@ -0,0 +1,120 @@
+package net.openhft.chronicle.queue.service;
+
+import net.openhft.chronicle.bytes.MethodReader;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.core.io.IOTools;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.threads.EventGroup;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ServiceWrapperSchedulingTest {
+    private final String marketData = OS.TARGET + "/marketData-" + System.nanoTime();
+    private final String control = OS.TARGET + "/control-" + System.nanoTime();
+    private final String output = OS.TARGET + "/output-" + System.nanoTime();
+    private final List<String> replies = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (String path : Arrays.asList(marketData, control, output))
+            IOTools.deleteDirWithFiles(new File(path), 2);
+    }
+
+    @Test
+    public void shouldReadInWeightedBatches() throws Exception {
+        ServiceWrapperBuilder<HelloReplier> builder = builder().addInputPath(control, 1);
+
+        run(builder, wrapper -> {
+            assertTrue(wrapper.action());
+            assertEquals("[Hello m0, Hello m1, Hello m2, Hello m3, Hello c0]", replies.toString());
+
+            InputStats marketDataStats = wrapper.inputStats()[0];
+            assertEquals(4, marketDataStats.messagesRead());
+            assertEquals(1, marketDataStats.fullBatches());
+            assertEquals(6, marketDataStats.lag());
+            assertEquals(1, wrapper.inputStats()[1].lag());
+        });
+    }
+
+    @Test
+    public void shouldOnlyReadLowerPriorityInputsWhenHigherOnesAreIdle() throws Exception {
+        ServiceWrapperBuilder<HelloReplier> builder = builder().addInputPath(control, 1).strictPriority(true);
+
+        run(builder, wrapper -> {
+            // three batches of market data, and only then the control input
+            for (int i = 0; i < 4; i++)
+                assertTrue(wrapper.action());
+            assertEquals("[Hello m0, Hello m1, Hello m2, Hello m3, Hello m4, Hello m5, Hello m6, Hello m7, " +
+                    "Hello m8, Hello m9, Hello c0]", replies.toString());
+        });
+    }
+
+    private ServiceWrapperBuilder<HelloReplier> builder() {
+        return new ServiceWrapperBuilder<HelloReplier>()
+                .addInputPath(marketData, 4)
+                .outClass(HelloReplier.class)
+                .outputPath(output)
+                .addServiceFunction(HelloWorldImpl::new);
+    }
+
+    private void run(ServiceWrapperBuilder<HelloReplier> builder, WrapperCheck check) throws Exception {
+        try (SingleChronicleQueue marketDataQueue = SingleChronicleQueueBuilder.binary(marketData).testBlockSize().build();
+             SingleChronicleQueue controlQueue = SingleChronicleQueueBuilder.binary(control).testBlockSize().build()) {
+            HelloWorld marketDataWriter = marketDataQueue.acquireAppender().methodWriter(HelloWorld.class);
+            for (int i = 0; i < 10; i++)
+                marketDataWriter.hello("m" + i);
+            HelloWorld controlWriter = controlQueue.acquireAppender().methodWriter(HelloWorld.class);
+            for (int i = 0; i < 2; i++)
+                controlWriter.hello("c" + i);
+
+            // the event loop isn't started, so the test drives the service
+            try (EventGroup eventLoop = new EventGroup(false)) {
+                builder.eventLoop(eventLoop);
+                try (MethodReader replyReader = builder.outputReader((HelloReplier) replies::add);
+                     ServiceWrapper service = builder.get()) {
+                    EventLoopServiceWrapper<HelloReplier> wrapper = (EventLoopServiceWrapper<HelloReplier>) service;
+                    check.check(new ReplyingWrapper(wrapper, replyReader));
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface WrapperCheck {
+        void check(ReplyingWrapper wrapper) throws Exception;
+    }
+
+    /**
+     * Reads the replies written by each action.
+     */
+    static final class ReplyingWrapper {
+        private final EventLoopServiceWrapper<HelloReplier> wrapper;
+        private final MethodReader replyReader;
+
+        ReplyingWrapper(EventLoopServiceWrapper<HelloReplier> wrapper, MethodReader replyReader) {
+            this.wrapper = wrapper;
+            this.replyReader = replyReader;
+        }
+
+        boolean action() throws Exception {
+            boolean busy = wrapper.action();
+            while (replyReader.readOne()) {
+                // collect the replies
+            }
+            return busy;
+        }
+
+        InputStats[] inputStats() {
+            return wrapper.inputStats();
+        }
+    }
+}
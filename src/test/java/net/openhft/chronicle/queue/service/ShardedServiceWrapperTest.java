@@ -0,0 +1,158 @@
+package net.openhft.chronicle.queue.service;
+
+import net.openhft.chronicle.bytes.MethodReader;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.core.io.IOTools;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.threads.EventGroup;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.MessageHistory;
+import net.openhft.chronicle.wire.WireIn;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.*;
+import java.util.function.ToLongFunction;
+
+import static org.junit.Assert.*;
+
+public class ShardedServiceWrapperTest {
+    private static final int SHARDS = 3;
+    private static final int KEYS = 10;
+    private static final int MESSAGES = 200;
+    // the key is the part of the name before the '-'
+    private static final ToLongFunction<WireIn> KEY = wire -> {
+        String name = wire.readEventName(new StringBuilder()).text();
+        return name.substring(0, name.indexOf('-')).hashCode();
+    };
+
+    private final String input = OS.TARGET + "/input-" + System.nanoTime();
+    private final String output = OS.TARGET + "/output-" + System.nanoTime();
+
+    @After
+    public void tearDown() {
+        IOTools.deleteDirWithFiles(new File(input), 2);
+        IOTools.deleteDirWithFiles(new File(output), 2);
+        for (int i = 0; i < SHARDS; i++)
+            IOTools.deleteDirWithFiles(new File(output + "-shard" + i), 2);
+    }
+
+    @Test
+    public void shouldPartitionByKeyWithOwnOutputs() throws Exception {
+        ServiceWrapperBuilder<HelloReplier> builder = builder();
+        try (ServiceWrapper ignored = builder.get()) {
+            writeInput(builder);
+
+            int[] expected = new int[SHARDS];
+            for (int key = 0; key < KEYS; key++)
+                expected[ShardFilter.shardFor(("key" + key).hashCode(), SHARDS)] += MESSAGES / KEYS;
+
+            Set<String> keysSeen = new HashSet<>();
+            for (int i = 0; i < SHARDS; i++) {
+                Map<String, List<Integer>> byKey = readReplies(builder.shardOutputPath(i), expected[i], true);
+                for (Map.Entry<String, List<Integer>> entry : byKey.entrySet()) {
+                    // each key is processed by one shard, in order
+                    assertTrue(keysSeen.add(entry.getKey()));
+                    assertSorted(entry.getValue());
+                }
+            }
+            assertEquals(KEYS, keysSeen.size());
+        }
+    }
+
+    @Test
+    public void shouldPreserveKeyOrderWithSharedOutput() throws Exception {
+        ServiceWrapperBuilder<HelloReplier> builder = builder().sharedOutput(true);
+        try (ServiceWrapper ignored = builder.get()) {
+            writeInput(builder);
+
+            Map<String, List<Integer>> byKey = readReplies(output, MESSAGES, false);
+            assertEquals(KEYS, byKey.size());
+            byKey.values().forEach(ShardedServiceWrapperTest::assertSorted);
+        }
+    }
+
+    @Test
+    public void shouldRunShardsOnTheBuildersEventLoop() throws Exception {
+        EventGroup eventLoop = new EventGroup(false);
+        try {
+            ServiceWrapperBuilder<HelloReplier> builder = builder().sharedOutput(true);
+            builder.eventLoop(eventLoop);
+            try (ServiceWrapper wrapper = builder.get()) {
+                writeInput(builder);
+
+                // nothing is processed until the caller starts its event loop
+                Jvm.pause(100);
+                try (DocumentContext dc = wrapper.outputQueue().createTailer().readingDocument()) {
+                    assertFalse(dc.isPresent());
+                }
+                eventLoop.start();
+
+                Map<String, List<Integer>> byKey = readReplies(output, MESSAGES, false);
+                assertEquals(KEYS, byKey.size());
+                byKey.values().forEach(ShardedServiceWrapperTest::assertSorted);
+            }
+        } finally {
+            eventLoop.close();
+        }
+    }
+
+    private ServiceWrapperBuilder<HelloReplier> builder() {
+        return ServiceWrapperBuilder.serviceBuilder(input, output, HelloReplier.class, HelloWorldImpl::new)
+                .inputSourceId(1)
+                .outputSourceId(2)
+                .shards(SHARDS, KEY);
+    }
+
+    private void writeInput(ServiceWrapperBuilder<HelloReplier> builder) {
+        try (SingleChronicleQueue queue = builder.inputQueue()) {
+            HelloWorld writer = queue.acquireAppender().methodWriterBuilder(HelloWorld.class).recordHistory(true).get();
+            for (int i = 0; i < MESSAGES; i++)
+                writer.hello("key" + (i % KEYS) + "-" + i);
+        }
+    }
+
+    /**
+     * @param inInputOrder whether the replies should be in the order of the input
+     */
+    private Map<String, List<Integer>> readReplies(String path, int expected, boolean inInputOrder) {
+        Map<String, List<Integer>> byKey = new TreeMap<>();
+        long[] lastSourceIndex = {Long.MIN_VALUE};
+        HelloReplier replier = message -> {
+            // "Hello keyN-M"
+            String name = message.substring("Hello ".length());
+            int dash = name.indexOf('-');
+            byKey.computeIfAbsent(name.substring(0, dash), k -> new ArrayList<>())
+                    .add(Integer.parseInt(name.substring(dash + 1)));
+
+            // the history refers to the input, not to anything in between
+            MessageHistory history = MessageHistory.get();
+            assertEquals(1, history.sourceId(0));
+            if (inInputOrder) {
+                assertTrue(history.sourceIndex(0) > lastSourceIndex[0]);
+                lastSourceIndex[0] = history.sourceIndex(0);
+            }
+        };
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(path).testBlockSize().build()) {
+            MethodReader reader = queue.createTailer().methodReader(replier);
+            long end = System.currentTimeMillis() + 10_000;
+            for (int count = 0; count < expected; ) {
+                if (reader.readOne())
+                    count++;
+                else
+                    Jvm.pause(1);
+                assertTrue("Timed out after " + count + " replies", System.currentTimeMillis() < end);
+            }
+        }
+        return byKey;
+    }
+
+    private static void assertSorted(List<Integer> values) {
+        List<Integer> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        assertEquals(sorted, values);
+    }
+}